@@ -0,0 +1,100 @@
+-- Porównanie tabeli zwykłej i partycjonowanej po województwie przy 5M wierszy.
+-- Uruchomienie (osobna baza, nie produkcyjna):
+--   psql -d bench -v rows=5000000 -f docs/benchmarks/mieszkania_partitioning.sql
+-- Skrypt mierzy czas zapytań filtrowanych lokalizacją (EXPLAIN ANALYZE) oraz koszt VACUUM
+-- po aktualizacji 10% wierszy jednego województwa.
+
+\set ON_ERROR_STOP on
+\if :{?rows}
+\else
+\set rows 5000000
+\endif
+\timing on
+
+DROP TABLE IF EXISTS bench_heap;
+DROP TABLE IF EXISTS bench_part;
+
+CREATE TABLE bench_heap (
+    id INTEGER PRIMARY KEY,
+    developer TEXT,
+    investment TEXT,
+    price NUMERIC(12,2),
+    area NUMERIC(10,2),
+    voivodeship TEXT,
+    city TEXT,
+    district TEXT,
+    status VARCHAR(20)
+);
+
+CREATE TABLE bench_part (LIKE bench_heap INCLUDING DEFAULTS) PARTITION BY LIST (voivodeship);
+
+DO $$
+DECLARE
+    v TEXT;
+BEGIN
+    FOREACH v IN ARRAY ARRAY['dolnośląskie', 'kujawsko-pomorskie', 'lubelskie', 'lubuskie', 'łódzkie',
+                             'małopolskie', 'mazowieckie', 'opolskie', 'podkarpackie', 'podlaskie', 'pomorskie',
+                             'śląskie', 'świętokrzyskie', 'warmińsko-mazurskie', 'wielkopolskie',
+                             'zachodniopomorskie']
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF bench_part FOR VALUES IN (%L)',
+                       'bench_part_' || md5(v), v);
+        EXECUTE format('ALTER TABLE %I ADD PRIMARY KEY (id)', 'bench_part_' || md5(v));
+    END LOOP;
+END $$;
+CREATE TABLE bench_part_default PARTITION OF bench_part DEFAULT;
+ALTER TABLE bench_part_default ADD PRIMARY KEY (id);
+
+-- Rozkład zbliżony do danych: duże województwa mają więcej ofert
+INSERT INTO bench_heap
+SELECT g,
+       'developer ' || (g % 400),
+       'investment ' || (g % 5000),
+       (200000 + random() * 1800000)::NUMERIC(12,2),
+       (25 + random() * 100)::NUMERIC(10,2),
+       (ARRAY['mazowieckie', 'mazowieckie', 'mazowieckie', 'małopolskie', 'małopolskie', 'dolnośląskie',
+              'dolnośląskie', 'pomorskie', 'pomorskie', 'wielkopolskie', 'śląskie', 'łódzkie',
+              'zachodniopomorskie', 'kujawsko-pomorskie', 'lubelskie', 'podkarpackie', 'warmińsko-mazurskie',
+              'podlaskie', 'świętokrzyskie', 'opolskie', 'lubuskie'])[1 + (g % 21)],
+       'city ' || (g % 300),
+       'district ' || (g % 2000),
+       (ARRAY['AVAILABLE', 'RESERVED', 'SOLD'])[1 + (g % 3)]
+FROM generate_series(1, :rows) g;
+
+INSERT INTO bench_part SELECT * FROM bench_heap;
+
+CREATE INDEX ON bench_heap (voivodeship, price);
+CREATE INDEX ON bench_heap (city);
+CREATE INDEX ON bench_part (price);
+CREATE INDEX ON bench_part (city);
+VACUUM ANALYZE bench_heap;
+VACUUM ANALYZE bench_part;
+
+-- Zapytania jak w LocationSearchStrategy / AdvancedSearchStrategy (parametry wiązane)
+PREPARE heap_location(TEXT, NUMERIC, NUMERIC) AS
+    SELECT * FROM bench_heap WHERE voivodeship = $1 AND price BETWEEN $2 AND $3 ORDER BY id LIMIT 20;
+PREPARE part_location(TEXT, NUMERIC, NUMERIC) AS
+    SELECT * FROM bench_part WHERE voivodeship = $1 AND price BETWEEN $2 AND $3 ORDER BY id LIMIT 20;
+PREPARE heap_count(TEXT) AS SELECT count(*) FROM bench_heap WHERE voivodeship = $1;
+PREPARE part_count(TEXT) AS SELECT count(*) FROM bench_part WHERE voivodeship = $1;
+
+-- Plan generyczny pokazuje przycinanie w trakcie wykonania ("Subplans Removed")
+SET plan_cache_mode = force_generic_plan;
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE heap_location('opolskie', 300000, 500000);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE part_location('opolskie', 300000, 500000);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE heap_count('mazowieckie');
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE part_count('mazowieckie');
+RESET plan_cache_mode;
+
+-- Koszt VACUUM po zmianie statusu w jednym województwie: zwykła tabela przegląda całą stertę,
+-- partycjonowana tylko zmienioną partycję
+UPDATE bench_heap SET status = 'SOLD' WHERE voivodeship = 'opolskie' AND id % 10 = 0;
+UPDATE bench_part SET status = 'SOLD' WHERE voivodeship = 'opolskie' AND id % 10 = 0;
+VACUUM (VERBOSE) bench_heap;
+-- Autovacuum działa na poziomie partycji, więc odkurzana jest tylko partycja 'opolskie'
+SELECT format('VACUUM (VERBOSE) %I', 'bench_part_' || md5('opolskie')) \gexec
+
+SELECT relname, pg_size_pretty(pg_total_relation_size(oid)) AS size
+FROM pg_class
+WHERE relname IN ('bench_heap', 'bench_part') OR relname LIKE 'bench_part_%' AND relkind = 'r'
+ORDER BY pg_total_relation_size(oid) DESC;
@@ -0,0 +1,99 @@
+package com.example.restate.controller;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.PageResponse;
+import com.example.restate.entity.Mieszkanie;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Budowa odpowiedzi stronicowanych endpointów mieszkań: mapowanie strony encji na DTO i serializacja
+ * do JSON-a mapperem skonfigurowanym jak w Spring Boot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MieszkanieResponseBenchmark {
+
+    private static final String[] CITIES = {"Warszawa", "Kraków", "Wrocław", "Gdańsk", "Poznań"};
+
+    @Param({"10", "100", "1000"})
+    private int rows;
+
+    private MieszkanieController controller;
+    private ObjectMapper objectMapper;
+    private PageResponse<Mieszkanie> page;
+    private PageResponse<MieszkanieDTO> dtoPage;
+
+    @Setup
+    public void setUp() {
+        // Mapowanie nie korzysta z serwisów kontrolera
+        controller = new MieszkanieController(null, null, null, null);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Mieszkanie> content = IntStream.range(0, rows)
+                .mapToObj(MieszkanieResponseBenchmark::mieszkanie)
+                .toList();
+        page = PageResponse.<Mieszkanie>builder()
+                .content(content)
+                .pageNumber(0)
+                .pageSize(rows)
+                .totalElements(rows * 10L)
+                .totalPages(10)
+                .first(true)
+                .last(false)
+                .build();
+        dtoPage = controller.convertToPageResponseDTO(page);
+    }
+
+    @Benchmark
+    public PageResponse<MieszkanieDTO> convertToPageResponseDTO() {
+        return controller.convertToPageResponseDTO(page);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtoPage);
+    }
+
+    @Benchmark
+    public byte[] convertAndSerializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(controller.convertToPageResponseDTO(page));
+    }
+
+    private static Mieszkanie mieszkanie(int i) {
+        Mieszkanie mieszkanie = new Mieszkanie();
+        mieszkanie.setId(i + 1);
+        mieszkanie.setDeveloper("Deweloper " + (i % 20));
+        mieszkanie.setInvestment("Inwestycja " + (i % 50));
+        mieszkanie.setNumber("M" + i);
+        mieszkanie.setArea(BigDecimal.valueOf(3000 + (i % 90) * 100L, 2));
+        mieszkanie.setPrice(BigDecimal.valueOf(35_000_000L + i * 12_345L, 2));
+        mieszkanie.setVoivodeship("Województwo " + (i % 16));
+        mieszkanie.setCity(CITIES[i % CITIES.length]);
+        mieszkanie.setDistrict("Dzielnica " + (i % 10));
+        mieszkanie.setFloor(i % 12);
+        mieszkanie.setStatus(Mieszkanie.Status.values()[i % Mieszkanie.Status.values().length]);
+        mieszkanie.setDescription("Mieszkanie " + (i % 4 + 1) + "-pokojowe, opis oferty numer " + i);
+        return mieszkanie;
+    }
+}
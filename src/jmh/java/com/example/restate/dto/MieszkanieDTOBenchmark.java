@@ -0,0 +1,52 @@
+package com.example.restate.dto;
+
+import com.example.restate.entity.Mieszkanie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapowanie pojedynczej encji na DTO (z wyliczeniem ceny za metr).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MieszkanieDTOBenchmark {
+
+    private Mieszkanie mieszkanie;
+
+    @Setup
+    public void setUp() {
+        mieszkanie = new Mieszkanie();
+        mieszkanie.setId(1);
+        mieszkanie.setDeveloper("Dom Development");
+        mieszkanie.setInvestment("Osiedle Przy Parku");
+        mieszkanie.setNumber("A/12");
+        mieszkanie.setArea(new BigDecimal("54.30"));
+        mieszkanie.setPrice(new BigDecimal("689000.00"));
+        mieszkanie.setVoivodeship("Mazowieckie");
+        mieszkanie.setCity("Warszawa");
+        mieszkanie.setDistrict("Mokotów");
+        mieszkanie.setFloor(3);
+        mieszkanie.setStatus(Mieszkanie.Status.AVAILABLE);
+        mieszkanie.setDescription("Mieszkanie dwupokojowe z balkonem");
+    }
+
+    @Benchmark
+    public MieszkanieDTO fromEntity() {
+        return MieszkanieDTO.fromEntity(mieszkanie);
+    }
+}
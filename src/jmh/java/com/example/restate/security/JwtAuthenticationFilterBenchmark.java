@@ -0,0 +1,95 @@
+package com.example.restate.security;
+
+import com.example.restate.repository.RevokedTokenRepository;
+import com.example.restate.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Przejście żądania z tokenem przez {@link JwtAuthenticationFilter}: token z claimem ról (bez odczytu
+ * użytkownika) i token bez ról (uprawnienia z {@link PrincipalCache}, tu zawsze z cache'a). Tokeny są
+ * wydane po "starcie" instancji i nieunieważnione, jak w typowym ruchu.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtAuthenticationFilterBenchmark {
+
+    private final FilterChain filterChain = (request, response) -> { };
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest requestWithRoles;
+    private MockHttpServletRequest requestWithoutRoles;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(900_000);
+        jwtUtil.init();
+        UserDetails user = User.withUsername("benchmark").password("password").roles("USER").build();
+        Clock startedBefore = Clock.fixed(Instant.now().minus(Duration.ofMinutes(1)), ZoneOffset.UTC);
+        PrincipalCache principalCache = new PrincipalCache(username -> user, 10_000, Duration.ofMinutes(5),
+                Duration.ofMinutes(15), startedBefore);
+        // Repozytorium jest potrzebne tylko przy wczytywaniu i odpytywaniu unieważnień
+        TokenRevocationList tokenRevocationList = new TokenRevocationList(mock(RevokedTokenRepository.class),
+                100_000, startedBefore);
+        filter = new JwtAuthenticationFilter(jwtUtil, principalCache, tokenRevocationList, new SimpleMeterRegistry());
+        requestWithRoles = request(jwtUtil.generateToken(user));
+        requestWithoutRoles = request(jwtUtil.generateToken(user.getUsername()));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication tokenWithRoles() throws ServletException, IOException {
+        return authenticate(requestWithRoles);
+    }
+
+    @Benchmark
+    public Authentication tokenWithoutRoles() throws ServletException, IOException {
+        return authenticate(requestWithoutRoles);
+    }
+
+    private Authentication authenticate(MockHttpServletRequest request) throws ServletException, IOException {
+        try {
+            filter.doFilter(request, response, filterChain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/mieszkania");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.restate.service.search;
+
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.dto.PageResponse;
+import com.example.restate.entity.Mieszkanie;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wybór typu wyszukiwania i wywołanie strategii (razem z metrykami) bez zapytań do bazy - strategie
+ * zwracają gotową stronę.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchContextBenchmark {
+
+    @Param({"SIMPLE", "BY_LOCATION", "ADVANCED"})
+    private SearchStrategy.SearchType expectedType;
+
+    private SearchContext searchContext;
+    private MieszkanieSearchCriteria criteria;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        PageResponse<Mieszkanie> emptyPage = PageResponse.<Mieszkanie>builder()
+                .content(List.of())
+                .first(true)
+                .last(true)
+                .build();
+        List<SearchStrategy> strategies = List.of(
+                new FixedResultStrategy(SearchStrategy.SearchType.SIMPLE, emptyPage),
+                new FixedResultStrategy(SearchStrategy.SearchType.ADVANCED, emptyPage),
+                new FixedResultStrategy(SearchStrategy.SearchType.BY_LOCATION, emptyPage));
+        searchContext = new SearchContext(strategies, new SimpleMeterRegistry());
+        criteria = switch (expectedType) {
+            case SIMPLE -> MieszkanieSearchCriteria.builder().developer("Dom Development").build();
+            case BY_LOCATION -> MieszkanieSearchCriteria.builder().city("Warszawa").district("Mokotów").build();
+            case ADVANCED -> MieszkanieSearchCriteria.builder()
+                    .city("Warszawa")
+                    .minPrice(new BigDecimal("400000"))
+                    .maxPrice(new BigDecimal("900000"))
+                    .build();
+        };
+        pageable = PageRequest.of(0, 10);
+    }
+
+    @Benchmark
+    public SearchStrategy.SearchType determineSearchType() {
+        return searchContext.determineSearchType(criteria);
+    }
+
+    @Benchmark
+    public PageResponse<Mieszkanie> executeAutoSearch() {
+        return searchContext.executeAutoSearch(criteria, pageable);
+    }
+
+    private record FixedResultStrategy(SearchType type, PageResponse<Mieszkanie> result) implements SearchStrategy {
+
+        @Override
+        public PageResponse<Mieszkanie> search(MieszkanieSearchCriteria criteria, Pageable pageable) {
+            return result;
+        }
+
+        @Override
+        public boolean supports(SearchType searchType) {
+            return type == searchType;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.restate.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wydawanie i weryfikacja tokenów JWT. Odczyt tego samego tokenu trafia do cache'a zweryfikowanych
+ * claimów; {@link #extractUsernameUncached()} krąży po puli tokenów wielokrotnie większej od cache'a,
+ * więc prawie zawsze weryfikuje podpis i parsuje JSON.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private static final int UNCACHED_POOL_SIZE = 1 << 16;
+
+    private JwtUtil jwtUtil;
+    private UserDetails userDetails;
+    private String token;
+    private String[] uncachedTokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(900_000);
+        jwtUtil.init();
+        userDetails = User.withUsername("benchmark").password("password").roles("USER").build();
+        token = jwtUtil.generateToken(userDetails);
+        uncachedTokens = new String[UNCACHED_POOL_SIZE];
+        for (int i = 0; i < UNCACHED_POOL_SIZE; i++) {
+            uncachedTokens[i] = jwtUtil.generateToken(userDetails);
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public String extractUsernameUncached() {
+        next = (next + 1) & (UNCACHED_POOL_SIZE - 1);
+        return jwtUtil.extractUsername(uncachedTokens[next]);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token, "benchmark");
+    }
+}
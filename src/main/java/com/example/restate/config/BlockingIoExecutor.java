@@ -0,0 +1,31 @@
+package com.example.restate.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Wątki wirtualne dla blokującego I/O (zapytania do bazy) w kontynuacjach {@code CompletableFuture}.
+ * Kontynuacja bez własnego wykonawcy działa na wątku, który zakończył poprzedni etap - po weryfikacji
+ * hasła byłby to wątek ograniczonej puli {@code PasswordHashingExecutor}, zajęty wtedy czekaniem na bazę.
+ * <p>
+ * Klasa celowo nie implementuje {@link Executor}: bean tego typu wyłączyłby domyślny
+ * {@code applicationTaskExecutor} Spring Boota.
+ */
+@Component
+public class BlockingIoExecutor implements DisposableBean {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public Executor executor() {
+        return executor;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.restate.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Limity żądań per endpoint ({@code rate-limit.policies.<nazwa>.*}).
+ */
+@Data
+@ConfigurationProperties("rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    // Maksymalna liczba kluczy (IP / użytkownik) na politykę - najdawniej używane są usuwane
+    private int maxKeys = 100_000;
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    @Data
+    public static class Policy {
+        private String method = "POST";
+        private String path;
+        // Maksymalna seria żądań
+        private int capacity;
+        // Tempo odnawiania limitu
+        private double refillPerSecond;
+    }
+}
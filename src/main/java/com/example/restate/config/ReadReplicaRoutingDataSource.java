@@ -0,0 +1,77 @@
+package com.example.restate.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Kieruje transakcje tylko do odczytu na replikę, a pozostałe na primary.
+ * <p>
+ * Musi być opakowany w {@code LazyConnectionDataSourceProxy} - dopiero wtedy połączenie jest
+ * pobierane przy pierwszym zapytaniu, gdy flaga read-only transakcji jest już ustawiona. Hibernate
+ * musi oddawać połączenie po każdej transakcji ({@link DataSourceRoutingConfig}), inaczej kolejna
+ * transakcja tego samego żądania użyłaby połączenia wybranego dla poprzedniej.
+ * Transakcja zapisu zalogowanego użytkownika rejestruje go po commicie w {@link ReadYourWritesGuard},
+ * a jego kolejne odczyty przez okno ochronne idą na primary.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final Object WRITE_TRACKING_MARKER = new Object();
+
+    private final ReadYourWritesGuard readYourWritesGuard;
+
+    public ReadReplicaRoutingDataSource(ReadYourWritesGuard readYourWritesGuard) {
+        this.readYourWritesGuard = readYourWritesGuard;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String username = currentUsername();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite(username);
+            return Route.PRIMARY;
+        }
+        if (readYourWritesGuard.requiresPrimary(username)) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+
+    private void trackWrite(String username) {
+        if (username == null
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_TRACKING_MARKER)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITE_TRACKING_MARKER, username);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                readYourWritesGuard.recordWrite(username);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_TRACKING_MARKER);
+            }
+        });
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.restate.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Pamięta użytkowników, którzy niedawno zatwierdzili zapis.
+ * <p>
+ * Replika może być opóźniona względem primary, więc przez {@code window} po własnej zmianie
+ * odczyty danego użytkownika trafiają na primary i widzi on swoje zapisy. Stan jest lokalny
+ * dla instancji - przy kilku węzłach gwarancja obowiązuje dla żądań trafiających na ten sam węzeł.
+ */
+public class ReadYourWritesGuard {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesGuard(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public void recordWrite(String username) {
+        if (username != null) {
+            recentWriters.put(username, Boolean.TRUE);
+        }
+    }
+
+    public boolean requiresPrimary(String username) {
+        return username != null && recentWriters.getIfPresent(username) != null;
+    }
+}
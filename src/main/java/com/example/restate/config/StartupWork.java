@@ -0,0 +1,55 @@
+package com.example.restate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Praca startowa w tle, bez której odpowiedzi byłyby niepełne (indeksy w pamięci ładowane po
+ * {@code ApplicationReadyEvent}). Do jej zakończenia wskaźnik {@code startupWork} zgłasza
+ * OUT_OF_SERVICE, a grupa readiness nie przyjmuje ruchu. Zadanie zakończone błędem nie blokuje
+ * gotowości - błąd widać w szczegółach wskaźnika i w logu.
+ */
+@Component
+@Slf4j
+public class StartupWork implements HealthIndicator {
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> failed = new ConcurrentHashMap<>();
+
+    public void runInBackground(String name, Runnable task) {
+        pending.add(name);
+        Thread.ofVirtual().name(name).start(() -> {
+            try {
+                task.run();
+                failed.remove(name);
+            } catch (RuntimeException e) {
+                failed.put(name, String.valueOf(e.getMessage()));
+                log.error("Startup task {} failed", name, e);
+            } finally {
+                pending.remove(name);
+            }
+        });
+    }
+
+    public boolean isFinished() {
+        return pending.isEmpty();
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = pending.isEmpty() ? Health.up() : Health.outOfService();
+        if (!pending.isEmpty()) {
+            health.withDetail("pending", Set.copyOf(pending));
+        }
+        if (!failed.isEmpty()) {
+            health.withDetail("failed", Map.copyOf(failed));
+        }
+        return health.build();
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.restate.controller;
 
+import com.example.restate.config.BlockingIoExecutor;
 import com.example.restate.dto.AuthRequest;
 import com.example.restate.dto.AuthResponse;
+import com.example.restate.dto.RefreshTokenRequest;
 import com.example.restate.dto.RegisterRequest;
 import com.example.restate.entity.Role;
 import com.example.restate.entity.User;
-import com.example.restate.util.JwtUtil;
+import com.example.restate.service.LoginService;
+import com.example.restate.service.TokenService;
 import com.example.restate.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,13 +18,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -30,41 +32,33 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final UserService userService;
-    private final JwtUtil jwtUtil;
-    private final AuthenticationManager authenticationManager;
+    private final LoginService loginService;
+    private final TokenService tokenService;
+    private final BlockingIoExecutor blockingIoExecutor;
 
     @PostMapping("/login")
-    @Operation(summary = "Login with username and password", description = "Authenticates a user and returns a JWT token")
-    public ResponseEntity<AuthResponse> authenticate(@RequestBody AuthRequest request) {
+    @Operation(summary = "Login with username and password",
+            description = "Authenticates a user and returns a short-lived JWT access token and a refresh token; " +
+                    "503 with Retry-After when too many logins are queued")
+    public CompletableFuture<ResponseEntity<AuthResponse>> authenticate(@RequestBody AuthRequest request) {
         log.info("Login attempt for username: {}", request.getUsername());
 
-        try {
-            // Sprawdź czy użytkownik istnieje
-            if (!userService.existsByUsername(request.getUsername())) {
-                log.warn("User not found: {}", request.getUsername());
-                return ResponseEntity.badRequest().build();
-            }
-
-            // Autentyfikacja przez AuthenticationManager
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
-            );
-
-            log.info("Authentication successful for user: {}", request.getUsername());
-
-            // Pobranie UserDetails po udanej autentyfikacji
-            final UserDetails userDetails = userService.loadUserByUsername(request.getUsername());
-            final String jwt = jwtUtil.generateToken(userDetails.getUsername());
-
-            return ResponseEntity.ok(new AuthResponse(userDetails.getUsername(), jwt));
-
-        } catch (BadCredentialsException e) {
-            log.error("Bad credentials for user: {}", request.getUsername());
-            return ResponseEntity.badRequest().build();
-        } catch (Exception e) {
-            log.error("Authentication error for user: {}: {}", request.getUsername(), e.getMessage(), e);
-            return ResponseEntity.badRequest().build();
-        }
+        // Hasło jest weryfikowane w osobnej puli - wątek żądania wraca do Tomcata. Zapis refresh tokenu
+        // to zapytanie do bazy, więc działa na wątku wirtualnym, a nie na wątku, który skończył poprzedni etap
+        return loginService.login(request.getUsername(), request.getPassword())
+                .thenApplyAsync(user -> {
+                    log.info("Authentication successful for user: {}", user.getUsername());
+                    return ResponseEntity.ok(tokenService.issueTokens(user));
+                }, blockingIoExecutor.executor())
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof BadCredentialsException) {
+                        log.error("Bad credentials for user: {}", request.getUsername());
+                    } else {
+                        log.error("Authentication error for user: {}: {}", request.getUsername(), cause.getMessage(), cause);
+                    }
+                    return ResponseEntity.badRequest().build();
+                });
     }
 
     @PostMapping("/register")
@@ -99,12 +93,9 @@ public class AuthController {
             User registeredUser = userService.registerUser(user);
             log.info("User registered successfully: {}", registeredUser.getUsername());
 
-            // Generate token for the new user
-            final String jwt = jwtUtil.generateToken(registeredUser.getUsername());
-
-            // Return the authentication response
+            // Generate tokens for the new user
             return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(new AuthResponse(registeredUser.getUsername(), jwt));
+                    .body(tokenService.issueTokens(registeredUser));
 
         } catch (Exception e) {
             log.error("Registration error for user: {}: {}", request.getUsername(), e.getMessage(), e);
@@ -112,4 +103,23 @@ public class AuthController {
                     .body("Registration failed: " + e.getMessage());
         }
     }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh access token",
+            description = "Exchanges a refresh token for a new access token and a new refresh token; " +
+                    "the old refresh token can no longer be used")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(tokenService.refresh(request.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Logout",
+            description = "Revokes the bearer access token and, when given, the refresh token with all its rotations")
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authorization,
+                                       @RequestBody(required = false) RefreshTokenRequest request) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7) : null;
+        tokenService.logout(accessToken, request != null ? request.getRefreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,59 @@
+package com.example.restate.controller;
+
+import com.example.restate.dto.DuplicateDTO;
+import com.example.restate.dto.PageResponse;
+import com.example.restate.entity.ListingDuplicate;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.service.DuplicateService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/duplicates")
+@RequiredArgsConstructor
+@Tag(name = "Duplicates", description = "Review of near-duplicate listings")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+public class DuplicateController {
+
+    private final DuplicateService duplicateService;
+
+    @GetMapping
+    @Operation(summary = "Get flagged duplicates", description = "Admin only, most similar pairs first")
+    public ResponseEntity<PageResponse<DuplicateDTO>> getDuplicates(
+            @Parameter(description = "PENDING, MERGED or DISMISSED")
+            @RequestParam(defaultValue = "PENDING") ListingDuplicate.Status status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(duplicateService.getDuplicates(status, PageRequest.of(page, size)));
+    }
+
+    @PostMapping("/{id}/merge")
+    @Operation(summary = "Merge duplicate",
+            description = "Keeps the older listing, fills its empty fields from the newer one and deletes the newer one")
+    public ResponseEntity<Mieszkanie> merge(@PathVariable Long id) {
+        return ResponseEntity.ok(duplicateService.merge(id));
+    }
+
+    @PostMapping("/{id}/dismiss")
+    @Operation(summary = "Dismiss duplicate", description = "Marks the pair as distinct listings")
+    public ResponseEntity<Void> dismiss(@PathVariable Long id) {
+        duplicateService.dismiss(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/scan")
+    @Operation(summary = "Scan listings without fingerprints", description = "Admin only, e.g. after a bulk import")
+    public ResponseEntity<Map<String, Integer>> scan() {
+        return ResponseEntity.ok(Map.of("flagged", duplicateService.scan()));
+    }
+}
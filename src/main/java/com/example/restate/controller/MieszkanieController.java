@@ -3,12 +3,17 @@ package com.example.restate.controller;
 import com.example.restate.dto.CreateMieszkanieDTO;
 import com.example.restate.dto.MieszkanieDTO;
 import com.example.restate.dto.PageResponse;
+import com.example.restate.dto.PriceHistoryDTO;
 import com.example.restate.dto.UpdateMieszkanieDTO;
 import com.example.restate.entity.Mieszkanie;
+import com.example.restate.monitoring.SqlStatementBudget;
 import com.example.restate.service.MieszkanieService;
+import com.example.restate.service.PriceHistoryService;
 import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.service.search.MieszkanieCriteriaMatcher;
 import com.example.restate.service.search.SearchContext;
 import com.example.restate.service.search.SearchStrategy;
+import com.example.restate.service.stream.ListingStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -17,9 +22,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
@@ -32,12 +39,17 @@ import java.util.stream.Collectors;
 @Tag(name = "Mieszkania", description = "Endpoints for managing apartments")
 public class MieszkanieController {
 
+    private static final int MAX_SIMILAR = 50;
+
     private final MieszkanieService mieszkanieService;
     private final SearchContext searchContext;
+    private final ListingStreamService listingStreamService;
+    private final PriceHistoryService priceHistoryService;
 
     @GetMapping
     @Operation(summary = "Get all apartments")
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @SqlStatementBudget(2)
     public ResponseEntity<PageResponse<MieszkanieDTO>> getAllMieszkania(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -53,6 +65,7 @@ public class MieszkanieController {
 
     @GetMapping("/{id}")
     @Operation(summary = "Get apartment by ID")
+    @SqlStatementBudget(1)
     public ResponseEntity<MieszkanieDTO> getMieszkanieById(
             @Parameter(description = "Apartment ID") @PathVariable Integer id) {
         return mieszkanieService.findById(id)
@@ -91,6 +104,7 @@ public class MieszkanieController {
     @GetMapping("/investment/{investment}")
     @Operation(summary = "Get apartments by investment")
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @SqlStatementBudget(2)
     public ResponseEntity<PageResponse<MieszkanieDTO>> getByInvestment(
             @PathVariable String investment,
             @RequestParam(defaultValue = "0") int page,
@@ -112,6 +126,7 @@ public class MieszkanieController {
     @GetMapping("/price-range")
     @Operation(summary = "Get apartments by price range")
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @SqlStatementBudget(2)
     public ResponseEntity<PageResponse<MieszkanieDTO>> getByPriceRange(
             @RequestParam BigDecimal minPrice,
             @RequestParam BigDecimal maxPrice,
@@ -135,6 +150,7 @@ public class MieszkanieController {
     @PostMapping("/search")
     @Operation(summary = "Search apartments by multiple criteria")
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @SqlStatementBudget(2)
     public ResponseEntity<PageResponse<MieszkanieDTO>> searchByCriteria(
             @RequestBody MieszkanieSearchCriteria criteria,
             @RequestParam(defaultValue = "0") int page,
@@ -150,6 +166,14 @@ public class MieszkanieController {
     }
 
 
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream apartment changes matching criteria",
+            description = "Server-Sent Events: CREATED, UPDATED, STATUS_CHANGED and DELETED events for matching apartments")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    public SseEmitter streamChanges(@ModelAttribute MieszkanieSearchCriteria criteria) {
+        return listingStreamService.subscribe(criteria);
+    }
+
     @PatchMapping("/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Change apartment status", description = "Admin only")
@@ -160,6 +184,38 @@ public class MieszkanieController {
         return ResponseEntity.ok(MieszkanieDTO.fromEntity(updated));
     }
 
+    @GetMapping("/{id}/price-history")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @Operation(summary = "Get apartment price history",
+            description = "Every recorded price change, oldest first; kept also after the apartment is deleted")
+    public ResponseEntity<List<PriceHistoryDTO>> getPriceHistory(
+            @Parameter(description = "Apartment ID") @PathVariable Integer id) {
+        return ResponseEntity.ok(priceHistoryService.getHistory(id));
+    }
+
+    @GetMapping("/{id}/similar")
+    @Operation(summary = "Get similar apartments",
+            description = "Nearest apartments in the same city by price, area, floor, district and developer")
+    public ResponseEntity<List<MieszkanieDTO>> getSimilar(
+            @Parameter(description = "Apartment ID") @PathVariable Integer id,
+            @Parameter(description = "Number of results, 1-50") @RequestParam(defaultValue = "10") int k,
+            @Parameter(description = "Status of returned apartments or ANY") @RequestParam(defaultValue = "AVAILABLE") String status) {
+        if (k < 1 || k > MAX_SIMILAR) {
+            throw new IllegalArgumentException("k must be between 1 and " + MAX_SIMILAR);
+        }
+        Mieszkanie.Status statusFilter = null;
+        if (!"ANY".equalsIgnoreCase(status)) {
+            statusFilter = MieszkanieCriteriaMatcher.parseStatus(status);
+            if (statusFilter == null) {
+                throw new IllegalArgumentException("Invalid status: " + status);
+            }
+        }
+        List<MieszkanieDTO> similar = mieszkanieService.findSimilar(id, k, statusFilter).stream()
+                .map(MieszkanieDTO::fromEntity)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(similar);
+    }
+
     // METODY POMOCNICZE
     private Mieszkanie convertToEntity(CreateMieszkanieDTO dto) {
         Mieszkanie mieszkanie = new Mieszkanie();
@@ -178,7 +234,7 @@ public class MieszkanieController {
     }
 
 
-    private PageResponse<MieszkanieDTO> convertToPageResponseDTO(PageResponse<Mieszkanie> pageResponse) {
+    PageResponse<MieszkanieDTO> convertToPageResponseDTO(PageResponse<Mieszkanie> pageResponse) {
         List<MieszkanieDTO> dtos = pageResponse.getContent().stream()
                 .map(MieszkanieDTO::fromEntity)
                 .collect(Collectors.toList());
@@ -0,0 +1,55 @@
+package com.example.restate.controller;
+
+import com.example.restate.dto.CreateSavedSearchDTO;
+import com.example.restate.dto.SavedSearchDTO;
+import com.example.restate.entity.SavedSearch;
+import com.example.restate.service.SavedSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/saved-searches")
+@RequiredArgsConstructor
+@Tag(name = "Saved searches", description = "Saved apartment searches with new match alerts")
+public class SavedSearchController {
+
+    private final SavedSearchService savedSearchService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @Operation(summary = "Get saved searches of the current user")
+    public ResponseEntity<List<SavedSearchDTO>> getSavedSearches(Authentication authentication) {
+        List<SavedSearchDTO> savedSearches = savedSearchService.findByUsername(authentication.getName()).stream()
+                .map(SavedSearchDTO::fromEntity)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(savedSearches);
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @Operation(summary = "Save search", description = "New apartments matching the criteria trigger alerts")
+    public ResponseEntity<SavedSearchDTO> createSavedSearch(
+            Authentication authentication,
+            @Valid @RequestBody CreateSavedSearchDTO dto) {
+        SavedSearch created = savedSearchService.create(authentication.getName(), dto.getName(), dto.getCriteria());
+        return ResponseEntity.status(HttpStatus.CREATED).body(SavedSearchDTO.fromEntity(created));
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @Operation(summary = "Delete saved search")
+    public ResponseEntity<Void> deleteSavedSearch(Authentication authentication, @PathVariable Long id) {
+        savedSearchService.delete(authentication.getName(), id);
+        return ResponseEntity.noContent().build();
+    }
+}
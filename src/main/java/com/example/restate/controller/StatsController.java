@@ -0,0 +1,92 @@
+package com.example.restate.controller;
+
+import com.example.restate.dto.PriceDistributionDTO;
+import com.example.restate.dto.PriceIndexPointDTO;
+import com.example.restate.dto.PriceStatsResponse;
+import com.example.restate.entity.PriceStats;
+import com.example.restate.service.PriceDistributionService;
+import com.example.restate.service.PriceHistoryService;
+import com.example.restate.service.PriceStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+@Tag(name = "Statistics", description = "Market statistics for reports")
+public class StatsController {
+
+    private final PriceStatsService priceStatsService;
+    private final PriceDistributionService priceDistributionService;
+    private final PriceHistoryService priceHistoryService;
+
+    @GetMapping("/prices")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @Operation(summary = "Get price statistics",
+            description = "avg, min, max, median and p90 of price and price per m2 per location group")
+    public ResponseEntity<PriceStatsResponse> getPriceStats(
+            @Parameter(description = "voivodeship, city, district or investment")
+            @RequestParam(defaultValue = "city") String groupBy,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String voivodeship,
+            @RequestParam(required = false) String city) {
+        return ResponseEntity.ok(priceStatsService.getStats(parseGroupType(groupBy), status, voivodeship, city));
+    }
+
+    @PostMapping("/prices/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Recalculate all price statistics", description = "Admin only, e.g. after a bulk import")
+    public ResponseEntity<Void> refreshPriceStats() {
+        priceStatsService.refreshAll();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/distribution")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @Operation(summary = "Get approximate price distribution",
+            description = "Quantiles of price and price per m2 from in-memory sketches; "
+                    + "rankErrorBound is the maximum rank error of returned quantiles")
+    public ResponseEntity<PriceDistributionDTO> getPriceDistribution(
+            @RequestParam(required = false) String voivodeship,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String district,
+            @RequestParam(required = false) String status,
+            @Parameter(description = "Quantiles between 0 and 1, default 0.1,0.25,0.5,0.75,0.9")
+            @RequestParam(required = false) List<Double> quantiles,
+            @Parameter(description = "Price to rank against the segment, e.g. for a good deal badge")
+            @RequestParam(required = false) BigDecimal price) {
+        return ResponseEntity.ok(priceDistributionService.getDistribution(voivodeship, city, district, status,
+                quantiles, price));
+    }
+
+    @GetMapping("/price-index")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
+    @Operation(summary = "Get monthly price index of an investment",
+            description = "Average and median price per m2 at the end of each month; index = 100 in the first month with listings")
+    public ResponseEntity<List<PriceIndexPointDTO>> getPriceIndex(
+            @RequestParam String investment,
+            @Parameter(description = "First month (yyyy-MM), default 11 months before 'to'")
+            @RequestParam(required = false) YearMonth from,
+            @Parameter(description = "Last month (yyyy-MM), default current month")
+            @RequestParam(required = false) YearMonth to) {
+        return ResponseEntity.ok(priceHistoryService.getInvestmentIndex(investment, from, to));
+    }
+
+    private static PriceStats.GroupType parseGroupType(String groupBy) {
+        try {
+            return PriceStats.GroupType.valueOf(groupBy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid groupBy: " + groupBy
+                    + " (expected voivodeship, city, district or investment)");
+        }
+    }
+}
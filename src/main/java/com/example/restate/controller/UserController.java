@@ -1,16 +1,24 @@
 package com.example.restate.controller;
 
+import com.example.restate.dto.BulkUserResultDTO;
+import com.example.restate.dto.CursorPageResponse;
+import com.example.restate.dto.PageResponse;
 import com.example.restate.dto.RegisterRequest;
+import com.example.restate.dto.UpdateProfileDTO;
 import com.example.restate.dto.UpdateUserDTO;
 import com.example.restate.dto.UserProfileDTO;
+import com.example.restate.dto.UserSearchCriteria;
 import com.example.restate.entity.User;
 import com.example.restate.exception.ResourceNotFoundException;
+import com.example.restate.monitoring.SqlStatementBudget;
+import com.example.restate.service.UserProvisioningService;
 import com.example.restate.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -33,17 +41,41 @@ public class UserController {
 
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
+    private final UserProvisioningService userProvisioningService;
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Get all users", description = "Available for admin only")
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userService.findAll());
+    @Operation(summary = "Search users",
+            description = "Admin only. Paged, filtered by role, enabled flag and username/email prefix")
+    public ResponseEntity<PageResponse<UserProfileDTO>> getAllUsers(
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) Boolean enabled,
+            @Parameter(description = "Username or email prefix, case-insensitive")
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        UserSearchCriteria criteria = new UserSearchCriteria(role, enabled, q);
+        return ResponseEntity.ok(userService.search(criteria, PageRequest.of(page, size)));
+    }
+
+    @GetMapping(params = "after")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Search users after a cursor",
+            description = "Admin only. Keyset paging by id without a total count; pass nextCursor as 'after'")
+    public ResponseEntity<CursorPageResponse<UserProfileDTO>> getUsersAfter(
+            @Parameter(description = "Last user ID of the previous page") @RequestParam long after,
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "20") int size) {
+        UserSearchCriteria criteria = new UserSearchCriteria(role, enabled, q);
+        return ResponseEntity.ok(userService.searchAfter(criteria, after, size));
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Get user by ID", description = "Available for admin only")
+    @SqlStatementBudget(1)
     public ResponseEntity<User> getUserById(
             @Parameter(description = "User ID") @PathVariable Long id) {
         return userService.findById(id)
@@ -69,6 +101,7 @@ public class UserController {
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Delete user", description = "Admin only")
+    @SqlStatementBudget(4)
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
         userService.deleteById(id);
         return ResponseEntity.noContent().build();
@@ -94,9 +127,18 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.CREATED).body(responseDTO);
     }
 
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Create many users at once",
+            description = "Admin only. Creates USER accounts and returns a per-user result (CREATED, INVALID or DUPLICATE)")
+    public ResponseEntity<BulkUserResultDTO> createUsers(@RequestBody List<RegisterRequest> users) {
+        return ResponseEntity.ok(userProvisioningService.createUsers(users));
+    }
+
     @GetMapping("/profile")
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
     @Operation(summary = "Get current user profile", description = "Available for all authenticated users")
+    @SqlStatementBudget(1)
     public ResponseEntity<UserProfileDTO> getCurrentUser(Authentication authentication) {
         String username = authentication.getName();
         return userService.findByUsername(username)
@@ -117,12 +159,12 @@ public class UserController {
     @Operation(summary = "Update current user profile", description = "Available for all authenticated users")
     public ResponseEntity<UserProfileDTO> updateCurrentUser(
             Authentication authentication,
-            @Valid @RequestBody UpdateUserDTO updateUserDTO) {
+            @Valid @RequestBody UpdateProfileDTO updateProfileDTO) {
         String username = authentication.getName();
         User existingUser = userService.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
 
-        User userToUpdate = updateUserDTO.toEntity(existingUser);
+        User userToUpdate = updateProfileDTO.toEntity(existingUser);
         User updated = userService.update(existingUser.getId(), userToUpdate);
 
         return ResponseEntity.ok(UserProfileDTO.fromEntity(updated));
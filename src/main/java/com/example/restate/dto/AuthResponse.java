@@ -10,4 +10,5 @@ import lombok.NoArgsConstructor;
 public class AuthResponse {
     private String username;
     private String token;
-}
\ No newline at end of file
+    private String refreshToken;
+}
@@ -0,0 +1,36 @@
+package com.example.restate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUserResultDTO {
+    private int created;
+    private int rejected;
+    // Wynik dla każdego użytkownika w kolejności z żądania
+    private List<Item> results;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private int index;
+        private String username;
+        private Status status;
+        private String message;
+    }
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        DUPLICATE
+    }
+}
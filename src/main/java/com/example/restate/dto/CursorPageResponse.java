@@ -0,0 +1,20 @@
+package com.example.restate.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Strona wyników stronicowanych kluczem (keyset) - bez COUNT i bez OFFSET.
+ * @param <T> Type of data in the page
+ */
+@Data
+@Builder
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int pageSize;
+    /** Wartość parametru {@code after} dla następnej strony; {@code null} na ostatniej stronie. */
+    private Long nextCursor;
+    private boolean last;
+}
@@ -0,0 +1,25 @@
+package com.example.restate.dto;
+
+import com.example.restate.entity.ListingDuplicate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateDTO {
+    private Long id;
+    private BigDecimal similarity;
+    private ListingDuplicate.Status status;
+    private LocalDateTime detectedAt;
+    // Ogłoszenie usuwane przy scaleniu; null, jeśli zostało już usunięte
+    private MieszkanieDTO listing;
+    // Ogłoszenie zachowywane przy scaleniu
+    private MieszkanieDTO duplicateOf;
+}
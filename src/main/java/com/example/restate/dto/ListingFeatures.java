@@ -0,0 +1,18 @@
+package com.example.restate.dto;
+
+import com.example.restate.entity.Mieszkanie;
+
+import java.math.BigDecimal;
+
+/**
+ * Projekcja mieszkania z cechami używanymi do wyszukiwania podobnych ofert.
+ */
+public record ListingFeatures(Integer id, BigDecimal price, BigDecimal area, Integer floor, String city,
+                              String district, String developer, Mieszkanie.Status status) {
+
+    public static ListingFeatures of(MieszkanieDTO mieszkanie) {
+        return new ListingFeatures(mieszkanie.getId(), mieszkanie.getPrice(), mieszkanie.getArea(),
+                mieszkanie.getFloor(), mieszkanie.getCity(), mieszkanie.getDistrict(),
+                mieszkanie.getDeveloper(), mieszkanie.getStatus());
+    }
+}
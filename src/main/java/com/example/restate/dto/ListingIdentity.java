@@ -0,0 +1,16 @@
+package com.example.restate.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Projekcja mieszkania z cechami identyfikującymi lokal - używana do wykrywania duplikatów.
+ */
+public record ListingIdentity(Integer id, String developer, String investment, String number, String city,
+                              BigDecimal area, BigDecimal price, Integer floor) {
+
+    public static ListingIdentity of(MieszkanieDTO mieszkanie) {
+        return new ListingIdentity(mieszkanie.getId(), mieszkanie.getDeveloper(), mieszkanie.getInvestment(),
+                mieszkanie.getNumber(), mieszkanie.getCity(), mieszkanie.getArea(), mieszkanie.getPrice(),
+                mieszkanie.getFloor());
+    }
+}
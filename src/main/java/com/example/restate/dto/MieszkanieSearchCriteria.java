@@ -1,12 +1,16 @@
 package com.example.restate.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class MieszkanieSearchCriteria {
     private String developer;
     private String investment;
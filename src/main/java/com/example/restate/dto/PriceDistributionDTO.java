@@ -0,0 +1,37 @@
+package com.example.restate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceDistributionDTO {
+    private String voivodeship;
+    private String city;
+    private String district;
+    private String status;
+    private long listingCount;
+    // Maksymalny błąd rangi zwracanych kwantyli (np. 0.016 = 1.6 punktu procentowego)
+    private double rankErrorBound;
+    private Distribution price;
+    private Distribution pricePerM2;
+    // Odsetek ofert w segmencie z ceną nie wyższą niż podana w zapytaniu
+    private Double priceRank;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Distribution {
+        private BigDecimal min;
+        private BigDecimal max;
+        private Map<String, BigDecimal> quantiles;
+    }
+}
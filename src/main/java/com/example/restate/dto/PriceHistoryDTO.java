@@ -0,0 +1,24 @@
+package com.example.restate.dto;
+
+import com.example.restate.entity.PriceHistoryEntry;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceHistoryDTO {
+    private BigDecimal price;
+    private BigDecimal pricePerM2;
+    // Zmiana względem poprzedniego wpisu; null dla pierwszego wpisu
+    private BigDecimal change;
+    private BigDecimal changePercent;
+    private PriceHistoryEntry.Source source;
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,23 @@
+package com.example.restate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceIndexPointDTO {
+    private YearMonth month;
+    // Liczba mieszkań inwestycji wystawionych na koniec miesiąca
+    private long listingCount;
+    private BigDecimal avgPricePerM2;
+    private BigDecimal medianPricePerM2;
+    // Średnia cena za m² względem pierwszego miesiąca zakresu (= 100)
+    private BigDecimal index;
+}
@@ -0,0 +1,17 @@
+package com.example.restate.dto;
+
+import com.example.restate.entity.Mieszkanie;
+
+import java.math.BigDecimal;
+
+/**
+ * Projekcja mieszkania potrzebna do szkiców rozkładu cen - bez ładowania encji.
+ */
+public record PriceSample(String voivodeship, String city, String district, Mieszkanie.Status status,
+                          BigDecimal price, BigDecimal area) {
+
+    public static PriceSample of(MieszkanieDTO mieszkanie) {
+        return new PriceSample(mieszkanie.getVoivodeship(), mieszkanie.getCity(), mieszkanie.getDistrict(),
+                mieszkanie.getStatus(), mieszkanie.getPrice(), mieszkanie.getArea());
+    }
+}
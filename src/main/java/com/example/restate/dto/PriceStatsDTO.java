@@ -0,0 +1,64 @@
+package com.example.restate.dto;
+
+import com.example.restate.entity.PriceStats;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceStatsDTO {
+    private String voivodeship;
+    private String city;
+    private String district;
+    private String investment;
+    private String status;
+    private long listingCount;
+    private Summary price;
+    private Summary pricePerM2;
+    private LocalDateTime refreshedAt;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Summary {
+        private BigDecimal avg;
+        private BigDecimal min;
+        private BigDecimal max;
+        private BigDecimal median;
+        private BigDecimal p90;
+    }
+
+    public static PriceStatsDTO fromEntity(PriceStats stats) {
+        return PriceStatsDTO.builder()
+                .voivodeship(stats.getVoivodeship())
+                .city(stats.getCity())
+                .district(stats.getDistrict())
+                .investment(stats.getInvestment())
+                .status(stats.getStatus())
+                .listingCount(stats.getListingCount())
+                .price(Summary.builder()
+                        .avg(stats.getAvgPrice())
+                        .min(stats.getMinPrice())
+                        .max(stats.getMaxPrice())
+                        .median(stats.getMedianPrice())
+                        .p90(stats.getP90Price())
+                        .build())
+                .pricePerM2(Summary.builder()
+                        .avg(stats.getAvgPricePerM2())
+                        .min(stats.getMinPricePerM2())
+                        .max(stats.getMaxPricePerM2())
+                        .median(stats.getMedianPricePerM2())
+                        .p90(stats.getP90PricePerM2())
+                        .build())
+                .refreshedAt(stats.getRefreshedAt())
+                .build();
+    }
+}
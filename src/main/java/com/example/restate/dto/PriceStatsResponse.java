@@ -0,0 +1,20 @@
+package com.example.restate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceStatsResponse {
+    private String groupBy;
+    private String status;
+    private LocalDateTime lastRefreshedAt;
+    private List<PriceStatsDTO> stats;
+}
@@ -0,0 +1,18 @@
+package com.example.restate.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Refresh token request")
+public class RefreshTokenRequest {
+    @NotBlank(message = "Refresh token is required")
+    @Schema(description = "Refresh token returned by login, register or a previous refresh")
+    private String refreshToken;
+}
@@ -0,0 +1,29 @@
+package com.example.restate.dto;
+
+import com.example.restate.entity.SavedSearch;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SavedSearchDTO {
+    private Long id;
+    private String name;
+    private MieszkanieSearchCriteria criteria;
+    private LocalDateTime createdAt;
+
+    public static SavedSearchDTO fromEntity(SavedSearch savedSearch) {
+        return SavedSearchDTO.builder()
+                .id(savedSearch.getId())
+                .name(savedSearch.getName())
+                .criteria(savedSearch.toCriteria())
+                .createdAt(savedSearch.getCreatedAt())
+                .build();
+    }
+}
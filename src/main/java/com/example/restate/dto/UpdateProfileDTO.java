@@ -0,0 +1,48 @@
+package com.example.restate.dto;
+
+import com.example.restate.entity.User;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.Email;
+
+/**
+ * Zmiana własnego profilu ({@code PUT /api/users/me}). W przeciwieństwie do {@link UpdateUserDTO}
+ * nie ma roli ani flagi aktywności - te pola zmienia tylko administrator, a przesłane w żądaniu są pomijane.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UpdateProfileDTO {
+    private String username;
+    private String password;
+
+    @Email
+    private String email;
+
+    private String firstName;
+    private String lastName;
+
+    /**
+     * Odłączony obiekt jak w {@link UpdateUserDTO#toEntity(User)}; rola i aktywność zawsze z {@code existingUser}.
+     */
+    public User toEntity(User existingUser) {
+        User user = new User();
+        user.setId(existingUser.getId());
+        user.setUsername(username != null ? username : existingUser.getUsername());
+        user.setEmail(email != null ? email : existingUser.getEmail());
+        user.setFirstName(firstName != null ? firstName : existingUser.getFirstName());
+        user.setLastName(lastName != null ? lastName : existingUser.getLastName());
+        user.setRole(existingUser.getRole());
+        user.setEnabled(existingUser.isEnabled());
+        user.setCreatedAt(existingUser.getCreatedAt());
+        if (password != null && !password.isEmpty()) user.setPassword(password);
+
+        return user;
+    }
+}
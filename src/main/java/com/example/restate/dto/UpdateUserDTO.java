@@ -31,15 +31,23 @@ public class UpdateUserDTO {
     private Boolean enabled;
     private LocalDateTime createdAt;
 
+    /**
+     * Nowy, odłączony obiekt ze zmianami nałożonymi na stan {@code existingUser}. Encja z kontrolera jest
+     * zarządzana (open-in-view), więc zmiana jej pól ukryłaby poprzedni stan przed
+     * {@code UserService.update}. Hasło jest ustawiane tylko, gdy przyszło w żądaniu - w postaci jawnej.
+     */
     public User toEntity(User existingUser) {
-        if (username != null) existingUser.setUsername(username);
-        if (email != null) existingUser.setEmail(email);
-        if (firstName != null) existingUser.setFirstName(firstName);
-        if (lastName != null) existingUser.setLastName(lastName);
-        if (role != null) existingUser.setRole(role);
-        if (enabled != null) existingUser.setEnabled(enabled);
-        if (password != null && !password.isEmpty()) existingUser.setPassword(password);
+        User user = new User();
+        user.setId(existingUser.getId());
+        user.setUsername(username != null ? username : existingUser.getUsername());
+        user.setEmail(email != null ? email : existingUser.getEmail());
+        user.setFirstName(firstName != null ? firstName : existingUser.getFirstName());
+        user.setLastName(lastName != null ? lastName : existingUser.getLastName());
+        user.setRole(role != null ? role : existingUser.getRole());
+        user.setEnabled(enabled != null ? enabled : existingUser.isEnabled());
+        user.setCreatedAt(existingUser.getCreatedAt());
+        if (password != null && !password.isEmpty()) user.setPassword(password);
 
-        return existingUser;
+        return user;
     }
 }
@@ -0,0 +1,18 @@
+package com.example.restate.dto;
+
+import com.example.restate.entity.Role;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchCriteria {
+    private Role role;
+    private Boolean enabled;
+    /** Początek nazwy użytkownika lub adresu e-mail, bez rozróżniania wielkości liter. */
+    private String query;
+}
@@ -0,0 +1,54 @@
+package com.example.restate.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "listing_duplicates",
+        uniqueConstraints = @UniqueConstraint(name = "uk_listing_duplicates_pair",
+                columnNames = {"mieszkanie_id", "duplicate_of_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class ListingDuplicate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Nowsze ogłoszenie - usuwane przy scaleniu
+    @Column(name = "mieszkanie_id", nullable = false)
+    private Integer mieszkanieId;
+
+    // Starsze ogłoszenie - zachowywane przy scaleniu
+    @Column(name = "duplicate_of_id", nullable = false)
+    private Integer duplicateOfId;
+
+    @Column(name = "similarity", nullable = false, precision = 4, scale = 3)
+    private BigDecimal similarity;
+
+    @Column(name = "status", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+
+    @Column(name = "resolved_at")
+    private LocalDateTime resolvedAt;
+
+    public enum Status {
+        PENDING,
+        MERGED,
+        DISMISSED
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.restate.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Klucz jednego pasma sygnatury MinHash mieszkania. Zapisywany przez {@code DuplicateDetector}
+ * bezpośrednio przez JDBC; encja opisuje schemat.
+ */
+@Entity
+@Table(name = "listing_fingerprints", indexes = @Index(name = "idx_listing_fingerprints_bucket", columnList = "band, bucket"))
+@IdClass(ListingFingerprint.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class ListingFingerprint {
+
+    @Id
+    @Column(name = "mieszkanie_id")
+    private Integer mieszkanieId;
+
+    @Id
+    @Column(name = "band")
+    private Short band;
+
+    @Column(name = "bucket", nullable = false)
+    private Long bucket;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Integer mieszkanieId;
+        private Short band;
+    }
+}
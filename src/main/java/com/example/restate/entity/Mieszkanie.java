@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -23,6 +24,10 @@ import org.hibernate.annotations.UpdateTimestamp;
 @ToString(exclude = "createdBy")
 public class Mieszkanie {
 
+    // Tabela jest partycjonowana po województwie, a klucz główny istnieje tylko w każdej partycji (V4).
+    // Unikalność id w całej tabeli zapewnia sekwencja - aplikacja nigdy nie ustawia id sama, a wstawienie
+    // powtórzonego id (import CSV) odrzuca wyzwalacz z V13. Historia cen, odciski i powiadomienia odwołują się
+    // po samym id.
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer  id;
@@ -74,6 +79,21 @@ public class Mieszkanie {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    public void setVoivodeship(String voivodeship) {
+        this.voivodeship = normalizeVoivodeship(voivodeship);
+    }
+
+    /**
+     * Województwo w postaci wartości partycji tabeli mieszkania (V4): małe litery, bez spacji na brzegach.
+     * Pisownia z API ("Mazowieckie", " śląskie") trafia dzięki temu do właściwej partycji, a nie do domyślnej.
+     */
+    public static String normalizeVoivodeship(String voivodeship) {
+        if (voivodeship == null || voivodeship.isBlank()) {
+            return null;
+        }
+        return voivodeship.strip().toLowerCase(Locale.ROOT);
+    }
+
     public enum Status {
         AVAILABLE,
         RESERVED,
@@ -0,0 +1,52 @@
+package com.example.restate.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "price_history")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class PriceHistoryEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "mieszkanie_id", nullable = false)
+    private Integer mieszkanieId;
+
+    @Column(name = "investment")
+    private String investment;
+
+    // null - mieszkanie zostało usunięte
+    @Column(name = "price", precision = 12, scale = 2)
+    private BigDecimal price;
+
+    @Column(name = "area", precision = 10, scale = 2)
+    private BigDecimal area;
+
+    @Column(name = "source", nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    private Source source;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    public enum Source {
+        CREATE,
+        UPDATE,
+        DELETE,
+        IMPORT
+    }
+}
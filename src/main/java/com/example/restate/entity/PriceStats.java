@@ -0,0 +1,102 @@
+package com.example.restate.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Wiersz tabeli podsumowań cen. Tabelę zapisuje wyłącznie {@code PriceStatsServiceImpl}
+ * zapytaniami SQL; encja służy do odczytu.
+ */
+@Entity
+@Table(name = "price_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_price_stats_group",
+                columnNames = {"group_type", "group_key", "status"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class PriceStats {
+
+    public static final String ALL_STATUSES = "ALL";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "group_type", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private GroupType groupType;
+
+    @Column(name = "group_key", nullable = false)
+    private String groupKey;
+
+    @Column(name = "voivodeship")
+    private String voivodeship;
+
+    @Column(name = "city")
+    private String city;
+
+    @Column(name = "district")
+    private String district;
+
+    @Column(name = "investment")
+    private String investment;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "listing_count", nullable = false)
+    private long listingCount;
+
+    @Column(name = "avg_price", precision = 14, scale = 2)
+    private BigDecimal avgPrice;
+
+    @Column(name = "min_price", precision = 14, scale = 2)
+    private BigDecimal minPrice;
+
+    @Column(name = "max_price", precision = 14, scale = 2)
+    private BigDecimal maxPrice;
+
+    @Column(name = "median_price", precision = 14, scale = 2)
+    private BigDecimal medianPrice;
+
+    @Column(name = "p90_price", precision = 14, scale = 2)
+    private BigDecimal p90Price;
+
+    @Column(name = "avg_price_per_m2", precision = 14, scale = 2)
+    private BigDecimal avgPricePerM2;
+
+    @Column(name = "min_price_per_m2", precision = 14, scale = 2)
+    private BigDecimal minPricePerM2;
+
+    @Column(name = "max_price_per_m2", precision = 14, scale = 2)
+    private BigDecimal maxPricePerM2;
+
+    @Column(name = "median_price_per_m2", precision = 14, scale = 2)
+    private BigDecimal medianPricePerM2;
+
+    @Column(name = "p90_price_per_m2", precision = 14, scale = 2)
+    private BigDecimal p90PricePerM2;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+
+    /**
+     * Poziom grupowania - każdy kolejny zawiera kolumny poprzedniego, więc np. dzielnice
+     * o tej samej nazwie w różnych miastach są osobnymi grupami.
+     */
+    public enum GroupType {
+        VOIVODESHIP,
+        CITY,
+        DISTRICT,
+        INVESTMENT
+    }
+}
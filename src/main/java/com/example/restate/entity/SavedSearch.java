@@ -0,0 +1,106 @@
+package com.example.restate.entity;
+
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "saved_searches")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "user")
+public class SavedSearch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private User user;
+
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+
+    @Column(name = "developer")
+    private String developer;
+
+    @Column(name = "investment")
+    private String investment;
+
+    @Column(name = "city")
+    private String city;
+
+    @Column(name = "district")
+    private String district;
+
+    @Column(name = "voivodeship")
+    private String voivodeship;
+
+    @Column(name = "floor")
+    private Integer floor;
+
+    @Column(name = "min_price", precision = 12, scale = 2)
+    private BigDecimal minPrice;
+
+    @Column(name = "max_price", precision = 12, scale = 2)
+    private BigDecimal maxPrice;
+
+    @Column(name = "min_area", precision = 10, scale = 2)
+    private BigDecimal minArea;
+
+    @Column(name = "max_area", precision = 10, scale = 2)
+    private BigDecimal maxArea;
+
+    @Column(name = "status", length = 20)
+    private String status;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    public MieszkanieSearchCriteria toCriteria() {
+        return MieszkanieSearchCriteria.builder()
+                .developer(developer)
+                .investment(investment)
+                .city(city)
+                .district(district)
+                .voivodeship(voivodeship)
+                .floor(floor)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minArea(minArea)
+                .maxArea(maxArea)
+                .status(status)
+                .build();
+    }
+
+    public void applyCriteria(MieszkanieSearchCriteria criteria) {
+        this.developer = criteria.getDeveloper();
+        this.investment = criteria.getInvestment();
+        this.city = criteria.getCity();
+        this.district = criteria.getDistrict();
+        this.voivodeship = criteria.getVoivodeship();
+        this.floor = criteria.getFloor();
+        this.minPrice = criteria.getMinPrice();
+        this.maxPrice = criteria.getMaxPrice();
+        this.minArea = criteria.getMinArea();
+        this.maxArea = criteria.getMaxArea();
+        this.status = criteria.getStatus();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.restate.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Dopasowanie zapisanego wyszukiwania czekające na wysyłkę. Zapisywane i wysyłane przez
+ * {@code SavedSearchNotificationQueue} bezpośrednio przez JDBC; encja opisuje schemat.
+ */
+@Entity
+@Table(name = "saved_search_notifications", uniqueConstraints = @UniqueConstraint(
+        name = "uk_saved_search_notification_event", columnNames = {"saved_search_id", "outbox_event_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = {"savedSearch", "listing"})
+public class SavedSearchNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "saved_search_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private SavedSearch savedSearch;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "mieszkanie_id", nullable = false)
+    private Integer mieszkanieId;
+
+    @Column(name = "outbox_event_id", nullable = false)
+    private Long outboxEventId;
+
+    // Migawka mieszkania (JSON MieszkanieDTO) z chwili dopasowania
+    @Column(name = "listing", nullable = false, columnDefinition = "TEXT")
+    private String listing;
+
+    @Column(name = "matched_at", nullable = false)
+    private LocalDateTime matchedAt;
+}
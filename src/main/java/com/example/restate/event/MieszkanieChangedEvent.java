@@ -0,0 +1,60 @@
+package com.example.restate.event;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.entity.Mieszkanie;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Zdarzenie publikowane przez {@code MieszkanieServiceImpl} po każdej zmianie mieszkania.
+ * Niesie migawki DTO (stan sprzed i po zmianie), więc słuchacze działający po commicie
+ * nie dotykają encji ani sesji Hibernate.
+ */
+@Getter
+@RequiredArgsConstructor
+@ToString
+public class MieszkanieChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        STATUS_CHANGED,
+        DELETED
+    }
+
+    private final ChangeType type;
+    private final Integer mieszkanieId;
+    private final MieszkanieDTO previous;
+    private final MieszkanieDTO current;
+    private final Instant occurredAt = Instant.now();
+
+    // Factory Method Pattern
+    public static MieszkanieChangedEvent created(Mieszkanie mieszkanie) {
+        return new MieszkanieChangedEvent(ChangeType.CREATED, mieszkanie.getId(),
+                null, MieszkanieDTO.fromEntity(mieszkanie));
+    }
+
+    public static MieszkanieChangedEvent updated(MieszkanieDTO previous, Mieszkanie mieszkanie) {
+        return new MieszkanieChangedEvent(ChangeType.UPDATED, mieszkanie.getId(),
+                previous, MieszkanieDTO.fromEntity(mieszkanie));
+    }
+
+    public static MieszkanieChangedEvent statusChanged(MieszkanieDTO previous, Mieszkanie mieszkanie) {
+        return new MieszkanieChangedEvent(ChangeType.STATUS_CHANGED, mieszkanie.getId(),
+                previous, MieszkanieDTO.fromEntity(mieszkanie));
+    }
+
+    public static MieszkanieChangedEvent deleted(MieszkanieDTO previous) {
+        return new MieszkanieChangedEvent(ChangeType.DELETED, previous.getId(), previous, null);
+    }
+
+    /**
+     * Najnowszy znany stan mieszkania - dla usunięcia jest to stan sprzed usunięcia.
+     */
+    public MieszkanieDTO getLatest() {
+        return current != null ? current : previous;
+    }
+}
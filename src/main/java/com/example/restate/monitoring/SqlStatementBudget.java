@@ -0,0 +1,20 @@
+package com.example.restate.monitoring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maksymalna liczba instrukcji SQL (Hibernate) na jedno wywołanie endpointu. Na metodzie lub na
+ * klasie kontrolera; bez adnotacji obowiązuje {@code sql.statement-budget.default}.
+ * Przekroczenie w produkcji kończy się ostrzeżeniem w logu, w testach - błędem żądania.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SqlStatementBudget {
+
+    int value();
+}
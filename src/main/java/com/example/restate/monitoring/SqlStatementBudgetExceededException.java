@@ -0,0 +1,12 @@
+package com.example.restate.monitoring;
+
+/**
+ * Żądanie wykonało więcej instrukcji SQL niż pozwala jego {@link SqlStatementBudget}
+ * (zgłaszane tylko przy {@code sql.statement-budget.enforce=true}, czyli w testach).
+ */
+public class SqlStatementBudgetExceededException extends IllegalStateException {
+
+    public SqlStatementBudgetExceededException(int budget, int count, String sql) {
+        super("SQL statement budget of " + budget + " exceeded (" + count + " statements), last statement: " + sql);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.restate.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.Map;
+
+/**
+ * Otwiera licznik {@link SqlStatementCounter} dla każdego żądania obsługiwanego przez kontroler
+ * i po zakończeniu porównuje go z budżetem endpointu. Liczba instrukcji trafia do logu (DEBUG), a przy
+ * {@code sql.statement-budget.header-enabled} także do nagłówka {@value #HEADER}.
+ */
+@Component
+@Slf4j
+public class SqlStatementBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String HEADER = "X-SQL-Statements";
+
+    private final int defaultBudget;
+    private final int repeatWarnThreshold;
+    private final boolean enforce;
+    private final boolean headerEnabled;
+
+    public SqlStatementBudgetInterceptor(@Value("${sql.statement-budget.default:50}") int defaultBudget,
+                                         @Value("${sql.statement-budget.repeat-warn-threshold:10}") int repeatWarnThreshold,
+                                         @Value("${sql.statement-budget.enforce:false}") boolean enforce,
+                                         @Value("${sql.statement-budget.header-enabled:false}") boolean headerEnabled) {
+        this.defaultBudget = defaultBudget;
+        this.repeatWarnThreshold = repeatWarnThreshold;
+        this.enforce = enforce;
+        this.headerEnabled = headerEnabled;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            SqlStatementCounter.open(budgetOf(handlerMethod), enforce);
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        // Odpowiedzi bez ciała; dla @ResponseBody nagłówek ustawia SqlStatementHeaderAdvice przed zapisem
+        SqlStatementCounter.Scope scope = SqlStatementCounter.current();
+        if (headerEnabled && scope != null && !response.isCommitted()) {
+            response.setHeader(HEADER, String.valueOf(scope.getCount()));
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        SqlStatementCounter.Scope scope = SqlStatementCounter.current();
+        SqlStatementCounter.close();
+        if (scope == null) {
+            return;
+        }
+        String endpoint = request.getMethod() + " " + request.getRequestURI();
+        log.debug("{} executed {} SQL statements", endpoint, scope.getCount());
+        if (scope.isOverBudget()) {
+            log.warn("{} executed {} SQL statements, over its budget of {}", endpoint, scope.getCount(),
+                    scope.getBudget());
+        }
+        scope.mostRepeated()
+                .filter(statement -> statement.getValue() >= repeatWarnThreshold)
+                .ifPresent(statement -> log.warn("Possible N+1 in {}: statement executed {} times: {}",
+                        endpoint, statement.getValue(), statement.getKey()));
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        // Żądanie asynchroniczne (SSE) zwalnia wątek - licznik nie może na nim zostać
+        SqlStatementCounter.close();
+    }
+
+    boolean isHeaderEnabled() {
+        return headerEnabled;
+    }
+
+    private int budgetOf(HandlerMethod handlerMethod) {
+        SqlStatementBudget budget = handlerMethod.getMethodAnnotation(SqlStatementBudget.class);
+        if (budget == null) {
+            budget = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), SqlStatementBudget.class);
+        }
+        return budget != null ? budget.value() : defaultBudget;
+    }
+}
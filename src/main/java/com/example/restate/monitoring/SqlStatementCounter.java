@@ -0,0 +1,106 @@
+package com.example.restate.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Liczy instrukcje SQL wykonywane przez Hibernate w bieżącym żądaniu.
+ * <p>
+ * Hibernate tworzy inspektor sam (właściwość {@code hibernate.session_factory.statement_inspector}),
+ * więc licznik żądania trzymany jest w {@link ThreadLocal}. Zapytania wykonywane na innych wątkach
+ * (np. {@code PageQueryExecutor}) liczą się do żądania, jeśli wątek dostanie ten sam {@link Scope}
+ * przez {@link #bind(Scope)}. Instrukcje {@code JdbcTemplate} nie przechodzą przez Hibernate i nie są liczone.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Zaczyna liczenie na bieżącym wątku.
+     *
+     * @param budget  dopuszczalna liczba instrukcji, ujemna = bez limitu
+     * @param enforce czy przekroczenie limitu przerywa żądanie wyjątkiem (testy)
+     */
+    public static Scope open(int budget, boolean enforce) {
+        Scope scope = new Scope(budget, enforce);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    public static void bind(Scope scope) {
+        if (scope != null) {
+            CURRENT.set(scope);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    public static final class Scope {
+
+        private final int budget;
+        private final boolean enforce;
+        private final AtomicInteger count = new AtomicInteger();
+        // Powtórzenia tej samej instrukcji (z parametrami jako ?) zdradzają N+1
+        private final Map<String, AtomicInteger> executions = new ConcurrentHashMap<>();
+
+        private Scope(int budget, boolean enforce) {
+            this.budget = budget;
+            this.enforce = enforce;
+        }
+
+        void record(String sql) {
+            int total = count.incrementAndGet();
+            executions.computeIfAbsent(sql, key -> new AtomicInteger()).incrementAndGet();
+            if (enforce && isOverBudget(total)) {
+                throw new SqlStatementBudgetExceededException(budget, total, sql);
+            }
+        }
+
+        public int getCount() {
+            return count.get();
+        }
+
+        public int getBudget() {
+            return budget;
+        }
+
+        public boolean isOverBudget() {
+            return isOverBudget(count.get());
+        }
+
+        /**
+         * Najczęściej powtarzana instrukcja i liczba jej wykonań.
+         */
+        public Optional<Map.Entry<String, Integer>> mostRepeated() {
+            return executions.entrySet().stream()
+                    .max(Comparator.comparingInt(entry -> entry.getValue().get()))
+                    .map(entry -> Map.entry(entry.getKey(), entry.getValue().get()));
+        }
+
+        private boolean isOverBudget(int total) {
+            return budget >= 0 && total > budget;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.restate.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Dopisuje nagłówek {@value SqlStatementBudgetInterceptor#HEADER} przed zapisem ciała odpowiedzi, póki
+ * nagłówki można jeszcze zmienić. Zapytania wykonane później (leniwe ładowanie przy serializacji)
+ * widać już tylko w logu i w budżecie.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class SqlStatementHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    private final SqlStatementBudgetInterceptor sqlStatementBudgetInterceptor;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return sqlStatementBudgetInterceptor.isHeaderEnabled();
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatementCounter.Scope scope = SqlStatementCounter.current();
+        if (scope != null) {
+            response.getHeaders().set(SqlStatementBudgetInterceptor.HEADER, String.valueOf(scope.getCount()));
+        }
+        return body;
+    }
+}
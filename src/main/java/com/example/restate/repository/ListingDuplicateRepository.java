@@ -0,0 +1,15 @@
+package com.example.restate.repository;
+
+import com.example.restate.entity.ListingDuplicate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ListingDuplicateRepository extends JpaRepository<ListingDuplicate, Long> {
+
+    Page<ListingDuplicate> findByStatus(ListingDuplicate.Status status, Pageable pageable);
+
+    long countByStatus(ListingDuplicate.Status status);
+}
@@ -1,15 +1,23 @@
 package com.example.restate.repository;
 
+import com.example.restate.dto.ListingFeatures;
+import com.example.restate.dto.ListingIdentity;
+import com.example.restate.dto.PriceSample;
 import com.example.restate.entity.Mieszkanie;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface MieszkanieRepository extends JpaRepository<Mieszkanie, Integer> {
@@ -41,4 +49,33 @@ public interface MieszkanieRepository extends JpaRepository<Mieszkanie, Integer>
     @Query("SELECT DISTINCT m.developer FROM Mieszkanie m")
     List<String> findAllDevelopers();
 
+    // Strumień wymaga aktywnej transakcji
+    @Query("SELECT new com.example.restate.dto.PriceSample(m.voivodeship, m.city, m.district, m.status, m.price, m.area) " +
+           "FROM Mieszkanie m")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<PriceSample> streamPriceSamples();
+
+    @Query("SELECT new com.example.restate.dto.PriceSample(m.voivodeship, m.city, m.district, m.status, m.price, m.area) " +
+           "FROM Mieszkanie m WHERE " +
+           "(m.voivodeship = :voivodeship OR (:voivodeship IS NULL AND m.voivodeship IS NULL)) AND " +
+           "(m.city = :city OR (:city IS NULL AND m.city IS NULL)) AND " +
+           "(m.district = :district OR (:district IS NULL AND m.district IS NULL)) AND " +
+           "(m.status = :status OR (:status IS NULL AND m.status IS NULL))")
+    List<PriceSample> findPriceSamples(@Param("voivodeship") String voivodeship,
+                                       @Param("city") String city,
+                                       @Param("district") String district,
+                                       @Param("status") Mieszkanie.Status status);
+
+    @Query("SELECT new com.example.restate.dto.ListingFeatures(m.id, m.price, m.area, m.floor, m.city, " +
+           "m.district, m.developer, m.status) FROM Mieszkanie m")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<ListingFeatures> streamListingFeatures();
+
+    @Query("SELECT new com.example.restate.dto.ListingFeatures(m.id, m.price, m.area, m.floor, m.city, " +
+           "m.district, m.developer, m.status) FROM Mieszkanie m WHERE m.id = :id")
+    Optional<ListingFeatures> findListingFeaturesById(@Param("id") Integer id);
+
+    @Query("SELECT new com.example.restate.dto.ListingIdentity(m.id, m.developer, m.investment, m.number, m.city, " +
+           "m.area, m.price, m.floor) FROM Mieszkanie m WHERE m.id IN :ids")
+    List<ListingIdentity> findIdentitiesByIdIn(@Param("ids") Collection<Integer> ids);
 }
@@ -0,0 +1,42 @@
+package com.example.restate.repository;
+
+import com.example.restate.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // SKIP LOCKED pozwala kilku instancjom relay pobierać rozłączne paczki bez czekania na siebie.
+    // Zdarzenie jest pobierane dopiero, gdy żadne wcześniejsze zdarzenie tego samego agregatu nie czeka -
+    // także pobrane przez inną instancję albo odłożone do ponowienia - więc agregat przetwarza jeden węzeł
+    // naraz i w kolejności id
+    @Query(value = "SELECT * FROM outbox_events e WHERE e.status = 'PENDING' AND e.available_at <= :now " +
+            "AND NOT EXISTS (SELECT 1 FROM outbox_events p WHERE p.status = 'PENDING' " +
+            "AND p.aggregate_type = e.aggregate_type AND p.aggregate_id = e.aggregate_id AND p.id < e.id) " +
+            "ORDER BY e.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.availableAt = :until WHERE e.id IN :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = com.example.restate.entity.OutboxEvent.Status.PROCESSED, " +
+            "e.processedAt = :processedAt WHERE e.id IN :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("processedAt") LocalDateTime processedAt);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = com.example.restate.entity.OutboxEvent.Status.PROCESSED " +
+            "AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+
+    long countByStatus(OutboxEvent.Status status);
+}
@@ -0,0 +1,13 @@
+package com.example.restate.repository;
+
+import com.example.restate.entity.PriceHistoryEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PriceHistoryRepository extends JpaRepository<PriceHistoryEntry, Long> {
+
+    List<PriceHistoryEntry> findByMieszkanieIdOrderByChangedAtAscIdAsc(Integer mieszkanieId);
+}
@@ -0,0 +1,22 @@
+package com.example.restate.repository;
+
+import com.example.restate.entity.PriceStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PriceStatsRepository extends JpaRepository<PriceStats, Long> {
+
+    @Query("SELECT p FROM PriceStats p WHERE p.groupType = :groupType AND p.status = :status " +
+            "AND (:voivodeship IS NULL OR p.voivodeship = :voivodeship) " +
+            "AND (:city IS NULL OR p.city = :city) " +
+            "ORDER BY p.listingCount DESC, p.groupKey")
+    List<PriceStats> findStats(@Param("groupType") PriceStats.GroupType groupType,
+                               @Param("status") String status,
+                               @Param("voivodeship") String voivodeship,
+                               @Param("city") String city);
+}
@@ -0,0 +1,30 @@
+package com.example.restate.repository;
+
+import com.example.restate.entity.SavedSearch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SavedSearchRepository extends JpaRepository<SavedSearch, Long> {
+
+    List<SavedSearch> findByUserUsernameOrderByCreatedAtDesc(String username);
+
+    Optional<SavedSearch> findByIdAndUserUsername(Long id, String username);
+
+    long countByUserUsername(String username);
+
+    // Używane przy budowie indeksu dopasowań - użytkownik pobierany od razu
+    @Query("SELECT s FROM SavedSearch s JOIN FETCH s.user")
+    List<SavedSearch> findAllWithUser();
+
+    @Query("SELECT s FROM SavedSearch s JOIN FETCH s.user WHERE s.id = :id")
+    Optional<SavedSearch> findWithUserById(@Param("id") Long id);
+
+    @Query("SELECT s FROM SavedSearch s JOIN FETCH s.user u WHERE u.id = :userId")
+    List<SavedSearch> findAllWithUserByUserId(@Param("userId") Long userId);
+}
@@ -1,33 +1,62 @@
 package com.example.restate.security;
 
 import com.example.restate.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
-
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Uwierzytelnia żądania z nagłówkiem {@code Authorization: Bearer}. Uprawnienia pochodzą z claimu ról
+ * zweryfikowanego tokenu; baza (przez {@link PrincipalCache}) jest potrzebna tylko dla tokenów bez
+ * ról i dla użytkowników zmienionych po wydaniu tokenu. Unieważnione tokeny (wylogowanie, zmiana hasła,
+ * blokada konta) są odrzucane na podstawie {@link TokenRevocationList} w pamięci. Czas obsługi tokenu
+ * mierzy timer {@code restate.security.jwt} z tagiem wyniku.
+ */
 @Component
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    // Logowanie, rejestracja i odświeżenie tokenu (także za prefiksem kontekstu aplikacji)
+    private static final Pattern SKIP_AUTHENTICATION = Pattern.compile("/api/auth/(?:login|register|refresh)/?$");
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, @Lazy UserDetailsService userDetailsService) {
+    private final JwtUtil jwtUtil;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationList tokenRevocationList;
+    private final MeterRegistry meterRegistry;
+    private final Timer authenticatedTimer;
+    private final Timer revokedTimer;
+    private final Timer rejectedTimer;
+    private final Timer invalidTimer;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, PrincipalCache principalCache,
+                                   TokenRevocationList tokenRevocationList, MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.tokenRevocationList = tokenRevocationList;
+        this.meterRegistry = meterRegistry;
+        this.authenticatedTimer = timer(meterRegistry, "authenticated");
+        this.revokedTimer = timer(meterRegistry, "revoked");
+        this.rejectedTimer = timer(meterRegistry, "rejected");
+        this.invalidTimer = timer(meterRegistry, "invalid");
     }
 
     @Override
@@ -35,14 +64,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
-        // Wrap the response to ensure content is preserved
-        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
-
-        // Skip authentication for login and register endpoints
-        String requestPath = request.getRequestURI();
-        if (requestPath.contains("/api/auth/login") || requestPath.contains("/api/auth/register")) {
-            filterChain.doFilter(request, responseWrapper);
-            responseWrapper.copyBodyToResponse();
+        // Response is passed through unwrapped, so bodies are streamed to the client as they are written
+        if (SKIP_AUTHENTICATION.matcher(request.getRequestURI()).find()) {
+            filterChain.doFilter(request, response);
             return;
         }
 
@@ -50,39 +74,58 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         // If no Authorization header, continue without authentication
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            filterChain.doFilter(request, responseWrapper);
-            responseWrapper.copyBodyToResponse();
+            filterChain.doFilter(request, response);
             return;
         }
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Timer outcome = authenticatedTimer;
         try {
             String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
+            Claims claims = jwtUtil.extractClaims(token);
+            String username = claims.getSubject();
+            Instant issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
 
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (username != null && tokenRevocationList.isRevoked(claims.getId(), username, issuedAt)) {
+                outcome = revokedTimer;
+                log.debug("Rejected revoked token of user: {}", username);
+            } else if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                Optional<Collection<? extends GrantedAuthority>> authorities = resolveAuthorities(username, claims, issuedAt);
 
-                if (jwtUtil.validateToken(token, userDetails.getUsername())) {
+                if (authorities.isPresent()) {
                     UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                            new UsernamePasswordAuthenticationToken(username, null, authorities.get());
 
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
 
                     log.debug("Successfully authenticated user: {}", username);
                 } else {
+                    outcome = rejectedTimer;
                     log.warn("Invalid JWT token for user: {}", username);
                 }
             }
         } catch (Exception e) {
+            outcome = invalidTimer;
             log.error("JWT authentication failed: {}", e.getMessage());
             SecurityContextHolder.clearContext();
         }
+        sample.stop(outcome);
 
-        // Continue the filter chain with the wrapped response
-        filterChain.doFilter(request, responseWrapper);
+        filterChain.doFilter(request, response);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String outcome) {
+        return meterRegistry.timer("restate.security.jwt", "outcome", outcome);
+    }
 
-        // Copy the content from the wrapper to the original response
-        responseWrapper.copyBodyToResponse();
+    private Optional<Collection<? extends GrantedAuthority>> resolveAuthorities(String username, Claims claims,
+                                                                               Instant issuedAt) {
+        List<String> roles = jwtUtil.extractRoles(claims);
+        if (roles != null && !principalCache.requiresCheck(username, issuedAt)) {
+            return Optional.of(roles.stream().map(SimpleGrantedAuthority::new).toList());
+        }
+        // Token bez ról albo użytkownik zmieniony po wydaniu tokenu - aktualny stan z bazy
+        return principalCache.getAuthorities(username);
     }
 }
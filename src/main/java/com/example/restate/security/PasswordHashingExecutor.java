@@ -0,0 +1,92 @@
+package com.example.restate.security;
+
+import com.example.restate.exception.ServiceOverloadedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Ograniczona pula do weryfikacji i liczenia skrótów haseł (BCrypt).
+ * <p>
+ * BCrypt zajmuje procesor na dziesiątki milisekund, więc pula ma tyle wątków, ile rdzeni, i kolejkę
+ * o stałej pojemności. Przy pełnej kolejce zadanie jest od razu odrzucane wyjątkiem
+ * {@link ServiceOverloadedException} (503 z {@code Retry-After}), zamiast blokować wątki Tomcata
+ * w oczekiwaniu na procesor.
+ */
+@Component
+@Slf4j
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+
+    public PasswordHashingExecutor(@Value("${security.password-hashing.threads:0}") int threads,
+                                   @Value("${security.password-hashing.queue-capacity:32}") int queueCapacity,
+                                   @Value("${security.password-hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            log.debug("Password hashing queue is full ({} waiting)", executor.getQueue().size());
+            throw new ServiceOverloadedException("Too many login attempts, try again later", retryAfterSeconds);
+        }
+    }
+
+    /**
+     * Liczy {@code task} dla wszystkich elementów, mając w puli naraz najwyżej tyle zadań, ile wątków -
+     * duża partia nie zajmuje kolejki, na którą czekają logowania. Gdy kolejka i tak jest pełna,
+     * zadanie wykonuje wątek wywołujący.
+     *
+     * @return wyniki w kolejności elementów
+     */
+    public <T, R> List<R> computeAll(List<T> items, Function<T, R> task) {
+        Semaphore inFlight = new Semaphore(executor.getMaximumPoolSize());
+        List<CompletableFuture<R>> results = new ArrayList<>(items.size());
+        for (T item : items) {
+            inFlight.acquireUninterruptibly();
+            CompletableFuture<R> result;
+            try {
+                result = CompletableFuture.supplyAsync(() -> task.apply(item), executor);
+            } catch (RejectedExecutionException e) {
+                result = CompletableFuture.completedFuture(task.apply(item));
+            }
+            results.add(result.whenComplete((value, ex) -> inFlight.release()));
+        }
+        return results.stream().map(CompletableFuture::join).toList();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.restate.security;
+
+import com.example.restate.service.cache.CacheInvalidationListener;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import com.example.restate.util.JwtUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Uprawnienia użytkowników dla {@link JwtAuthenticationFilter}.
+ * <p>
+ * Token z claimem ról jest przyjmowany bez zapytania do bazy, chyba że użytkownik zmienił się po
+ * wydaniu tokenu (zmiana roli, blokada, usunięcie) albo token pochodzi sprzed startu tej instancji -
+ * znaczniki zmian są trzymane tylko w pamięci. Wtedy, tak jak dla tokenów bez ról, uprawnienia
+ * pochodzą z bazy przez ograniczony cache z TTL. Oba są czyszczone wiadomościami {@code user}
+ * z {@link com.example.restate.service.cache.CacheInvalidationBus}, także z innych instancji.
+ */
+@Component
+@Slf4j
+public class PrincipalCache implements CacheInvalidationListener {
+
+    private final UserDetailsService userDetailsService;
+    private final Cache<String, CachedPrincipal> principals;
+    private final Cache<String, Instant> changedAt;
+    private final Clock clock;
+    private volatile Instant allChangedAt;
+
+    @Autowired
+    public PrincipalCache(@Lazy UserDetailsService userDetailsService,
+                          JwtUtil jwtUtil,
+                          @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${security.principal-cache.ttl-ms:300000}") long ttlMs) {
+        this(userDetailsService, maxSize, Duration.ofMillis(ttlMs), Duration.ofMillis(jwtUtil.getExpirationMs()),
+                Clock.systemUTC());
+    }
+
+    PrincipalCache(UserDetailsService userDetailsService, long maxSize, Duration ttl, Duration tokenLifetime,
+                   Clock clock) {
+        this.userDetailsService = userDetailsService;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        // Znacznik jest potrzebny tylko, dopóki mogą istnieć tokeny wydane przed zmianą
+        this.changedAt = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(tokenLifetime)
+                .build();
+        this.clock = clock;
+        this.allChangedAt = clock.instant();
+    }
+
+    /**
+     * Czy role z tokenu wydanego w {@code issuedAt} mogą być nieaktualne.
+     */
+    public boolean requiresCheck(String username, Instant issuedAt) {
+        if (issuedAt == null || !issuedAt.isAfter(allChangedAt)) {
+            return true;
+        }
+        Instant changed = changedAt.getIfPresent(username);
+        // iat ma dokładność do sekundy, więc token z tej samej sekundy co zmiana też jest sprawdzany
+        return changed != null && !issuedAt.isAfter(changed);
+    }
+
+    /**
+     * Aktualne uprawnienia użytkownika; puste, gdy użytkownik nie istnieje lub jest zablokowany.
+     */
+    public Optional<Collection<? extends GrantedAuthority>> getAuthorities(String username) {
+        CachedPrincipal principal = principals.get(username, this::load);
+        return principal.enabled() ? Optional.of(principal.authorities()) : Optional.empty();
+    }
+
+    @Override
+    public void onInvalidation(CacheInvalidationMessage message) {
+        if (!CacheInvalidationMessage.USER.equals(message.getEntity())) {
+            return;
+        }
+        Instant now = clock.instant();
+        List<String> usernames = message.getKeys() == null ? List.of() : message.getKeys().stream()
+                .filter(key -> key.startsWith(CacheInvalidationMessage.USERNAME_KEY))
+                .map(key -> key.substring(CacheInvalidationMessage.USERNAME_KEY.length()))
+                .toList();
+        if (usernames.isEmpty()) {
+            invalidateAll(now);
+            return;
+        }
+        for (String username : usernames) {
+            changedAt.put(username, now);
+            principals.invalidate(username);
+        }
+        log.debug("Invalidated principals {}", usernames);
+    }
+
+    @Override
+    public void onFullFlush() {
+        invalidateAll(clock.instant());
+    }
+
+    private void invalidateAll(Instant now) {
+        allChangedAt = now;
+        principals.invalidateAll();
+        log.debug("Invalidated all principals");
+    }
+
+    private CachedPrincipal load(String username) {
+        try {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            return new CachedPrincipal(List.copyOf(userDetails.getAuthorities()), userDetails.isEnabled());
+        } catch (UsernameNotFoundException e) {
+            return new CachedPrincipal(List.of(), false);
+        }
+    }
+
+    private record CachedPrincipal(Collection<? extends GrantedAuthority> authorities, boolean enabled) {
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.restate.security;
+
+import com.example.restate.config.RateLimitProperties;
+import com.example.restate.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Ogranicza liczbę żądań do wybranych endpointów (logowanie, wyszukiwanie) per użytkownik,
+ * a dla anonimowych żądań per adres IP.
+ * <p>
+ * Każda polityka ma własną mapę kubełków ograniczoną do {@code rate-limit.max-keys} kluczy;
+ * kubełek nieużywany dłużej niż czas pełnego odnowienia jest usuwany, bo i tak byłby pełny.
+ * Odpowiedzi niosą nagłówki {@code RateLimit-*}, a odrzucone żądania dostają 429 z {@code Retry-After}.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String LIMIT_HEADER = "RateLimit-Limit";
+    static final String REMAINING_HEADER = "RateLimit-Remaining";
+    static final String RESET_HEADER = "RateLimit-Reset";
+    static final String POLICY_HEADER = "RateLimit-Policy";
+
+    private final List<LimitedEndpoint> endpoints;
+    private final LongSupplier nanoClock;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    public RateLimitFilter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    RateLimitFilter(RateLimitProperties properties, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.endpoints = properties.getPolicies().entrySet().stream()
+                .map(entry -> new LimitedEndpoint(entry.getKey(), entry.getValue(), properties.getMaxKeys()))
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return endpointFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        LimitedEndpoint endpoint = endpointFor(request);
+        String clientKey = clientKey(request);
+        long now = nanoClock.getAsLong();
+        TokenBucket bucket = endpoint.buckets.get(clientKey, key -> new TokenBucket(now));
+        TokenBucket.Decision decision = bucket.tryConsume(now, endpoint.intervalNanos, endpoint.capacity);
+
+        response.setHeader(LIMIT_HEADER, String.valueOf(endpoint.capacity));
+        response.setHeader(REMAINING_HEADER, String.valueOf(decision.remaining()));
+        response.setHeader(RESET_HEADER, String.valueOf(toSeconds(decision.resetNanos())));
+        response.setHeader(POLICY_HEADER, endpoint.policyHeader);
+
+        if (decision.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfter = Math.max(toSeconds(decision.retryAfterNanos()), 1);
+        log.debug("Rate limit '{}' exceeded for {}", endpoint.name, clientKey);
+        writeTooManyRequests(response, retryAfter);
+    }
+
+    private LimitedEndpoint endpointFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (LimitedEndpoint endpoint : endpoints) {
+            if (endpoint.method.equalsIgnoreCase(request.getMethod()) && endpoint.path.equals(path)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Zalogowani użytkownicy mają limit niezależny od adresu, pozostali dzielą limit adresu IP.
+     * Za load balancerem {@code getRemoteAddr()} zwraca adres klienta z {@code X-Forwarded-For}
+     * ({@code server.forward-headers-strategy=native}) - nagłówek jest brany pod uwagę tylko od
+     * zaufanych proxy ({@code server.tomcat.remoteip.internal-proxies}).
+     */
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void writeTooManyRequests(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .error("Too Many Requests")
+                .message("Rate limit exceeded, try again in " + retryAfterSeconds + " s")
+                .build();
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    private static long toSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static final class LimitedEndpoint {
+        private final String name;
+        private final String method;
+        private final String path;
+        private final int capacity;
+        private final long intervalNanos;
+        private final String policyHeader;
+        private final Cache<String, TokenBucket> buckets;
+
+        LimitedEndpoint(String name, RateLimitProperties.Policy policy, int maxKeys) {
+            if (policy.getPath() == null || policy.getCapacity() <= 0 || policy.getRefillPerSecond() <= 0) {
+                throw new IllegalArgumentException("Invalid rate limit policy '" + name
+                        + "': path, capacity and refill-per-second are required");
+            }
+            this.name = name;
+            this.method = policy.getMethod();
+            this.path = policy.getPath();
+            this.capacity = policy.getCapacity();
+            this.intervalNanos = Math.round(TimeUnit.SECONDS.toNanos(1) / policy.getRefillPerSecond());
+            long windowNanos = intervalNanos * capacity;
+            this.policyHeader = capacity + ";w=" + toSeconds(windowNanos);
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(Duration.ofNanos(windowNanos))
+                    .build();
+        }
+    }
+}
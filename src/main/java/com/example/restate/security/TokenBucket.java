@@ -0,0 +1,45 @@
+package com.example.restate.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kubełek tokenów bez blokad w wariancie GCRA: zamiast liczby tokenów i czasu ostatniego
+ * uzupełnienia przechowuje jedną liczbę - teoretyczny czas przybycia następnego żądania (TAT).
+ * Uzupełnianie jest leniwe (wynika z różnicy TAT i bieżącego czasu), a zużycie tokenu to jeden CAS.
+ */
+final class TokenBucket {
+
+    private final AtomicLong theoreticalArrivalNanos;
+
+    TokenBucket(long nowNanos) {
+        this.theoreticalArrivalNanos = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @param intervalNanos czas odnowienia jednego tokenu
+     * @param capacity      maksymalna seria
+     */
+    Decision tryConsume(long nowNanos, long intervalNanos, int capacity) {
+        long burstNanos = intervalNanos * capacity;
+        while (true) {
+            long tat = theoreticalArrivalNanos.get();
+            long newTat = Math.max(tat, nowNanos) + intervalNanos;
+            long backlog = newTat - nowNanos;
+            if (backlog > burstNanos) {
+                long backlogNow = Math.max(tat - nowNanos, 0);
+                return new Decision(false, 0, backlogNow, backlog - burstNanos);
+            }
+            if (theoreticalArrivalNanos.compareAndSet(tat, newTat)) {
+                int remaining = (int) ((burstNanos - backlog) / intervalNanos);
+                return new Decision(true, remaining, backlog, 0);
+            }
+        }
+    }
+
+    /**
+     * @param resetNanos      czas do pełnego odnowienia limitu
+     * @param retryAfterNanos czas do najbliższego dozwolonego żądania (0, gdy dozwolone)
+     */
+    record Decision(boolean allowed, int remaining, long resetNanos, long retryAfterNanos) {
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.restate.security;
+
+import com.example.restate.entity.RevokedToken;
+import com.example.restate.repository.RevokedTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unieważnione tokeny dostępu w pamięci, sprawdzane przez {@link JwtAuthenticationFilter} przy każdym
+ * żądaniu bez zapytania do bazy.
+ * <p>
+ * Filtr Blooma odpowiada "na pewno nie" dla prawie wszystkich tokenów; tylko trafienia są sprawdzane
+ * w dokładnym zbiorze. Wpisy to pojedyncze tokeny (jti) albo znacznik użytkownika, unieważniający
+ * wszystkie jego tokeny wydane do danej chwili. Stan jest odtwarzany z tabeli {@code revoked_tokens}
+ * przy starcie i co kilka sekund uzupełniany o wpisy dodane przez inne instancje. Wygasłe wpisy są
+ * usuwane, a filtr - którego nie da się pomniejszyć - budowany od nowa z dokładnego zbioru.
+ */
+@Component
+@Slf4j
+public class TokenRevocationList {
+
+    public static final String USER_KEY = "user:";
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    // Zapas na transakcje zatwierdzone po poprzednim odczycie i różnice zegarów między instancjami
+    private static final Duration POLL_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int expectedEntries;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private volatile BloomFilter filter;
+    private int filterCapacity;
+    private volatile Instant lastPoll;
+
+    @Autowired
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               @Value("${security.revocation.expected-entries:100000}") int expectedEntries) {
+        this(revokedTokenRepository, expectedEntries, Clock.systemUTC());
+    }
+
+    TokenRevocationList(RevokedTokenRepository revokedTokenRepository, int expectedEntries, Clock clock) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedEntries = expectedEntries;
+        this.clock = clock;
+        this.filterCapacity = expectedEntries;
+        this.filter = new BloomFilter(filterCapacity, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Wczytanie przed przyjęciem pierwszego żądania - inaczej unieważnione tokeny działałyby po restarcie.
+     */
+    @PostConstruct
+    public void load() {
+        Instant now = clock.instant();
+        List<RevokedToken> active = revokedTokenRepository.findByExpiresAtAfter(toUtc(now));
+        synchronized (writeLock) {
+            active.forEach(this::addEntry);
+            lastPoll = now;
+        }
+        log.info("Loaded {} token revocations", active.size());
+    }
+
+    /**
+     * @param tokenId  jti tokenu albo null dla tokenów wydanych bez niego
+     * @param issuedAt iat tokenu; token bez iat jest traktowany jak najstarszy
+     */
+    public boolean isRevoked(String tokenId, String username, Instant issuedAt) {
+        BloomFilter current = filter;
+        if (tokenId != null && current.mightContain(tokenId) && entries.containsKey(tokenId)) {
+            return true;
+        }
+        String userKey = USER_KEY + username;
+        if (!current.mightContain(userKey)) {
+            return false;
+        }
+        Entry entry = entries.get(userKey);
+        // iat ma dokładność do sekundy, więc token z tej samej sekundy co unieważnienie też jest odrzucany
+        return entry != null && (issuedAt == null || !issuedAt.isAfter(entry.revokedAt()));
+    }
+
+    /**
+     * Dodaje wpis zapisany właśnie w tabeli; inne instancje odczytają go przy najbliższym odpytaniu.
+     */
+    public void add(RevokedToken revokedToken) {
+        synchronized (writeLock) {
+            addEntry(revokedToken);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.poll-interval-ms:2000}")
+    public void poll() {
+        Instant now = clock.instant();
+        List<RevokedToken> recent = revokedTokenRepository.findByRevokedAtAfter(toUtc(lastPoll.minus(POLL_OVERLAP)));
+        synchronized (writeLock) {
+            recent.forEach(this::addEntry);
+            lastPoll = now;
+            if (entries.values().removeIf(entry -> !entry.expiresAt().isAfter(now))) {
+                rebuildFilter();
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void addEntry(RevokedToken revokedToken) {
+        Instant revokedAt = revokedToken.getRevokedAt().toInstant(ZoneOffset.UTC);
+        Instant expiresAt = revokedToken.getExpiresAt().toInstant(ZoneOffset.UTC);
+        entries.merge(revokedToken.getTokenKey(), new Entry(revokedAt, expiresAt), Entry::latest);
+        if (entries.size() > filterCapacity) {
+            rebuildFilter();
+        } else {
+            filter.put(revokedToken.getTokenKey());
+        }
+    }
+
+    /**
+     * Wywoływane pod blokadą zapisu, więc żaden wpis nie ominie nowego filtra.
+     */
+    private void rebuildFilter() {
+        filterCapacity = Math.max(expectedEntries, entries.size() * 2);
+        BloomFilter rebuilt = new BloomFilter(filterCapacity, FALSE_POSITIVE_RATE);
+        entries.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        log.debug("Rebuilt token revocation filter with {} entries", entries.size());
+    }
+
+    private static LocalDateTime toUtc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private record Entry(Instant revokedAt, Instant expiresAt) {
+
+        Entry latest(Entry other) {
+            return new Entry(
+                    revokedAt.isAfter(other.revokedAt) ? revokedAt : other.revokedAt,
+                    expiresAt.isAfter(other.expiresAt) ? expiresAt : other.expiresAt);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.restate.service;
+
+import com.example.restate.dto.DuplicateDTO;
+import com.example.restate.dto.PageResponse;
+import com.example.restate.entity.ListingDuplicate;
+import com.example.restate.entity.Mieszkanie;
+import org.springframework.data.domain.Pageable;
+
+public interface DuplicateService {
+    PageResponse<DuplicateDTO> getDuplicates(ListingDuplicate.Status status, Pageable pageable);
+    Mieszkanie merge(Long id);
+    void dismiss(Long id);
+    int scan();
+}
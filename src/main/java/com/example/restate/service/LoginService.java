@@ -0,0 +1,9 @@
+package com.example.restate.service;
+
+import com.example.restate.entity.User;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface LoginService {
+    CompletableFuture<User> login(String username, String password);
+}
@@ -28,4 +28,5 @@ public interface MieszkanieService extends BaseService<Mieszkanie, Integer> {
     List<String> getAllDevelopers();
     Mieszkanie changeStatus(Integer id, Mieszkanie.Status newStatus);
     Mieszkanie updateFromDTO(Integer id, UpdateMieszkanieDTO dto);
+    List<Mieszkanie> findSimilar(Integer id, int k, Mieszkanie.Status status);
 }
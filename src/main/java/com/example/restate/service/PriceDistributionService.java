@@ -0,0 +1,13 @@
+package com.example.restate.service;
+
+import com.example.restate.dto.PriceDistributionDTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface PriceDistributionService {
+    PriceDistributionDTO getDistribution(String voivodeship, String city, String district, String status,
+                                         List<Double> quantiles, BigDecimal price);
+    void loadAll();
+    int rebuildStaleSegments();
+}
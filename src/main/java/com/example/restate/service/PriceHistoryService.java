@@ -0,0 +1,13 @@
+package com.example.restate.service;
+
+import com.example.restate.dto.PriceHistoryDTO;
+import com.example.restate.dto.PriceIndexPointDTO;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface PriceHistoryService {
+    List<PriceHistoryDTO> getHistory(Integer mieszkanieId);
+    List<PriceIndexPointDTO> getInvestmentIndex(String investment, YearMonth from, YearMonth to);
+    void ensurePartitions();
+}
@@ -0,0 +1,10 @@
+package com.example.restate.service;
+
+import com.example.restate.dto.PriceStatsResponse;
+import com.example.restate.entity.PriceStats;
+
+public interface PriceStatsService {
+    PriceStatsResponse getStats(PriceStats.GroupType groupBy, String status, String voivodeship, String city);
+    void refreshAll();
+    int refreshDirtyGroups();
+}
@@ -0,0 +1,12 @@
+package com.example.restate.service;
+
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.entity.SavedSearch;
+
+import java.util.List;
+
+public interface SavedSearchService {
+    List<SavedSearch> findByUsername(String username);
+    SavedSearch create(String username, String name, MieszkanieSearchCriteria criteria);
+    void delete(String username, Long id);
+}
@@ -0,0 +1,11 @@
+package com.example.restate.service;
+
+import com.example.restate.dto.AuthResponse;
+import com.example.restate.entity.User;
+
+public interface TokenService {
+    AuthResponse issueTokens(User user);
+    AuthResponse refresh(String refreshToken);
+    void logout(String accessToken, String refreshToken);
+    void revokeAllTokens(String username);
+}
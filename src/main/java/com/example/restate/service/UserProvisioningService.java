@@ -0,0 +1,10 @@
+package com.example.restate.service;
+
+import com.example.restate.dto.BulkUserResultDTO;
+import com.example.restate.dto.RegisterRequest;
+
+import java.util.List;
+
+public interface UserProvisioningService {
+    BulkUserResultDTO createUsers(List<RegisterRequest> users);
+}
@@ -1,6 +1,11 @@
 package com.example.restate.service;
 
+import com.example.restate.dto.CursorPageResponse;
+import com.example.restate.dto.PageResponse;
+import com.example.restate.dto.UserProfileDTO;
+import com.example.restate.dto.UserSearchCriteria;
 import com.example.restate.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 import java.util.List;
@@ -11,6 +16,8 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 
 public interface UserService extends UserDetailsService {
     List<User> findAll();
+    PageResponse<UserProfileDTO> search(UserSearchCriteria criteria, Pageable pageable);
+    CursorPageResponse<UserProfileDTO> searchAfter(UserSearchCriteria criteria, long afterId, int size);
     Optional<User> findById(Long id);
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
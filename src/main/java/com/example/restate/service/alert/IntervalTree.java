@@ -0,0 +1,89 @@
+package com.example.restate.service.alert;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Statyczne drzewo przedziałów domkniętych [low, high].
+ * <p>
+ * Przedziały są posortowane po początku i ułożone w niejawne zrównoważone drzewo BST na tablicy;
+ * każdy węzeł przechowuje maksymalny koniec przedziału w swoim poddrzewie. Zapytanie o punkt
+ * kosztuje O(log n + k). Drzewo jest niezmienne - zmiana zbioru przedziałów oznacza zbudowanie
+ * nowego drzewa.
+ */
+final class IntervalTree<T> {
+
+    private final double[] low;
+    private final double[] high;
+    private final double[] maxHigh;
+    private final List<T> values;
+
+    private IntervalTree(double[] low, double[] high, List<T> values) {
+        this.low = low;
+        this.high = high;
+        this.values = values;
+        this.maxHigh = new double[low.length];
+        computeMaxHigh(0, low.length - 1);
+    }
+
+    static <T> IntervalTree<T> build(List<Interval<T>> intervals) {
+        List<Interval<T>> sorted = new ArrayList<>(intervals);
+        sorted.sort(Comparator.comparingDouble(Interval::low));
+
+        double[] low = new double[sorted.size()];
+        double[] high = new double[sorted.size()];
+        List<T> values = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            low[i] = sorted.get(i).low();
+            high[i] = sorted.get(i).high();
+            values.add(sorted.get(i).value());
+        }
+        return new IntervalTree<>(low, high, values);
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    /**
+     * Przekazuje do {@code consumer} wartości wszystkich przedziałów zawierających punkt.
+     */
+    void stab(double point, Consumer<T> consumer) {
+        stab(0, low.length - 1, point, consumer);
+    }
+
+    private void stab(int from, int to, double point, Consumer<T> consumer) {
+        if (from > to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        // Żaden przedział w poddrzewie nie sięga punktu
+        if (maxHigh[mid] < point) {
+            return;
+        }
+        stab(from, mid - 1, point, consumer);
+        if (low[mid] > point) {
+            // Prawe poddrzewo zaczyna się jeszcze dalej
+            return;
+        }
+        if (high[mid] >= point) {
+            consumer.accept(values.get(mid));
+        }
+        stab(mid + 1, to, point, consumer);
+    }
+
+    private double computeMaxHigh(int from, int to) {
+        if (from > to) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        int mid = (from + to) >>> 1;
+        double max = Math.max(high[mid], Math.max(computeMaxHigh(from, mid - 1), computeMaxHigh(mid + 1, to)));
+        maxHigh[mid] = max;
+        return max;
+    }
+
+    record Interval<T>(double low, double high, T value) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.restate.service.alert;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Domyślna implementacja - aplikacja nie ma jeszcze kanału e-mail ani push, więc dopasowania
+ * są tylko logowane.
+ */
+@Component
+@Slf4j
+public class LoggingSavedSearchNotificationSender implements SavedSearchNotificationSender {
+
+    @Override
+    public void send(Long userId, List<SavedSearchMatch> matches) {
+        log.info("User {} has {} new saved search match(es)", userId, matches.size());
+        for (SavedSearchMatch match : matches) {
+            log.debug("Saved search {} ('{}') matched apartment {}",
+                    match.getSavedSearchId(), match.getSavedSearchName(), match.getMieszkanie().getId());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.restate.service.alert;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.service.search.MieszkanieCriteriaMatcher;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Niezmienny indeks zapisanych wyszukiwań.
+ * <p>
+ * Każde wyszukiwanie trafia do dokładnie jednego miejsca: do kubełka najbardziej selektywnego
+ * ustawionego pola równościowego, a gdy takiego nie ma - do drzewa przedziałów ceny lub
+ * powierzchni. Dopasowanie mieszkania to kilka odczytów z map, dwa zapytania do drzew
+ * i pełna weryfikacja wyłącznie znalezionych kandydatów, zamiast sprawdzania wszystkich wyszukiwań.
+ * Granice przedziałów są zamieniane na double; konwersja zachowuje porządek, więc drzewo nie gubi
+ * dopasowań, a ewentualne fałszywe trafienia odrzuca weryfikacja na BigDecimal.
+ */
+final class SavedSearchIndex {
+
+    /**
+     * Pola równościowe w kolejności od najbardziej selektywnego.
+     */
+    enum Field {
+        INVESTMENT(MieszkanieSearchCriteria::getInvestment, MieszkanieDTO::getInvestment),
+        DISTRICT(MieszkanieSearchCriteria::getDistrict, MieszkanieDTO::getDistrict),
+        DEVELOPER(MieszkanieSearchCriteria::getDeveloper, MieszkanieDTO::getDeveloper),
+        CITY(MieszkanieSearchCriteria::getCity, MieszkanieDTO::getCity),
+        FLOOR(MieszkanieSearchCriteria::getFloor, MieszkanieDTO::getFloor),
+        VOIVODESHIP(criteria -> Mieszkanie.normalizeVoivodeship(criteria.getVoivodeship()),
+                mieszkanie -> Mieszkanie.normalizeVoivodeship(mieszkanie.getVoivodeship())),
+        STATUS(criteria -> MieszkanieCriteriaMatcher.parseStatus(criteria.getStatus()), MieszkanieDTO::getStatus);
+
+        private final Function<MieszkanieSearchCriteria, Object> criteriaKey;
+        private final Function<MieszkanieDTO, Object> listingKey;
+
+        Field(Function<MieszkanieSearchCriteria, Object> criteriaKey, Function<MieszkanieDTO, Object> listingKey) {
+            this.criteriaKey = criteriaKey;
+            this.listingKey = listingKey;
+        }
+    }
+
+    private static final SavedSearchIndex EMPTY = build(List.of());
+
+    private final Map<Field, Map<Object, List<Entry>>> buckets;
+    private final IntervalTree<Entry> priceTree;
+    private final IntervalTree<Entry> areaTree;
+    private final List<Entry> unconstrained;
+    private final int size;
+
+    private SavedSearchIndex(Map<Field, Map<Object, List<Entry>>> buckets, IntervalTree<Entry> priceTree,
+                             IntervalTree<Entry> areaTree, List<Entry> unconstrained, int size) {
+        this.buckets = buckets;
+        this.priceTree = priceTree;
+        this.areaTree = areaTree;
+        this.unconstrained = unconstrained;
+        this.size = size;
+    }
+
+    static SavedSearchIndex empty() {
+        return EMPTY;
+    }
+
+    static SavedSearchIndex build(Collection<Entry> entries) {
+        Map<Field, Map<Object, List<Entry>>> buckets = new EnumMap<>(Field.class);
+        List<IntervalTree.Interval<Entry>> priceIntervals = new ArrayList<>();
+        List<IntervalTree.Interval<Entry>> areaIntervals = new ArrayList<>();
+        List<Entry> unconstrained = new ArrayList<>();
+
+        for (Entry entry : entries) {
+            MieszkanieSearchCriteria criteria = entry.criteria();
+            Field anchor = anchorField(criteria);
+            if (anchor != null) {
+                buckets.computeIfAbsent(anchor, field -> new HashMap<>())
+                        .computeIfAbsent(anchor.criteriaKey.apply(criteria), key -> new ArrayList<>())
+                        .add(entry);
+            } else if (criteria.getMinPrice() != null || criteria.getMaxPrice() != null) {
+                priceIntervals.add(interval(criteria.getMinPrice(), criteria.getMaxPrice(), entry));
+            } else if (criteria.getMinArea() != null || criteria.getMaxArea() != null) {
+                areaIntervals.add(interval(criteria.getMinArea(), criteria.getMaxArea(), entry));
+            } else {
+                unconstrained.add(entry);
+            }
+        }
+
+        return new SavedSearchIndex(buckets, IntervalTree.build(priceIntervals), IntervalTree.build(areaIntervals),
+                Collections.unmodifiableList(unconstrained), entries.size());
+    }
+
+    /**
+     * Zwraca wyszukiwania, które mieszkanie spełnia.
+     */
+    List<Entry> match(MieszkanieDTO mieszkanie) {
+        List<Entry> matches = new ArrayList<>();
+        if (mieszkanie == null) {
+            return matches;
+        }
+
+        for (Map.Entry<Field, Map<Object, List<Entry>>> fieldBuckets : buckets.entrySet()) {
+            Object key = fieldBuckets.getKey().listingKey.apply(mieszkanie);
+            if (key == null) {
+                continue;
+            }
+            List<Entry> candidates = fieldBuckets.getValue().get(key);
+            if (candidates != null) {
+                for (Entry candidate : candidates) {
+                    verify(candidate, mieszkanie, matches);
+                }
+            }
+        }
+        if (mieszkanie.getPrice() != null) {
+            priceTree.stab(mieszkanie.getPrice().doubleValue(), candidate -> verify(candidate, mieszkanie, matches));
+        }
+        if (mieszkanie.getArea() != null) {
+            areaTree.stab(mieszkanie.getArea().doubleValue(), candidate -> verify(candidate, mieszkanie, matches));
+        }
+        for (Entry candidate : unconstrained) {
+            verify(candidate, mieszkanie, matches);
+        }
+        return matches;
+    }
+
+    int size() {
+        return size;
+    }
+
+    static Field anchorField(MieszkanieSearchCriteria criteria) {
+        for (Field field : Field.values()) {
+            if (field.criteriaKey.apply(criteria) != null) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static void verify(Entry candidate, MieszkanieDTO mieszkanie, List<Entry> matches) {
+        if (MieszkanieCriteriaMatcher.matches(candidate.criteria(), mieszkanie)) {
+            matches.add(candidate);
+        }
+    }
+
+    private static IntervalTree.Interval<Entry> interval(BigDecimal min, BigDecimal max, Entry entry) {
+        double low = min != null ? min.doubleValue() : Double.NEGATIVE_INFINITY;
+        double high = max != null ? max.doubleValue() : Double.POSITIVE_INFINITY;
+        return new IntervalTree.Interval<>(low, high, entry);
+    }
+
+    /**
+     * Zapisane wyszukiwanie w postaci potrzebnej do dopasowania.
+     */
+    record Entry(Long savedSearchId, Long userId, String name, MieszkanieSearchCriteria criteria) {
+    }
+}
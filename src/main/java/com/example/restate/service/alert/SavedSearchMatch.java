@@ -0,0 +1,23 @@
+package com.example.restate.service.alert;
+
+import com.example.restate.dto.MieszkanieDTO;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Mieszkanie, które zaczęło spełniać kryteria zapisanego wyszukiwania.
+ */
+@Getter
+@RequiredArgsConstructor
+@ToString
+public class SavedSearchMatch {
+
+    private final Long savedSearchId;
+    private final String savedSearchName;
+    private final Long userId;
+    private final MieszkanieDTO mieszkanie;
+    private final Instant matchedAt;
+}
@@ -0,0 +1,147 @@
+package com.example.restate.service.alert;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.entity.OutboxEvent;
+import com.example.restate.entity.SavedSearch;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.repository.SavedSearchRepository;
+import com.example.restate.service.cache.CacheInvalidationListener;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import com.example.restate.service.outbox.MieszkanieChangePayload;
+import com.example.restate.service.outbox.OutboxListener;
+import com.example.restate.service.outbox.OutboxWriter;
+import com.example.restate.service.search.MieszkanieCriteriaMatcher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dopasowuje zapisywane mieszkania do zapisanych wyszukiwań użytkowników.
+ * <p>
+ * Aktualny {@link SavedSearchIndex} jest podmieniany w całości przez referencję volatile, więc
+ * dopasowanie nie bierze żadnej blokady. Zmiany zapisanych wyszukiwań są rzadkie w porównaniu
+ * z zapisami mieszkań, dlatego po każdej z nich indeks jest po prostu budowany od nowa.
+ * Powiadomienie dostaje tylko wyszukiwanie, które mieszkanie zaczęło spełniać - aktualizacja
+ * mieszkania już pasującego nie generuje kolejnego alertu.
+ * <p>
+ * Dopasowanie działa na zdarzeniach z outboxa, więc każda zmiana mieszkania jest sprawdzana dokładnie
+ * na jednej instancji, niezależnie od tego, gdzie ją zapisano. Indeks każdej instancji musi więc znać
+ * wszystkie wyszukiwania: zmiany przychodzą kanałem unieważnień (wyszukiwanie po id, wszystkie
+ * wyszukiwania użytkownika po jego zmianie lub usunięciu), a całość jest okresowo wczytywana od nowa
+ * na wypadek utraconych powiadomień.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SavedSearchMatcher implements OutboxListener, CacheInvalidationListener {
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final SavedSearchNotificationQueue notificationQueue;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, SavedSearchIndex.Entry> entries = new ConcurrentHashMap<>();
+    private volatile SavedSearchIndex index = SavedSearchIndex.empty();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${saved-search.reload-interval-ms:300000}",
+            initialDelayString = "${saved-search.reload-interval-ms:300000}")
+    public synchronized void loadSavedSearches() {
+        List<SavedSearch> savedSearches = savedSearchRepository.findAllWithUser();
+        Map<Long, SavedSearchIndex.Entry> loaded = new HashMap<>();
+        savedSearches.forEach(savedSearch -> loaded.put(savedSearch.getId(), toEntry(savedSearch)));
+        entries.clear();
+        entries.putAll(loaded);
+        rebuild();
+        log.debug("Loaded {} saved searches into the matching index", savedSearches.size());
+    }
+
+    /**
+     * Zapisuje dopasowania mieszkania ze zdarzenia w transakcji zdarzenia. Ponowne dostarczenie nie
+     * dubluje powiadomień ({@link SavedSearchNotificationQueue#enqueue}).
+     */
+    @Override
+    public void onEvent(OutboxEvent event) {
+        if (!OutboxWriter.MIESZKANIE_AGGREGATE.equals(event.getAggregateType())) {
+            return;
+        }
+        MieszkanieChangePayload change = MieszkanieChangePayload.read(objectMapper, event);
+        if (change.type() == MieszkanieChangedEvent.ChangeType.DELETED || change.current() == null) {
+            return;
+        }
+        MieszkanieDTO current = change.current();
+        MieszkanieDTO previous = change.previous();
+
+        List<SavedSearchMatch> matches = new ArrayList<>();
+        for (SavedSearchIndex.Entry entry : index.match(current)) {
+            if (previous != null && MieszkanieCriteriaMatcher.matches(entry.criteria(), previous)) {
+                continue;
+            }
+            matches.add(new SavedSearchMatch(
+                    entry.savedSearchId(), entry.name(), entry.userId(), current, change.occurredAt()));
+        }
+        notificationQueue.enqueue(matches, event.getId());
+    }
+
+    @Override
+    public void onInvalidation(CacheInvalidationMessage message) {
+        if (CacheInvalidationMessage.SAVED_SEARCH.equals(message.getEntity())) {
+            refreshSavedSearch(Long.valueOf(message.getId()));
+        } else if (CacheInvalidationMessage.USER.equals(message.getEntity()) && !"null".equals(message.getId())) {
+            // Usunięcie użytkownika usuwa jego wyszukiwania kaskadą w bazie, bez własnego powiadomienia
+            refreshUser(Long.valueOf(message.getId()));
+        }
+    }
+
+    @Override
+    public void onFullFlush() {
+        loadSavedSearches();
+    }
+
+    public int getIndexedCount() {
+        return index.size();
+    }
+
+    private synchronized void refreshSavedSearch(Long savedSearchId) {
+        savedSearchRepository.findWithUserById(savedSearchId).ifPresentOrElse(
+                savedSearch -> entries.put(savedSearchId, toEntry(savedSearch)),
+                () -> entries.remove(savedSearchId));
+        rebuild();
+    }
+
+    private synchronized void refreshUser(Long userId) {
+        Map<Long, SavedSearchIndex.Entry> current = new HashMap<>();
+        savedSearchRepository.findAllWithUserByUserId(userId)
+                .forEach(savedSearch -> current.put(savedSearch.getId(), toEntry(savedSearch)));
+        Map<Long, SavedSearchIndex.Entry> indexed = new HashMap<>();
+        entries.forEach((id, entry) -> {
+            if (entry.userId().equals(userId)) {
+                indexed.put(id, entry);
+            }
+        });
+        // Zwykła zmiana profilu nie dotyka wyszukiwań - bez przebudowy indeksu
+        if (!indexed.equals(current)) {
+            indexed.keySet().forEach(entries::remove);
+            entries.putAll(current);
+            rebuild();
+        }
+    }
+
+    private synchronized void rebuild() {
+        index = SavedSearchIndex.build(List.copyOf(entries.values()));
+    }
+
+    private static SavedSearchIndex.Entry toEntry(SavedSearch savedSearch) {
+        return new SavedSearchIndex.Entry(savedSearch.getId(), savedSearch.getUser().getId(),
+                savedSearch.getName(), savedSearch.toCriteria());
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.restate.service.alert;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kolejka dopasowań dostarczanych w paczkach, trzymana w tabeli {@code saved_search_notifications}.
+ * <p>
+ * Dopasowanie jest zapisywane w transakcji zdarzenia z outboxa, więc nie ginie przy awarii instancji,
+ * a ponowne dostarczenie zdarzenia go nie dubluje. Okresowe opróżnianie pobiera zaległe dopasowania
+ * z blokadą {@code FOR UPDATE SKIP LOCKED} (kilka instancji nie wyśle tego samego), grupuje je per
+ * użytkownik i odrzuca powtórzenia tej samej pary (wyszukiwanie, mieszkanie) - użytkownik dostaje jedno
+ * powiadomienie na paczkę. Wysłane dopasowania są usuwane w tej samej transakcji; dopasowania
+ * użytkownika, którego wysyłka się nie powiodła, zostają do następnego opróżnienia. Awaria między
+ * wysyłką a commitem kończy się ponowną wysyłką.
+ */
+@Component
+@Slf4j
+public class SavedSearchNotificationQueue {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO saved_search_notifications
+                (saved_search_id, user_id, mieszkanie_id, outbox_event_id, listing, matched_at)
+            VALUES (:savedSearchId, :userId, :mieszkanieId, :outboxEventId, :listing, :matchedAt)
+            ON CONFLICT (saved_search_id, outbox_event_id) DO NOTHING
+            """;
+
+    private static final String LOCK_PENDING_SQL = """
+            SELECT n.id, n.saved_search_id, s.name, n.user_id, n.listing, n.matched_at
+            FROM saved_search_notifications n
+            JOIN saved_searches s ON s.id = n.saved_search_id
+            ORDER BY n.id
+            LIMIT :limit
+            FOR UPDATE OF n SKIP LOCKED
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final SavedSearchNotificationSender sender;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public SavedSearchNotificationQueue(NamedParameterJdbcTemplate jdbcTemplate,
+                                        ObjectMapper objectMapper,
+                                        SavedSearchNotificationSender sender,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${saved-search.notification-batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.sender = sender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Zapisuje dopasowania w bieżącej transakcji.
+     *
+     * @param outboxEventId zdarzenie, które je wywołało - klucz idempotencji
+     */
+    public void enqueue(List<SavedSearchMatch> matches, long outboxEventId) {
+        if (matches.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] rows = matches.stream()
+                .map(match -> new MapSqlParameterSource()
+                        .addValue("savedSearchId", match.getSavedSearchId())
+                        .addValue("userId", match.getUserId())
+                        .addValue("mieszkanieId", match.getMieszkanie().getId())
+                        .addValue("outboxEventId", outboxEventId)
+                        .addValue("listing", toJson(match.getMieszkanie()))
+                        .addValue("matchedAt", Timestamp.from(match.getMatchedAt())))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Scheduled(fixedDelayString = "${saved-search.notification-flush-interval-ms:60000}")
+    public void flush() {
+        while (true) {
+            Integer delivered = transactionTemplate.execute(status -> flushBatch());
+            // Niepełna paczka albo nieudana wysyłka - reszta poczeka na następne opróżnienie
+            if (delivered == null || delivered < batchSize) {
+                return;
+            }
+        }
+    }
+
+    public long size() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM saved_search_notifications",
+                new MapSqlParameterSource(), Long.class);
+        return count != null ? count : 0;
+    }
+
+    private int flushBatch() {
+        List<PendingMatch> pending = jdbcTemplate.query(LOCK_PENDING_SQL,
+                new MapSqlParameterSource("limit", batchSize),
+                (rs, rowNum) -> new PendingMatch(rs.getLong("id"), new SavedSearchMatch(
+                        rs.getLong("saved_search_id"),
+                        rs.getString("name"),
+                        rs.getLong("user_id"),
+                        fromJson(rs.getString("listing")),
+                        rs.getTimestamp("matched_at").toInstant())));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<Long> delivered = send(pending);
+        if (!delivered.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM saved_search_notifications WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", delivered));
+        }
+        return delivered.size();
+    }
+
+    /**
+     * Wysyła dopasowania pogrupowane per użytkownik.
+     *
+     * @return id wierszy do usunięcia - wszystkie dopasowania użytkowników, do których wysyłka się udała
+     */
+    List<Long> send(List<PendingMatch> pending) {
+        Map<Long, Map<String, SavedSearchMatch>> byUser = new LinkedHashMap<>();
+        Map<Long, List<Long>> rowsByUser = new LinkedHashMap<>();
+        for (PendingMatch row : pending) {
+            SavedSearchMatch match = row.match();
+            // Późniejsze dopasowanie tej samej pary niesie aktualniejszy stan mieszkania
+            String key = match.getSavedSearchId() + ":" + match.getMieszkanie().getId();
+            byUser.computeIfAbsent(match.getUserId(), userId -> new LinkedHashMap<>()).put(key, match);
+            rowsByUser.computeIfAbsent(match.getUserId(), userId -> new ArrayList<>()).add(row.id());
+        }
+
+        List<Long> delivered = new ArrayList<>(pending.size());
+        byUser.forEach((userId, matches) -> {
+            try {
+                sender.send(userId, new ArrayList<>(matches.values()));
+                delivered.addAll(rowsByUser.get(userId));
+            } catch (RuntimeException e) {
+                log.error("Failed to deliver {} saved search match(es) to user {}, will retry",
+                        matches.size(), userId, e);
+            }
+        });
+        return delivered;
+    }
+
+    private String toJson(MieszkanieDTO mieszkanie) {
+        try {
+            return objectMapper.writeValueAsString(mieszkanie);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize apartment " + mieszkanie.getId(), e);
+        }
+    }
+
+    private MieszkanieDTO fromJson(String listing) {
+        try {
+            return objectMapper.readValue(listing, MieszkanieDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid saved search notification payload", e);
+        }
+    }
+
+    /**
+     * Zaległe dopasowanie z id wiersza w {@code saved_search_notifications}.
+     */
+    record PendingMatch(long id, SavedSearchMatch match) {
+    }
+}
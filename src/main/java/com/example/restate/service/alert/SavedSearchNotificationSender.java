@@ -0,0 +1,11 @@
+package com.example.restate.service.alert;
+
+import java.util.List;
+
+/**
+ * Dostarcza użytkownikowi zebrane dopasowania jego zapisanych wyszukiwań.
+ */
+public interface SavedSearchNotificationSender {
+
+    void send(Long userId, List<SavedSearchMatch> matches);
+}
@@ -0,0 +1,94 @@
+package com.example.restate.service.cache;
+
+import com.example.restate.event.MieszkanieChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rozsyła unieważnienia cache'y do bieżącej instancji i - gdy włączony jest
+ * {@link PgNotifyInvalidationChannel} - do pozostałych instancji przez Postgres NOTIFY.
+ * <p>
+ * Lokalne cache'e są czyszczone dopiero po commicie, żeby równoległy odczyt nie wczytał do nich
+ * niezatwierdzonego stanu. NOTIFY jest w Postgresie transakcyjne, więc inne węzły dostają
+ * wiadomość również dopiero po commicie. Własne wiadomości odbierane z kanału są pomijane.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus {
+
+    private final List<CacheInvalidationListener> listeners;
+    private final ObjectProvider<PgNotifyInvalidationChannel> channel;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationBus(List<CacheInvalidationListener> listeners,
+                                ObjectProvider<PgNotifyInvalidationChannel> channel) {
+        this.listeners = listeners;
+        this.channel = channel;
+    }
+
+    public void publish(CacheInvalidationMessage message) {
+        message.setNodeId(nodeId);
+        channel.ifAvailable(c -> c.send(message));
+        afterCommit(() -> apply(message));
+    }
+
+    @EventListener
+    public void onMieszkanieChanged(MieszkanieChangedEvent event) {
+        publish(CacheInvalidationMessage.forMieszkanie(event));
+    }
+
+    /**
+     * Wiadomość odebrana z kanału innej instancji.
+     */
+    public void onRemoteMessage(CacheInvalidationMessage message) {
+        if (nodeId.equals(message.getNodeId())) {
+            return;
+        }
+        message.setRemote(true);
+        apply(message);
+    }
+
+    public void flushAll() {
+        for (CacheInvalidationListener listener : listeners) {
+            try {
+                listener.onFullFlush();
+            } catch (RuntimeException e) {
+                log.error("Cache listener {} failed to flush", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private void apply(CacheInvalidationMessage message) {
+        for (CacheInvalidationListener listener : listeners) {
+            try {
+                listener.onInvalidation(message);
+            } catch (RuntimeException e) {
+                log.error("Cache listener {} failed to apply {}", listener.getClass().getSimpleName(), message, e);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.restate.service.cache;
+
+/**
+ * Lokalny cache, który reaguje na unieważnienia z {@link CacheInvalidationBus}.
+ */
+public interface CacheInvalidationListener {
+
+    void onInvalidation(CacheInvalidationMessage message);
+
+    /**
+     * Wywoływane, gdy część powiadomień mogła zostać utracona (np. po zerwaniu połączenia LISTEN).
+     */
+    void onFullFlush();
+}
@@ -0,0 +1,146 @@
+package com.example.restate.service.cache;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.PriceSample;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Zwięzła informacja o zmianie encji rozsyłana do lokalnych cache'y wszystkich instancji.
+ * Klucze wymiarów (np. {@code developer:Atal}) wskazują, które zagregowane dane mogły się zmienić;
+ * pusta lista oznacza "wszystko, co dotyczy tej encji".
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationMessage {
+
+    public static final String MIESZKANIE = "mieszkanie";
+    public static final String USER = "user";
+    public static final String SAVED_SEARCH = "saved-search";
+
+    public static final String DEVELOPER_KEY = "developer:";
+    public static final String INVESTMENT_KEY = "investment:";
+    public static final String CITY_KEY = "city:";
+    public static final String VOIVODESHIP_KEY = "voivodeship:";
+    public static final String USERNAME_KEY = "username:";
+    // Segment rynku: województwo|miasto|dzielnica|status, brak wartości jako pusty napis
+    public static final String SEGMENT_KEY = "segment:";
+    public static final String SEGMENT_SEPARATOR = "|";
+
+    private String nodeId;
+    private String entity;
+    private String id;
+    @Builder.Default
+    private List<String> keys = new ArrayList<>();
+    // Ustawiane przez odbiorcę - wiadomość przyszła z kanału innej instancji
+    @JsonIgnore
+    private boolean remote;
+
+    public static CacheInvalidationMessage forMieszkanie(MieszkanieChangedEvent event) {
+        Set<String> keys = new LinkedHashSet<>();
+        addChangedKey(keys, DEVELOPER_KEY, MieszkanieDTO::getDeveloper, event);
+        addChangedKey(keys, INVESTMENT_KEY, MieszkanieDTO::getInvestment, event);
+        addChangedKey(keys, CITY_KEY, MieszkanieDTO::getCity, event);
+        addChangedKey(keys, VOIVODESHIP_KEY, MieszkanieDTO::getVoivodeship, event);
+        addSegmentKeys(keys, event);
+
+        return CacheInvalidationMessage.builder()
+                .entity(MIESZKANIE)
+                .id(String.valueOf(event.getMieszkanieId()))
+                .keys(new ArrayList<>(keys))
+                .build();
+    }
+
+    /**
+     * @param usernames bieżąca i ewentualnie poprzednia nazwa użytkownika
+     */
+    public static CacheInvalidationMessage forUser(Long id, String... usernames) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String username : usernames) {
+            if (username != null) {
+                keys.add(USERNAME_KEY + username);
+            }
+        }
+        return CacheInvalidationMessage.builder()
+                .entity(USER)
+                .id(String.valueOf(id))
+                .keys(new ArrayList<>(keys))
+                .build();
+    }
+
+    public static CacheInvalidationMessage forSavedSearch(Long id) {
+        return CacheInvalidationMessage.builder()
+                .entity(SAVED_SEARCH)
+                .id(String.valueOf(id))
+                .build();
+    }
+
+    public static String segmentKey(PriceSample sample) {
+        return SEGMENT_KEY + String.join(SEGMENT_SEPARATOR,
+                Objects.toString(sample.voivodeship(), ""),
+                Objects.toString(sample.city(), ""),
+                Objects.toString(sample.district(), ""),
+                sample.status() != null ? sample.status().name() : "");
+    }
+
+    public boolean hasKeyWithPrefix(String prefix) {
+        return keys == null || keys.isEmpty() || keys.stream().anyMatch(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Wymiar trafia do wiadomości tylko wtedy, gdy jego wartość się zmieniła - zmiana ceny
+     * lub statusu nie unieważnia np. listy deweloperów.
+     */
+    private static void addChangedKey(Set<String> keys, String prefix, Function<MieszkanieDTO, String> dimension,
+                                      MieszkanieChangedEvent event) {
+        String before = event.getPrevious() != null ? dimension.apply(event.getPrevious()) : null;
+        String after = event.getCurrent() != null ? dimension.apply(event.getCurrent()) : null;
+
+        if (event.getPrevious() == null && event.getType() != MieszkanieChangedEvent.ChangeType.CREATED) {
+            // Stan sprzed zmiany nieznany - stara wartość wymiaru mogła być dowolna
+            keys.add(prefix + "*");
+        } else if (Objects.equals(before, after)) {
+            return;
+        }
+        if (before != null) {
+            keys.add(prefix + before);
+        }
+        if (after != null) {
+            keys.add(prefix + after);
+        }
+    }
+
+    /**
+     * Segmenty rynku mieszkania sprzed i po zmianie - tylko gdy zmieniło się coś, co wpływa na rozkład
+     * cen (segment, cena albo powierzchnia).
+     */
+    private static void addSegmentKeys(Set<String> keys, MieszkanieChangedEvent event) {
+        PriceSample before = event.getPrevious() != null ? PriceSample.of(event.getPrevious()) : null;
+        PriceSample after = event.getCurrent() != null ? PriceSample.of(event.getCurrent()) : null;
+
+        if (event.getPrevious() == null && event.getType() != MieszkanieChangedEvent.ChangeType.CREATED) {
+            keys.add(SEGMENT_KEY + "*");
+        } else if (Objects.equals(before, after)) {
+            return;
+        }
+        if (before != null) {
+            keys.add(segmentKey(before));
+        }
+        if (after != null) {
+            keys.add(segmentKey(after));
+        }
+    }
+}
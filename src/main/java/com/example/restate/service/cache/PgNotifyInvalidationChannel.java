@@ -0,0 +1,182 @@
+package com.example.restate.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Kanał unieważnień między instancjami oparty na Postgres LISTEN/NOTIFY.
+ * <p>
+ * Wysyłka to {@code pg_notify} na połączeniu bieżącej transakcji, więc wiadomość wychodzi
+ * dopiero po commicie zapisu. Nasłuch działa na osobnym wątku z własnym, dedykowanym połączeniem
+ * spoza puli (LISTEN wiąże się z sesją). Po zerwaniu połączenia wątek łączy się ponownie
+ * z rosnącym opóźnieniem, a po odzyskaniu połączenia czyści wszystkie lokalne cache'e,
+ * bo powiadomienia wysłane w międzyczasie przepadły.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.listen-notify.enabled", havingValue = "true")
+@Slf4j
+public class PgNotifyInvalidationChannel implements InitializingBean, DisposableBean {
+
+    static final String CHANNEL = "cache_invalidation";
+    // Limit treści NOTIFY w Postgresie to 8000 bajtów
+    static final int MAX_PAYLOAD_BYTES = 7900;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final CacheInvalidationBus bus;
+    private final DataSourceProperties dataSourceProperties;
+    private final int pollTimeoutMs;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listenerThread;
+
+    public PgNotifyInvalidationChannel(JdbcTemplate jdbcTemplate,
+                                       ObjectMapper objectMapper,
+                                       @Lazy CacheInvalidationBus bus,
+                                       DataSourceProperties dataSourceProperties,
+                                       @Value("${cache.invalidation.poll-timeout-ms:10000}") int pollTimeoutMs,
+                                       @Value("${cache.invalidation.initial-backoff-ms:500}") long initialBackoffMs,
+                                       @Value("${cache.invalidation.max-backoff-ms:30000}") long maxBackoffMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.bus = bus;
+        this.dataSourceProperties = dataSourceProperties;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    public void send(CacheInvalidationMessage message) {
+        String payload = toPayload(message);
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null, CHANNEL, payload);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        listenerThread = Thread.ofPlatform()
+                .name("cache-invalidation-listener")
+                .daemon(true)
+                .start(this::listenLoop);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            listenerThread.join(pollTimeoutMs);
+        }
+    }
+
+    public boolean isListening() {
+        return listening;
+    }
+
+    void handleNotification(String payload) {
+        try {
+            bus.onRemoteMessage(objectMapper.readValue(payload, CacheInvalidationMessage.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed cache invalidation payload: {}", payload);
+        }
+    }
+
+    String toPayload(CacheInvalidationMessage message) {
+        try {
+            String payload = objectMapper.writeValueAsString(message);
+            if (payload.getBytes(StandardCharsets.UTF_8).length <= MAX_PAYLOAD_BYTES) {
+                return payload;
+            }
+            // Za długa lista kluczy - odbiorcy unieważnią wszystko, co dotyczy encji
+            CacheInvalidationMessage truncated = CacheInvalidationMessage.builder()
+                    .nodeId(message.getNodeId())
+                    .entity(message.getEntity())
+                    .id(message.getId())
+                    .keys(List.of())
+                    .build();
+            return objectMapper.writeValueAsString(truncated);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize cache invalidation message", e);
+        }
+    }
+
+    private void listenLoop() {
+        long backoffMs = initialBackoffMs;
+        boolean missedNotifications = false;
+
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                listening = true;
+                backoffMs = initialBackoffMs;
+                log.info("Listening for cache invalidations on channel {}", CHANNEL);
+
+                if (missedNotifications) {
+                    log.warn("Cache invalidation listener reconnected, flushing local caches");
+                    bus.flushAll();
+                    missedNotifications = false;
+                }
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications != null && notifications.length > 0) {
+                        for (PGNotification notification : notifications) {
+                            handleNotification(notification.getParameter());
+                        }
+                    } else if (!connection.isValid(5)) {
+                        // getNotifications nie zawsze wykrywa zerwane połączenie TCP
+                        throw new SQLException("Cache invalidation connection is no longer valid");
+                    }
+                }
+            } catch (SQLException e) {
+                listening = false;
+                if (!running) {
+                    return;
+                }
+                missedNotifications = true;
+                log.warn("Cache invalidation listener disconnected, retrying in {} ms: {}", backoffMs, e.getMessage());
+                if (!sleep(backoffMs)) {
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            }
+        }
+        listening = false;
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.restate.service.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Przekłada unieważnienia na cache'e Spring ({@code @Cacheable}).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SpringCacheInvalidationListener implements CacheInvalidationListener {
+
+    public static final String DEVELOPERS_CACHE = "developers";
+
+    private final CacheManager cacheManager;
+
+    @Override
+    public void onInvalidation(CacheInvalidationMessage message) {
+        if (CacheInvalidationMessage.MIESZKANIE.equals(message.getEntity())
+                && message.hasKeyWithPrefix(CacheInvalidationMessage.DEVELOPER_KEY)) {
+            clear(DEVELOPERS_CACHE);
+        }
+    }
+
+    @Override
+    public void onFullFlush() {
+        cacheManager.getCacheNames().forEach(this::clear);
+    }
+
+    private void clear(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache != null) {
+            cache.clear();
+            log.debug("Cleared cache {}", name);
+        }
+    }
+}
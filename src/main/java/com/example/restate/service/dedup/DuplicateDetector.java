@@ -0,0 +1,318 @@
+package com.example.restate.service.dedup;
+
+import com.example.restate.dto.ListingIdentity;
+import com.example.restate.entity.OutboxEvent;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.repository.MieszkanieRepository;
+import com.example.restate.service.outbox.MieszkanieChangePayload;
+import com.example.restate.service.outbox.OutboxListener;
+import com.example.restate.service.outbox.OutboxWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wykrywa prawie-duplikaty mieszkań metodą MinHash LSH.
+ * <p>
+ * Klucze pasm sygnatury każdego mieszkania są zapisywane w {@code listing_fingerprints};
+ * kandydatów daje złączenie po (pasmo, klucz) z indeksem, a nie porównywanie par. Kandydaci są
+ * weryfikowani dokładnie ({@link ListingSignature#similarity}) i zapisywani w
+ * {@code listing_duplicates} do przejrzenia przez administratora. Nowe i zmienione mieszkania są
+ * sprawdzane po dostarczeniu ich zdarzenia z outboxa - także po awarii między commitem a sprawdzeniem,
+ * a błąd bazy kończy się ponowną próbą. Mieszkania bez odcisku (np. po imporcie CSV) są sprawdzane
+ * partiami po starcie lub na żądanie. Import CSV zeruje sekwencję id, więc przed skanem odciski, które
+ * nie pasują już do mieszkania o tym id, są usuwane razem z jego niezweryfikowanymi parami.
+ */
+@Component
+@Slf4j
+public class DuplicateDetector implements OutboxListener {
+
+    private static final String CANDIDATES_SQL = """
+            SELECT DISTINCT a.mieszkanie_id AS id, b.mieszkanie_id AS other_id
+            FROM listing_fingerprints a
+            JOIN listing_fingerprints b ON b.band = a.band AND b.bucket = a.bucket AND b.mieszkanie_id <> a.mieszkanie_id
+            WHERE a.mieszkanie_id IN (:ids)
+            """;
+
+    private static final String INSERT_DUPLICATE_SQL = """
+            INSERT INTO listing_duplicates (mieszkanie_id, duplicate_of_id, similarity, status, detected_at)
+            VALUES (:mieszkanieId, :duplicateOfId, :similarity, 'PENDING', :detectedAt)
+            ON CONFLICT (mieszkanie_id, duplicate_of_id) DO NOTHING
+            """;
+
+    // Odciski partii mieszkań (keyset po id) - LIMIT dotyczy mieszkań, a nie wierszy pasm
+    private static final String STORED_FINGERPRINTS_SQL = """
+            SELECT mieszkanie_id, band, bucket
+            FROM listing_fingerprints
+            WHERE mieszkanie_id IN (
+                SELECT DISTINCT mieszkanie_id FROM listing_fingerprints
+                WHERE mieszkanie_id > :afterId
+                ORDER BY mieszkanie_id
+                LIMIT :limit
+            )
+            ORDER BY mieszkanie_id
+            """;
+
+    private final MieszkanieRepository mieszkanieRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final AtomicBoolean scanning = new AtomicBoolean();
+
+    public DuplicateDetector(MieszkanieRepository mieszkanieRepository,
+                             NamedParameterJdbcTemplate jdbcTemplate,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${dedup.batch-size:1000}") int batchSize) {
+        this.mieszkanieRepository = mieszkanieRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sprawdza mieszkanie ze zdarzenia outboxa. Ponowne dostarczenie jest bezpieczne: odciski są
+     * zastępowane, a istniejące pary pomijane. Błąd trafia do relay, który ponowi próbę.
+     */
+    @Override
+    public void onEvent(OutboxEvent event) {
+        if (!OutboxWriter.MIESZKANIE_AGGREGATE.equals(event.getAggregateType())) {
+            return;
+        }
+        MieszkanieChangePayload change = MieszkanieChangePayload.read(objectMapper, event);
+        if (change.type() == MieszkanieChangedEvent.ChangeType.DELETED) {
+            forget(change.mieszkanieId());
+            return;
+        }
+        ListingIdentity current = ListingIdentity.of(change.current());
+        if (change.previous() != null && current.equals(ListingIdentity.of(change.previous()))) {
+            return;
+        }
+        int flagged = detect(List.of(current));
+        if (flagged > 0) {
+            log.info("Mieszkanie {} flagged as a possible duplicate of {} listing(s)",
+                    change.mieszkanieId(), flagged);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scanOnStartup() {
+        Thread.ofVirtual().name("duplicate-scan").start(() -> {
+            try {
+                scanUnfingerprinted();
+            } catch (RuntimeException e) {
+                log.error("Duplicate scan failed", e);
+            }
+        });
+    }
+
+    /**
+     * Sprawdza partiami wszystkie mieszkania bez odcisku.
+     *
+     * @return liczba nowo oznaczonych par
+     */
+    public int scanUnfingerprinted() {
+        if (!scanning.compareAndSet(false, true)) {
+            log.info("Duplicate scan already running");
+            return 0;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            dropStaleFingerprints();
+            int scanned = 0;
+            int flagged = 0;
+            while (true) {
+                List<Integer> ids = jdbcTemplate.queryForList(
+                        "SELECT m.id FROM mieszkania m WHERE NOT EXISTS " +
+                                "(SELECT 1 FROM listing_fingerprints f WHERE f.mieszkanie_id = m.id) " +
+                                "ORDER BY m.id LIMIT :limit",
+                        new MapSqlParameterSource("limit", batchSize), Integer.class);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                flagged += detect(mieszkanieRepository.findIdentitiesByIdIn(ids));
+                scanned += ids.size();
+            }
+            if (scanned > 0) {
+                log.info("Duplicate scan of {} listings flagged {} pairs in {} ms",
+                        scanned, flagged, System.currentTimeMillis() - start);
+            }
+            return flagged;
+        } finally {
+            scanning.set(false);
+        }
+    }
+
+    /**
+     * Usuwa odciski mieszkań, które zniknęły albo mają dziś inną treść, oraz ich pary PENDING - inaczej
+     * para ze starymi id blokowałaby ponowne oznaczenie ({@code ON CONFLICT DO NOTHING}). Decyzje
+     * administratora (CONFIRMED, DISMISSED) zostają.
+     *
+     * @return liczba mieszkań z nieaktualnym odciskiem
+     */
+    int dropStaleFingerprints() {
+        int stale = 0;
+        int afterId = 0;
+        while (true) {
+            Map<Integer, long[]> stored = new LinkedHashMap<>();
+            jdbcTemplate.query(STORED_FINGERPRINTS_SQL,
+                    new MapSqlParameterSource().addValue("afterId", afterId).addValue("limit", batchSize),
+                    (RowCallbackHandler) rs -> stored.computeIfAbsent(rs.getInt("mieszkanie_id"),
+                            id -> new long[ListingSignature.BANDS])[rs.getInt("band")] = rs.getLong("bucket"));
+            if (stored.isEmpty()) {
+                break;
+            }
+            Map<Integer, long[]> current = new HashMap<>();
+            mieszkanieRepository.findIdentitiesByIdIn(stored.keySet()).forEach(listing -> current.put(listing.id(),
+                    ListingSignature.bandKeys(ListingSignature.minHash(ListingSignature.features(listing)))));
+
+            List<Integer> staleIds = new ArrayList<>();
+            stored.forEach((id, keys) -> {
+                if (!Arrays.equals(keys, current.get(id))) {
+                    staleIds.add(id);
+                }
+            });
+            if (!staleIds.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    MapSqlParameterSource params = new MapSqlParameterSource("ids", staleIds);
+                    jdbcTemplate.update("DELETE FROM listing_fingerprints WHERE mieszkanie_id IN (:ids)", params);
+                    jdbcTemplate.update("DELETE FROM listing_duplicates WHERE status = 'PENDING' " +
+                            "AND (mieszkanie_id IN (:ids) OR duplicate_of_id IN (:ids))", params);
+                });
+                stale += staleIds.size();
+            }
+            afterId = Collections.max(stored.keySet());
+        }
+        if (stale > 0) {
+            log.info("Dropped stale fingerprints of {} listings", stale);
+        }
+        return stale;
+    }
+
+    /**
+     * Zapisuje odciski mieszkań i oznacza ich duplikaty.
+     *
+     * @return liczba nowo oznaczonych par
+     */
+    public int detect(List<ListingIdentity> listings) {
+        if (listings.isEmpty()) {
+            return 0;
+        }
+        Integer flagged = transactionTemplate.execute(status -> {
+            Map<Integer, ListingIdentity> byId = new HashMap<>();
+            listings.forEach(listing -> byId.put(listing.id(), listing));
+            saveFingerprints(byId.values());
+
+            List<long[]> candidates = jdbcTemplate.query(CANDIDATES_SQL,
+                    new MapSqlParameterSource("ids", byId.keySet()),
+                    (rs, rowNum) -> new long[]{rs.getInt("id"), rs.getInt("other_id")});
+            if (candidates.isEmpty()) {
+                return 0;
+            }
+
+            Set<Integer> missing = new HashSet<>();
+            candidates.forEach(pair -> {
+                if (!byId.containsKey((int) pair[1])) {
+                    missing.add((int) pair[1]);
+                }
+            });
+            if (!missing.isEmpty()) {
+                mieszkanieRepository.findIdentitiesByIdIn(missing).forEach(listing -> byId.put(listing.id(), listing));
+            }
+            return flagDuplicates(candidates, byId);
+        });
+        return Objects.requireNonNullElse(flagged, 0);
+    }
+
+    private void saveFingerprints(Iterable<ListingIdentity> listings) {
+        List<Integer> ids = new ArrayList<>();
+        List<SqlParameterSource> rows = new ArrayList<>();
+        for (ListingIdentity listing : listings) {
+            ids.add(listing.id());
+            long[] keys = ListingSignature.bandKeys(ListingSignature.minHash(ListingSignature.features(listing)));
+            for (int band = 0; band < keys.length; band++) {
+                rows.add(new MapSqlParameterSource()
+                        .addValue("mieszkanieId", listing.id())
+                        .addValue("band", band)
+                        .addValue("bucket", keys[band]));
+            }
+        }
+        jdbcTemplate.update("DELETE FROM listing_fingerprints WHERE mieszkanie_id IN (:ids)",
+                new MapSqlParameterSource("ids", ids));
+        jdbcTemplate.batchUpdate("INSERT INTO listing_fingerprints (mieszkanie_id, band, bucket) " +
+                "VALUES (:mieszkanieId, :band, :bucket)", rows.toArray(new SqlParameterSource[0]));
+    }
+
+    private int flagDuplicates(List<long[]> candidates, Map<Integer, ListingIdentity> byId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Set<Long> seenPairs = new HashSet<>();
+        List<SqlParameterSource> duplicates = new ArrayList<>();
+        for (long[] pair : candidates) {
+            int newer = (int) Math.max(pair[0], pair[1]);
+            int older = (int) Math.min(pair[0], pair[1]);
+            if (!seenPairs.add(((long) newer << 32) | (older & 0xffffffffL))) {
+                continue;
+            }
+            ListingIdentity a = byId.get(newer);
+            ListingIdentity b = byId.get(older);
+            if (a == null || b == null) {
+                continue;
+            }
+            double similarity = ListingSignature.similarity(a, b);
+            if (similarity >= 0) {
+                duplicates.add(new MapSqlParameterSource()
+                        .addValue("mieszkanieId", newer)
+                        .addValue("duplicateOfId", older)
+                        .addValue("similarity", BigDecimal.valueOf(similarity).setScale(3, RoundingMode.HALF_UP))
+                        .addValue("detectedAt", now));
+            }
+        }
+        if (duplicates.isEmpty()) {
+            return 0;
+        }
+        int[] inserted = jdbcTemplate.batchUpdate(INSERT_DUPLICATE_SQL, duplicates.toArray(new SqlParameterSource[0]));
+        int flagged = 0;
+        for (int count : inserted) {
+            flagged += Math.max(count, 0);
+        }
+        return flagged;
+    }
+
+    private void forget(Integer mieszkanieId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("id", mieszkanieId)
+                    .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+            jdbcTemplate.update("DELETE FROM listing_fingerprints WHERE mieszkanie_id = :id", params);
+            jdbcTemplate.update("UPDATE listing_duplicates SET status = 'DISMISSED', resolved_at = :now " +
+                    "WHERE status = 'PENDING' AND (mieszkanie_id = :id OR duplicate_of_id = :id)", params);
+        });
+    }
+}
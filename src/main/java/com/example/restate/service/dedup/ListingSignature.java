@@ -0,0 +1,181 @@
+package com.example.restate.service.dedup;
+
+import com.example.restate.dto.ListingIdentity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Odcisk mieszkania do wykrywania duplikatów.
+ * <p>
+ * Zbiór cech to 3-gramy znormalizowanej nazwy dewelopera i inwestycji oraz ważone tokeny numeru
+ * lokalu, zaokrąglonej powierzchni i piętra - dwa różne lokale tej samej inwestycji różnią się
+ * więc w znacznej części zbioru. Sygnatura MinHash ({@value #BANDS} pasm po {@value #ROWS}
+ * wartości) przybliża podobieństwo Jaccarda; mieszkania zgodne w całym paśmie są kandydatami.
+ * Para o podobieństwie 0.8 zostaje kandydatem z prawdopodobieństwem ok. 95%, para o podobieństwie
+ * 0.4 - ok. 4%, więc wyszukiwanie nie porównuje mieszkań parami.
+ */
+final class ListingSignature {
+
+    static final int BANDS = 10;
+    static final int ROWS = 6;
+    static final double SIMILARITY_THRESHOLD = 0.6;
+
+    private static final int NUMBER_WEIGHT = 6;
+    private static final int AREA_WEIGHT = 3;
+    private static final int FLOOR_WEIGHT = 2;
+    private static final BigDecimal AREA_TOLERANCE = new BigDecimal("0.02");
+    private static final BigDecimal PRICE_TOLERANCE = new BigDecimal("0.10");
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern LEGAL_FORM = Pattern.compile(
+            "\\b(sp\\s*z\\s*o\\s*o|spolka z ograniczona odpowiedzialnoscia|spolka akcyjna|sp\\s*k|s\\s*a)\\b");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final long[] SEEDS = new SplittableRandom(0x5EEDL).longs(BANDS * ROWS).toArray();
+
+    private ListingSignature() {
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String ascii = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase()
+                .replace('ł', 'l');
+        String words = NON_ALPHANUMERIC.matcher(ascii).replaceAll(" ").trim();
+        return LEGAL_FORM.matcher(words).replaceAll(" ").replaceAll("\\s+", " ").trim();
+    }
+
+    static String normalizeNumber(String number) {
+        return normalize(number).replace(" ", "");
+    }
+
+    static Set<String> features(ListingIdentity listing) {
+        Set<String> features = new HashSet<>();
+        String text = normalize(listing.developer()) + "|" + normalize(listing.investment());
+        if (text.length() < 3) {
+            features.add("t:" + text);
+        }
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            features.add("t:" + text.substring(i, i + 3));
+        }
+        String number = normalizeNumber(listing.number());
+        if (!number.isEmpty()) {
+            addWeighted(features, "n:" + number, NUMBER_WEIGHT);
+        }
+        if (listing.area() != null) {
+            addWeighted(features, "a:" + listing.area().setScale(0, RoundingMode.HALF_UP), AREA_WEIGHT);
+        }
+        if (listing.floor() != null) {
+            addWeighted(features, "f:" + listing.floor(), FLOOR_WEIGHT);
+        }
+        return features;
+    }
+
+    static long[] minHash(Set<String> features) {
+        long[] signature = new long[BANDS * ROWS];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (String feature : features) {
+            long hash = fnv1a(feature);
+            for (int i = 0; i < signature.length; i++) {
+                long value = mix(hash ^ SEEDS[i]);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    static long[] bandKeys(long[] signature) {
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int row = 0; row < ROWS; row++) {
+                key = mix(key * 31 + signature[band * ROWS + row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 0;
+        }
+        int intersection = 0;
+        for (String feature : a) {
+            if (b.contains(feature)) {
+                intersection++;
+            }
+        }
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
+
+    /**
+     * Weryfikuje kandydata z LSH: podobieństwo zbiorów cech i zgodność pól liczbowych, które
+     * różne źródła podają tak samo (numer, piętro, miasto) albo z niewielkim odchyleniem (powierzchnia, cena).
+     *
+     * @return podobieństwo pary albo -1, gdy para nie jest duplikatem
+     */
+    static double similarity(ListingIdentity a, ListingIdentity b) {
+        if (!sameWhenPresent(normalizeNumber(a.number()), normalizeNumber(b.number()))
+                || !sameWhenPresent(a.floor(), b.floor())
+                || !sameWhenPresent(normalize(a.city()), normalize(b.city()))
+                || !close(a.area(), b.area(), AREA_TOLERANCE)
+                || !close(a.price(), b.price(), PRICE_TOLERANCE)) {
+            return -1;
+        }
+        double similarity = jaccard(features(a), features(b));
+        return similarity >= SIMILARITY_THRESHOLD ? similarity : -1;
+    }
+
+    private static void addWeighted(Set<String> features, String token, int weight) {
+        for (int i = 0; i < weight; i++) {
+            features.add(token + "#" + i);
+        }
+    }
+
+    private static boolean sameWhenPresent(Object a, Object b) {
+        if (a == null || b == null || "".equals(a) || "".equals(b)) {
+            return true;
+        }
+        return Objects.equals(a, b);
+    }
+
+    private static boolean close(BigDecimal a, BigDecimal b, BigDecimal tolerance) {
+        if (a == null || b == null) {
+            return true;
+        }
+        BigDecimal larger = a.max(b);
+        if (larger.signum() <= 0) {
+            return a.compareTo(b) == 0;
+        }
+        return a.subtract(b).abs().compareTo(larger.multiply(tolerance)) <= 0;
+    }
+
+    private static long fnv1a(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Finalizator splitmix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.restate.service.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Przenosi historię cen przez import CSV. {@code R__import_csv.sql} czyści tabelę mieszkania i wczytuje ją
+ * z pominięciem aplikacji, od id 1; wyzwalacz TRUNCATE (V12) zapisuje wtedy tożsamość mieszkań sprzed importu.
+ * Po starcie ta klasa, raz na import:
+ * <ul>
+ *     <li>przepina historię na nowe id - najpierw to samo id z tym samym deweloperem, inwestycją i numerem,
+ *     potem ta sama trójka, o ile jest jednoznaczna po obu stronach,</li>
+ *     <li>usuwa historię, której nie da się przypisać, a której id należy teraz do innego mieszkania,</li>
+ *     <li>kończy wpisem DELETE historię mieszkań, których nie ma w nowym pliku,</li>
+ *     <li>dopisuje wpis IMPORT mieszkaniom, których cena różni się od ostatnio zapisanej.</li>
+ * </ul>
+ * Wpisy zapisane przez aplikację już po imporcie odnoszą się do nowych id i nie są ruszane. Całość działa
+ * w jednej transakcji pod blokadą doradczą - przy starcie kilku instancji import przetwarza jedna z nich.
+ */
+@Component
+@Slf4j
+public class PriceHistoryImportRecorder {
+
+    private static final String LOCK_SQL = "SELECT pg_try_advisory_xact_lock(hashtext('price_history_import'))";
+
+    private static final String PENDING_SQL = "SELECT min(truncated_at) FROM price_history_import_pending";
+
+    private static final String MAP_BY_ID_SQL = """
+            CREATE TEMP TABLE price_history_id_map ON COMMIT DROP AS
+            SELECT p.id AS old_id, n.id AS new_id
+            FROM price_history_import_snapshot p
+            JOIN mieszkania n ON n.id = p.id
+                AND n.developer IS NOT DISTINCT FROM p.developer
+                AND n.investment IS NOT DISTINCT FROM p.investment
+                AND n.number IS NOT DISTINCT FROM p.number
+            """;
+
+    private static final String MAP_BY_NUMBER_SQL = """
+            INSERT INTO price_history_id_map (old_id, new_id)
+            SELECT p.id, n.id
+            FROM (SELECT min(id) AS id, developer, investment, number
+                  FROM price_history_import_snapshot
+                  WHERE number IS NOT NULL AND id NOT IN (SELECT old_id FROM price_history_id_map)
+                  GROUP BY developer, investment, number
+                  HAVING count(*) = 1) p
+            JOIN (SELECT min(id) AS id, developer, investment, number
+                  FROM mieszkania
+                  WHERE number IS NOT NULL AND id NOT IN (SELECT new_id FROM price_history_id_map)
+                  GROUP BY developer, investment, number
+                  HAVING count(*) = 1) n
+                ON n.developer IS NOT DISTINCT FROM p.developer
+                AND n.investment IS NOT DISTINCT FROM p.investment
+                AND n.number = p.number
+            """;
+
+    private static final String DELETE_UNMATCHED_SQL = """
+            DELETE FROM price_history h
+            WHERE h.changed_at < :truncatedAt
+              AND NOT EXISTS (SELECT 1 FROM price_history_id_map m WHERE m.old_id = h.mieszkanie_id)
+              AND EXISTS (SELECT 1 FROM mieszkania n WHERE n.id = h.mieszkanie_id)
+            """;
+
+    private static final String RECORD_DELETED_SQL = """
+            INSERT INTO price_history (mieszkanie_id, investment, price, area, source, changed_at)
+            SELECT p.id, p.investment, NULL, p.area, 'DELETE', :now
+            FROM price_history_import_snapshot p
+            WHERE NOT EXISTS (SELECT 1 FROM price_history_id_map m WHERE m.old_id = p.id)
+              AND NOT EXISTS (SELECT 1 FROM mieszkania n WHERE n.id = p.id)
+            """;
+
+    // Jedno UPDATE odczytuje stare id, więc zamiana id dwóch mieszkań jest bezpieczna
+    private static final String REKEY_SQL = """
+            UPDATE price_history h
+            SET mieszkanie_id = m.new_id
+            FROM price_history_id_map m
+            WHERE h.mieszkanie_id = m.old_id
+              AND m.old_id <> m.new_id
+              AND h.changed_at < :truncatedAt
+            """;
+
+    // Ostatni wpis mieszkania z indeksu (mieszkanie_id, changed_at); brak wpisu też daje IS DISTINCT FROM
+    private static final String RECORD_IMPORTED_SQL = """
+            INSERT INTO price_history (mieszkanie_id, investment, price, area, source, changed_at)
+            SELECT m.id, m.investment, m.price, m.area, 'IMPORT', :now
+            FROM mieszkania m
+            LEFT JOIN LATERAL (
+                SELECT h.price
+                FROM price_history h
+                WHERE h.mieszkanie_id = m.id
+                ORDER BY h.changed_at DESC, h.id DESC
+                LIMIT 1
+            ) last ON TRUE
+            WHERE m.price IS NOT NULL
+              AND last.price IS DISTINCT FROM m.price
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public PriceHistoryImportRecorder(NamedParameterJdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recordOnStartup() {
+        Thread.ofVirtual().name("price-history-import").start(() -> {
+            try {
+                recordImport();
+            } catch (RuntimeException e) {
+                log.error("Recording imported price history failed", e);
+            }
+        });
+    }
+
+    /**
+     * Przetwarza import czekający od ostatniego uruchomienia.
+     *
+     * @return liczba dopisanych wpisów IMPORT albo 0, gdy nie było importu lub przetwarza go inna instancja
+     */
+    public int recordImport() {
+        Integer recorded = transactionTemplate.execute(status -> {
+            if (!Boolean.TRUE.equals(jdbcTemplate.getJdbcTemplate().queryForObject(LOCK_SQL, Boolean.class))) {
+                return 0;
+            }
+            Timestamp truncatedAt = jdbcTemplate.getJdbcTemplate().queryForObject(PENDING_SQL, Timestamp.class);
+            if (truncatedAt == null) {
+                return 0;
+            }
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("truncatedAt", truncatedAt)
+                    .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+
+            jdbcTemplate.getJdbcTemplate().queryForObject(
+                    "SELECT CAST(price_history_ensure_partition(CURRENT_DATE) AS TEXT)", String.class);
+            jdbcTemplate.getJdbcTemplate().execute(MAP_BY_ID_SQL);
+            jdbcTemplate.getJdbcTemplate().execute(MAP_BY_NUMBER_SQL);
+            int dropped = jdbcTemplate.update(DELETE_UNMATCHED_SQL, params);
+            int deleted = jdbcTemplate.update(RECORD_DELETED_SQL, params);
+            int moved = jdbcTemplate.update(REKEY_SQL, params);
+            int imported = jdbcTemplate.update(RECORD_IMPORTED_SQL, params);
+            jdbcTemplate.getJdbcTemplate().update("DELETE FROM price_history_import_snapshot");
+            jdbcTemplate.getJdbcTemplate().update("DELETE FROM price_history_import_pending");
+
+            log.info("Recorded price history of the CSV import: {} imported, {} re-keyed, {} deleted listings, "
+                    + "{} unmatched entries dropped", imported, moved, deleted, dropped);
+            return imported;
+        });
+        return recorded != null ? recorded : 0;
+    }
+}
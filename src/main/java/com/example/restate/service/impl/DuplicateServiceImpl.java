@@ -0,0 +1,133 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.dto.DuplicateDTO;
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.PageResponse;
+import com.example.restate.dto.UpdateMieszkanieDTO;
+import com.example.restate.entity.ListingDuplicate;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.exception.ResourceNotFoundException;
+import com.example.restate.repository.ListingDuplicateRepository;
+import com.example.restate.repository.MieszkanieRepository;
+import com.example.restate.service.DuplicateService;
+import com.example.restate.service.MieszkanieService;
+import com.example.restate.service.dedup.DuplicateDetector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Przegląd duplikatów oznaczonych przez {@link DuplicateDetector}.
+ * <p>
+ * Scalenie zachowuje starsze ogłoszenie, uzupełnia jego puste pola danymi nowszego i usuwa nowsze
+ * przez {@link MieszkanieService}, więc zdarzenia zmian (cache, statystyki, outbox) działają jak przy
+ * zwykłej edycji i usunięciu.
+ */
+@Service
+@RequiredArgsConstructor
+public class DuplicateServiceImpl implements DuplicateService {
+
+    private final ListingDuplicateRepository listingDuplicateRepository;
+    private final MieszkanieRepository mieszkanieRepository;
+    private final MieszkanieService mieszkanieService;
+    private final DuplicateDetector duplicateDetector;
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<DuplicateDTO> getDuplicates(ListingDuplicate.Status status, Pageable pageable) {
+        Pageable sorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Direction.DESC, "similarity").and(Sort.by("id")));
+        Page<ListingDuplicate> page = listingDuplicateRepository.findByStatus(status, sorted);
+
+        Set<Integer> ids = new HashSet<>();
+        page.forEach(duplicate -> {
+            ids.add(duplicate.getMieszkanieId());
+            ids.add(duplicate.getDuplicateOfId());
+        });
+        Map<Integer, MieszkanieDTO> listings = mieszkanieRepository.findAllById(ids).stream()
+                .map(MieszkanieDTO::fromEntity)
+                .collect(Collectors.toMap(MieszkanieDTO::getId, Function.identity()));
+
+        List<DuplicateDTO> content = page.getContent().stream()
+                .map(duplicate -> DuplicateDTO.builder()
+                        .id(duplicate.getId())
+                        .similarity(duplicate.getSimilarity())
+                        .status(duplicate.getStatus())
+                        .detectedAt(duplicate.getDetectedAt())
+                        .listing(listings.get(duplicate.getMieszkanieId()))
+                        .duplicateOf(listings.get(duplicate.getDuplicateOfId()))
+                        .build())
+                .toList();
+
+        return PageResponse.<DuplicateDTO>builder()
+                .content(content)
+                .pageNumber(page.getNumber())
+                .pageSize(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .last(page.isLast())
+                .first(page.isFirst())
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public Mieszkanie merge(Long id) {
+        ListingDuplicate duplicate = findPending(id);
+        Mieszkanie removed = mieszkanieRepository.findById(duplicate.getMieszkanieId())
+                .orElseThrow(() -> new ResourceNotFoundException("Mieszkanie not found with id: " + duplicate.getMieszkanieId()));
+        Mieszkanie kept = mieszkanieRepository.findById(duplicate.getDuplicateOfId())
+                .orElseThrow(() -> new ResourceNotFoundException("Mieszkanie not found with id: " + duplicate.getDuplicateOfId()));
+
+        // Uzupełnij tylko puste pola zachowywanego ogłoszenia
+        UpdateMieszkanieDTO missing = UpdateMieszkanieDTO.builder()
+                .voivodeship(kept.getVoivodeship() == null ? removed.getVoivodeship() : null)
+                .district(kept.getDistrict() == null ? removed.getDistrict() : null)
+                .floor(kept.getFloor() == null ? removed.getFloor() : null)
+                .description(kept.getDescription() == null ? removed.getDescription() : null)
+                .build();
+        Mieszkanie result = mieszkanieService.updateFromDTO(kept.getId(), missing);
+
+        resolve(duplicate, ListingDuplicate.Status.MERGED);
+        mieszkanieService.deleteById(removed.getId());
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public void dismiss(Long id) {
+        resolve(findPending(id), ListingDuplicate.Status.DISMISSED);
+    }
+
+    @Override
+    public int scan() {
+        return duplicateDetector.scanUnfingerprinted();
+    }
+
+    private ListingDuplicate findPending(Long id) {
+        ListingDuplicate duplicate = listingDuplicateRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Duplicate not found with id: " + id));
+        if (duplicate.getStatus() != ListingDuplicate.Status.PENDING) {
+            throw new IllegalArgumentException("Duplicate " + id + " is already " + duplicate.getStatus());
+        }
+        return duplicate;
+    }
+
+    private void resolve(ListingDuplicate duplicate, ListingDuplicate.Status status) {
+        duplicate.setStatus(status);
+        duplicate.setResolvedAt(LocalDateTime.now());
+        listingDuplicateRepository.save(duplicate);
+    }
+}
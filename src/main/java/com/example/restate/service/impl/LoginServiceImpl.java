@@ -0,0 +1,78 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.config.BlockingIoExecutor;
+import com.example.restate.entity.User;
+import com.example.restate.repository.UserRepository;
+import com.example.restate.security.PasswordHashingExecutor;
+import com.example.restate.service.LoginService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Logowanie z jednym odczytem użytkownika. W {@link PasswordHashingExecutor} działa tylko BCrypt:
+ * weryfikacja hasła i - dla skrótu zapisanego ze starszym kosztem - nowy skrót z bieżącym kosztem.
+ * Zapis nowego skrótu i dalsze etapy działają na wątkach wirtualnych ({@link BlockingIoExecutor}),
+ * więc wątki puli nie czekają na bazę.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoginServiceImpl implements LoginService {
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final BlockingIoExecutor blockingIoExecutor;
+
+    @Override
+    public CompletableFuture<User> login(String username, String password) {
+        Optional<User> user = userRepository.findByUsername(username);
+        if (user.isEmpty()) {
+            log.warn("User not found: {}", username);
+            return CompletableFuture.failedFuture(new BadCredentialsException("Invalid username or password"));
+        }
+        return passwordHashingExecutor.submit(() -> verify(user.get(), password))
+                .thenApplyAsync(this::saveUpgradedHash, blockingIoExecutor.executor());
+    }
+
+    private VerifiedLogin verify(User user, String password) {
+        if (!passwordEncoder.matches(password, user.getPassword())) {
+            throw new BadCredentialsException("Invalid username or password");
+        }
+        if (!user.isEnabled()) {
+            throw new DisabledException("User is disabled");
+        }
+        String upgradedHash = passwordEncoder.upgradeEncoding(user.getPassword())
+                ? passwordEncoder.encode(password) : null;
+        return new VerifiedLogin(user, upgradedHash);
+    }
+
+    private User saveUpgradedHash(VerifiedLogin login) {
+        User user = login.user();
+        if (login.upgradedHash() == null) {
+            return user;
+        }
+        try {
+            userRepository.updatePassword(user.getId(), login.upgradedHash());
+            user.setPassword(login.upgradedHash());
+            log.info("Upgraded password hash of user {}", user.getUsername());
+        } catch (RuntimeException e) {
+            // Logowanie się udało - skrót zostanie przeliczony przy kolejnym
+            log.warn("Failed to upgrade password hash of user {}", user.getUsername(), e);
+        }
+        return user;
+    }
+
+    /**
+     * @param upgradedHash skrót z bieżącym kosztem BCrypt do zapisania, {@code null} - zapisany jest aktualny
+     */
+    private record VerifiedLogin(User user, String upgradedHash) {
+    }
+}
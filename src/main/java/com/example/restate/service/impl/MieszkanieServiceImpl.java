@@ -1,13 +1,19 @@
 package com.example.restate.service.impl;
 
+import com.example.restate.dto.MieszkanieDTO;
 import com.example.restate.dto.MieszkanieSearchCriteria;
 import com.example.restate.dto.PageResponse;
 import com.example.restate.dto.UpdateMieszkanieDTO;
 import com.example.restate.entity.Mieszkanie;
+import com.example.restate.event.MieszkanieChangedEvent;
 import com.example.restate.exception.ResourceNotFoundException;
 import com.example.restate.repository.MieszkanieRepository;
 import com.example.restate.service.MieszkanieService;
+import com.example.restate.service.cache.SpringCacheInvalidationListener;
+import com.example.restate.service.similar.SimilarListingIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -23,7 +29,11 @@ import jakarta.persistence.criteria.Root;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -32,32 +42,43 @@ public class MieszkanieServiceImpl implements MieszkanieService {
 
     private final MieszkanieRepository mieszkanieRepository;
     private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SimilarListingIndex similarListingIndex;
 
     @Override
+    @Transactional(readOnly = true)
     public List<Mieszkanie> findAll() {
         return mieszkanieRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageResponse<Mieszkanie> findAll(Pageable pageable) {
         Page<Mieszkanie> page = mieszkanieRepository.findAll(pageable);
         return convertToPageResponse(page);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Mieszkanie> findById(Integer id) {
         return mieszkanieRepository.findById(id);
     }
 
     @Override
     public Mieszkanie save(Mieszkanie mieszkanie) {
-        return mieszkanieRepository.save(mieszkanie);
+        boolean isNew = mieszkanie.getId() == null;
+        Mieszkanie saved = mieszkanieRepository.save(mieszkanie);
+        eventPublisher.publishEvent(isNew
+                ? MieszkanieChangedEvent.created(saved)
+                : MieszkanieChangedEvent.updated(null, saved));
+        return saved;
     }
 
     @Override
     public Mieszkanie update(Integer id, Mieszkanie mieszkanie) {
         Mieszkanie existing = mieszkanieRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Mieszkanie not found with id: " + id));
+        MieszkanieDTO previous = MieszkanieDTO.fromEntity(existing);
 
         existing.setDeveloper(mieszkanie.getDeveloper());
         existing.setInvestment(mieszkanie.getInvestment());
@@ -67,45 +88,55 @@ public class MieszkanieServiceImpl implements MieszkanieService {
         existing.setStatus(mieszkanie.getStatus());
         existing.setDescription(mieszkanie.getDescription());
 
-        return mieszkanieRepository.save(existing);
+        Mieszkanie updated = mieszkanieRepository.save(existing);
+        eventPublisher.publishEvent(MieszkanieChangedEvent.updated(previous, updated));
+        return updated;
     }
 
     @Override
     public void deleteById(Integer id) {
-        if (!mieszkanieRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Mieszkanie not found with id: " + id);
-        }
-        mieszkanieRepository.deleteById(id);
+        Mieszkanie existing = mieszkanieRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Mieszkanie not found with id: " + id));
+        MieszkanieDTO previous = MieszkanieDTO.fromEntity(existing);
+
+        mieszkanieRepository.delete(existing);
+        eventPublisher.publishEvent(MieszkanieChangedEvent.deleted(previous));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Mieszkanie> findByDeveloper(String developer) {
         return mieszkanieRepository.findByDeveloper(developer);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageResponse<Mieszkanie> findByDeveloper(String developer, Pageable pageable) {
         Page<Mieszkanie> page = mieszkanieRepository.findByDeveloper(developer, pageable);
         return convertToPageResponse(page);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Mieszkanie> findByInvestment(String investment) {
         return mieszkanieRepository.findByInvestment(investment);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageResponse<Mieszkanie> findByInvestment(String investment, Pageable pageable) {
         Page<Mieszkanie> page = mieszkanieRepository.findByInvestment(investment, pageable);
         return convertToPageResponse(page);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Mieszkanie> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
         return mieszkanieRepository.findByPriceRange(minPrice, maxPrice);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageResponse<Mieszkanie> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
         Page<Mieszkanie> page = mieszkanieRepository.findByPriceBetween(minPrice, maxPrice, pageable);
         return convertToPageResponse(page);
@@ -114,6 +145,7 @@ public class MieszkanieServiceImpl implements MieszkanieService {
 
 
     @Override
+    @Transactional(readOnly = true)
     public List<Mieszkanie> searchByCriteria(MieszkanieSearchCriteria criteria) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Mieszkanie> query = cb.createQuery(Mieszkanie.class);
@@ -126,6 +158,7 @@ public class MieszkanieServiceImpl implements MieszkanieService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageResponse<Mieszkanie> searchByCriteria(MieszkanieSearchCriteria criteria, Pageable pageable) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Mieszkanie> query = cb.createQuery(Mieszkanie.class);
@@ -139,7 +172,8 @@ public class MieszkanieServiceImpl implements MieszkanieService {
         CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
         Root<Mieszkanie> countRoot = countQuery.from(Mieszkanie.class);
         countQuery.select(cb.count(countRoot));
-        countQuery.where(predicates.toArray(new Predicate[0]));
+        // Predykaty muszą odwoływać się do korzenia zapytania COUNT, nie do korzenia zapytania o stronę
+        countQuery.where(buildPredicatesFromCriteria(cb, countRoot, criteria).toArray(new Predicate[0]));
         Long totalElements = entityManager.createQuery(countQuery).getSingleResult();
 
         // Apply pagination
@@ -198,6 +232,8 @@ public class MieszkanieServiceImpl implements MieszkanieService {
     }
 
     @Override
+    @Cacheable(SpringCacheInvalidationListener.DEVELOPERS_CACHE)
+    @Transactional(readOnly = true)
     public List<String> getAllDevelopers() {
         return mieszkanieRepository.findAllDevelopers();
     }
@@ -207,14 +243,19 @@ public class MieszkanieServiceImpl implements MieszkanieService {
     public Mieszkanie changeStatus(Integer id, Mieszkanie.Status status) {
         Mieszkanie mieszkanie = mieszkanieRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Mieszkanie not found with id: " + id));
+        MieszkanieDTO previous = MieszkanieDTO.fromEntity(mieszkanie);
+
         mieszkanie.setStatus(status);
-        return mieszkanieRepository.save(mieszkanie);
+        Mieszkanie updated = mieszkanieRepository.save(mieszkanie);
+        eventPublisher.publishEvent(MieszkanieChangedEvent.statusChanged(previous, updated));
+        return updated;
     }
 
     @Override
     public Mieszkanie updateFromDTO(Integer id, UpdateMieszkanieDTO dto) {
         Mieszkanie existing = findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Mieszkanie o ID " + id + " nie znalezione"));
+        MieszkanieDTO previous = MieszkanieDTO.fromEntity(existing);
 
         // Aktualizuj tylko niepuste pola
         if (dto.getDeveloper() != null) existing.setDeveloper(dto.getDeveloper());
@@ -228,8 +269,28 @@ public class MieszkanieServiceImpl implements MieszkanieService {
         if (dto.getFloor() != null) existing.setFloor(dto.getFloor());
         if (dto.getDescription() != null) existing.setDescription(dto.getDescription());
 
-        return save(existing);
+        Mieszkanie updated = mieszkanieRepository.save(existing);
+        eventPublisher.publishEvent(MieszkanieChangedEvent.updated(previous, updated));
+        return updated;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Mieszkanie> findSimilar(Integer id, int k, Mieszkanie.Status status) {
+        List<Integer> ids = similarListingIndex.findSimilar(id, k, status);
+        if (ids.isEmpty()) {
+            if (!mieszkanieRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Mieszkanie not found with id: " + id);
+            }
+            return List.of();
+        }
 
+        // Kolejność z indeksu (od najbardziej podobnego); mieszkanie usunięte w międzyczasie jest pomijane
+        Map<Integer, Mieszkanie> byId = mieszkanieRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Mieszkanie::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 }
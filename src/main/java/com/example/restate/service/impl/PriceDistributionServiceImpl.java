@@ -0,0 +1,468 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.config.StartupWork;
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.PriceDistributionDTO;
+import com.example.restate.dto.PriceSample;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.repository.MieszkanieRepository;
+import com.example.restate.service.PriceDistributionService;
+import com.example.restate.service.cache.CacheInvalidationListener;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import com.example.restate.service.search.MieszkanieCriteriaMatcher;
+import com.example.restate.service.stats.KllSketch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Rozkład cen i cen za m² z pamięci, na podstawie szkiców {@link KllSketch}.
+ * <p>
+ * Szkice są trzymane osobno dla każdego segmentu (województwo, miasto, dzielnica, status). Dla poziomów
+ * hierarchii (cały rynek, województwo, miasto, dzielnica miasta - każdy z filtrem statusu i bez) trzymane są
+ * dodatkowo szkice już scalone z segmentów, więc zapytanie kopiuje jeden szkic zamiast łączyć wszystkie
+ * pasujące segmenty. Tylko zapytanie o dzielnicę bez miasta łączy segmenty w locie.
+ * <p>
+ * Nowe mieszkanie jest dopisywane do szkiców od razu po commicie. Szkic nie umie usunąć wartości, dlatego
+ * zmiana lub usunięcie mieszkania tylko oznacza jego segmenty jako nieaktualne; okresowa przebudowa
+ * wczytuje je z bazy i scala od nowa dotknięte poziomy. Do przebudowy zmienione mieszkanie jest liczone
+ * ze starą ceną w starym segmencie - rozkład jest opóźniony o co najwyżej
+ * {@code stats.distribution.rebuild-interval-ms}, ale żadne mieszkanie nie jest liczone podwójnie.
+ * <p>
+ * Zmiany zapisane na innych instancjach przychodzą kanałem unieważnień jako klucze segmentów
+ * ({@link CacheInvalidationMessage#SEGMENT_KEY}); wiadomość bez nich albo utrata powiadomień kończy się
+ * pełnym przeładowaniem przy najbliższej przebudowie.
+ */
+@Service
+@Slf4j
+public class PriceDistributionServiceImpl implements PriceDistributionService, CacheInvalidationListener {
+
+    static final List<Double> DEFAULT_QUANTILES = List.of(0.1, 0.25, 0.5, 0.75, 0.9);
+    private static final int MAX_QUANTILES = 20;
+
+    private final MieszkanieRepository mieszkanieRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final StartupWork startupWork;
+    private final int k;
+
+    private final Set<SegmentKey> staleSegments = ConcurrentHashMap.newKeySet();
+    private volatile Map<SegmentKey, Segment> segments = new ConcurrentHashMap<>();
+    // Szkice poziomów hierarchii scalone z segmentów, klucze małymi literami (null = dowolna wartość)
+    private volatile Map<SegmentKey, Segment> levels = new ConcurrentHashMap<>();
+    private volatile boolean loading;
+    private volatile boolean reloadRequested;
+
+    public PriceDistributionServiceImpl(MieszkanieRepository mieszkanieRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        StartupWork startupWork,
+                                        @Value("${stats.distribution.k:200}") int k) {
+        this.mieszkanieRepository = mieszkanieRepository;
+        this.startupWork = startupWork;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.k = k;
+    }
+
+    @Override
+    public PriceDistributionDTO getDistribution(String voivodeship, String city, String district, String status,
+                                                List<Double> quantiles, BigDecimal price) {
+        Mieszkanie.Status statusFilter = null;
+        if (status != null) {
+            statusFilter = MieszkanieCriteriaMatcher.parseStatus(status);
+            if (statusFilter == null) {
+                throw new IllegalArgumentException("Invalid status: " + status);
+            }
+        }
+        List<Double> requested = quantiles == null || quantiles.isEmpty() ? DEFAULT_QUANTILES : quantiles;
+        validateQuantiles(requested);
+
+        KllSketch priceSketch = new KllSketch(k);
+        KllSketch pricePerM2Sketch = new KllSketch(k);
+        if (district != null && city == null) {
+            for (Map.Entry<SegmentKey, Segment> entry : segments.entrySet()) {
+                if (entry.getKey().matches(voivodeship, city, district, statusFilter)) {
+                    entry.getValue().mergeInto(priceSketch, pricePerM2Sketch);
+                }
+            }
+        } else {
+            Segment level = levels.get(SegmentKey.level(voivodeship, city, district, statusFilter));
+            if (level != null) {
+                level.mergeInto(priceSketch, pricePerM2Sketch);
+            }
+        }
+
+        return PriceDistributionDTO.builder()
+                .voivodeship(voivodeship)
+                .city(city)
+                .district(district)
+                .status(statusFilter != null ? statusFilter.name() : null)
+                .listingCount(priceSketch.getCount())
+                .rankErrorBound(KllSketch.normalizedRankError(k))
+                .price(toDistribution(priceSketch, requested))
+                .pricePerM2(toDistribution(pricePerM2Sketch, requested))
+                .priceRank(price != null && priceSketch.getCount() > 0
+                        ? priceSketch.getRank(price.doubleValue()) : null)
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        // Do zakończenia ładowania instancja nie jest gotowa (readiness)
+        startupWork.runInBackground("price-distribution-load", this::loadAll);
+    }
+
+    @Override
+    public void loadAll() {
+        long start = System.currentTimeMillis();
+        loading = true;
+        try {
+            Map<SegmentKey, Segment> loaded = new ConcurrentHashMap<>();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<PriceSample> samples = mieszkanieRepository.streamPriceSamples()) {
+                    samples.forEach(sample -> loaded.computeIfAbsent(SegmentKey.of(sample),
+                            key -> new Segment(k)).add(sample));
+                }
+            });
+            Map<SegmentKey, Segment> loadedLevels = new ConcurrentHashMap<>(mergeLevels(loaded, null));
+            synchronized (this) {
+                segments = loaded;
+                levels = loadedLevels;
+            }
+        } finally {
+            loading = false;
+        }
+        log.info("Loaded price distribution sketches for {} segments in {} ms",
+                segments.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMieszkanieChanged(MieszkanieChangedEvent event) {
+        PriceSample previous = sampleOf(event.getPrevious());
+        PriceSample current = sampleOf(event.getCurrent());
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        if (previous == null && event.getType() != MieszkanieChangedEvent.ChangeType.CREATED) {
+            // Stan sprzed zmiany nieznany - nie wiadomo, z którego segmentu usunąć starą cenę
+            reloadRequested = true;
+            return;
+        }
+        if (previous != null) {
+            staleSegments.add(SegmentKey.of(previous));
+            if (current != null) {
+                staleSegments.add(SegmentKey.of(current));
+            }
+            return;
+        }
+        add(current);
+    }
+
+    /**
+     * Zmiany zapisane na innych instancjach - własne obsługuje {@link #onMieszkanieChanged}.
+     */
+    @Override
+    public void onInvalidation(CacheInvalidationMessage message) {
+        if (!message.isRemote() || !CacheInvalidationMessage.MIESZKANIE.equals(message.getEntity())) {
+            return;
+        }
+        List<String> keys = message.getKeys();
+        if (keys == null || keys.isEmpty()) {
+            reloadRequested = true;
+            return;
+        }
+        for (String key : keys) {
+            if (key.equals(CacheInvalidationMessage.SEGMENT_KEY + "*")) {
+                reloadRequested = true;
+            } else if (key.startsWith(CacheInvalidationMessage.SEGMENT_KEY)) {
+                staleSegments.add(SegmentKey.fromMessageKey(key));
+            }
+        }
+    }
+
+    @Override
+    public void onFullFlush() {
+        reloadRequested = true;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${stats.distribution.rebuild-interval-ms:30000}")
+    public int rebuildStaleSegments() {
+        if (loading) {
+            return 0;
+        }
+        if (reloadRequested) {
+            reloadRequested = false;
+            loadAll();
+            return segments.size();
+        }
+        if (staleSegments.isEmpty()) {
+            return 0;
+        }
+        List<SegmentKey> batch = new ArrayList<>(staleSegments);
+        batch.forEach(staleSegments::remove);
+
+        int rebuilt = 0;
+        try {
+            for (SegmentKey key : batch) {
+                rebuild(key);
+                rebuilt++;
+            }
+        } catch (RuntimeException e) {
+            staleSegments.addAll(batch.subList(rebuilt, batch.size()));
+            throw e;
+        } finally {
+            if (rebuilt > 0) {
+                rebuildLevels(batch.subList(0, rebuilt));
+            }
+        }
+        log.debug("Rebuilt {} price distribution segments", rebuilt);
+        return rebuilt;
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    int getStaleSegmentCount() {
+        return staleSegments.size();
+    }
+
+    int getLevelCount() {
+        return levels.size();
+    }
+
+    private synchronized void add(PriceSample sample) {
+        Map<SegmentKey, Segment> target = segments;
+        SegmentKey key = SegmentKey.of(sample);
+        target.computeIfAbsent(key, ignored -> new Segment(k)).add(sample);
+        for (SegmentKey level : key.levels()) {
+            levels.computeIfAbsent(level, ignored -> new Segment(k)).add(sample);
+        }
+        // Zapis w trakcie pełnego ładowania mógł trafić do map, które zaraz zostaną podmienione
+        if (loading) {
+            staleSegments.add(key);
+        }
+    }
+
+    /**
+     * Scala od nowa poziomy, do których należą przebudowane segmenty. Pod blokadą, żeby dopisanie
+     * nowego mieszkania nie trafiło do szkicu poziomu, który właśnie jest podmieniany - koszt to jedno
+     * scalenie pasujących segmentów na przebudowę, a nie na każde zapytanie.
+     */
+    private synchronized void rebuildLevels(List<SegmentKey> rebuiltSegments) {
+        Set<SegmentKey> affected = new HashSet<>();
+        rebuiltSegments.forEach(key -> affected.addAll(key.levels()));
+        Map<SegmentKey, Segment> merged = mergeLevels(segments, affected);
+        for (SegmentKey level : affected) {
+            Segment segment = merged.get(level);
+            if (segment != null) {
+                levels.put(level, segment);
+            } else {
+                levels.remove(level);
+            }
+        }
+    }
+
+    /**
+     * @param only poziomy do scalenia, {@code null} - wszystkie
+     */
+    private Map<SegmentKey, Segment> mergeLevels(Map<SegmentKey, Segment> source, Set<SegmentKey> only) {
+        Map<SegmentKey, Segment> merged = new HashMap<>();
+        source.forEach((key, segment) -> {
+            for (SegmentKey level : key.levels()) {
+                if (only == null || only.contains(level)) {
+                    merged.computeIfAbsent(level, ignored -> new Segment(k)).addAll(segment);
+                }
+            }
+        });
+        return merged;
+    }
+
+    private void rebuild(SegmentKey key) {
+        Map<SegmentKey, Segment> target = segments;
+        Segment before = target.get(key);
+        long version = before != null ? before.getVersion() : -1;
+
+        List<PriceSample> samples = readOnlyTransaction.execute(status ->
+                mieszkanieRepository.findPriceSamples(key.voivodeship(), key.city(), key.district(),
+                        key.status()));
+        Segment rebuilt = new Segment(k);
+        Objects.requireNonNull(samples).forEach(rebuilt::add);
+
+        target.compute(key, (ignored, existing) -> {
+            long currentVersion = existing != null ? existing.getVersion() : -1;
+            if (existing != before || currentVersion != version) {
+                // Segment zmienił się w trakcie odczytu - wynik z bazy mógł go nie uwzględniać
+                staleSegments.add(key);
+                return existing;
+            }
+            return rebuilt.isEmpty() ? null : rebuilt;
+        });
+    }
+
+    private static PriceSample sampleOf(MieszkanieDTO mieszkanie) {
+        return mieszkanie != null ? PriceSample.of(mieszkanie) : null;
+    }
+
+    private static void validateQuantiles(List<Double> quantiles) {
+        if (quantiles.size() > MAX_QUANTILES) {
+            throw new IllegalArgumentException("At most " + MAX_QUANTILES + " quantiles can be requested");
+        }
+        for (Double q : quantiles) {
+            if (q == null || q < 0 || q > 1) {
+                throw new IllegalArgumentException("Quantiles must be between 0 and 1: " + q);
+            }
+        }
+    }
+
+    private static PriceDistributionDTO.Distribution toDistribution(KllSketch sketch, List<Double> quantiles) {
+        if (sketch.getCount() == 0) {
+            return null;
+        }
+        Map<String, BigDecimal> values = new LinkedHashMap<>();
+        for (Double q : quantiles) {
+            values.put(label(q), round(sketch.getQuantile(q)));
+        }
+        return PriceDistributionDTO.Distribution.builder()
+                .min(round(sketch.getMin()))
+                .max(round(sketch.getMax()))
+                .quantiles(values)
+                .build();
+    }
+
+    private static String label(double q) {
+        return "p" + BigDecimal.valueOf(q * 100).stripTrailingZeros().toPlainString();
+    }
+
+    private static BigDecimal round(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Województwo odróżnia miejscowości o tej samej nazwie (np. Nowa Wieś)
+    record SegmentKey(String voivodeship, String city, String district, Mieszkanie.Status status) {
+
+        static SegmentKey of(PriceSample sample) {
+            return new SegmentKey(sample.voivodeship(), sample.city(), sample.district(), sample.status());
+        }
+
+        /**
+         * Klucz poziomu hierarchii, do którego trafia zapytanie o podane filtry.
+         */
+        static SegmentKey level(String voivodeship, String city, String district, Mieszkanie.Status status) {
+            return new SegmentKey(lowerCase(voivodeship), lowerCase(city), lowerCase(district), status);
+        }
+
+        static SegmentKey fromMessageKey(String key) {
+            String[] parts = key.substring(CacheInvalidationMessage.SEGMENT_KEY.length())
+                    .split(Pattern.quote(CacheInvalidationMessage.SEGMENT_SEPARATOR), -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid segment key: " + key);
+            }
+            return new SegmentKey(emptyToNull(parts[0]), emptyToNull(parts[1]), emptyToNull(parts[2]),
+                    parts[3].isEmpty() ? null : Mieszkanie.Status.valueOf(parts[3]));
+        }
+
+        /**
+         * Poziomy, do których należy segment: rynek, województwo, miasto (także bez województwa)
+         * i dzielnica miasta, każdy ze statusem segmentu i bez. Zbiór scala poziomy, które przy braku
+         * miasta lub dzielnicy się pokrywają, więc segment trafia do każdego poziomu raz.
+         */
+        Set<SegmentKey> levels() {
+            Set<SegmentKey> keys = new HashSet<>();
+            for (String v : Arrays.asList(null, voivodeship)) {
+                for (Mieszkanie.Status s : Arrays.asList(null, status)) {
+                    keys.add(level(v, null, null, s));
+                    if (city != null) {
+                        keys.add(level(v, city, null, s));
+                        keys.add(level(v, city, district, s));
+                    }
+                }
+            }
+            return keys;
+        }
+
+        boolean matches(String voivodeship, String city, String district, Mieszkanie.Status status) {
+            return (voivodeship == null || voivodeship.equalsIgnoreCase(this.voivodeship))
+                    && (city == null || city.equalsIgnoreCase(this.city))
+                    && (district == null || district.equalsIgnoreCase(this.district))
+                    && (status == null || status == this.status);
+        }
+
+        private static String lowerCase(String value) {
+            return value != null ? value.toLowerCase(Locale.ROOT) : null;
+        }
+
+        private static String emptyToNull(String value) {
+            return value.isEmpty() ? null : value;
+        }
+    }
+
+    /**
+     * Szkice jednego segmentu. Wersja rośnie przy każdym dodaniu, co pozwala wykryć zapis
+     * wykonany w trakcie przebudowy segmentu z bazy.
+     */
+    static final class Segment {
+
+        private final KllSketch price;
+        private final KllSketch pricePerM2;
+        private long version;
+
+        Segment(int k) {
+            this.price = new KllSketch(k);
+            this.pricePerM2 = new KllSketch(k);
+        }
+
+        synchronized void add(PriceSample sample) {
+            if (sample.price() == null) {
+                return;
+            }
+            price.update(sample.price().doubleValue());
+            if (sample.area() != null && sample.area().signum() > 0) {
+                pricePerM2.update(sample.price().doubleValue() / sample.area().doubleValue());
+            }
+            version++;
+        }
+
+        synchronized void addAll(Segment other) {
+            other.mergeInto(price, pricePerM2);
+            version++;
+        }
+
+        synchronized void mergeInto(KllSketch priceTarget, KllSketch pricePerM2Target) {
+            priceTarget.merge(price);
+            pricePerM2Target.merge(pricePerM2);
+        }
+
+        synchronized long getVersion() {
+            return version;
+        }
+
+        synchronized boolean isEmpty() {
+            return price.getCount() == 0;
+        }
+    }
+}
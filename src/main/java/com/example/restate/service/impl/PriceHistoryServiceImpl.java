@@ -0,0 +1,204 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.PriceHistoryDTO;
+import com.example.restate.dto.PriceIndexPointDTO;
+import com.example.restate.entity.PriceHistoryEntry;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.exception.ResourceNotFoundException;
+import com.example.restate.repository.MieszkanieRepository;
+import com.example.restate.repository.PriceHistoryRepository;
+import com.example.restate.service.PriceHistoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Historia cen mieszkań w tabeli {@code price_history} partycjonowanej po miesiącach.
+ * <p>
+ * Wpis powstaje tylko przy faktycznej zmianie ceny (oraz przy utworzeniu i usunięciu mieszkania),
+ * synchronicznie w transakcji zapisu - jeden INSERT, bez odczytu poprzedniego stanu, bo zdarzenie
+ * niesie migawkę sprzed zmiany. Import CSV ({@code R__import_csv.sql}) omija aplikację - wpisy IMPORT
+ * i przepięcie historii na nowe id mieszkań dopisuje po starcie {@code PriceHistoryImportRecorder}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceHistoryServiceImpl implements PriceHistoryService {
+
+    static final int MAX_INDEX_MONTHS = 120;
+
+    // Cena każdego mieszkania inwestycji na koniec miesiąca (ostatni wpis przed końcem miesiąca)
+    private static final String INDEX_SQL = """
+            WITH months AS (
+                SELECT generate_series(CAST(:from AS DATE), CAST(:to AS DATE), INTERVAL '1 month') AS month_start
+            )
+            SELECT m.month_start,
+                   COUNT(h.price) AS listing_count,
+                   AVG(h.price / NULLIF(h.area, 0)) AS avg_price_per_m2,
+                   percentile_cont(0.5) WITHIN GROUP (ORDER BY h.price / NULLIF(h.area, 0)) AS median_price_per_m2
+            FROM months m
+            LEFT JOIN LATERAL (
+                SELECT DISTINCT ON (mieszkanie_id) price, area
+                FROM price_history
+                WHERE investment = :investment
+                  AND changed_at < m.month_start + INTERVAL '1 month'
+                ORDER BY mieszkanie_id, changed_at DESC, id DESC
+            ) h ON h.price IS NOT NULL
+            GROUP BY m.month_start
+            ORDER BY m.month_start
+            """;
+
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final MieszkanieRepository mieszkanieRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @EventListener
+    public void onMieszkanieChanged(MieszkanieChangedEvent event) {
+        MieszkanieDTO previous = event.getPrevious();
+        MieszkanieDTO current = event.getCurrent();
+
+        PriceHistoryEntry.Source source;
+        if (current == null) {
+            source = PriceHistoryEntry.Source.DELETE;
+        } else if (previous == null) {
+            source = PriceHistoryEntry.Source.CREATE;
+        } else if (!priceChanged(previous.getPrice(), current.getPrice())) {
+            return;
+        } else {
+            source = PriceHistoryEntry.Source.UPDATE;
+        }
+
+        MieszkanieDTO latest = event.getLatest();
+        PriceHistoryEntry entry = new PriceHistoryEntry();
+        entry.setMieszkanieId(event.getMieszkanieId());
+        entry.setInvestment(latest.getInvestment());
+        entry.setPrice(current != null ? current.getPrice() : null);
+        entry.setArea(latest.getArea());
+        entry.setSource(source);
+        entry.setChangedAt(LocalDateTime.now());
+        priceHistoryRepository.save(entry);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PriceHistoryDTO> getHistory(Integer mieszkanieId) {
+        List<PriceHistoryEntry> entries = priceHistoryRepository.findByMieszkanieIdOrderByChangedAtAscIdAsc(mieszkanieId);
+        if (entries.isEmpty() && !mieszkanieRepository.existsById(mieszkanieId)) {
+            throw new ResourceNotFoundException("Mieszkanie not found with id: " + mieszkanieId);
+        }
+
+        List<PriceHistoryDTO> history = new ArrayList<>(entries.size());
+        BigDecimal previousPrice = null;
+        for (PriceHistoryEntry entry : entries) {
+            BigDecimal price = entry.getPrice();
+            PriceHistoryDTO.PriceHistoryDTOBuilder dto = PriceHistoryDTO.builder()
+                    .price(price)
+                    .source(entry.getSource())
+                    .changedAt(entry.getChangedAt());
+            if (price != null && entry.getArea() != null && entry.getArea().signum() > 0) {
+                dto.pricePerM2(price.divide(entry.getArea(), 2, RoundingMode.HALF_UP));
+            }
+            if (price != null && previousPrice != null) {
+                BigDecimal change = price.subtract(previousPrice);
+                dto.change(change);
+                if (previousPrice.signum() != 0) {
+                    dto.changePercent(change.multiply(BigDecimal.valueOf(100))
+                            .divide(previousPrice, 2, RoundingMode.HALF_UP));
+                }
+            }
+            history.add(dto.build());
+            previousPrice = price;
+        }
+        return history;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PriceIndexPointDTO> getInvestmentIndex(String investment, YearMonth from, YearMonth to) {
+        YearMonth end = to != null ? to : YearMonth.now();
+        YearMonth start = from != null ? from : end.minusMonths(11);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.MONTHS.between(start, end) >= MAX_INDEX_MONTHS) {
+            throw new IllegalArgumentException("Price index range is limited to " + MAX_INDEX_MONTHS + " months");
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("investment", investment)
+                .addValue("from", start.atDay(1))
+                .addValue("to", end.atDay(1));
+        List<PriceIndexPointDTO> points = jdbcTemplate.query(INDEX_SQL, params, (rs, rowNum) ->
+                PriceIndexPointDTO.builder()
+                        .month(YearMonth.from(rs.getDate("month_start").toLocalDate()))
+                        .listingCount(rs.getLong("listing_count"))
+                        .avgPricePerM2(scale(rs.getBigDecimal("avg_price_per_m2")))
+                        .medianPricePerM2(scale(rs.getBigDecimal("median_price_per_m2")))
+                        .build());
+
+        // Bazą indeksu jest pierwszy miesiąc, w którym inwestycja miała oferty
+        BigDecimal base = points.stream()
+                .map(PriceIndexPointDTO::getAvgPricePerM2)
+                .filter(value -> value != null && value.signum() > 0)
+                .findFirst()
+                .orElse(null);
+        if (base != null) {
+            points.stream()
+                    .filter(point -> point.getAvgPricePerM2() != null)
+                    .forEach(point -> point.setIndex(point.getAvgPricePerM2()
+                            .multiply(BigDecimal.valueOf(100))
+                            .divide(base, 2, RoundingMode.HALF_UP)));
+        }
+        return points;
+    }
+
+    /**
+     * Zakłada partycje bieżącego i następnego miesiąca; wiersze spoza nich trafiają do partycji domyślnej.
+     */
+    @Override
+    @Scheduled(cron = "${price-history.partition-cron:0 0 1 * * *}")
+    public void ensurePartitions() {
+        LocalDate today = LocalDate.now();
+        for (LocalDate day : List.of(today, today.plusMonths(1))) {
+            jdbcTemplate.getJdbcTemplate().queryForObject(
+                    "SELECT CAST(price_history_ensure_partition(?) AS TEXT)", String.class, day);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensurePartitionsOnStartup() {
+        try {
+            ensurePartitions();
+        } catch (DataAccessException e) {
+            log.warn("Could not prepare price history partitions: {}", e.getMessage());
+        }
+    }
+
+    private static boolean priceChanged(BigDecimal previous, BigDecimal current) {
+        if (previous == null || current == null) {
+            return previous != current;
+        }
+        return previous.compareTo(current) != 0;
+    }
+
+    private static BigDecimal scale(BigDecimal value) {
+        return value != null ? value.setScale(2, RoundingMode.HALF_UP) : null;
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.PriceStatsDTO;
+import com.example.restate.dto.PriceStatsResponse;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.entity.PriceStats;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.repository.PriceStatsRepository;
+import com.example.restate.service.PriceStatsService;
+import com.example.restate.service.search.MieszkanieCriteriaMatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Statystyki cen serwowane z tabeli podsumowań {@code price_stats}.
+ * <p>
+ * Zapis mieszkania oznacza po commicie jego grupy (województwo, miasto, dzielnica, inwestycja -
+ * przed i po zmianie) jako nieaktualne. Okresowe odświeżanie przelicza tylko te grupy:
+ * usuwa ich wiersze i wstawia nowe, wyliczone z {@code mieszkania} z filtrem po indeksowanej
+ * kolumnie grupy, zamiast GROUP BY po całej tabeli. Pełne przeliczenie odbywa się po starcie
+ * (po imporcie CSV przez Flyway), w nocy oraz na żądanie administratora.
+ */
+@Service
+@Slf4j
+public class PriceStatsServiceImpl implements PriceStatsService {
+
+    private static final Map<String, Function<MieszkanieDTO, String>> DIMENSIONS = Map.of(
+            "voivodeship", MieszkanieDTO::getVoivodeship,
+            "city", MieszkanieDTO::getCity,
+            "district", MieszkanieDTO::getDistrict,
+            "investment", MieszkanieDTO::getInvestment);
+
+    private static final Map<PriceStats.GroupType, List<String>> GROUP_COLUMNS = new EnumMap<>(Map.of(
+            PriceStats.GroupType.VOIVODESHIP, List.of("voivodeship"),
+            PriceStats.GroupType.CITY, List.of("voivodeship", "city"),
+            PriceStats.GroupType.DISTRICT, List.of("voivodeship", "city", "district"),
+            PriceStats.GroupType.INVESTMENT, List.of("voivodeship", "city", "investment")));
+
+    // Serializuje odświeżanie między instancjami - równoległe DELETE + INSERT tej samej grupy
+    // naruszyłyby unikalność
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext('price_stats'))";
+
+    private final PriceStatsRepository priceStatsRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<DirtyGroup> dirtyGroups = ConcurrentHashMap.newKeySet();
+
+    public PriceStatsServiceImpl(PriceStatsRepository priceStatsRepository,
+                                 NamedParameterJdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager) {
+        this.priceStatsRepository = priceStatsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PriceStatsResponse getStats(PriceStats.GroupType groupBy, String status, String voivodeship, String city) {
+        String statusKey = PriceStats.ALL_STATUSES;
+        if (status != null) {
+            if (MieszkanieCriteriaMatcher.parseStatus(status) == null) {
+                throw new IllegalArgumentException("Invalid status: " + status);
+            }
+            statusKey = status.toUpperCase();
+        }
+
+        String voivodeshipKey = Mieszkanie.normalizeVoivodeship(voivodeship);
+        List<PriceStatsDTO> stats = priceStatsRepository.findStats(groupBy, statusKey, voivodeshipKey, city).stream()
+                .map(PriceStatsDTO::fromEntity)
+                .collect(Collectors.toList());
+        LocalDateTime lastRefreshedAt = stats.stream()
+                .map(PriceStatsDTO::getRefreshedAt)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+
+        return PriceStatsResponse.builder()
+                .groupBy(groupBy.name())
+                .status(statusKey)
+                .lastRefreshedAt(lastRefreshedAt)
+                .stats(stats)
+                .build();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMieszkanieChanged(MieszkanieChangedEvent event) {
+        markDirty(event.getPrevious());
+        markDirty(event.getCurrent());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${stats.refresh-interval-ms:60000}")
+    public int refreshDirtyGroups() {
+        if (dirtyGroups.isEmpty()) {
+            return 0;
+        }
+        List<DirtyGroup> batch = new ArrayList<>(dirtyGroups);
+        batch.forEach(dirtyGroups::remove);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.getJdbcTemplate().execute(LOCK_SQL);
+                batch.stream()
+                        .collect(Collectors.groupingBy(DirtyGroup::groupType))
+                        .forEach(this::refreshGroups);
+            });
+        } catch (RuntimeException e) {
+            // Grupy wracają do kolejki, żeby kolejny cykl spróbował ponownie
+            dirtyGroups.addAll(batch);
+            throw e;
+        }
+        log.debug("Refreshed price stats for {} groups", batch.size());
+        return batch.size();
+    }
+
+    @Override
+    @Scheduled(cron = "${stats.full-refresh-cron:0 30 3 * * *}")
+    public void refreshAll() {
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.getJdbcTemplate().execute(LOCK_SQL);
+            jdbcTemplate.getJdbcTemplate().update("DELETE FROM price_stats");
+            for (PriceStats.GroupType groupType : PriceStats.GroupType.values()) {
+                jdbcTemplate.update(insertSql(groupType, null), new MapSqlParameterSource("groupType", groupType.name()));
+            }
+        });
+        log.info("Full price stats refresh took {} ms", System.currentTimeMillis() - start);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshOnStartup() {
+        // Import CSV odbywa się w migracjach przed startem - przeliczenie w tle nie blokuje gotowości
+        Thread.ofVirtual().name("price-stats-initial-refresh").start(() -> {
+            try {
+                refreshAll();
+            } catch (RuntimeException e) {
+                log.error("Initial price stats refresh failed", e);
+            }
+        });
+    }
+
+    int getDirtyGroupCount() {
+        return dirtyGroups.size();
+    }
+
+    private void markDirty(MieszkanieDTO mieszkanie) {
+        if (mieszkanie == null) {
+            return;
+        }
+        GROUP_COLUMNS.forEach((groupType, columns) -> {
+            String leadingColumn = columns.get(columns.size() - 1);
+            dirtyGroups.add(new DirtyGroup(groupType, groupKey(columns, mieszkanie),
+                    DIMENSIONS.get(leadingColumn).apply(mieszkanie)));
+        });
+    }
+
+    private void refreshGroups(PriceStats.GroupType groupType, List<DirtyGroup> groups) {
+        List<String> keys = groups.stream().map(DirtyGroup::groupKey).distinct().collect(Collectors.toList());
+        List<String> leadingValues = groups.stream()
+                .map(DirtyGroup::leadingValue)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        boolean includesNull = groups.stream().anyMatch(group -> group.leadingValue() == null);
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("groupType", groupType.name())
+                .addValue("keys", keys)
+                .addValue("leadingValues", leadingValues);
+
+        jdbcTemplate.update("DELETE FROM price_stats WHERE group_type = :groupType AND group_key IN (:keys)", params);
+        jdbcTemplate.update(insertSql(groupType, leadingFilter(groupType, !leadingValues.isEmpty(), includesNull)),
+                params);
+    }
+
+    static String groupKey(List<String> columns, MieszkanieDTO mieszkanie) {
+        return columns.stream()
+                .map(column -> Objects.requireNonNullElse(DIMENSIONS.get(column).apply(mieszkanie), ""))
+                .collect(Collectors.joining("|"));
+    }
+
+    /**
+     * Warunek po ostatniej kolumnie grupy (miasto, dzielnica, inwestycja, województwo) korzysta
+     * z indeksu lub przycinania partycji; dokładne dopasowanie zapewnia warunek na kluczu grupy.
+     */
+    static String leadingFilter(PriceStats.GroupType groupType, boolean hasValues, boolean includesNull) {
+        List<String> columns = GROUP_COLUMNS.get(groupType);
+        String leadingColumn = columns.get(columns.size() - 1);
+
+        List<String> conditions = new ArrayList<>();
+        if (hasValues) {
+            conditions.add(leadingColumn + " IN (:leadingValues)");
+        }
+        if (includesNull) {
+            conditions.add(leadingColumn + " IS NULL");
+        }
+        return "(" + String.join(" OR ", conditions) + ") AND " + keyExpression(columns) + " IN (:keys)";
+    }
+
+    static String insertSql(PriceStats.GroupType groupType, String filter) {
+        List<String> columns = GROUP_COLUMNS.get(groupType);
+        String groupColumns = String.join(", ", columns);
+        String dimensionValues = List.of("voivodeship", "city", "district", "investment").stream()
+                .map(column -> columns.contains(column) ? column : "NULL")
+                .collect(Collectors.joining(", "));
+
+        return "INSERT INTO price_stats (group_type, group_key, voivodeship, city, district, investment, status, " +
+                "listing_count, avg_price, min_price, max_price, median_price, p90_price, " +
+                "avg_price_per_m2, min_price_per_m2, max_price_per_m2, median_price_per_m2, p90_price_per_m2, " +
+                "refreshed_at) " +
+                "SELECT :groupType, " + keyExpression(columns) + ", " + dimensionValues + ", " +
+                "CASE WHEN GROUPING(status) = 1 THEN '" + PriceStats.ALL_STATUSES + "' " +
+                "ELSE COALESCE(status, 'UNKNOWN') END, " +
+                "COUNT(*), AVG(price), MIN(price), MAX(price), " +
+                "percentile_cont(0.5) WITHIN GROUP (ORDER BY price), " +
+                "percentile_cont(0.9) WITHIN GROUP (ORDER BY price), " +
+                "AVG(price / NULLIF(area, 0)), MIN(price / NULLIF(area, 0)), MAX(price / NULLIF(area, 0)), " +
+                "percentile_cont(0.5) WITHIN GROUP (ORDER BY price / NULLIF(area, 0)), " +
+                "percentile_cont(0.9) WITHIN GROUP (ORDER BY price / NULLIF(area, 0)), " +
+                "now() " +
+                "FROM mieszkania " +
+                (filter != null ? "WHERE " + filter + " " : "") +
+                "GROUP BY GROUPING SETS ((" + groupColumns + ", status), (" + groupColumns + "))";
+    }
+
+    private static String keyExpression(List<String> columns) {
+        return columns.stream()
+                .map(column -> "COALESCE(" + column + ", '')")
+                .collect(Collectors.joining(" || '|' || "));
+    }
+
+    record DirtyGroup(PriceStats.GroupType groupType, String groupKey, String leadingValue) {
+    }
+}
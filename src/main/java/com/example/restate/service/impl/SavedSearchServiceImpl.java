@@ -0,0 +1,75 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.entity.SavedSearch;
+import com.example.restate.entity.User;
+import com.example.restate.exception.ResourceNotFoundException;
+import com.example.restate.repository.SavedSearchRepository;
+import com.example.restate.repository.UserRepository;
+import com.example.restate.service.SavedSearchService;
+import com.example.restate.service.cache.CacheInvalidationBus;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import com.example.restate.service.search.MieszkanieCriteriaMatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@Transactional
+public class SavedSearchServiceImpl implements SavedSearchService {
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final UserRepository userRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final int maxPerUser;
+
+    public SavedSearchServiceImpl(SavedSearchRepository savedSearchRepository,
+                                  UserRepository userRepository,
+                                  CacheInvalidationBus cacheInvalidationBus,
+                                  @Value("${saved-search.max-per-user:20}") int maxPerUser) {
+        this.savedSearchRepository = savedSearchRepository;
+        this.userRepository = userRepository;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.maxPerUser = maxPerUser;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SavedSearch> findByUsername(String username) {
+        return savedSearchRepository.findByUserUsernameOrderByCreatedAtDesc(username);
+    }
+
+    @Override
+    public SavedSearch create(String username, String name, MieszkanieSearchCriteria criteria) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+
+        if (criteria.getStatus() != null && MieszkanieCriteriaMatcher.parseStatus(criteria.getStatus()) == null) {
+            throw new IllegalArgumentException("Invalid status: " + criteria.getStatus());
+        }
+        // Limit chroni indeks dopasowań przed rozrostem przez jednego użytkownika
+        if (savedSearchRepository.countByUserUsername(username) >= maxPerUser) {
+            throw new IllegalArgumentException("Saved search limit of " + maxPerUser + " reached");
+        }
+
+        SavedSearch savedSearch = new SavedSearch();
+        savedSearch.setUser(user);
+        savedSearch.setName(name);
+        savedSearch.applyCriteria(criteria);
+
+        SavedSearch saved = savedSearchRepository.save(savedSearch);
+        // Indeksy dopasowań wszystkich instancji wczytają wyszukiwanie po commicie
+        cacheInvalidationBus.publish(CacheInvalidationMessage.forSavedSearch(saved.getId()));
+        return saved;
+    }
+
+    @Override
+    public void delete(String username, Long id) {
+        SavedSearch savedSearch = savedSearchRepository.findByIdAndUserUsername(id, username)
+                .orElseThrow(() -> new ResourceNotFoundException("Saved search not found with id: " + id));
+        savedSearchRepository.delete(savedSearch);
+        cacheInvalidationBus.publish(CacheInvalidationMessage.forSavedSearch(id));
+    }
+}
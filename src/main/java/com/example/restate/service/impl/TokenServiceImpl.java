@@ -0,0 +1,201 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.dto.AuthResponse;
+import com.example.restate.entity.RefreshToken;
+import com.example.restate.entity.RevokedToken;
+import com.example.restate.entity.User;
+import com.example.restate.exception.AuthenticationException;
+import com.example.restate.repository.RefreshTokenRepository;
+import com.example.restate.repository.RevokedTokenRepository;
+import com.example.restate.repository.UserRepository;
+import com.example.restate.security.TokenRevocationList;
+import com.example.restate.service.TokenService;
+import com.example.restate.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Krótkotrwałe tokeny dostępu i rotowane tokeny odświeżające.
+ * <p>
+ * Każde odświeżenie wymienia token odświeżający na nowy z tej samej rodziny. Ponowne użycie
+ * wymienionego tokenu oznacza, że ma go ktoś jeszcze, więc unieważniana jest cała rodzina.
+ * Unieważnienia tokenów dostępu trafiają do tabeli {@code revoked_tokens} i do
+ * {@link TokenRevocationList}, z której korzysta filtr JWT.
+ */
+@Service
+@Slf4j
+public class TokenServiceImpl implements TokenService {
+
+    private static final int REFRESH_TOKEN_BYTES = 32;
+
+    private final JwtUtil jwtUtil;
+    private final UserRepository userRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TokenRevocationList tokenRevocationList;
+    private final Duration refreshTokenLifetime;
+    private final Clock clock;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Autowired
+    public TokenServiceImpl(JwtUtil jwtUtil,
+                            UserRepository userRepository,
+                            RefreshTokenRepository refreshTokenRepository,
+                            RevokedTokenRepository revokedTokenRepository,
+                            TokenRevocationList tokenRevocationList,
+                            @Value("${jwt.refresh-expiration:1209600000}") long refreshExpirationMs) {
+        this(jwtUtil, userRepository, refreshTokenRepository, revokedTokenRepository, tokenRevocationList,
+                Duration.ofMillis(refreshExpirationMs), Clock.systemUTC());
+    }
+
+    TokenServiceImpl(JwtUtil jwtUtil,
+                     UserRepository userRepository,
+                     RefreshTokenRepository refreshTokenRepository,
+                     RevokedTokenRepository revokedTokenRepository,
+                     TokenRevocationList tokenRevocationList,
+                     Duration refreshTokenLifetime,
+                     Clock clock) {
+        this.jwtUtil = jwtUtil;
+        this.userRepository = userRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.tokenRevocationList = tokenRevocationList;
+        this.refreshTokenLifetime = refreshTokenLifetime;
+        this.clock = clock;
+    }
+
+    @Override
+    @Transactional
+    public AuthResponse issueTokens(User user) {
+        String refreshToken = createRefreshToken(user.getUsername(), UUID.randomUUID().toString());
+        return new AuthResponse(user.getUsername(), jwtUtil.generateToken(user), refreshToken);
+    }
+
+    @Override
+    @Transactional(noRollbackFor = AuthenticationException.class)
+    public AuthResponse refresh(String refreshToken) {
+        RefreshToken stored = refreshTokenRepository.findByTokenHashForUpdate(JwtUtil.sha256(refreshToken))
+                .orElseThrow(TokenServiceImpl::invalidRefreshToken);
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        if (stored.getRevokedAt() != null || !stored.getExpiresAt().isAfter(now)) {
+            throw invalidRefreshToken();
+        }
+        if (stored.getRotatedAt() != null) {
+            refreshTokenRepository.revokeFamily(stored.getFamilyId(), now);
+            log.warn("Reuse of rotated refresh token for user {}, revoked token family {}",
+                    stored.getUsername(), stored.getFamilyId());
+            throw invalidRefreshToken();
+        }
+
+        User user = userRepository.findByUsername(stored.getUsername())
+                .filter(User::isEnabled)
+                .orElse(null);
+        if (user == null) {
+            refreshTokenRepository.revokeFamily(stored.getFamilyId(), now);
+            throw invalidRefreshToken();
+        }
+
+        stored.setRotatedAt(now);
+        String rotated = createRefreshToken(user.getUsername(), stored.getFamilyId());
+        return new AuthResponse(user.getUsername(), jwtUtil.generateToken(user), rotated);
+    }
+
+    @Override
+    @Transactional
+    public void logout(String accessToken, String refreshToken) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (accessToken != null) {
+            try {
+                Claims claims = jwtUtil.extractClaims(accessToken);
+                if (claims.getId() != null && claims.getExpiration() != null) {
+                    revoke(claims.getId(), now, LocalDateTime.ofInstant(claims.getExpiration().toInstant(), clock.getZone()));
+                }
+            } catch (IllegalArgumentException e) {
+                // Token nieważny lub wygasły - nie ma czego unieważniać
+                log.debug("Logout with invalid access token: {}", e.getMessage());
+            }
+        }
+        if (refreshToken != null) {
+            refreshTokenRepository.findByTokenHash(JwtUtil.sha256(refreshToken))
+                    .ifPresent(stored -> refreshTokenRepository.revokeFamily(stored.getFamilyId(), now));
+        }
+    }
+
+    /**
+     * Unieważnia wszystkie tokeny dostępu wydane użytkownikowi do tej chwili i wszystkie jego
+     * tokeny odświeżające (zmiana hasła, blokada, usunięcie konta).
+     */
+    @Override
+    @Transactional
+    public void revokeAllTokens(String username) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        revoke(TokenRevocationList.USER_KEY + username, now, now.plus(Duration.ofMillis(jwtUtil.getExpirationMs())));
+        int refreshTokens = refreshTokenRepository.revokeAllForUser(username, now);
+        log.info("Revoked all tokens of user {} ({} refresh tokens)", username, refreshTokens);
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int revoked = revokedTokenRepository.deleteExpiredBefore(now);
+        int refresh = refreshTokenRepository.deleteExpiredBefore(now);
+        if (revoked > 0 || refresh > 0) {
+            log.info("Purged {} expired revocations and {} expired refresh tokens", revoked, refresh);
+        }
+    }
+
+    private void revoke(String tokenKey, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        RevokedToken saved = revokedTokenRepository.save(new RevokedToken(null, tokenKey, revokedAt, expiresAt));
+        // Lokalnie od razu po commicie, pozostałe instancje przy najbliższym odpytaniu tabeli
+        afterCommit(() -> tokenRevocationList.add(saved));
+    }
+
+    private String createRefreshToken(String username, String familyId) {
+        byte[] bytes = new byte[REFRESH_TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(JwtUtil.sha256(token));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setUsername(username);
+        refreshToken.setCreatedAt(now);
+        refreshToken.setExpiresAt(now.plus(refreshTokenLifetime));
+        refreshTokenRepository.save(refreshToken);
+        return token;
+    }
+
+    private static AuthenticationException invalidRefreshToken() {
+        return new AuthenticationException("Invalid or expired refresh token");
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.dto.BulkUserResultDTO;
+import com.example.restate.dto.RegisterRequest;
+import com.example.restate.entity.Role;
+import com.example.restate.security.PasswordHashingExecutor;
+import com.example.restate.service.UserProvisioningService;
+import com.example.restate.service.cache.CacheInvalidationBus;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Zakładanie wielu kont naraz (role USER).
+ * <p>
+ * Zamiast dwóch zapytań o unikalność i jednego INSERT na użytkownika: walidacja w pamięci, jedno
+ * zapytanie o wszystkie zajęte nazwy i adresy e-mail, skróty haseł liczone równolegle w
+ * {@link PasswordHashingExecutor} i wstawianie partiami JDBC. {@code ON CONFLICT DO NOTHING} pomija
+ * konta założone równolegle przez inne żądanie - są raportowane jako duplikaty.
+ */
+@Service
+@Slf4j
+public class UserProvisioningServiceImpl implements UserProvisioningService {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO users (username, password, email, first_name, last_name, role, is_enabled, created_at)
+            VALUES (:username, :password, :email, :firstName, :lastName, :role, true, :createdAt)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final Validator validator;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final int maxSize;
+    private final int batchSize;
+
+    public UserProvisioningServiceImpl(NamedParameterJdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       PasswordEncoder passwordEncoder,
+                                       PasswordHashingExecutor passwordHashingExecutor,
+                                       Validator validator,
+                                       CacheInvalidationBus cacheInvalidationBus,
+                                       @Value("${users.bulk.max-size:5000}") int maxSize,
+                                       @Value("${users.bulk.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.validator = validator;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.maxSize = maxSize;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public BulkUserResultDTO createUsers(List<RegisterRequest> users) {
+        if (users == null || users.isEmpty()) {
+            throw new IllegalArgumentException("At least one user is required");
+        }
+        if (users.size() > maxSize) {
+            throw new IllegalArgumentException("At most " + maxSize + " users can be created at once");
+        }
+        long start = System.currentTimeMillis();
+
+        BulkUserResultDTO.Item[] results = new BulkUserResultDTO.Item[users.size()];
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            String violations = violations(users.get(i));
+            if (violations != null) {
+                results[i] = result(i, users.get(i), BulkUserResultDTO.Status.INVALID, violations);
+            } else {
+                valid.add(i);
+            }
+        }
+
+        List<Integer> accepted = rejectDuplicates(users, valid, results);
+        List<String> hashes = passwordHashingExecutor.computeAll(accepted,
+                index -> passwordEncoder.encode(users.get(index).getPassword()));
+        insert(users, accepted, hashes, results);
+
+        List<String> created = accepted.stream()
+                .filter(index -> results[index].getStatus() == BulkUserResultDTO.Status.CREATED)
+                .map(index -> users.get(index).getUsername())
+                .toList();
+        if (!created.isEmpty()) {
+            // Principal cache mógł zapamiętać te nazwy jako nieistniejące
+            cacheInvalidationBus.publish(CacheInvalidationMessage.forUser(null, created.toArray(String[]::new)));
+        }
+        log.info("Bulk user provisioning: {} of {} created in {} ms",
+                created.size(), users.size(), System.currentTimeMillis() - start);
+
+        return BulkUserResultDTO.builder()
+                .created(created.size())
+                .rejected(users.size() - created.size())
+                .results(List.of(results))
+                .build();
+    }
+
+    /**
+     * Jedno zapytanie o zajęte nazwy i adresy e-mail; powtórzenia w samym żądaniu odrzucane są
+     * w pamięci (pierwsze wystąpienie wygrywa).
+     */
+    private List<Integer> rejectDuplicates(List<RegisterRequest> users, List<Integer> candidates,
+                                           BulkUserResultDTO.Item[] results) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        jdbcTemplate.query("SELECT username, email FROM users WHERE username IN (:usernames) OR email IN (:emails)",
+                new MapSqlParameterSource()
+                        .addValue("usernames", candidates.stream().map(i -> users.get(i).getUsername()).toList())
+                        .addValue("emails", candidates.stream().map(i -> users.get(i).getEmail()).toList()),
+                rs -> {
+                    takenUsernames.add(rs.getString("username"));
+                    takenEmails.add(rs.getString("email"));
+                });
+
+        List<Integer> accepted = new ArrayList<>();
+        for (int index : candidates) {
+            RegisterRequest user = users.get(index);
+            if (!takenUsernames.add(user.getUsername())) {
+                results[index] = result(index, user, BulkUserResultDTO.Status.DUPLICATE, "Username already exists");
+            } else if (!takenEmails.add(user.getEmail())) {
+                takenUsernames.remove(user.getUsername());
+                results[index] = result(index, user, BulkUserResultDTO.Status.DUPLICATE, "Email already exists");
+            } else {
+                accepted.add(index);
+            }
+        }
+        return accepted;
+    }
+
+    private void insert(List<RegisterRequest> users, List<Integer> accepted, List<String> hashes,
+                        BulkUserResultDTO.Item[] results) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < accepted.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, accepted.size());
+                SqlParameterSource[] rows = new SqlParameterSource[to - from];
+                for (int i = from; i < to; i++) {
+                    RegisterRequest user = users.get(accepted.get(i));
+                    rows[i - from] = new MapSqlParameterSource()
+                            .addValue("username", user.getUsername())
+                            .addValue("password", hashes.get(i))
+                            .addValue("email", user.getEmail())
+                            .addValue("firstName", user.getFirstName())
+                            .addValue("lastName", user.getLastName())
+                            .addValue("role", Role.USER.name())
+                            .addValue("createdAt", now);
+                }
+                int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                for (int i = from; i < to; i++) {
+                    int index = accepted.get(i);
+                    int count = counts[i - from];
+                    // Sterownik może nie zwracać liczby wierszy dla przepisanych partii
+                    results[index] = count > 0 || count == Statement.SUCCESS_NO_INFO
+                            ? result(index, users.get(index), BulkUserResultDTO.Status.CREATED, null)
+                            : result(index, users.get(index), BulkUserResultDTO.Status.DUPLICATE,
+                                    "Username or email already exists");
+                }
+            }
+        });
+    }
+
+    private String violations(RegisterRequest user) {
+        if (user == null) {
+            return "User data is required";
+        }
+        Set<ConstraintViolation<RegisterRequest>> violations = validator.validate(user);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .collect(Collectors.joining("; "));
+    }
+
+    private static BulkUserResultDTO.Item result(int index, RegisterRequest user, BulkUserResultDTO.Status status,
+                                                 String message) {
+        return BulkUserResultDTO.Item.builder()
+                .index(index)
+                .username(user != null ? user.getUsername() : null)
+                .status(status)
+                .message(message)
+                .build();
+    }
+}
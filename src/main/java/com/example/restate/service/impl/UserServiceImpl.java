@@ -1,16 +1,33 @@
 package com.example.restate.service.impl;
 
+import com.example.restate.dto.CursorPageResponse;
+import com.example.restate.dto.PageResponse;
+import com.example.restate.dto.UserProfileDTO;
+import com.example.restate.dto.UserSearchCriteria;
 import com.example.restate.entity.User;
 import com.example.restate.repository.UserRepository;
+import com.example.restate.service.TokenService;
 import com.example.restate.service.UserService;
+import com.example.restate.service.cache.CacheInvalidationBus;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import com.example.restate.service.search.PageQueryExecutor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
@@ -19,43 +36,146 @@ public class UserServiceImpl implements UserService, UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TokenService tokenService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final PageQueryExecutor pageQueryExecutor;
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    private static final String PROFILE_COLUMNS =
+            "SELECT id, username, email, first_name, last_name, role, is_enabled, created_at FROM users";
+
+    // Kolumny profilu bez hasła, mapowane prosto do DTO - wyniki nie trafiają do kontekstu utrwalania
+    private static final RowMapper<UserProfileDTO> PROFILE_MAPPER = (rs, rowNum) -> {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return UserProfileDTO.builder()
+                .id(rs.getLong("id"))
+                .username(rs.getString("username"))
+                .email(rs.getString("email"))
+                .firstName(rs.getString("first_name"))
+                .lastName(rs.getString("last_name"))
+                .role("ROLE_" + rs.getString("role"))
+                .enabled(rs.getBoolean("is_enabled"))
+                .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                .build();
+    };
 
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
 
     @Override
+    @Transactional
     public User save(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        publishInvalidation(saved);
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> findAll() {
         return userRepository.findAll();
     }
 
     @Override
+    public PageResponse<UserProfileDTO> search(UserSearchCriteria criteria, Pageable pageable) {
+        int size = Math.min(pageable.getPageSize(), MAX_PAGE_SIZE);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("limit", size)
+                .addValue("offset", (long) pageable.getPageNumber() * size);
+        String where = where(criteria, params);
+
+        // Zawartość strony i COUNT równolegle, jak przy wyszukiwaniu mieszkań
+        Page<UserProfileDTO> page = pageQueryExecutor.execute(
+                () -> {
+                    applyStatementTimeout(pageQueryExecutor.getRemainingMs());
+                    return jdbcTemplate.query(PROFILE_COLUMNS + where + " ORDER BY id LIMIT :limit OFFSET :offset",
+                            params, PROFILE_MAPPER);
+                },
+                () -> {
+                    applyStatementTimeout(pageQueryExecutor.getRemainingMs());
+                    return jdbcTemplate.queryForObject("SELECT count(*) FROM users" + where, params, Long.class);
+                },
+                PageRequest.of(pageable.getPageNumber(), size));
+
+        return PageResponse.<UserProfileDTO>builder()
+                .content(page.getContent())
+                .pageNumber(page.getNumber())
+                .pageSize(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .last(page.isLast())
+                .first(page.isFirst())
+                .build();
+    }
+
+    /**
+     * Stronicowanie kluczem: {@code id > :after} po indeksie głównym, bez OFFSET i bez COUNT, więc koszt
+     * strony nie rośnie z jej numerem. Pobiera jeden wiersz więcej, żeby wiedzieć, czy jest następna strona.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<UserProfileDTO> searchAfter(UserSearchCriteria criteria, long afterId, int size) {
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("after", afterId)
+                .addValue("limit", pageSize + 1);
+        String where = where(criteria, params);
+        String sql = PROFILE_COLUMNS + where + (where.isEmpty() ? " WHERE" : " AND")
+                + " id > :after ORDER BY id LIMIT :limit";
+
+        applyStatementTimeout(pageQueryExecutor.getTimeoutMs());
+        List<UserProfileDTO> rows = jdbcTemplate.query(sql, params, PROFILE_MAPPER);
+        boolean last = rows.size() <= pageSize;
+        List<UserProfileDTO> content = last ? rows : rows.subList(0, pageSize);
+
+        return CursorPageResponse.<UserProfileDTO>builder()
+                .content(content)
+                .pageSize(pageSize)
+                .nextCursor(last || content.isEmpty() ? null : content.get(content.size() - 1).getId())
+                .last(last)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<User> findById(Long id) {
         return userRepository.findById(id);
     }
 
+    /**
+     * Zapis, unieważnienie tokenów i powiadomienie w jednej transakcji: NOTIFY wychodzi dopiero przy
+     * commicie, a lokalne cache są czyszczone po nim - wcześniej inny wątek wczytałby do nich stary stan.
+     */
     @Override
+    @Transactional
     public User update(Long id, User user) {
         return userRepository.findById(id)
                 .map(existingUser -> {
+                    String previousUsername = existingUser.getUsername();
+                    boolean wasEnabled = existingUser.isEnabled();
+                    boolean passwordChanged = false;
                     // Aktualizuj tylko te pola, które nie są null
                     if (user.getUsername() != null) {
                         existingUser.setUsername(user.getUsername());
@@ -63,8 +183,10 @@ public class UserServiceImpl implements UserService, UserDetailsService {
                     if (user.getEmail() != null) {
                         existingUser.setEmail(user.getEmail());
                     }
+                    // Hasło w user jest zawsze jawne - ustawiane tylko przy zmianie (UpdateUserDTO.toEntity)
                     if (user.getPassword() != null && !user.getPassword().isEmpty()) {
                         existingUser.setPassword(passwordEncoder.encode(user.getPassword()));
+                        passwordChanged = true;
                     }
                     if (user.getFirstName() != null) {
                         existingUser.setFirstName(user.getFirstName());
@@ -75,14 +197,28 @@ public class UserServiceImpl implements UserService, UserDetailsService {
                     if (user.getRole() != null) {
                         existingUser.setRole(user.getRole());
                     }
-                    return userRepository.save(existingUser);
+                    existingUser.setEnabled(user.isEnabled());
+                    User saved = userRepository.save(existingUser);
+                    if (passwordChanged || (wasEnabled && !saved.isEnabled())) {
+                        tokenService.revokeAllTokens(previousUsername);
+                    }
+                    // Tokeny wydane na poprzednią nazwę też muszą zostać ponownie sprawdzone
+                    cacheInvalidationBus.publish(
+                            CacheInvalidationMessage.forUser(saved.getId(), saved.getUsername(), previousUsername));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
     }
 
     @Override
+    @Transactional
     public void deleteById(Long id) {
-        userRepository.deleteById(id);
+        // Jeden SELECT i DELETE - deleteById repozytorium wczytałoby encję drugi raz
+        Optional<User> existing = userRepository.findById(id);
+        existing.ifPresent(userRepository::delete);
+        existing.ifPresent(user -> tokenService.revokeAllTokens(user.getUsername()));
+        cacheInvalidationBus.publish(
+                CacheInvalidationMessage.forUser(id, existing.map(User::getUsername).orElse(null)));
     }
 
     @Override
@@ -98,12 +234,55 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean existsByUsername(String username) {
-        return userRepository.findByUsername(username).isPresent();
+        return userRepository.existsByUsername(username);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean existsByEmail(String email) {
-        return userRepository.findByEmail(email).isPresent();
+        return userRepository.existsByEmail(email);
+    }
+
+    /**
+     * Filtr prefiksowy na {@code lower(...)} pasuje do indeksów {@code text_pattern_ops} z V9.
+     */
+    private static String where(UserSearchCriteria criteria, MapSqlParameterSource params) {
+        if (criteria == null) {
+            return "";
+        }
+        StringBuilder where = new StringBuilder();
+        if (criteria.getRole() != null) {
+            where.append(" AND role = :role");
+            params.addValue("role", criteria.getRole().name());
+        }
+        if (criteria.getEnabled() != null) {
+            where.append(" AND is_enabled = :enabled");
+            params.addValue("enabled", criteria.getEnabled());
+        }
+        if (criteria.getQuery() != null && !criteria.getQuery().isBlank()) {
+            where.append(" AND (lower(username) LIKE :prefix OR lower(email) LIKE :prefix)");
+            params.addValue("prefix", escapeLike(criteria.getQuery().trim().toLowerCase(Locale.ROOT)) + "%");
+        }
+        return where.isEmpty() ? "" : " WHERE" + where.substring(4);
+    }
+
+    /**
+     * Limit czasu po stronie bazy do końca bieżącej transakcji. Zapytań JdbcTemplate nie obejmuje
+     * {@link PageQueryExecutor#applyTimeout}, a licznik czasu sterownika znika, gdy executor przerwie wątek.
+     */
+    private void applyStatementTimeout(long timeoutMs) {
+        jdbcTemplate.getJdbcTemplate().execute("SET LOCAL statement_timeout = " + timeoutMs);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private void publishInvalidation(User user) {
+        if (user != null) {
+            cacheInvalidationBus.publish(CacheInvalidationMessage.forUser(user.getId(), user.getUsername()));
+        }
     }
-}
\ No newline at end of file
+}
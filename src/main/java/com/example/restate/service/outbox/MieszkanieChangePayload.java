@@ -0,0 +1,33 @@
+package com.example.restate.service.outbox;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.entity.OutboxEvent;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Instant;
+
+/**
+ * Treść zdarzenia zmiany mieszkania zapisywana przez {@link OutboxWriter} - migawki sprzed i po zmianie,
+ * tak jak w {@link MieszkanieChangedEvent}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record MieszkanieChangePayload(MieszkanieChangedEvent.ChangeType type, Integer mieszkanieId,
+                                      MieszkanieDTO previous, MieszkanieDTO current, Instant occurredAt) {
+
+    public static MieszkanieChangePayload of(MieszkanieChangedEvent event) {
+        return new MieszkanieChangePayload(event.getType(), event.getMieszkanieId(), event.getPrevious(),
+                event.getCurrent(), event.getOccurredAt());
+    }
+
+    public static MieszkanieChangePayload read(ObjectMapper objectMapper, OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), MieszkanieChangePayload.class);
+        } catch (JsonProcessingException e) {
+            // Zdarzenie wróci do kolejki i po limicie prób dostanie status FAILED z opisem błędu
+            throw new IllegalStateException("Invalid payload of outbox event " + event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.restate.service.outbox;
+
+import com.example.restate.entity.OutboxEvent;
+
+/**
+ * Odbiorca zdarzeń z outboxa.
+ * <p>
+ * Dostarczanie jest co najmniej jednokrotne - po awarii lub błędzie dowolnego odbiorcy zdarzenie
+ * trafia ponownie do wszystkich, więc implementacje muszą być idempotentne (np. względem
+ * {@link OutboxEvent#getId()}). Zdarzenia jednego agregatu przychodzą w kolejności ich zapisu.
+ * Odbiorca działa w transakcji zdarzenia, wspólnej dla wszystkich odbiorców; cała paczka musi zmieścić
+ * się w dzierżawie {@code outbox.lease-ms}, więc nie powinien wykonywać długich operacji.
+ * <p>
+ * Zdarzenie dostaje tylko jedna instancja aplikacji. Nie nadaje się to do aktualizacji stanu
+ * w pamięci każdej instancji - do tego służy
+ * {@link com.example.restate.service.cache.CacheInvalidationListener}.
+ */
+public interface OutboxListener {
+
+    void onEvent(OutboxEvent event);
+}
@@ -0,0 +1,161 @@
+package com.example.restate.service.outbox;
+
+import com.example.restate.entity.OutboxEvent;
+import com.example.restate.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Przekazuje zdarzenia z outboxa do odbiorców {@link OutboxListener}.
+ * <p>
+ * Paczka jest pobierana z blokadą {@code FOR UPDATE SKIP LOCKED} w krótkiej transakcji, która przesuwa
+ * {@code available_at} pobranych zdarzeń o czas dzierżawy ({@code outbox.lease-ms}) - kilka instancji
+ * dostaje więc rozłączne paczki, a relay nie trzyma połączenia przez całą paczkę. Zdarzenia instancji,
+ * która padła w trakcie, wracają do obiegu po końcu dzierżawy. Zdarzenie agregatu jest pobierane dopiero
+ * po obsłużeniu wszystkich wcześniejszych zdarzeń tego agregatu (także ponawianych), więc odbiorca widzi
+ * zmiany jednego mieszkania w kolejności, nawet przy kilku instancjach.
+ * <p>
+ * Każde zdarzenie jest dostarczane wszystkim odbiorcom w jednej transakcji: błąd wycofuje tylko zmiany
+ * tego zdarzenia, a nie całej paczki. W danej chwili relay używa więc jednego połączenia z puli, kosztem
+ * jednego commitu na zdarzenie. Udane zdarzenia są oznaczane jednym zbiorczym UPDATE. Zdarzenie,
+ * którego odbiorca zgłosił błąd, wraca do kolejki z wykładniczym opóźnieniem, a po przekroczeniu
+ * limitu prób dostaje status FAILED. Dopóki paczki są pełne, relay pobiera kolejne bez czekania
+ * na następny cykl. Bez odbiorców relay nie pobiera zdarzeń - zostają PENDING, zamiast zostać
+ * oznaczone jako dostarczone.
+ * <p>
+ * Każde zdarzenie obsługuje jedna instancja. Stan w pamięci, który musi znać zmiany ze wszystkich
+ * instancji, słucha {@link com.example.restate.service.cache.CacheInvalidationBus}, a nie outboxa.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxListener> listeners;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long leaseMs;
+    private final int maxBatchesPerRun;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long retentionHours;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       List<OutboxListener> listeners,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.batch-size:500}") int batchSize,
+                       @Value("${outbox.max-batches-per-run:20}") int maxBatchesPerRun,
+                       @Value("${outbox.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.retry-backoff-ms:1000}") long retryBackoffMs,
+                       @Value("${outbox.retention-hours:24}") long retentionHours,
+                       @Value("${outbox.lease-ms:60000}") long leaseMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.listeners = listeners;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.retentionHours = retentionHours;
+        this.leaseMs = leaseMs;
+        if (listeners.isEmpty()) {
+            log.warn("No outbox listeners registered, outbox events will stay pending");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void relay() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            if (processBatch() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${outbox.cleanup-cron:0 0 * * * *}")
+    public void cleanup() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        Integer deleted = transactionTemplate.execute(status -> outboxEventRepository.deleteProcessedBefore(before));
+        if (deleted != null && deleted > 0) {
+            log.debug("Deleted {} processed outbox events", deleted);
+        }
+    }
+
+    int processBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> claimBatch(now));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> delivered = new ArrayList<>(batch.size());
+        List<OutboxEvent> failed = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (OutboxListener listener : listeners) {
+                        listener.onEvent(event);
+                    }
+                });
+                delivered.add(event.getId());
+            } catch (RuntimeException e) {
+                markFailedAttempt(event, e, now);
+                failed.add(event);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                outboxEventRepository.markProcessed(delivered, now);
+            }
+            if (!failed.isEmpty()) {
+                outboxEventRepository.saveAll(failed);
+            }
+        });
+        return batch.size();
+    }
+
+    private List<OutboxEvent> claimBatch(LocalDateTime now) {
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(now, batchSize);
+        if (!batch.isEmpty()) {
+            outboxEventRepository.lease(batch.stream().map(OutboxEvent::getId).toList(),
+                    now.plusNanos(leaseMs * 1_000_000));
+        }
+        return batch;
+    }
+
+    private void markFailedAttempt(OutboxEvent event, RuntimeException e, LocalDateTime now) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(truncate(e.toString()));
+
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxEvent.Status.FAILED);
+            event.setProcessedAt(now);
+            log.error("Outbox event {} failed after {} attempts", event.getId(), attempts, e);
+        } else {
+            // 1x, 2x, 4x... podstawowego opóźnienia, maksymalnie 2^10
+            long delayMs = retryBackoffMs << Math.min(attempts - 1, 10);
+            event.setAvailableAt(now.plusNanos(delayMs * 1_000_000));
+            log.warn("Outbox event {} failed (attempt {}), retrying in {} ms: {}",
+                    event.getId(), attempts, delayMs, e.getMessage());
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
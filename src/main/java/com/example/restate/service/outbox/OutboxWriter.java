@@ -0,0 +1,53 @@
+package com.example.restate.service.outbox;
+
+import com.example.restate.entity.OutboxEvent;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Zapisuje zdarzenia zmian mieszkań do tabeli outbox.
+ * <p>
+ * Słuchacz jest synchroniczny, więc wstawienie wiersza odbywa się w tej samej transakcji co
+ * zmiana mieszkania - zdarzenie zostaje zapisane wtedy i tylko wtedy, gdy zmiana zostanie
+ * zatwierdzona. Koszt po stronie zapisu to jeden INSERT.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    public static final String MIESZKANIE_AGGREGATE = "Mieszkanie";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    public void onMieszkanieChanged(MieszkanieChangedEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateType(MIESZKANIE_AGGREGATE);
+        outboxEvent.setAggregateId(String.valueOf(event.getMieszkanieId()));
+        outboxEvent.setEventType(event.getType().name());
+        outboxEvent.setPayload(toPayload(event));
+        outboxEvent.setCreatedAt(now);
+        outboxEvent.setAvailableAt(now);
+        outboxEventRepository.save(outboxEvent);
+    }
+
+    private String toPayload(MieszkanieChangedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(MieszkanieChangePayload.of(event));
+        } catch (JsonProcessingException e) {
+            // Błąd wycofuje całą transakcję - zmiana bez zdarzenia nie może zostać zatwierdzona
+            throw new IllegalStateException("Failed to serialize outbox event for mieszkanie " +
+                    event.getMieszkanieId(), e);
+        }
+    }
+}
@@ -5,7 +5,6 @@ import com.example.restate.dto.PageResponse;
 import com.example.restate.entity.Mieszkanie;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
@@ -23,6 +22,7 @@ import java.util.List;
 public class AdvancedSearchStrategy implements SearchStrategy {
 
     private final EntityManager entityManager;
+    private final PageQueryExecutor pageQueryExecutor;
 
     @Override
     public PageResponse<Mieszkanie> search(MieszkanieSearchCriteria criteria, Pageable pageable) {
@@ -49,15 +49,19 @@ public class AdvancedSearchStrategy implements SearchStrategy {
         List<Predicate> countPredicates = buildPredicates(cb, countRoot, criteria);
         countQuery.select(cb.count(countRoot));
         countQuery.where(countPredicates.toArray(new Predicate[0]));
-        Long totalElements = entityManager.createQuery(countQuery).getSingleResult();
 
-        // Apply pagination
-        TypedQuery<Mieszkanie> typedQuery = entityManager.createQuery(query);
-        typedQuery.setFirstResult((int) pageable.getOffset());
-        typedQuery.setMaxResults(pageable.getPageSize());
-
-        List<Mieszkanie> content = typedQuery.getResultList();
-        Page<Mieszkanie> page = new PageImpl<>(content, pageable, totalElements);
+        // Zawartość strony i COUNT wykonywane równolegle na osobnych połączeniach
+        Page<Mieszkanie> page = pageQueryExecutor.execute(() -> {
+            TypedQuery<Mieszkanie> typedQuery = entityManager.createQuery(query);
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+            pageQueryExecutor.applyTimeout(typedQuery);
+            return typedQuery.getResultList();
+        }, () -> {
+            TypedQuery<Long> typedCountQuery = entityManager.createQuery(countQuery);
+            pageQueryExecutor.applyTimeout(typedCountQuery);
+            return typedCountQuery.getSingleResult();
+        }, pageable);
 
         return convertToPageResponse(page);
     }
@@ -93,7 +97,8 @@ public class AdvancedSearchStrategy implements SearchStrategy {
         }
 
         if (criteria.getVoivodeship() != null) {
-            predicates.add(cb.equal(root.get("voivodeship"), criteria.getVoivodeship()));
+            predicates.add(cb.equal(root.get("voivodeship"),
+                    Mieszkanie.normalizeVoivodeship(criteria.getVoivodeship())));
         }
 
         if (criteria.getCity() != null) {
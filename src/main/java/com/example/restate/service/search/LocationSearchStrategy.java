@@ -5,7 +5,6 @@ import com.example.restate.dto.PageResponse;
 import com.example.restate.entity.Mieszkanie;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
@@ -23,6 +22,7 @@ import java.util.List;
 public class LocationSearchStrategy implements SearchStrategy {
 
     private final EntityManager entityManager;
+    private final PageQueryExecutor pageQueryExecutor;
 
     @Override
     public PageResponse<Mieszkanie> search(MieszkanieSearchCriteria criteria, Pageable pageable) {
@@ -33,14 +33,21 @@ public class LocationSearchStrategy implements SearchStrategy {
         List<Predicate> predicates = buildPredicates(cb, mieszkanie, criteria);
         query.where(predicates.toArray(new Predicate[0]));
 
-        TypedQuery<Mieszkanie> typedQuery = entityManager.createQuery(query);
-        typedQuery.setFirstResult((int) pageable.getOffset());
-        typedQuery.setMaxResults(pageable.getPageSize());
+        CriteriaQuery<Long> countQuery = buildCountQuery(cb, criteria);
+
+        // Zawartość strony i COUNT wykonywane równolegle na osobnych połączeniach
+        Page<Mieszkanie> page = pageQueryExecutor.execute(() -> {
+            TypedQuery<Mieszkanie> typedQuery = entityManager.createQuery(query);
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+            pageQueryExecutor.applyTimeout(typedQuery);
+            return typedQuery.getResultList();
+        }, () -> {
+            TypedQuery<Long> typedCountQuery = entityManager.createQuery(countQuery);
+            pageQueryExecutor.applyTimeout(typedCountQuery);
+            return typedCountQuery.getSingleResult();
+        }, pageable);
 
-        List<Mieszkanie> content = typedQuery.getResultList();
-        long totalElements = getTotalCount(cb, criteria);
-
-        Page<Mieszkanie> page = new PageImpl<>(content, pageable, totalElements);
         return convertToPageResponse(page);
     }
 
@@ -48,7 +55,8 @@ public class LocationSearchStrategy implements SearchStrategy {
         List<Predicate> predicates = new ArrayList<>();
 
         if (criteria.getVoivodeship() != null) {
-            predicates.add(cb.equal(root.get("voivodeship"), criteria.getVoivodeship()));
+            predicates.add(cb.equal(root.get("voivodeship"),
+                    Mieszkanie.normalizeVoivodeship(criteria.getVoivodeship())));
         }
 
         if (criteria.getCity() != null) {
@@ -62,14 +70,14 @@ public class LocationSearchStrategy implements SearchStrategy {
         return predicates;
     }
 
-    private long getTotalCount(CriteriaBuilder cb, MieszkanieSearchCriteria criteria) {
+    private CriteriaQuery<Long> buildCountQuery(CriteriaBuilder cb, MieszkanieSearchCriteria criteria) {
         CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
         Root<Mieszkanie> countRoot = countQuery.from(Mieszkanie.class);
         List<Predicate> countPredicates = buildPredicates(cb, countRoot, criteria);
-        
+
         countQuery.select(cb.count(countRoot));
         countQuery.where(countPredicates.toArray(new Predicate[0]));
-        return entityManager.createQuery(countQuery).getSingleResult();
+        return countQuery;
     }
 
     @Override
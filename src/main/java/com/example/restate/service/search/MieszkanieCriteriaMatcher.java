@@ -0,0 +1,74 @@
+package com.example.restate.service.search;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.entity.Mieszkanie;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Sprawdza w pamięci, czy mieszkanie spełnia kryteria wyszukiwania.
+ * Semantyka odpowiada {@link AdvancedSearchStrategy}: pola równościowe porównywane dokładnie
+ * (województwo po {@link Mieszkanie#normalizeVoivodeship}),
+ * zakresy ceny i powierzchni domknięte, nieprawidłowy status ignorowany.
+ */
+public final class MieszkanieCriteriaMatcher {
+
+    private MieszkanieCriteriaMatcher() {
+    }
+
+    public static boolean matches(MieszkanieSearchCriteria criteria, MieszkanieDTO mieszkanie) {
+        if (criteria == null) {
+            return true;
+        }
+        if (mieszkanie == null) {
+            return false;
+        }
+
+        return equalsIfSet(criteria.getDeveloper(), mieszkanie.getDeveloper())
+                && equalsIfSet(criteria.getInvestment(), mieszkanie.getInvestment())
+                && equalsIfSet(criteria.getFloor(), mieszkanie.getFloor())
+                && equalsIfSet(Mieszkanie.normalizeVoivodeship(criteria.getVoivodeship()),
+                        Mieszkanie.normalizeVoivodeship(mieszkanie.getVoivodeship()))
+                && equalsIfSet(criteria.getCity(), mieszkanie.getCity())
+                && equalsIfSet(criteria.getDistrict(), mieszkanie.getDistrict())
+                && statusMatches(criteria.getStatus(), mieszkanie.getStatus())
+                && inRange(mieszkanie.getPrice(), criteria.getMinPrice(), criteria.getMaxPrice())
+                && inRange(mieszkanie.getArea(), criteria.getMinArea(), criteria.getMaxArea());
+    }
+
+    /**
+     * Zwraca status z kryteriów albo null, jeśli nie podano go lub jest nieprawidłowy.
+     */
+    public static Mieszkanie.Status parseStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        try {
+            return Mieszkanie.Status.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException ignored) {
+            return null;
+        }
+    }
+
+    private static boolean equalsIfSet(Object expected, Object actual) {
+        return expected == null || Objects.equals(expected, actual);
+    }
+
+    private static boolean statusMatches(String status, Mieszkanie.Status actual) {
+        Mieszkanie.Status expected = parseStatus(status);
+        return expected == null || expected == actual;
+    }
+
+    private static boolean inRange(BigDecimal value, BigDecimal min, BigDecimal max) {
+        if (min == null && max == null) {
+            return true;
+        }
+        if (value == null) {
+            return false;
+        }
+        return (min == null || value.compareTo(min) >= 0)
+                && (max == null || value.compareTo(max) <= 0);
+    }
+}
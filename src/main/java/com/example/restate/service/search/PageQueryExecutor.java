@@ -0,0 +1,240 @@
+package com.example.restate.service.search;
+
+import com.example.restate.monitoring.SqlStatementCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.Query;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Wykonuje zapytanie o zawartość strony i zapytanie COUNT równolegle.
+ * <p>
+ * Każde zadanie działa na osobnym wirtualnym wątku we własnej transakcji tylko do odczytu, z kontekstem
+ * bezpieczeństwa wywołującego, więc dostaje osobne połączenie z puli (przy skonfigurowanej replice -
+ * z repliki). Opóźnienie strony zbliża się do max(content, count) zamiast ich sumy, kosztem dwóch
+ * połączeń na wyszukiwanie; instrukcje SQL obu zadań liczą się do budżetu żądania ({@link SqlStatementCounter}).
+ * <p>
+ * Całość ograniczona jest limitem {@code search.query-timeout-ms}. Transakcja zadania i {@link #applyTimeout}
+ * dostają pozostały budżet, więc sterownik anuluje zapytanie najpóźniej przy jego końcu. Gdy jedno zapytanie
+ * się nie powiedzie albo budżet się skończy, drugie jest anulowane: instrukcja JPA przez
+ * {@link Session#cancelQuery()}, a wątek przerwaniem - także gdy jeszcze czeka na połączenie z puli.
+ * Przerwanie zamyka gniazdo sterownika razem z jego licznikiem czasu, więc zapytania {@code JdbcTemplate},
+ * których sesja nie widzi, ustawiają limit po stronie bazy same ({@link #getRemainingMs()}).
+ * Czas obu zapytań mierzy osobno timer {@code restate.search.query} z tagiem {@code query=content|count}.
+ */
+@Component
+@Slf4j
+public class PageQueryExecutor implements DisposableBean {
+
+    static final String QUERY_TIMEOUT_HINT = "jakarta.persistence.query.timeout";
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // Termin (System.nanoTime) zadania wykonywanego na bieżącym wątku
+    private final ThreadLocal<Long> deadline = new ThreadLocal<>();
+    private final long timeoutMs;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final Timer contentTimer;
+    private final Timer countTimer;
+
+    @Autowired
+    public PageQueryExecutor(@Value("${search.query-timeout-ms:5000}") long timeoutMs,
+                             PlatformTransactionManager transactionManager,
+                             EntityManager entityManager,
+                             MeterRegistry meterRegistry) {
+        this.timeoutMs = timeoutMs;
+        this.transactionManager = transactionManager;
+        this.entityManager = entityManager;
+        this.contentTimer = meterRegistry.timer("restate.search.query", "query", "content");
+        this.countTimer = meterRegistry.timer("restate.search.query", "query", "count");
+    }
+
+    PageQueryExecutor(long timeoutMs) {
+        this(timeoutMs, null, null, new SimpleMeterRegistry());
+    }
+
+    public <T> Page<T> execute(Supplier<List<T>> contentQuery, LongSupplier countQuery, Pageable pageable) {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+        QueryTask<List<T>> content = new QueryTask<>(timed(contentTimer, contentQuery), deadlineNanos);
+        QueryTask<Long> total = new QueryTask<>(timed(countTimer, countQuery::getAsLong), deadlineNanos);
+        content.future = completion.submit(content);
+        total.future = completion.submit(total);
+
+        try {
+            // Pierwszy błąd kończy czekanie i anuluje drugie zapytanie
+            for (int i = 0; i < 2; i++) {
+                Future<Object> done = completion.poll(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    cancelAll(content, total);
+                    log.warn("Search queries exceeded timeout of {} ms", timeoutMs);
+                    throw new QueryTimeoutException("Search exceeded timeout of " + timeoutMs + " ms");
+                }
+                done.get();
+            }
+            return new PageImpl<>(content.result(), pageable, total.result());
+        } catch (InterruptedException e) {
+            cancelAll(content, total);
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Search interrupted");
+        } catch (ExecutionException e) {
+            cancelAll(content, total);
+            throw unwrap(e.getCause());
+        }
+    }
+
+    /**
+     * Przekazuje sterownikowi pozostały budżet zadania, żeby baza przerwała zapytanie najpóźniej
+     * przy końcu {@code search.query-timeout-ms}.
+     */
+    public void applyTimeout(Query query) {
+        query.setHint(QUERY_TIMEOUT_HINT, (int) getRemainingMs());
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Pozostały budżet zadania wykonywanego na bieżącym wątku; poza zadaniem cały limit.
+     */
+    public long getRemainingMs() {
+        Long taskDeadline = deadline.get();
+        if (taskDeadline == null) {
+            return timeoutMs;
+        }
+        long remaining = TimeUnit.NANOSECONDS.toMillis(taskDeadline - System.nanoTime());
+        if (remaining <= 0) {
+            throw new QueryTimeoutException("Search exceeded timeout of " + timeoutMs + " ms");
+        }
+        return remaining;
+    }
+
+    private static <R> Supplier<R> timed(Timer timer, Supplier<R> task) {
+        return () -> timer.record(task);
+    }
+
+    private static void cancelAll(QueryTask<?>... tasks) {
+        for (QueryTask<?> task : tasks) {
+            task.cancel();
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable failure) {
+        Throwable cause = failure;
+        while (cause instanceof ExecutionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException("Search query failed", cause);
+    }
+
+    /**
+     * Jedno z zapytań strony: transakcja z pozostałym budżetem, kontekst wywołującego i sesja,
+     * której instrukcję można anulować z innego wątku.
+     */
+    private final class QueryTask<R> implements Callable<Object> {
+
+        private final Supplier<R> query;
+        private final long deadlineNanos;
+        private final SecurityContext securityContext = SecurityContextHolder.getContext();
+        private final SqlStatementCounter.Scope sqlStatements = SqlStatementCounter.current();
+        private final AtomicReference<Session> session = new AtomicReference<>();
+        private volatile boolean cancelled;
+        private Future<Object> future;
+
+        private QueryTask(Supplier<R> query, long deadlineNanos) {
+            this.query = query;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public Object call() {
+            SecurityContextHolder.setContext(securityContext);
+            SqlStatementCounter.bind(sqlStatements);
+            deadline.set(deadlineNanos);
+            try {
+                if (transactionManager == null) {
+                    return query.get();
+                }
+                TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+                readOnlyTransaction.setReadOnly(true);
+                // Sekundy w górę - limit transakcji trafia do Statement.setQueryTimeout zapytań JPA i JDBC
+                readOnlyTransaction.setTimeout((int) Math.max(1, (getRemainingMs() + 999) / 1000));
+                return readOnlyTransaction.execute(status -> {
+                    if (entityManager != null) {
+                        // Pośrednik współdzielonego EntityManagera sam implementuje Session; SessionImplementor
+                        // zwraca sesję tej transakcji, którą można anulować z innego wątku
+                        session.set(entityManager.unwrap(SessionImplementor.class));
+                        if (cancelled) {
+                            throw new QueryTimeoutException("Search query cancelled");
+                        }
+                    }
+                    return query.get();
+                });
+            } finally {
+                session.set(null);
+                deadline.remove();
+                SecurityContextHolder.clearContext();
+                SqlStatementCounter.close();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private R result() throws ExecutionException, InterruptedException {
+            return (R) future.get();
+        }
+
+        private void cancel() {
+            cancelled = true;
+            Session running = session.get();
+            if (running != null) {
+                try {
+                    running.cancelQuery();
+                } catch (RuntimeException e) {
+                    log.debug("Could not cancel search query: {}", e.getMessage());
+                }
+            }
+            future.cancel(true);
+        }
+    }
+}
@@ -3,9 +3,13 @@ package com.example.restate.service.search;
 import com.example.restate.dto.MieszkanieSearchCriteria;
 import com.example.restate.dto.PageResponse;
 import com.example.restate.entity.Mieszkanie;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
 
 import java.util.List;
 
@@ -14,6 +18,7 @@ import java.util.List;
 public class SearchContext {
 
     private final List<SearchStrategy> strategies;
+    private final MeterRegistry meterRegistry;
 
     public PageResponse<Mieszkanie> executeSearch(SearchStrategy.SearchType type,
                                                   MieszkanieSearchCriteria criteria,
@@ -25,7 +30,17 @@ public class SearchContext {
                 .orElseThrow(() -> new IllegalArgumentException(
                         "No strategy found for type: " + type));
 
-        return strategy.search(criteria, pageable);
+        // Czas i liczba zwróconych wierszy osobno dla typu wyszukiwania i wybranej strategii
+        String strategyName = ClassUtils.getUserClass(strategy).getSimpleName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        PageResponse<Mieszkanie> result = strategy.search(criteria, pageable);
+        sample.stop(meterRegistry.timer("restate.search", "type", type.name(), "strategy", strategyName));
+        DistributionSummary.builder("restate.search.rows")
+                .baseUnit("rows")
+                .tags("type", type.name(), "strategy", strategyName)
+                .register(meterRegistry)
+                .record(result != null && result.getContent() != null ? result.getContent().size() : 0);
+        return result;
     }
 
     // Automatyczny wybór strategii na podstawie kryteriów
@@ -35,7 +50,7 @@ public class SearchContext {
         return executeSearch(type, criteria, pageable);
     }
 
-    private SearchStrategy.SearchType determineSearchType(MieszkanieSearchCriteria criteria) {
+    SearchStrategy.SearchType determineSearchType(MieszkanieSearchCriteria criteria) {
         boolean hasLocation = criteria.getCity() != null || criteria.getVoivodeship() != null
                 || criteria.getDistrict() != null;
         boolean hasSimple = criteria.getDeveloper() != null || criteria.getInvestment() != null;
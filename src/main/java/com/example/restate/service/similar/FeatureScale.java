@@ -0,0 +1,72 @@
+package com.example.restate.service.similar;
+
+import com.example.restate.dto.ListingFeatures;
+
+import java.util.Collection;
+
+/**
+ * Normalizacja cech: każda cecha liczbowa jest dzielona przez swoje odchylenie standardowe
+ * i mnożona przez wagę, więc różnica o jedno odchylenie ceny waży tyle co różnica dzielnicy.
+ */
+record FeatureScale(double logPriceStd, double areaStd, double floorStd) {
+
+    static final double PRICE_WEIGHT = 1.0;
+    static final double AREA_WEIGHT = 1.0;
+    static final double FLOOR_WEIGHT = 0.5;
+
+    // Wartości dla pustej bazy - zastępowane statystykami przy pełnym ładowaniu
+    static final FeatureScale DEFAULT = new FeatureScale(0.35, 20, 3);
+
+    static FeatureScale fit(Collection<ListingFeatures> listings) {
+        double[] sum = new double[3];
+        double[] sumSquares = new double[3];
+        long count = 0;
+        for (ListingFeatures listing : listings) {
+            if (!isIndexable(listing)) {
+                continue;
+            }
+            double[] raw = raw(listing);
+            for (int i = 0; i < 3; i++) {
+                sum[i] += raw[i];
+                sumSquares[i] += raw[i] * raw[i];
+            }
+            count++;
+        }
+        if (count < 2) {
+            return DEFAULT;
+        }
+        double[] std = new double[3];
+        double[] defaults = {DEFAULT.logPriceStd, DEFAULT.areaStd, DEFAULT.floorStd};
+        for (int i = 0; i < 3; i++) {
+            double mean = sum[i] / count;
+            double variance = sumSquares[i] / count - mean * mean;
+            std[i] = variance > 1e-9 ? Math.sqrt(variance) : defaults[i];
+        }
+        return new FeatureScale(std[0], std[1], std[2]);
+    }
+
+    static boolean isIndexable(ListingFeatures listing) {
+        return listing.id() != null
+                && listing.price() != null && listing.price().signum() > 0
+                && listing.area() != null && listing.area().signum() > 0;
+    }
+
+    ListingPoint toPoint(ListingFeatures listing) {
+        double[] raw = raw(listing);
+        double[] coords = {
+                raw[0] / logPriceStd * PRICE_WEIGHT,
+                raw[1] / areaStd * AREA_WEIGHT,
+                raw[2] / floorStd * FLOOR_WEIGHT
+        };
+        return new ListingPoint(listing.id(), coords, listing.city(), listing.district(),
+                listing.developer(), listing.status());
+    }
+
+    private static double[] raw(ListingFeatures listing) {
+        return new double[]{
+                Math.log(listing.price().doubleValue()),
+                listing.area().doubleValue(),
+                listing.floor() != null ? listing.floor() : 0
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.restate.service.similar;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Statyczne KD-drzewo na tablicy: element środkowy zakresu jest węzłem, lewa i prawa połowa
+ * poddrzewami. Budowa przez kolejne wybory mediany (quickselect) kosztuje O(n log n).
+ * Drzewo jest niezmienne - zmiany trafiają do bufora w {@link SimilarListingIndex}, a drzewo
+ * miasta jest okresowo budowane od nowa.
+ */
+final class KdTree {
+
+    private final ListingPoint[] points;
+
+    private KdTree(ListingPoint[] points) {
+        this.points = points;
+    }
+
+    static KdTree build(Collection<ListingPoint> points) {
+        ListingPoint[] array = points.toArray(new ListingPoint[0]);
+        build(array, 0, array.length - 1, 0);
+        return new KdTree(array);
+    }
+
+    int size() {
+        return points.length;
+    }
+
+    /**
+     * Dodaje do {@code neighbours} najbliższe punkty spełniające {@code filter}.
+     */
+    void search(ListingPoint query, Predicate<ListingPoint> filter, Neighbours neighbours) {
+        search(query, filter, neighbours, 0, points.length - 1, 0);
+    }
+
+    private void search(ListingPoint query, Predicate<ListingPoint> filter, Neighbours neighbours,
+                        int from, int to, int depth) {
+        if (from > to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        ListingPoint node = points[mid];
+        if (filter.test(node)) {
+            neighbours.offer(node, query.distanceSquared(node));
+        }
+
+        int axis = depth % ListingPoint.DIMENSIONS;
+        double diff = query.coords()[axis] - node.coords()[axis];
+        if (diff < 0) {
+            search(query, filter, neighbours, from, mid - 1, depth + 1);
+            if (diff * diff < neighbours.worstDistanceSquared()) {
+                search(query, filter, neighbours, mid + 1, to, depth + 1);
+            }
+        } else {
+            search(query, filter, neighbours, mid + 1, to, depth + 1);
+            if (diff * diff < neighbours.worstDistanceSquared()) {
+                search(query, filter, neighbours, from, mid - 1, depth + 1);
+            }
+        }
+    }
+
+    private static void build(ListingPoint[] points, int from, int to, int depth) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        select(points, from, to, mid, depth % ListingPoint.DIMENSIONS);
+        build(points, from, mid - 1, depth + 1);
+        build(points, mid + 1, to, depth + 1);
+    }
+
+    /**
+     * Ustawia na pozycji {@code k} element, który znalazłby się tam po posortowaniu zakresu wg osi.
+     */
+    private static void select(ListingPoint[] points, int from, int to, int k, int axis) {
+        while (from < to) {
+            double pivot = points[(from + to) >>> 1].coords()[axis];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (points[i].coords()[axis] < pivot) {
+                    i++;
+                }
+                while (points[j].coords()[axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    ListingPoint tmp = points[i];
+                    points[i] = points[j];
+                    points[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                to = j;
+            } else if (k >= i) {
+                from = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Ograniczony kopiec maksymalny k najbliższych punktów.
+     */
+    static final class Neighbours {
+
+        private final int k;
+        private final PriorityQueue<Candidate> heap;
+
+        Neighbours(int k) {
+            this.k = k;
+            this.heap = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(b.distanceSquared(), a.distanceSquared()));
+        }
+
+        void offer(ListingPoint point, double distanceSquared) {
+            if (heap.size() < k) {
+                heap.add(new Candidate(point, distanceSquared));
+            } else if (distanceSquared < heap.peek().distanceSquared()) {
+                heap.poll();
+                heap.add(new Candidate(point, distanceSquared));
+            }
+        }
+
+        double worstDistanceSquared() {
+            return heap.size() < k ? Double.POSITIVE_INFINITY : heap.peek().distanceSquared();
+        }
+
+        /**
+         * Kandydaci od najbliższego.
+         */
+        List<Candidate> sorted() {
+            return heap.stream()
+                    .sorted((a, b) -> Double.compare(a.distanceSquared(), b.distanceSquared()))
+                    .toList();
+        }
+    }
+
+    record Candidate(ListingPoint point, double distanceSquared) {
+    }
+}
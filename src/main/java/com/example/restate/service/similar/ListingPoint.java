@@ -0,0 +1,42 @@
+package com.example.restate.service.similar;
+
+import com.example.restate.entity.Mieszkanie;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Mieszkanie jako punkt w przestrzeni cech: znormalizowane i zważone współrzędne liczbowe
+ * (logarytm ceny, powierzchnia, piętro) oraz cechy kategoryczne, których niezgodność
+ * dodaje stałą karę do odległości.
+ */
+record ListingPoint(int id, double[] coords, String city, String district, String developer,
+                    Mieszkanie.Status status) {
+
+    static final int DIMENSIONS = 3;
+    static final double DISTRICT_PENALTY = 1.0;
+    static final double DEVELOPER_PENALTY = 0.5;
+
+    /**
+     * Kwadrat odległości; część liczbowa jest dolnym ograniczeniem całości, co pozwala
+     * przycinać poddrzewa KD-drzewa.
+     */
+    double distanceSquared(ListingPoint other) {
+        double sum = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            double diff = coords[i] - other.coords[i];
+            sum += diff * diff;
+        }
+        if (!Objects.equals(district, other.district)) {
+            sum += DISTRICT_PENALTY * DISTRICT_PENALTY;
+        }
+        if (!Objects.equals(developer, other.developer)) {
+            sum += DEVELOPER_PENALTY * DEVELOPER_PENALTY;
+        }
+        return sum;
+    }
+
+    String cityKey() {
+        return city != null ? city.toLowerCase(Locale.ROOT) : "";
+    }
+}
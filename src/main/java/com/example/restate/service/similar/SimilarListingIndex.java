@@ -0,0 +1,266 @@
+package com.example.restate.service.similar;
+
+import com.example.restate.config.StartupWork;
+import com.example.restate.dto.ListingFeatures;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.repository.MieszkanieRepository;
+import com.example.restate.service.cache.CacheInvalidationListener;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Indeks k najbliższych sąsiadów do wyszukiwania podobnych mieszkań.
+ * <p>
+ * Każde miasto ma własne KD-drzewo; podobne mieszkania są szukane tylko w mieście mieszkania
+ * wzorcowego. Zapis mieszkania nie przebudowuje drzewa - aktualny stan trafia do mapy punktów,
+ * a identyfikator do bufora zmian. Zapytanie pomija w drzewie mieszkania z bufora i sprawdza je
+ * osobno, liniowo. Okresowo drzewa miast, których dotyczyły zmiany, są budowane od nowa i bufor
+ * się opróżnia, więc zapytanie kosztuje O(log n) plus rozmiar bufora.
+ * <p>
+ * Indeks jest osobny na każdej instancji. Zmiany zapisane na innych instancjach przychodzą kanałem
+ * unieważnień - aktualne cechy mieszkania są wtedy czytane z bazy po id, a poprzednie miasto zna sam
+ * indeks. Utrata powiadomień kończy się pełnym przeładowaniem przy najbliższej przebudowie.
+ */
+@Component
+@Slf4j
+public class SimilarListingIndex implements CacheInvalidationListener {
+
+    private final MieszkanieRepository mieszkanieRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final StartupWork startupWork;
+
+    private final AtomicLong versions = new AtomicLong();
+    // Zmiany od ostatniej przebudowy: id -> wersja zmiany
+    private final Map<Integer, Long> pending = new ConcurrentHashMap<>();
+    private final Set<String> dirtyCities = ConcurrentHashMap.newKeySet();
+    // Zmiany wykonane w trakcie pełnego ładowania, nakładane na wczytany stan (pusty = usunięcie)
+    private final Map<Integer, Optional<ListingFeatures>> changedDuringLoad = new HashMap<>();
+
+    private volatile Map<Integer, ListingPoint> points = new ConcurrentHashMap<>();
+    private volatile Map<String, KdTree> trees = Map.of();
+    private volatile FeatureScale scale = FeatureScale.DEFAULT;
+    private volatile boolean reloadRequested;
+    private boolean loading;
+
+    public SimilarListingIndex(MieszkanieRepository mieszkanieRepository,
+                               PlatformTransactionManager transactionManager,
+                               StartupWork startupWork) {
+        this.mieszkanieRepository = mieszkanieRepository;
+        this.startupWork = startupWork;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        // Do zakończenia ładowania instancja nie jest gotowa (readiness)
+        startupWork.runInBackground("similar-listing-index-load", this::loadAll);
+    }
+
+    public void loadAll() {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            loading = true;
+            changedDuringLoad.clear();
+        }
+        try {
+            List<ListingFeatures> listings = new ArrayList<>();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<ListingFeatures> stream = mieszkanieRepository.streamListingFeatures()) {
+                    stream.filter(FeatureScale::isIndexable).forEach(listings::add);
+                }
+            });
+            FeatureScale loadedScale = FeatureScale.fit(listings);
+            Map<Integer, ListingPoint> loaded = new ConcurrentHashMap<>(listings.size() * 4 / 3 + 1);
+            listings.forEach(listing -> loaded.put(listing.id(), loadedScale.toPoint(listing)));
+
+            synchronized (this) {
+                changedDuringLoad.forEach((id, listing) -> {
+                    if (listing.isPresent()) {
+                        loaded.put(id, loadedScale.toPoint(listing.get()));
+                    } else {
+                        loaded.remove(id);
+                    }
+                });
+                scale = loadedScale;
+                points = loaded;
+                trees = buildTrees(loaded.values(), null);
+                pending.clear();
+                dirtyCities.clear();
+            }
+        } finally {
+            synchronized (this) {
+                loading = false;
+                changedDuringLoad.clear();
+            }
+        }
+        log.info("Loaded {} listings into the similar listing index in {} ms",
+                points.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMieszkanieChanged(MieszkanieChangedEvent event) {
+        Integer id = event.getMieszkanieId();
+        if (id == null) {
+            return;
+        }
+        apply(id, event.getCurrent() != null ? ListingFeatures.of(event.getCurrent()) : null);
+    }
+
+    /**
+     * Zmiana zapisana na innej instancji - własne obsługuje {@link #onMieszkanieChanged}.
+     */
+    @Override
+    public void onInvalidation(CacheInvalidationMessage message) {
+        if (!message.isRemote() || !CacheInvalidationMessage.MIESZKANIE.equals(message.getEntity())
+                || "null".equals(message.getId())) {
+            return;
+        }
+        Integer id = Integer.valueOf(message.getId());
+        // NOTIFY przychodzi po commicie, więc odczyt widzi zapisany stan (albo późniejszy)
+        Optional<ListingFeatures> current = readOnlyTransaction.execute(status ->
+                mieszkanieRepository.findListingFeaturesById(id));
+        apply(id, current != null ? current.orElse(null) : null);
+    }
+
+    @Override
+    public void onFullFlush() {
+        reloadRequested = true;
+    }
+
+    /**
+     * Przebudowuje drzewa miast zmienionych od ostatniej przebudowy.
+     */
+    @Scheduled(fixedDelayString = "${similar.rebuild-interval-ms:5000}")
+    public int rebuildDirtyCities() {
+        if (reloadRequested) {
+            reloadRequested = false;
+            loadAll();
+            return trees.size();
+        }
+        Map<Integer, Long> rebuiltChanges;
+        Set<String> cities;
+        Map<Integer, ListingPoint> source;
+        synchronized (this) {
+            if (loading || dirtyCities.isEmpty()) {
+                return 0;
+            }
+            rebuiltChanges = new HashMap<>(pending);
+            cities = new HashSet<>(dirtyCities);
+            dirtyCities.removeAll(cities);
+            source = points;
+        }
+
+        Map<String, KdTree> rebuilt = buildTrees(source.values(), cities);
+        synchronized (this) {
+            if (source != points) {
+                // W międzyczasie zakończyło się pełne ładowanie
+                return 0;
+            }
+            Map<String, KdTree> updated = new HashMap<>(trees);
+            cities.forEach(updated::remove);
+            updated.putAll(rebuilt);
+            trees = Map.copyOf(updated);
+            // Zmiany późniejsze niż odczyt bufora zostają w nim do kolejnej przebudowy
+            rebuiltChanges.forEach(pending::remove);
+        }
+        log.debug("Rebuilt similar listing trees for {} cities", cities.size());
+        return cities.size();
+    }
+
+    /**
+     * Identyfikatory {@code k} mieszkań najbardziej podobnych do wskazanego, od najbliższego;
+     * pusty wynik, gdy mieszkanie nie jest w indeksie.
+     *
+     * @param status wymagany status podobnych mieszkań, {@code null} - dowolny
+     */
+    public List<Integer> findSimilar(Integer id, int k, Mieszkanie.Status status) {
+        ListingPoint reference = points.get(id);
+        if (reference == null || k <= 0) {
+            return List.of();
+        }
+        String city = reference.cityKey();
+        Predicate<ListingPoint> accepted = point -> point.id() != reference.id()
+                && (status == null || point.status() == status);
+
+        KdTree.Neighbours neighbours = new KdTree.Neighbours(k);
+        KdTree tree = trees.get(city);
+        if (tree != null) {
+            tree.search(reference, accepted.and(point -> !pending.containsKey(point.id())), neighbours);
+        }
+        for (Integer changedId : pending.keySet()) {
+            ListingPoint point = points.get(changedId);
+            if (point != null && point.cityKey().equals(city) && accepted.test(point)) {
+                neighbours.offer(point, reference.distanceSquared(point));
+            }
+        }
+        return neighbours.sorted().stream()
+                .map(candidate -> candidate.point().id())
+                .toList();
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @param current aktualne cechy mieszkania, {@code null} - mieszkanie usunięte
+     */
+    private void apply(Integer id, ListingFeatures current) {
+        synchronized (this) {
+            ListingPoint point = current != null && FeatureScale.isIndexable(current) ? scale.toPoint(current) : null;
+            ListingPoint previous = point != null ? points.put(id, point) : points.remove(id);
+            if (previous == null && point == null) {
+                return;
+            }
+            if (previous != null) {
+                dirtyCities.add(previous.cityKey());
+            }
+            if (point != null) {
+                dirtyCities.add(point.cityKey());
+            }
+            pending.put(id, versions.incrementAndGet());
+            if (loading) {
+                changedDuringLoad.put(id, Optional.ofNullable(point != null ? current : null));
+            }
+        }
+    }
+
+    private static Map<String, KdTree> buildTrees(Iterable<ListingPoint> points, Set<String> cities) {
+        Map<String, List<ListingPoint>> byCity = new HashMap<>();
+        for (ListingPoint point : points) {
+            String city = point.cityKey();
+            if (cities == null || cities.contains(city)) {
+                byCity.computeIfAbsent(city, ignored -> new ArrayList<>()).add(point);
+            }
+        }
+        Map<String, KdTree> built = new HashMap<>();
+        byCity.forEach((city, cityPoints) -> built.put(city, KdTree.build(cityPoints)));
+        return cities == null ? Map.copyOf(built) : built;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.restate.service.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Szkic kwantyli KLL (Karnin, Lang, Liberty) dla wartości double.
+ * <p>
+ * Wartości trafiają do kompaktora poziomu 0; pełny kompaktor sortuje się i przekazuje co drugi
+ * element (z losowym przesunięciem) na poziom wyżej, gdzie każdy element waży dwa razy więcej.
+ * Pojemności poziomów maleją geometrycznie (czynnik 2/3) od najwyższego, więc szkic zajmuje
+ * O(k) pamięci niezależnie od liczby wartości, a dodanie wartości kosztuje zamortyzowane O(log k).
+ * Szkice są łączne - {@link #merge(KllSketch)} daje szkic sumy zbiorów z tym samym błędem.
+ * Błąd rangi wynosi około {@link #normalizedRankError(int)} (ok. 1.6% dla k = 200) z prawdopodobieństwem 99%.
+ * Klasa nie jest bezpieczna wątkowo.
+ */
+public final class KllSketch {
+
+    public static final int DEFAULT_K = 200;
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+
+    private final int k;
+    private final SplittableRandom random;
+    private final List<double[]> levels = new ArrayList<>();
+    private final List<Integer> sizes = new ArrayList<>();
+    private int maxRetained;
+    private int retained;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public KllSketch(int k) {
+        this(k, new SplittableRandom());
+    }
+
+    KllSketch(int k, long seed) {
+        this(k, new SplittableRandom(seed));
+    }
+
+    private KllSketch(int k, SplittableRandom random) {
+        if (k < 8) {
+            throw new IllegalArgumentException("k must be at least 8");
+        }
+        this.k = k;
+        this.random = random;
+        grow();
+    }
+
+    /**
+     * Normalizowany błąd rangi (dwustronny, 99% ufności) dla parametru k - przybliżenie empiryczne
+     * stosowane dla szkiców KLL.
+     */
+    public static double normalizedRankError(int k) {
+        return 2.446 / Math.pow(k, 0.9433);
+    }
+
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        append(0, value);
+        count++;
+        min = count == 1 ? value : Math.min(min, value);
+        max = count == 1 ? value : Math.max(max, value);
+        if (retained >= maxRetained) {
+            compress();
+        }
+    }
+
+    public void merge(KllSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        while (levels.size() < other.levels.size()) {
+            grow();
+        }
+        for (int h = 0; h < other.levels.size(); h++) {
+            double[] items = other.levels.get(h);
+            for (int i = 0; i < other.sizes.get(h); i++) {
+                append(h, items[i]);
+            }
+        }
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+        while (retained >= maxRetained) {
+            compress();
+        }
+    }
+
+    public KllSketch copy() {
+        KllSketch copy = new KllSketch(k, random.split());
+        copy.merge(this);
+        return copy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    int getRetained() {
+        return retained;
+    }
+
+    /**
+     * Przybliżony kwantyl rzędu {@code q} z przedziału [0, 1]; NaN dla pustego szkicu.
+     */
+    public double getQuantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q == 0) {
+            return min;
+        }
+        if (q == 1) {
+            return max;
+        }
+        SortedView view = sortedView();
+        double target = q * count;
+        long cumulative = 0;
+        for (int i = 0; i < view.values.length; i++) {
+            cumulative += view.weights[i];
+            if (cumulative >= target) {
+                return view.values[i];
+            }
+        }
+        return max;
+    }
+
+    public double[] getQuantiles(double[] quantiles) {
+        double[] result = new double[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) {
+            result[i] = getQuantile(quantiles[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Przybliżony odsetek wartości mniejszych lub równych {@code value}; NaN dla pustego szkicu.
+     */
+    public double getRank(double value) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long weight = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            double[] items = levels.get(h);
+            for (int i = 0; i < sizes.get(h); i++) {
+                if (items[i] <= value) {
+                    weight += 1L << h;
+                }
+            }
+        }
+        return (double) weight / count;
+    }
+
+    private void append(int level, double value) {
+        double[] items = levels.get(level);
+        int size = sizes.get(level);
+        if (size == items.length) {
+            items = Arrays.copyOf(items, Math.max(4, items.length * 2));
+            levels.set(level, items);
+        }
+        items[size] = value;
+        sizes.set(level, size + 1);
+        retained++;
+    }
+
+    private void grow() {
+        levels.add(new double[0]);
+        sizes.add(0);
+        maxRetained = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            maxRetained += capacity(h);
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = levels.size() - level - 1;
+        return (int) Math.ceil(Math.pow(CAPACITY_RATIO, depth) * k) + 1;
+    }
+
+    private void compress() {
+        for (int h = 0; h < levels.size(); h++) {
+            if (sizes.get(h) >= capacity(h)) {
+                if (h + 1 >= levels.size()) {
+                    grow();
+                }
+                compact(h);
+                if (retained < maxRetained) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sortuje poziom i przenosi co drugi element na poziom wyżej; przy nieparzystej liczbie
+     * największy element zostaje na miejscu, więc suma wag zawsze równa się liczbie wartości.
+     */
+    private void compact(int level) {
+        double[] items = levels.get(level);
+        int size = sizes.get(level);
+        Arrays.sort(items, 0, size);
+
+        int paired = size - (size % 2);
+        int offset = random.nextBoolean() ? 1 : 0;
+        for (int i = offset; i < paired; i += 2) {
+            append(level + 1, items[i]);
+        }
+        if (paired < size) {
+            items[0] = items[size - 1];
+        }
+        sizes.set(level, size - paired);
+        retained -= paired;
+    }
+
+    private SortedView sortedView() {
+        double[] values = new double[0];
+        long[] weights = new long[0];
+        for (int h = 0; h < levels.size(); h++) {
+            int size = sizes.get(h);
+            if (size == 0) {
+                continue;
+            }
+            double[] level = Arrays.copyOf(levels.get(h), size);
+            Arrays.sort(level);
+
+            double[] mergedValues = new double[values.length + size];
+            long[] mergedWeights = new long[values.length + size];
+            int i = 0;
+            int j = 0;
+            for (int out = 0; out < mergedValues.length; out++) {
+                if (j >= size || (i < values.length && values[i] <= level[j])) {
+                    mergedValues[out] = values[i];
+                    mergedWeights[out] = weights[i++];
+                } else {
+                    mergedValues[out] = level[j++];
+                    mergedWeights[out] = 1L << h;
+                }
+            }
+            values = mergedValues;
+            weights = mergedWeights;
+        }
+        return new SortedView(values, weights);
+    }
+
+    private record SortedView(double[] values, long[] weights) {
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.restate.service.stream;
+
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.service.search.MieszkanieCriteriaMatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Strumień SSE zmian mieszkań filtrowany kryteriami subskrybenta.
+ * <p>
+ * Zdarzenia trafiają tu po commicie transakcji. Rozsyłanie nie blokuje: zdarzenie jest tylko
+ * wkładane do ograniczonego bufora każdego pasującego subskrybenta, a wysyłką zajmuje się
+ * krótkotrwały wirtualny wątek uruchamiany wyłącznie wtedy, gdy bufor nie jest pusty.
+ * Bezczynny subskrybent nie zajmuje więc żadnego wątku. Gdy wolny klient przepełni bufor,
+ * najstarsze zdarzenia są odrzucane, a klient dostaje zdarzenie {@code resync}.
+ */
+@Service
+@Slf4j
+public class ListingStreamService implements DisposableBean {
+
+    static final String RESYNC_EVENT = "resync";
+
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong subscriberIds = new AtomicLong();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final int bufferSize;
+    private final long emitterTimeoutMs;
+
+    public ListingStreamService(@Value("${stream.buffer-size:256}") int bufferSize,
+                                @Value("${stream.emitter-timeout-ms:1800000}") long emitterTimeoutMs) {
+        this.bufferSize = bufferSize;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+    }
+
+    public SseEmitter subscribe(MieszkanieSearchCriteria criteria) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        long id = subscriberIds.incrementAndGet();
+        Subscriber subscriber = new Subscriber(id, criteria, emitter, bufferSize);
+
+        emitter.onCompletion(() -> subscribers.remove(id));
+        emitter.onTimeout(() -> subscribers.remove(id));
+        emitter.onError(ex -> subscribers.remove(id));
+        subscribers.put(id, subscriber);
+
+        log.debug("SSE subscriber {} registered with criteria {}", id, criteria);
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMieszkanieChanged(MieszkanieChangedEvent event) {
+        for (Subscriber subscriber : subscribers.values()) {
+            if (matches(subscriber.criteria, event)) {
+                enqueue(subscriber, SseEmitter.event()
+                        .id(String.valueOf(eventIds.incrementAndGet()))
+                        .name(event.getType().name())
+                        .data(event.getLatest()));
+            }
+        }
+    }
+
+    /**
+     * Komentarz SSE co jakiś czas wykrywa zerwane połączenia i utrzymuje je przez proxy.
+     */
+    @Scheduled(fixedRateString = "${stream.heartbeat-interval-ms:25000}")
+    public void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.buffer.isEmpty()) {
+                enqueue(subscriber, SseEmitter.event().comment("keepalive"));
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.values().forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    static boolean matches(MieszkanieSearchCriteria criteria, MieszkanieChangedEvent event) {
+        // Zmiana, po której mieszkanie przestaje pasować, też jest istotna dla subskrybenta
+        return MieszkanieCriteriaMatcher.matches(criteria, event.getCurrent())
+                || MieszkanieCriteriaMatcher.matches(criteria, event.getPrevious());
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        while (!subscriber.buffer.offer(event)) {
+            subscriber.buffer.poll();
+            subscriber.overflowed.set(true);
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            try {
+                if (subscriber.overflowed.getAndSet(false)) {
+                    subscriber.emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(""));
+                }
+                SseEmitter.SseEventBuilder event;
+                while ((event = subscriber.buffer.poll()) != null) {
+                    subscriber.emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("SSE subscriber {} disconnected: {}", subscriber.id, e.getMessage());
+                subscribers.remove(subscriber.id);
+                subscriber.buffer.clear();
+                return;
+            } finally {
+                subscriber.draining.set(false);
+            }
+            // Zdarzenie mogło dojść między ostatnim poll() a zwolnieniem flagi
+        } while (!subscriber.buffer.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private static final class Subscriber {
+        private final long id;
+        private final MieszkanieSearchCriteria criteria;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private final AtomicBoolean overflowed = new AtomicBoolean(false);
+
+        private Subscriber(long id, MieszkanieSearchCriteria criteria, SseEmitter emitter, int bufferSize) {
+            this.id = id;
+            this.criteria = criteria;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
@@ -1,49 +1,137 @@
 package com.example.restate.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
 
+/**
+ * Wydawanie i weryfikacja tokenów JWT.
+ * <p>
+ * Parser jest budowany raz i współdzielony (jest bezpieczny wątkowo). Zweryfikowane claimy trafiają do
+ * ograniczonego cache'a kluczowanego skrótem SHA-256 tokenu i wygasają razem z tokenem, więc kolejne
+ * żądania z tym samym tokenem pomijają dekodowanie, weryfikację HMAC i parsowanie JSON.
+ * Tokeny dostępu są krótkotrwałe ({@code jwt.expiration}) i mają identyfikator (jti), po którym
+ * można je unieważnić; dłuższą sesję zapewniają tokeny odświeżające.
+ */
 @Component
 public class JwtUtil {
 
+    public static final String ROLES_CLAIM = "roles";
+
     private static final String SECRET = "my-super-secret-key-which-is-long-enough-to-be-secure";
-    private static final long EXPIRATION_MS = 1000 * 60 * 60 * 10; // 10 godzin
+    private static final long DEFAULT_EXPIRATION_MS = 1000 * 60 * 15; // 15 minut
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 10_000;
 
+    private final long expirationMs;
     private SecretKey secretKey;
+    private JwtParser parser;
+    private Cache<String, Claims> verifiedTokens;
+
+    @Autowired
+    public JwtUtil(@Value("${jwt.expiration:900000}") long expirationMs) {
+        this.expirationMs = expirationMs;
+    }
+
+    JwtUtil() {
+        this(DEFAULT_EXPIRATION_MS);
+    }
 
     @PostConstruct
     public void init() {
         secretKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(VERIFIED_TOKEN_CACHE_SIZE)
+                .expireAfter(Expiry.creating((String key, Claims claims) -> remainingValidity(claims)))
+                .build();
     }
 
     public String generateToken(String username) {
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
+                .expiration(new Date(System.currentTimeMillis() + expirationMs))
                 .signWith(secretKey, Jwts.SIG.HS256)
                 .compact();
     }
 
-    public String extractUsername(String token) {
+    /**
+     * Token z rolami użytkownika w claimie {@value #ROLES_CLAIM} - filtr JWT nie musi wtedy
+     * odczytywać użytkownika z bazy przy każdym żądaniu.
+     */
+    public String generateToken(UserDetails userDetails) {
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(userDetails.getUsername())
+                .claim(ROLES_CLAIM, roles)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + expirationMs))
+                .signWith(secretKey, Jwts.SIG.HS256)
+                .compact();
+    }
+
+    /**
+     * Weryfikuje podpis i ważność tokenu i zwraca jego claimy.
+     */
+    public Claims extractClaims(String token) {
+        String key = sha256(token);
+        Claims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims;
         try {
-            return Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload()
-                    .getSubject();
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (Exception e) {
-            // Log the exception with a more specific message
-            // e.g., "Failed to extract username from token: " + e.getMessage()
             throw new IllegalArgumentException("Invalid JWT token", e);
         }
+        // Tokeny bez daty wygaśnięcia nie są zapamiętywane
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(key, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Role z claimu {@value #ROLES_CLAIM} albo null dla tokenów wydanych bez ról.
+     */
+    public List<String> extractRoles(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof List<?> list)) {
+            return null;
+        }
+        return list.stream().map(String::valueOf).toList();
+    }
+
+    public String extractUsername(String token) {
+        return extractClaims(token).getSubject();
     }
 
     public boolean validateToken(String token, String username) {
@@ -54,4 +142,22 @@ public class JwtUtil {
             return false;
         }
     }
+
+    public long getExpirationMs() {
+        return expirationMs;
+    }
+
+    private static Duration remainingValidity(Claims claims) {
+        long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+        return Duration.ofMillis(Math.max(remainingMs, 0));
+    }
+
+    public static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
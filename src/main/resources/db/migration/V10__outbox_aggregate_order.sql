@@ -0,0 +1,4 @@
+-- Relay pobiera zdarzenie dopiero, gdy nie czeka żadne wcześniejsze zdarzenie tego samego agregatu;
+-- ten indeks obsługuje sprawdzenie NOT EXISTS w lockNextBatch
+CREATE INDEX idx_outbox_events_pending_aggregate ON outbox_events(aggregate_type, aggregate_id, id)
+    WHERE status = 'PENDING';
@@ -0,0 +1,15 @@
+-- Dopasowania zapisanych wyszukiwań czekające na wysyłkę; listing to migawka mieszkania (JSON MieszkanieDTO)
+-- z chwili dopasowania. Usunięcie wyszukiwania (także kaskadą z użytkownikiem) usuwa jego zaległe dopasowania
+CREATE TABLE saved_search_notifications (
+    id BIGSERIAL PRIMARY KEY,
+    saved_search_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    mieszkanie_id INTEGER NOT NULL,
+    outbox_event_id BIGINT NOT NULL,
+    listing TEXT NOT NULL,
+    matched_at TIMESTAMP NOT NULL,
+    CONSTRAINT fk_saved_search_notification_search FOREIGN KEY (saved_search_id)
+        REFERENCES saved_searches(id) ON DELETE CASCADE,
+    -- Ponowne dostarczenie tego samego zdarzenia z outboxa nie dubluje dopasowania
+    CONSTRAINT uk_saved_search_notification_event UNIQUE (saved_search_id, outbox_event_id)
+);
@@ -0,0 +1,51 @@
+-- Import CSV (R__import_csv.sql) czyści tabelę mieszkania i wczytuje ją od nowa z sekwencją od 1, z pominięciem
+-- aplikacji. Historia cen odwołuje się do mieszkania po samym id, więc po imporcie aplikacja przepina ją
+-- na nowe id i dopisuje wpisy IMPORT (PriceHistoryServiceImpl.recordImport). Potrzebuje do tego tożsamości
+-- mieszkań sprzed importu - zapisuje ją wyzwalacz TRUNCATE, w transakcji importu.
+CREATE TABLE price_history_import_snapshot (
+    id INTEGER NOT NULL,
+    developer TEXT,
+    investment TEXT,
+    number TEXT,
+    area NUMERIC(10,2)
+);
+
+-- Jeden wiersz = import czekający na przetworzenie przez aplikację
+CREATE TABLE price_history_import_pending (
+    truncated_at TIMESTAMP NOT NULL
+);
+
+-- Kilka importów przed przetworzeniem: historia wciąż wskazuje id sprzed pierwszego z nich,
+-- więc zostaje najstarsza migawka
+CREATE OR REPLACE FUNCTION price_history_snapshot_listings() RETURNS TRIGGER AS $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM price_history_import_pending) THEN
+        INSERT INTO price_history_import_pending (truncated_at) VALUES (CURRENT_TIMESTAMP);
+        INSERT INTO price_history_import_snapshot (id, developer, investment, number, area)
+        SELECT id, developer, investment, number, area
+        FROM mieszkania;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_mieszkania_price_history_snapshot
+    BEFORE TRUNCATE ON mieszkania
+    FOR EACH STATEMENT EXECUTE FUNCTION price_history_snapshot_listings();
+
+-- Jednorazowe uzupełnienie: wpis IMPORT dla mieszkań, których cena różni się od ostatnio zapisanej
+-- (import wykonany przed tą migracją nie zostawił migawki)
+SELECT price_history_ensure_partition(CURRENT_DATE);
+
+INSERT INTO price_history (mieszkanie_id, investment, price, area, source, changed_at)
+SELECT m.id, m.investment, m.price, m.area, 'IMPORT', CURRENT_TIMESTAMP
+FROM mieszkania m
+LEFT JOIN LATERAL (
+    SELECT h.price
+    FROM price_history h
+    WHERE h.mieszkanie_id = m.id
+    ORDER BY h.changed_at DESC, h.id DESC
+    LIMIT 1
+) last ON TRUE
+WHERE m.price IS NOT NULL
+  AND last.price IS DISTINCT FROM m.price;
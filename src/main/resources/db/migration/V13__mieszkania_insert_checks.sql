@@ -0,0 +1,46 @@
+-- Import CSV (R__import_csv.sql) wstawia mieszkania z pominięciem aplikacji: województwo w pisowni z pliku
+-- ("Mazowieckie") trafiałoby do partycji domyślnej, a klucz główny istnieje tylko w każdej partycji (V4),
+-- więc to samo id w dwóch województwach przeszłoby niezauważone. Pilnuje tego wyzwalacz, a nie sam skrypt
+-- importu - zmiana skryptu zmieniłaby jego sumę kontrolną i Flyway wykonałby import ponownie.
+
+-- Wiersze wczytane przed tą migracją (V4 poprawiło tylko dane istniejące w chwili partycjonowania).
+-- UPDATE klucza partycji przenosi wiersz do partycji jego województwa.
+UPDATE mieszkania
+SET voivodeship = NULLIF(lower(translate(btrim(voivodeship), 'ĄĆĘŁŃÓŚŹŻ', 'ąćęłńóśźż')), '')
+WHERE voivodeship IS DISTINCT FROM NULLIF(lower(translate(btrim(voivodeship), 'ĄĆĘŁŃÓŚŹŻ', 'ąćęłńóśźż')), '');
+
+-- Wyzwalacz BEFORE ROW nie może zmienić partycji wiersza, więc województwo jest poprawiane po wstawieniu,
+-- raz na instrukcję. Zapis z aplikacji ma już postać z Mieszkanie.normalizeVoivodeship i id z sekwencji -
+-- dla niego oba sprawdzenia to wyszukanie jednego id.
+CREATE OR REPLACE FUNCTION mieszkania_check_inserted() RETURNS TRIGGER AS $$
+DECLARE
+    duplicate_ids TEXT;
+BEGIN
+    UPDATE mieszkania m
+    SET voivodeship = NULLIF(lower(translate(btrim(m.voivodeship), 'ĄĆĘŁŃÓŚŹŻ', 'ąćęłńóśźż')), '')
+    FROM inserted_rows i
+    WHERE m.id = i.id
+      AND i.voivodeship IS DISTINCT FROM
+          NULLIF(lower(translate(btrim(i.voivodeship), 'ĄĆĘŁŃÓŚŹŻ', 'ąćęłńóśźż')), '');
+
+    -- Historia cen, odciski i powiadomienia odwołują się do mieszkania po samym id. Błąd wycofuje całą
+    -- transakcję - przy imporcie także TRUNCATE.
+    SELECT string_agg(id::TEXT, ', ') INTO duplicate_ids
+    FROM (SELECT m.id
+          FROM mieszkania m
+          WHERE m.id IN (SELECT id FROM inserted_rows)
+          GROUP BY m.id
+          HAVING count(*) > 1
+          ORDER BY m.id
+          LIMIT 20) duplicates;
+    IF duplicate_ids IS NOT NULL THEN
+        RAISE EXCEPTION 'Duplicate apartment ids in mieszkania: %', duplicate_ids;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_mieszkania_check_inserted
+    AFTER INSERT ON mieszkania
+    REFERENCING NEW TABLE AS inserted_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION mieszkania_check_inserted();
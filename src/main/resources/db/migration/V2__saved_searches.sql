@@ -0,0 +1,21 @@
+CREATE TABLE saved_searches (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    -- Kryteria wyszukiwania (odpowiadają MieszkanieSearchCriteria)
+    developer TEXT,
+    investment TEXT,
+    city TEXT,
+    district TEXT,
+    voivodeship TEXT,
+    floor INTEGER,
+    min_price NUMERIC(12,2),
+    max_price NUMERIC(12,2),
+    min_area NUMERIC(10,2),
+    max_area NUMERIC(10,2),
+    status VARCHAR(20),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_saved_search_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_saved_searches_user_id ON saved_searches(user_id);
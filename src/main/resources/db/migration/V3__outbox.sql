@@ -0,0 +1,17 @@
+CREATE TABLE outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id VARCHAR(64) NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    available_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at TIMESTAMP
+);
+
+-- Relay czyta wyłącznie oczekujące zdarzenia w kolejności id; indeks częściowy pozostaje mały
+CREATE INDEX idx_outbox_events_pending ON outbox_events(id) WHERE status = 'PENDING';
+CREATE INDEX idx_outbox_events_processed_at ON outbox_events(processed_at) WHERE status <> 'PENDING';
@@ -0,0 +1,92 @@
+-- Zamiana tabeli mieszkania na tabelę partycjonowaną listowo po województwie.
+-- Encja Mieszkanie i repozytorium działają bez zmian: nazwa tabeli, kolumny i sekwencja id
+-- pozostają takie same. Zapytania z warunkiem voivodeship = ? (LocationSearchStrategy,
+-- AdvancedSearchStrategy) czytają tylko jedną partycję - przy parametrach wiązanych
+-- przycinanie partycji odbywa się w trakcie wykonania (runtime pruning).
+
+ALTER TABLE mieszkania RENAME TO mieszkania_old;
+ALTER INDEX mieszkania_pkey RENAME TO mieszkania_old_pkey;
+
+CREATE TABLE mieszkania (
+    id INTEGER NOT NULL DEFAULT nextval('mieszkania_id_seq'),
+    developer TEXT,
+    investment TEXT,
+    number TEXT,
+    area NUMERIC(10,2),
+    price NUMERIC(12,2),
+    voivodeship TEXT,
+    city TEXT,
+    district TEXT,
+    floor INTEGER,
+    status VARCHAR(20) DEFAULT 'AVAILABLE',
+    description TEXT,
+    created_by BIGINT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_mieszkania_created_by FOREIGN KEY (created_by) REFERENCES users(id)
+) PARTITION BY LIST (voivodeship);
+
+CREATE TABLE mieszkania_dolnoslaskie PARTITION OF mieszkania FOR VALUES IN ('dolnośląskie');
+CREATE TABLE mieszkania_kujawsko_pomorskie PARTITION OF mieszkania FOR VALUES IN ('kujawsko-pomorskie');
+CREATE TABLE mieszkania_lubelskie PARTITION OF mieszkania FOR VALUES IN ('lubelskie');
+CREATE TABLE mieszkania_lubuskie PARTITION OF mieszkania FOR VALUES IN ('lubuskie');
+CREATE TABLE mieszkania_lodzkie PARTITION OF mieszkania FOR VALUES IN ('łódzkie');
+CREATE TABLE mieszkania_malopolskie PARTITION OF mieszkania FOR VALUES IN ('małopolskie');
+CREATE TABLE mieszkania_mazowieckie PARTITION OF mieszkania FOR VALUES IN ('mazowieckie');
+CREATE TABLE mieszkania_opolskie PARTITION OF mieszkania FOR VALUES IN ('opolskie');
+CREATE TABLE mieszkania_podkarpackie PARTITION OF mieszkania FOR VALUES IN ('podkarpackie');
+CREATE TABLE mieszkania_podlaskie PARTITION OF mieszkania FOR VALUES IN ('podlaskie');
+CREATE TABLE mieszkania_pomorskie PARTITION OF mieszkania FOR VALUES IN ('pomorskie');
+CREATE TABLE mieszkania_slaskie PARTITION OF mieszkania FOR VALUES IN ('śląskie');
+CREATE TABLE mieszkania_swietokrzyskie PARTITION OF mieszkania FOR VALUES IN ('świętokrzyskie');
+CREATE TABLE mieszkania_warminsko_mazurskie PARTITION OF mieszkania FOR VALUES IN ('warmińsko-mazurskie');
+CREATE TABLE mieszkania_wielkopolskie PARTITION OF mieszkania FOR VALUES IN ('wielkopolskie');
+CREATE TABLE mieszkania_zachodniopomorskie PARTITION OF mieszkania FOR VALUES IN ('zachodniopomorskie');
+-- Brak województwa (NULL) i nieznane zapisy trafiają do partycji domyślnej
+CREATE TABLE mieszkania_default PARTITION OF mieszkania DEFAULT;
+
+-- Klucz główny tabeli partycjonowanej musiałby zawierać voivodeship, które może być NULL.
+-- Unikalność id zapewnia sekwencja, a klucz główny na id zakładamy w każdej partycji osobno
+-- (nowa partycja dodana później również potrzebuje własnego klucza).
+DO $$
+DECLARE
+    partition_name TEXT;
+BEGIN
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        JOIN pg_class p ON p.oid = i.inhparent
+        WHERE p.relname = 'mieszkania'
+    LOOP
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I PRIMARY KEY (id)',
+                       partition_name, partition_name || '_pkey');
+    END LOOP;
+END $$;
+
+-- Indeksy tworzone na tabeli nadrzędnej są zakładane automatycznie w każdej partycji
+CREATE INDEX idx_mieszkania_city ON mieszkania(city);
+CREATE INDEX idx_mieszkania_district ON mieszkania(district);
+CREATE INDEX idx_mieszkania_developer ON mieszkania(developer);
+CREATE INDEX idx_mieszkania_investment ON mieszkania(investment);
+CREATE INDEX idx_mieszkania_price ON mieszkania(price);
+
+-- Województwo było dowolnym tekstem ("Mazowieckie", "Śląskie "), a wartości partycji są pisane małymi
+-- literami - przed kopiowaniem sprowadzamy je do postaci z Mieszkanie.normalizeVoivodeship. Polskie litery
+-- zamienia translate, bo lower() przy LC_CTYPE=C zmienia tylko litery ASCII.
+UPDATE mieszkania_old
+SET voivodeship = NULLIF(lower(translate(btrim(voivodeship), 'ĄĆĘŁŃÓŚŹŻ', 'ąćęłńóśźż')), '')
+WHERE voivodeship IS NOT NULL;
+
+INSERT INTO mieszkania (id, developer, investment, number, area, price, voivodeship, city, district, floor,
+                        status, description, created_by, created_at, updated_at)
+SELECT id, developer, investment, number, area, price, voivodeship, city, district, floor,
+       status, description, created_by, created_at, updated_at
+FROM mieszkania_old;
+
+-- Sekwencja przechodzi na nową tabelę, więc pg_get_serial_sequence('mieszkania', 'id') nadal działa
+ALTER SEQUENCE mieszkania_id_seq OWNED BY mieszkania.id;
+
+DROP TABLE mieszkania_old;
+
+ANALYZE mieszkania;
@@ -0,0 +1,27 @@
+-- Zagregowane statystyki cen per grupa lokalizacji i status, odświeżane przyrostowo
+CREATE TABLE price_stats (
+    id BIGSERIAL PRIMARY KEY,
+    group_type VARCHAR(20) NOT NULL,
+    group_key TEXT NOT NULL,
+    voivodeship TEXT,
+    city TEXT,
+    district TEXT,
+    investment TEXT,
+    -- Status mieszkań albo 'ALL' dla wszystkich statusów
+    status VARCHAR(20) NOT NULL,
+    listing_count BIGINT NOT NULL,
+    avg_price NUMERIC(14,2),
+    min_price NUMERIC(14,2),
+    max_price NUMERIC(14,2),
+    median_price NUMERIC(14,2),
+    p90_price NUMERIC(14,2),
+    avg_price_per_m2 NUMERIC(14,2),
+    min_price_per_m2 NUMERIC(14,2),
+    max_price_per_m2 NUMERIC(14,2),
+    median_price_per_m2 NUMERIC(14,2),
+    p90_price_per_m2 NUMERIC(14,2),
+    refreshed_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_price_stats_group UNIQUE (group_type, group_key, status)
+);
+
+CREATE INDEX idx_mieszkania_voivodeship_city ON mieszkania(voivodeship, city);
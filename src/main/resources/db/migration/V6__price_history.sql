@@ -0,0 +1,42 @@
+-- Historia cen mieszkań: tylko dopisywanie, jeden wiersz na zmianę ceny.
+-- Partycje miesięczne pozwalają odłączać i archiwizować stare miesiące bez przepisywania tabeli.
+-- Brak klucza obcego do mieszkania - tabela mieszkania jest partycjonowana, a historia
+-- ma przetrwać usunięcie mieszkania i ponowny import CSV.
+CREATE TABLE price_history (
+    id BIGSERIAL,
+    mieszkanie_id INTEGER NOT NULL,
+    investment TEXT,
+    -- NULL oznacza usunięcie mieszkania
+    price NUMERIC(12,2),
+    area NUMERIC(10,2),
+    source VARCHAR(10) NOT NULL,
+    changed_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, changed_at)
+) PARTITION BY RANGE (changed_at);
+
+CREATE TABLE price_history_default PARTITION OF price_history DEFAULT;
+
+CREATE INDEX idx_price_history_mieszkanie ON price_history(mieszkanie_id, changed_at);
+CREATE INDEX idx_price_history_investment ON price_history(investment, changed_at);
+
+-- Tworzy partycję miesiąca zawierającego podany dzień (wywoływane okresowo przez aplikację)
+CREATE OR REPLACE FUNCTION price_history_ensure_partition(day DATE) RETURNS VOID AS $$
+DECLARE
+    month_start DATE := date_trunc('month', day)::DATE;
+    partition_name TEXT := 'price_history_' || to_char(month_start, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF price_history FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, month_start, (month_start + INTERVAL '1 month')::DATE);
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT price_history_ensure_partition(CURRENT_DATE);
+SELECT price_history_ensure_partition((CURRENT_DATE + INTERVAL '1 month')::DATE);
+
+-- Stan początkowy: bieżąca cena każdego istniejącego mieszkania
+INSERT INTO price_history (mieszkanie_id, investment, price, area, source, changed_at)
+SELECT id, investment, price, area, 'IMPORT', CURRENT_TIMESTAMP
+FROM mieszkania
+WHERE price IS NOT NULL;
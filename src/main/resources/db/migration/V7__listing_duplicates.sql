@@ -0,0 +1,23 @@
+-- Klucze pasm MinHash LSH: mieszkania o tym samym kluczu w którymkolwiek paśmie są kandydatami na duplikat
+CREATE TABLE listing_fingerprints (
+    mieszkanie_id INTEGER NOT NULL,
+    band SMALLINT NOT NULL,
+    bucket BIGINT NOT NULL,
+    PRIMARY KEY (mieszkanie_id, band)
+);
+
+CREATE INDEX idx_listing_fingerprints_bucket ON listing_fingerprints(band, bucket);
+
+-- Wykryte pary: mieszkanie_id to nowsze ogłoszenie, duplicate_of_id - starsze, zachowywane przy scaleniu
+CREATE TABLE listing_duplicates (
+    id BIGSERIAL PRIMARY KEY,
+    mieszkanie_id INTEGER NOT NULL,
+    duplicate_of_id INTEGER NOT NULL,
+    similarity NUMERIC(4,3) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    detected_at TIMESTAMP NOT NULL,
+    resolved_at TIMESTAMP,
+    CONSTRAINT uk_listing_duplicates_pair UNIQUE (mieszkanie_id, duplicate_of_id)
+);
+
+CREATE INDEX idx_listing_duplicates_status ON listing_duplicates(status, similarity DESC);
@@ -0,0 +1,29 @@
+-- Tokeny odświeżające: przechowywany jest tylko skrót SHA-256. Tokeny jednej rodziny powstają z kolejnych
+-- rotacji jednego logowania; ponowne użycie zrotowanego tokenu unieważnia całą rodzinę
+CREATE TABLE refresh_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    token_hash VARCHAR(64) NOT NULL,
+    family_id VARCHAR(36) NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    rotated_at TIMESTAMP,
+    revoked_at TIMESTAMP,
+    CONSTRAINT uk_refresh_tokens_hash UNIQUE (token_hash)
+);
+
+CREATE INDEX idx_refresh_tokens_family ON refresh_tokens(family_id);
+CREATE INDEX idx_refresh_tokens_username ON refresh_tokens(username) WHERE revoked_at IS NULL;
+CREATE INDEX idx_refresh_tokens_expires_at ON refresh_tokens(expires_at);
+
+-- Unieważnione tokeny dostępu: pojedynczy token (jti) albo wszystkie tokeny użytkownika wydane
+-- do revoked_at (token_key = 'user:<nazwa>'). Wiersz jest potrzebny tylko do wygaśnięcia tych tokenów
+CREATE TABLE revoked_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    token_key VARCHAR(100) NOT NULL,
+    revoked_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_tokens(revoked_at);
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens(expires_at);
@@ -0,0 +1,6 @@
+-- Wyszukiwanie użytkowników po początku nazwy lub adresu e-mail (lower(...) LIKE 'abc%')
+CREATE INDEX idx_users_username_lower ON users (lower(username) text_pattern_ops);
+CREATE INDEX idx_users_email_lower ON users (lower(email) text_pattern_ops);
+
+-- Filtr roli ze stronicowaniem kluczem po id
+CREATE INDEX idx_users_role_id ON users (role, id);
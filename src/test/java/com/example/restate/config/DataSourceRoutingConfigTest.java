@@ -0,0 +1,108 @@
+package com.example.restate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routing z {@link DataSourceRoutingConfig} z prawdziwym Hibernate na dwóch bazach H2 zamiast primary i repliki.
+ */
+class DataSourceRoutingConfigTest {
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private LocalContainerEntityManagerFactoryBean factoryBean;
+
+    @BeforeEach
+    void setUp() {
+        primary = h2("routing-primary");
+        replica = h2("routing-replica");
+        for (HikariDataSource dataSource : List.of(primary, replica)) {
+            new JdbcTemplate(dataSource).execute("CREATE TABLE items (id INTEGER)");
+        }
+        // Wiersz tylko na replice pokazuje, skąd czytał odczyt
+        new JdbcTemplate(replica).update("INSERT INTO items (id) VALUES (99)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (factoryBean != null) {
+            factoryBean.destroy();
+        }
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void writeAfterReadOnlyTransactionInOneEntityManager_ShouldGoToPrimary() {
+        // Given - jeden EntityManager na całe żądanie, jak przy open-in-view
+        DataSourceRoutingConfig config = new DataSourceRoutingConfig();
+        DataSource dataSource = config.dataSource(primary, replica, new ReadYourWritesGuard(Duration.ofSeconds(5)));
+        EntityManagerFactory entityManagerFactory = entityManagerFactory(dataSource, config);
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        Number readCount;
+        try {
+            // When - odczyt tylko do odczytu (findById), potem zapis (update)
+            readCount = readOnly.execute(status ->
+                    (Number) entityManager.createNativeQuery("SELECT count(*) FROM items").getSingleResult());
+            readWrite.executeWithoutResult(status ->
+                    entityManager.createNativeQuery("INSERT INTO items (id) VALUES (1)").executeUpdate());
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+
+        // Then
+        assertEquals(1, readCount.intValue());
+        assertEquals(List.of(1), ids(primary));
+        assertEquals(List.of(99), ids(replica));
+    }
+
+    private EntityManagerFactory entityManagerFactory(DataSource dataSource, DataSourceRoutingConfig config) {
+        Map<String, Object> properties = new HashMap<>();
+        config.replicaConnectionHandling().customize(properties);
+
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setPackagesToScan(DataSourceRoutingConfigTest.class.getPackageName());
+        factoryBean.setJpaPropertyMap(properties);
+        factoryBean.afterPropertiesSet();
+        return factoryBean.getObject();
+    }
+
+    private static List<Integer> ids(DataSource dataSource) {
+        return new JdbcTemplate(dataSource).queryForList("SELECT id FROM items ORDER BY id", Integer.class);
+    }
+
+    private static HikariDataSource h2(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name);
+        dataSource.setPoolName(name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.restate.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadReplicaRoutingDataSourceTest {
+
+    private ReadYourWritesGuard guard;
+    private ReadReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        guard = new ReadYourWritesGuard(Duration.ofSeconds(5));
+        routingDataSource = new ReadReplicaRoutingDataSource(guard);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void determineCurrentLookupKey_InReadOnlyTransaction_ShouldRouteToReplica() {
+        // Given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When & Then
+        assertEquals(ReadReplicaRoutingDataSource.Route.REPLICA, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void determineCurrentLookupKey_InReadWriteTransaction_ShouldRouteToPrimary() {
+        // When & Then
+        assertEquals(ReadReplicaRoutingDataSource.Route.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void determineCurrentLookupKey_AfterOwnCommittedWrite_ShouldRouteReadsToPrimary() {
+        // Given - a write transaction of the user commits
+        authenticate("testuser");
+        routingDataSource.determineCurrentLookupKey();
+        commitSynchronizations();
+
+        // When
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Then
+        assertEquals(ReadReplicaRoutingDataSource.Route.PRIMARY, routingDataSource.determineCurrentLookupKey());
+        assertTrue(guard.requiresPrimary("testuser"));
+        assertFalse(guard.requiresPrimary("otheruser"));
+    }
+
+    @Test
+    void determineCurrentLookupKey_ForOtherUserAfterWrite_ShouldRouteToReplica() {
+        // Given
+        guard.recordWrite("testuser");
+        authenticate("otheruser");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When & Then
+        assertEquals(ReadReplicaRoutingDataSource.Route.REPLICA, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void guard_AfterWindowExpires_ShouldAllowReplica() throws InterruptedException {
+        // Given
+        ReadYourWritesGuard shortGuard = new ReadYourWritesGuard(Duration.ofMillis(20));
+        shortGuard.recordWrite("testuser");
+
+        // When
+        Thread.sleep(50);
+
+        // Then
+        assertFalse(shortGuard.requiresPrimary("testuser"));
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    private static void commitSynchronizations() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clear();
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.restate.config;
+
+import com.example.restate.dto.UpdateProfileDTO;
+import com.example.restate.dto.UpdateUserDTO;
+import com.example.restate.dto.UserProfileDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.MountableFile;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routing na primary i replikę w replikacji strumieniowej. Odczyty tylko do odczytu idą na replikę,
+ * a zapis po takim odczycie w tym samym żądaniu (open-in-view) - na primary, gdzie replika odrzuciłaby
+ * go jako zapis na serwerze w trybie recovery.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        // R__import_csv czyta /data/mieszkania.csv, który istnieje tylko w docker-compose
+        "spring.flyway.repeatable-sql-migration-prefix=SKIP__",
+        // Bez okna ochronnego odczyty zalogowanego użytkownika nie są przenoszone na primary
+        "spring.datasource.replica.read-your-writes-window-ms=0"
+})
+class ReadReplicaRoutingIntegrationTest {
+
+    private static final Network NETWORK = Network.newNetwork();
+
+    @Container
+    private static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:16")
+            .withNetwork(NETWORK)
+            .withNetworkAliases("primary")
+            .withCopyFileToContainer(MountableFile.forClasspathResource("replication/primary-init.sh", 0755),
+                    "/docker-entrypoint-initdb.d/replication.sh");
+
+    // Kopia primary z pg_basebackup -R startuje jako standby i odtwarza WAL na bieżąco
+    @Container
+    private static final GenericContainer<?> REPLICA = new GenericContainer<>("postgres:16")
+            .dependsOn(PRIMARY)
+            .withNetwork(NETWORK)
+            .withEnv("PGPASSWORD", "replicator")
+            .withExposedPorts(PostgreSQLContainer.POSTGRESQL_PORT)
+            .withCommand("bash", "-c", """
+                    until pg_basebackup -h primary -U replicator -D /tmp/replica -R -X stream; do sleep 1; done
+                    chown -R postgres:postgres /tmp/replica && chmod 700 /tmp/replica
+                    exec gosu postgres postgres -D /tmp/replica
+                    """)
+            .waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*\\n", 1));
+
+    @DynamicPropertySource
+    static void postgresqlProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", PRIMARY::getJdbcUrl);
+        registry.add("spring.datasource.username", PRIMARY::getUsername);
+        registry.add("spring.datasource.password", PRIMARY::getPassword);
+        registry.add("spring.datasource.replica.url", () -> "jdbc:postgresql://" + REPLICA.getHost() + ":"
+                + REPLICA.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + PRIMARY.getDatabaseName());
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        // Użytkownicy z DataInitializer są zapisani na primary, logowanie czyta ich z repliki
+        awaitReplication();
+    }
+
+    @Test
+    void transactions_ShouldBeRoutedByReadOnlyFlag() {
+        // Given
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        // When & Then
+        assertEquals(Boolean.TRUE, readOnly.execute(status -> inRecovery()));
+        assertEquals(Boolean.FALSE, readWrite.execute(status -> inRecovery()));
+    }
+
+    @Test
+    void updateUser_AfterReadOnlyLookupInTheSameRequest_ShouldWriteToPrimary() throws Exception {
+        // Given
+        HttpHeaders headers = login("admin", "password123");
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'user1'", Long.class);
+        UpdateUserDTO dto = UpdateUserDTO.builder().lastName("Replicated").build();
+
+        // When - kontroler czyta użytkownika (findById, tylko do odczytu), potem go zapisuje
+        ResponseEntity<UserProfileDTO> response = restTemplate.exchange(
+                "/api/users/" + userId, HttpMethod.PUT, new HttpEntity<>(dto, headers), UserProfileDTO.class);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Replicated", jdbcTemplate.queryForObject(
+                "SELECT last_name FROM users WHERE id = ?", String.class, userId));
+    }
+
+    @Test
+    void updateCurrentUser_AfterReadOnlyLookupInTheSameRequest_ShouldWriteToPrimary() throws Exception {
+        // Given
+        HttpHeaders headers = login("user1", "password123");
+        UpdateProfileDTO dto = UpdateProfileDTO.builder().firstName("Streamed").build();
+
+        // When - kontroler czyta użytkownika (findByUsername, tylko do odczytu), potem go zapisuje
+        ResponseEntity<UserProfileDTO> response = restTemplate.exchange(
+                "/api/users/me", HttpMethod.PUT, new HttpEntity<>(dto, headers), UserProfileDTO.class);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Streamed", jdbcTemplate.queryForObject(
+                "SELECT first_name FROM users WHERE username = 'user1'", String.class));
+    }
+
+    private Boolean inRecovery() {
+        return jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class);
+    }
+
+    private HttpHeaders login(String username, String password) throws Exception {
+        var login = objectMapper.createObjectNode();
+        login.put("username", username);
+        login.put("password", password);
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/auth/login", login, String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(objectMapper.readTree(response.getBody()).get("token").asText());
+        return headers;
+    }
+
+    // Czeka, aż replika odtworzy WAL zapisany na primary do tej chwili
+    private void awaitReplication() throws InterruptedException {
+        String lsn = jdbcTemplate.queryForObject("SELECT CAST(pg_current_wal_lsn() AS TEXT)", String.class);
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!Boolean.TRUE.equals(replica.queryForObject(
+                "SELECT pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn)", Boolean.class, lsn))) {
+            assertTrue(System.currentTimeMillis() < deadline, "Replica did not catch up with " + lsn);
+            Thread.sleep(50);
+        }
+    }
+}
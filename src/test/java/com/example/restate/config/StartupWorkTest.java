@@ -0,0 +1,70 @@
+package com.example.restate.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupWorkTest {
+
+    private final StartupWork startupWork = new StartupWork();
+
+    @Test
+    void health_WhileTaskIsRunning_ShouldBeOutOfServiceUntilItFinishes() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        // When
+        startupWork.runInBackground("index-load", () -> {
+            await(release);
+            finished.countDown();
+        });
+
+        // Then
+        Health running = startupWork.health();
+        assertEquals(Status.OUT_OF_SERVICE, running.getStatus());
+        assertEquals(Set.of("index-load"), running.getDetails().get("pending"));
+
+        release.countDown();
+        assertTrue(finished.await(1, TimeUnit.SECONDS));
+        awaitFinished();
+        assertEquals(Status.UP, startupWork.health().getStatus());
+    }
+
+    @Test
+    void health_WhenTaskFailed_ShouldBeUpWithFailureDetails() {
+        // When
+        startupWork.runInBackground("index-load", () -> {
+            throw new IllegalStateException("database unavailable");
+        });
+        awaitFinished();
+
+        // Then
+        Health health = startupWork.health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(Map.of("index-load", "database unavailable"), health.getDetails().get("failed"));
+    }
+
+    private void awaitFinished() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (!startupWork.isFinished() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(startupWork.isFinished());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.restate.config;
 
 import com.example.restate.security.JwtAuthenticationFilter;
+import com.example.restate.security.PrincipalCache;
+import com.example.restate.security.TokenRevocationList;
 import com.example.restate.service.UserService;
 import com.example.restate.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
@@ -34,7 +38,29 @@ public class WebMvcTestConfig {
     @Primary
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
         // Use a real JwtAuthenticationFilter with mocked dependencies
-        return new JwtAuthenticationFilter(jwtUtil(), userDetailsService());
+        return new JwtAuthenticationFilter(jwtUtil(), principalCache(), tokenRevocationList(), meterRegistry());
+    }
+
+    @Bean
+    public BlockingIoExecutor blockingIoExecutor() {
+        return new BlockingIoExecutor();
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    @Primary
+    public TokenRevocationList tokenRevocationList() {
+        return mock(TokenRevocationList.class);
+    }
+
+    @Bean
+    @Primary
+    public PrincipalCache principalCache() {
+        return mock(PrincipalCache.class);
     }
 
     @Bean
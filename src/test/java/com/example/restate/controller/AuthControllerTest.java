@@ -2,11 +2,15 @@ package com.example.restate.controller;
 
 import com.example.restate.dto.AuthRequest;
 import com.example.restate.dto.AuthResponse;
+import com.example.restate.dto.RefreshTokenRequest;
 import com.example.restate.dto.RegisterRequest;
 import com.example.restate.entity.Role;
 import com.example.restate.entity.User;
+import com.example.restate.exception.AuthenticationException;
+import com.example.restate.exception.ServiceOverloadedException;
+import com.example.restate.service.LoginService;
+import com.example.restate.service.TokenService;
 import com.example.restate.service.UserService;
-import com.example.restate.util.JwtUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,24 +20,29 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import com.example.restate.config.WebMvcTestConfig;
 import org.springframework.http.MediaType;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AuthController.class)
@@ -47,10 +56,10 @@ class AuthControllerTest {
     private UserService userService;
 
     @MockBean
-    private JwtUtil jwtUtil;
+    private TokenService tokenService;
 
     @MockBean
-    private AuthenticationManager authenticationManager;
+    private LoginService loginService;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -58,7 +67,6 @@ class AuthControllerTest {
     private AuthRequest authRequest;
     private RegisterRequest registerRequest;
     private User user;
-    private Authentication authentication;
 
     @BeforeEach
     void setUp() {
@@ -84,64 +92,113 @@ class AuthControllerTest {
         user.setRole(Role.USER);
         user.setEnabled(true);
 
-        authentication = mock(Authentication.class);
     }
 
     @Test
     void authenticate_WhenCredentialsAreValid_ShouldReturnToken() throws Exception {
         // Given
-        when(userService.existsByUsername("testuser")).thenReturn(true);
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenReturn(authentication);
-        when(userService.loadUserByUsername("testuser")).thenReturn(user);
-        when(jwtUtil.generateToken("testuser")).thenReturn("test.jwt.token");
+        when(loginService.login("testuser", "password")).thenReturn(CompletableFuture.completedFuture(user));
+        when(tokenService.issueTokens(user)).thenReturn(new AuthResponse("testuser", "test.jwt.token", "refresh-token"));
 
-        // When & Then
-        mockMvc.perform(post("/api/auth/login")
+        // When
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(authRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.username").value("testuser"))
-                .andExpect(jsonPath("$.token").value("test.jwt.token"));
+                .andExpect(jsonPath("$.token").value("test.jwt.token"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh-token"));
 
-        verify(userService, times(1)).existsByUsername("testuser");
-        verify(authenticationManager, times(1)).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(userService, times(1)).loadUserByUsername("testuser");
-        verify(jwtUtil, times(1)).generateToken("testuser");
+        verify(loginService, times(1)).login("testuser", "password");
+        verify(tokenService, times(1)).issueTokens(user);
+    }
+
+    @Test
+    void authenticate_ShouldIssueTokensOutsideThreadThatVerifiedPassword() throws Exception {
+        // Given - logowanie kończy się na wątku puli haseł
+        CompletableFuture<User> login = new CompletableFuture<>();
+        when(loginService.login("testuser", "password")).thenReturn(login);
+        AtomicReference<Thread> issuingThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            issuingThread.set(Thread.currentThread());
+            return new AuthResponse("testuser", "test.jwt.token", "refresh-token");
+        }).when(tokenService).issueTokens(user);
+
+        // When
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Thread hashingThread = new Thread(() -> login.complete(user), "password-hashing-1");
+        hashingThread.start();
+        hashingThread.join();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        assertNotSame(hashingThread, issuingThread.get());
     }
 
     @Test
     void authenticate_WhenUserDoesNotExist_ShouldReturnBadRequest() throws Exception {
         // Given
-        when(userService.existsByUsername("testuser")).thenReturn(false);
+        when(loginService.login("testuser", "password"))
+                .thenReturn(CompletableFuture.failedFuture(new BadCredentialsException("Invalid username or password")));
 
-        // When & Then
-        mockMvc.perform(post("/api/auth/login")
+        // When
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(authRequest)))
-                .andExpect(status().isBadRequest());
+                .andReturn();
 
-        verify(userService, times(1)).existsByUsername("testuser");
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest());
+        verify(tokenService, never()).issueTokens(any(User.class));
     }
 
     @Test
     void authenticate_WhenCredentialsAreInvalid_ShouldReturnBadRequest() throws Exception {
+        // Given - błąd z puli haseł dociera opakowany w CompletionException
+        CompletableFuture<User> failed = CompletableFuture.supplyAsync(() -> {
+            throw new BadCredentialsException("Bad credentials");
+        });
+        when(loginService.login("testuser", "password")).thenReturn(failed);
+
+        // When
+        MvcResult result = mockMvc.perform(post("/api/auth/login")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(authRequest)))
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void authenticate_WhenPasswordHashingQueueIsFull_ShouldReturnServiceUnavailableWithRetryAfter() throws Exception {
         // Given
-        when(userService.existsByUsername("testuser")).thenReturn(true);
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenThrow(new BadCredentialsException("Bad credentials"));
+        when(loginService.login("testuser", "password"))
+                .thenThrow(new ServiceOverloadedException("Too many login attempts, try again later", 2));
 
         // When & Then
         mockMvc.perform(post("/api/auth/login")
                         .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(authRequest)))
-                .andExpect(status().isBadRequest());
-
-        verify(userService, times(1)).existsByUsername("testuser");
-        verify(authenticationManager, times(1)).authenticate(any(UsernamePasswordAuthenticationToken.class));
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
     }
 
     @Test
@@ -158,7 +215,8 @@ class AuthControllerTest {
         registeredUser.setRole(Role.USER);
 
         when(userService.registerUser(any(User.class))).thenReturn(registeredUser);
-        when(jwtUtil.generateToken("newuser")).thenReturn("new.jwt.token");
+        when(tokenService.issueTokens(registeredUser))
+                .thenReturn(new AuthResponse("newuser", "new.jwt.token", "new-refresh-token"));
 
         // When & Then
         mockMvc.perform(post("/api/auth/register")
@@ -172,7 +230,7 @@ class AuthControllerTest {
         verify(userService, times(1)).existsByUsername("newuser");
         verify(userService, times(1)).existsByEmail("newuser@example.com");
         verify(userService, times(1)).registerUser(any(User.class));
-        verify(jwtUtil, times(1)).generateToken("newuser");
+        verify(tokenService, times(1)).issueTokens(registeredUser);
     }
 
     @Test
@@ -228,4 +286,55 @@ class AuthControllerTest {
         verify(userService, times(1)).existsByEmail("newuser@example.com");
         verify(userService, times(1)).registerUser(any(User.class));
     }
+
+    @Test
+    void refresh_WithValidRefreshToken_ShouldReturnRotatedTokens() throws Exception {
+        // Given
+        when(tokenService.refresh("refresh-token"))
+                .thenReturn(new AuthResponse("testuser", "rotated.jwt.token", "rotated-refresh-token"));
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh-token"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("rotated.jwt.token"))
+                .andExpect(jsonPath("$.refreshToken").value("rotated-refresh-token"));
+    }
+
+    @Test
+    void refresh_WithInvalidRefreshToken_ShouldReturnUnauthorized() throws Exception {
+        // Given
+        when(tokenService.refresh("stolen-token"))
+                .thenThrow(new AuthenticationException("Invalid or expired refresh token"));
+
+        // When & Then
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest("stolen-token"))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refresh_WithoutRefreshToken_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verify(tokenService, never()).refresh(anyString());
+    }
+
+    @Test
+    void logout_ShouldRevokeAccessAndRefreshToken() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer access.jwt.token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh-token"))))
+                .andExpect(status().isNoContent());
+
+        verify(tokenService).logout("access.jwt.token", "refresh-token");
+    }
 }
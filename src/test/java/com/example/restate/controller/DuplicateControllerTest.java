@@ -0,0 +1,106 @@
+package com.example.restate.controller;
+
+import com.example.restate.config.WebMvcTestConfig;
+import com.example.restate.dto.DuplicateDTO;
+import com.example.restate.dto.PageResponse;
+import com.example.restate.entity.ListingDuplicate;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.service.DuplicateService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(DuplicateController.class)
+@Import(WebMvcTestConfig.class)
+class DuplicateControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private DuplicateService duplicateService;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getDuplicates_ShouldDefaultToPendingPairs() throws Exception {
+        // Given
+        DuplicateDTO duplicate = DuplicateDTO.builder()
+                .id(10L)
+                .similarity(new BigDecimal("0.875"))
+                .status(ListingDuplicate.Status.PENDING)
+                .build();
+        when(duplicateService.getDuplicates(ListingDuplicate.Status.PENDING, PageRequest.of(0, 20)))
+                .thenReturn(PageResponse.<DuplicateDTO>builder()
+                        .content(List.of(duplicate))
+                        .totalElements(1)
+                        .build());
+
+        // When & Then
+        mockMvc.perform(get("/api/duplicates"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].similarity", is(0.875)))
+                .andExpect(jsonPath("$.content[0].status", is("PENDING")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getDuplicates_WithInvalidStatus_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/duplicates").param("status", "UNKNOWN"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void merge_ShouldReturnKeptListing() throws Exception {
+        // Given
+        Mieszkanie kept = new Mieszkanie();
+        kept.setId(1);
+        kept.setInvestment("Zielony Zakątek");
+        when(duplicateService.merge(10L)).thenReturn(kept);
+
+        // When & Then
+        mockMvc.perform(post("/api/duplicates/10/merge").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void dismiss_ShouldReturnNoContent() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/duplicates/10/dismiss").with(csrf()))
+                .andExpect(status().isNoContent());
+        verify(duplicateService).dismiss(10L);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void scan_ShouldReturnFlaggedCount() throws Exception {
+        // Given
+        when(duplicateService.scan()).thenReturn(3);
+
+        // When & Then
+        mockMvc.perform(post("/api/duplicates/scan").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.flagged", is(3)));
+    }
+}
@@ -5,6 +5,7 @@ import com.example.restate.dto.CreateMieszkanieDTO;
 import com.example.restate.dto.MieszkanieSearchCriteria;
 import com.example.restate.dto.UpdateMieszkanieDTO;
 import com.example.restate.entity.Mieszkanie;
+import com.example.restate.monitoring.SqlStatementBudgetInterceptor;
 import com.example.restate.entity.Role;
 import com.example.restate.entity.User;
 import com.example.restate.repository.MieszkanieRepository;
@@ -198,6 +199,9 @@ public class MieszkanieControllerIntegrationTest extends IntegrationTestConfig {
         // Then
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.getBody().contains(saved.getDeveloper()));
+        String statements = response.getHeaders().getFirst(SqlStatementBudgetInterceptor.HEADER);
+        assertNotNull(statements);
+        assertTrue(Integer.parseInt(statements) <= 1);
     }
 
     @Test
@@ -4,14 +4,20 @@ import com.example.restate.dto.CreateMieszkanieDTO;
 import com.example.restate.dto.MieszkanieDTO;
 import com.example.restate.dto.MieszkanieSearchCriteria;
 import com.example.restate.dto.PageResponse;
+import com.example.restate.dto.PriceHistoryDTO;
 import com.example.restate.dto.UpdateMieszkanieDTO;
 import com.example.restate.entity.Mieszkanie;
+import com.example.restate.entity.PriceHistoryEntry;
+import com.example.restate.exception.ResourceNotFoundException;
 import com.example.restate.service.MieszkanieService;
+import com.example.restate.service.PriceHistoryService;
 import com.example.restate.service.search.SearchContext;
 import com.example.restate.service.search.SearchStrategy;
+import com.example.restate.service.stream.ListingStreamService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -23,6 +29,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -31,6 +38,7 @@ import java.util.Optional;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
@@ -55,6 +63,12 @@ class MieszkanieControllerTest {
     @MockBean
     private SearchContext searchContext;
 
+    @MockBean
+    private ListingStreamService listingStreamService;
+
+    @MockBean
+    private PriceHistoryService priceHistoryService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -422,4 +436,90 @@ class MieszkanieControllerTest {
 
         verify(mieszkanieService, times(1)).changeStatus(eq(1), eq(Mieszkanie.Status.SOLD));
     }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void streamChanges_ShouldSubscribeWithCriteriaFromQueryParameters() throws Exception {
+        // Given
+        when(listingStreamService.subscribe(any(MieszkanieSearchCriteria.class))).thenReturn(new SseEmitter());
+
+        // When & Then
+        mockMvc.perform(get("/api/mieszkania/stream")
+                        .param("city", "Warsaw")
+                        .param("status", "AVAILABLE")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        ArgumentCaptor<MieszkanieSearchCriteria> captor = ArgumentCaptor.forClass(MieszkanieSearchCriteria.class);
+        verify(listingStreamService, times(1)).subscribe(captor.capture());
+        assertEquals("Warsaw", captor.getValue().getCity());
+        assertEquals("AVAILABLE", captor.getValue().getStatus());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getPriceHistory_ShouldReturnPriceChanges() throws Exception {
+        // Given
+        List<PriceHistoryDTO> history = List.of(
+                PriceHistoryDTO.builder()
+                        .price(BigDecimal.valueOf(500000))
+                        .source(PriceHistoryEntry.Source.IMPORT)
+                        .build(),
+                PriceHistoryDTO.builder()
+                        .price(BigDecimal.valueOf(480000))
+                        .change(BigDecimal.valueOf(-20000))
+                        .changePercent(BigDecimal.valueOf(-4))
+                        .source(PriceHistoryEntry.Source.UPDATE)
+                        .build());
+        when(priceHistoryService.getHistory(1)).thenReturn(history);
+
+        // When & Then
+        mockMvc.perform(get("/api/mieszkania/1/price-history"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].change", is(-20000)))
+                .andExpect(jsonPath("$[1].source", is("UPDATE")));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getPriceHistory_WhenMieszkanieDoesNotExist_ShouldReturnNotFound() throws Exception {
+        // Given
+        when(priceHistoryService.getHistory(999))
+                .thenThrow(new ResourceNotFoundException("Mieszkanie not found with id: 999"));
+
+        // When & Then
+        mockMvc.perform(get("/api/mieszkania/999/price-history"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getSimilar_ShouldReturnAvailableSimilarApartmentsByDefault() throws Exception {
+        // Given
+        when(mieszkanieService.findSimilar(1, 10, Mieszkanie.Status.AVAILABLE)).thenReturn(List.of(mieszkanie));
+
+        // When & Then
+        mockMvc.perform(get("/api/mieszkania/1/similar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(mieszkanie.getId())));
+    }
+
+    @Test
+    void getSimilar_WithAnyStatus_ShouldNotFilterByStatus() throws Exception {
+        // Given
+        when(mieszkanieService.findSimilar(1, 5, null)).thenReturn(List.of());
+
+        // When & Then
+        mockMvc.perform(get("/api/mieszkania/1/similar").param("k", "5").param("status", "any"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void getSimilar_WithTooLargeK_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/mieszkania/1/similar").param("k", "500"))
+                .andExpect(status().isBadRequest());
+    }
 }
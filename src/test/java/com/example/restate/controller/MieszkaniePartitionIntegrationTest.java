@@ -0,0 +1,204 @@
+package com.example.restate.controller;
+
+import com.example.restate.dto.CreateMieszkanieDTO;
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.UpdateMieszkanieDTO;
+import com.example.restate.entity.Role;
+import com.example.restate.entity.User;
+import com.example.restate.repository.MieszkanieRepository;
+import com.example.restate.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Partycje tabeli mieszkania (V4) na schemacie z migracji Flyway - pozostałe testy integracyjne
+ * tworzą schemat z encji, bez partycji. Województwo w pisowni z API albo z importu CSV ma trafić do partycji
+ * swojego województwa, a nie do domyślnej.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        // R__import_csv czyta /data/mieszkania.csv, który istnieje tylko w docker-compose
+        "spring.flyway.repeatable-sql-migration-prefix=SKIP__"
+})
+class MieszkaniePartitionIntegrationTest {
+
+    private static final String BASE_URL = "/api/mieszkania";
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16");
+
+    @DynamicPropertySource
+    static void postgresqlProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MieszkanieRepository mieszkanieRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private HttpHeaders adminHeaders;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User admin = new User();
+        admin.setUsername("partition-admin");
+        admin.setEmail("partition-admin@test.com");
+        admin.setPassword(passwordEncoder.encode("Admin123!"));
+        admin.setFirstName("Admin");
+        admin.setLastName("User");
+        admin.setRole(Role.ADMIN);
+        admin.setEnabled(true);
+        userRepository.save(admin);
+
+        var login = objectMapper.createObjectNode();
+        login.put("username", "partition-admin");
+        login.put("password", "Admin123!");
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/auth/login", login, String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        adminHeaders = new HttpHeaders();
+        adminHeaders.setContentType(MediaType.APPLICATION_JSON);
+        adminHeaders.setBearerAuth(objectMapper.readTree(response.getBody()).get("token").asText());
+    }
+
+    @AfterEach
+    void tearDown() {
+        mieszkanieRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void createMieszkanie_WithCapitalizedVoivodeship_ShouldStoreRowInItsPartition() {
+        // When
+        MieszkanieDTO created = create("Śląskie");
+
+        // Then
+        assertEquals("śląskie", created.getVoivodeship());
+        assertEquals("mieszkania_slaskie", partitionOf(created.getId()));
+    }
+
+    @Test
+    void updateMieszkanie_WithOtherVoivodeship_ShouldMoveRowToItsPartition() {
+        // Given
+        MieszkanieDTO created = create("Mazowieckie");
+        assertEquals("mieszkania_mazowieckie", partitionOf(created.getId()));
+
+        UpdateMieszkanieDTO dto = UpdateMieszkanieDTO.builder()
+                .voivodeship(" Małopolskie ")
+                .city("Kraków")
+                .build();
+
+        // When
+        ResponseEntity<MieszkanieDTO> response = restTemplate.exchange(
+                BASE_URL + "/" + created.getId(),
+                HttpMethod.PUT,
+                new HttpEntity<>(dto, adminHeaders),
+                MieszkanieDTO.class
+        );
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("małopolskie", response.getBody().getVoivodeship());
+        assertEquals("mieszkania_malopolskie", partitionOf(created.getId()));
+    }
+
+    @Test
+    void insertOutsideTheApplication_WithCapitalizedVoivodeship_ShouldStoreRowInItsPartition() {
+        // When - tak wstawia R__import_csv.sql
+        jdbcTemplate.update("INSERT INTO mieszkania (id, developer, voivodeship, city) " +
+                "VALUES (900001, 'ImportDev', ' Mazowieckie', 'Warszawa'), (900002, 'ImportDev', 'ŁÓDZKIE', 'Łódź')");
+
+        // Then
+        assertEquals("mieszkania_mazowieckie", partitionOf(900001));
+        assertEquals("mieszkania_lodzkie", partitionOf(900002));
+    }
+
+    @Test
+    void insertOutsideTheApplication_WithIdUsedInAnotherPartition_ShouldBeRejected() {
+        // Given
+        jdbcTemplate.update("INSERT INTO mieszkania (id, developer, voivodeship, city) " +
+                "VALUES (900003, 'ImportDev', 'mazowieckie', 'Warszawa')");
+
+        // When & Then - klucz główny partycji nie widzi id z innego województwa
+        assertThrows(DataAccessException.class, () -> jdbcTemplate.update(
+                "INSERT INTO mieszkania (id, developer, voivodeship, city) " +
+                        "VALUES (900003, 'ImportDev', 'śląskie', 'Katowice')"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM mieszkania WHERE id = 900003",
+                Integer.class));
+    }
+
+    private MieszkanieDTO create(String voivodeship) {
+        CreateMieszkanieDTO dto = new CreateMieszkanieDTO();
+        dto.setDeveloper("PartitionDev");
+        dto.setInvestment("Partition Park");
+        dto.setNumber("P1");
+        dto.setArea(BigDecimal.valueOf(55.0));
+        dto.setPrice(BigDecimal.valueOf(420000));
+        dto.setVoivodeship(voivodeship);
+        dto.setCity("Katowice");
+        dto.setDistrict("Centrum");
+        dto.setFloor(1);
+
+        ResponseEntity<MieszkanieDTO> response = restTemplate.exchange(
+                BASE_URL,
+                HttpMethod.POST,
+                new HttpEntity<>(dto, adminHeaders),
+                MieszkanieDTO.class
+        );
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertNotNull(response.getBody());
+        return response.getBody();
+    }
+
+    private String partitionOf(Integer id) {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM mieszkania WHERE id = ?",
+                String.class, id);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.restate.controller;
+
+import com.example.restate.config.WebMvcTestConfig;
+import com.example.restate.dto.CreateSavedSearchDTO;
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.entity.SavedSearch;
+import com.example.restate.exception.ResourceNotFoundException;
+import com.example.restate.service.SavedSearchService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(SavedSearchController.class)
+@Import(WebMvcTestConfig.class)
+class SavedSearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SavedSearchService savedSearchService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private SavedSearch savedSearch;
+
+    @BeforeEach
+    void setUp() {
+        savedSearch = new SavedSearch();
+        savedSearch.setId(1L);
+        savedSearch.setName("Cheap in Warsaw");
+        savedSearch.setCity("Warsaw");
+        savedSearch.setMaxPrice(BigDecimal.valueOf(600000));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void getSavedSearches_ShouldReturnSavedSearchesOfCurrentUser() throws Exception {
+        // Given
+        when(savedSearchService.findByUsername("testuser")).thenReturn(List.of(savedSearch));
+
+        // When & Then
+        mockMvc.perform(get("/api/saved-searches"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Cheap in Warsaw")))
+                .andExpect(jsonPath("$[0].criteria.city", is("Warsaw")));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void createSavedSearch_ShouldReturnCreatedSearch() throws Exception {
+        // Given
+        CreateSavedSearchDTO dto = CreateSavedSearchDTO.builder()
+                .name("Cheap in Warsaw")
+                .criteria(MieszkanieSearchCriteria.builder().city("Warsaw").build())
+                .build();
+        when(savedSearchService.create(eq("testuser"), eq("Cheap in Warsaw"), any(MieszkanieSearchCriteria.class)))
+                .thenReturn(savedSearch);
+
+        // When & Then
+        mockMvc.perform(post("/api/saved-searches")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto))
+                        .with(csrf()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.criteria.maxPrice", is(600000)));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void createSavedSearch_WithoutName_ShouldReturnBadRequest() throws Exception {
+        // Given
+        CreateSavedSearchDTO dto = CreateSavedSearchDTO.builder()
+                .criteria(new MieszkanieSearchCriteria())
+                .build();
+
+        // When & Then
+        mockMvc.perform(post("/api/saved-searches")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto))
+                        .with(csrf()))
+                .andExpect(status().isBadRequest());
+
+        verify(savedSearchService, never()).create(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void deleteSavedSearch_ShouldReturnNoContent() throws Exception {
+        // When & Then
+        mockMvc.perform(delete("/api/saved-searches/1").with(csrf()))
+                .andExpect(status().isNoContent());
+
+        verify(savedSearchService).delete("testuser", 1L);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void deleteSavedSearch_WhenNotFound_ShouldReturnNotFound() throws Exception {
+        // Given
+        doThrow(new ResourceNotFoundException("Saved search not found with id: 2"))
+                .when(savedSearchService).delete("testuser", 2L);
+
+        // When & Then
+        mockMvc.perform(delete("/api/saved-searches/2").with(csrf()))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.restate.controller;
+
+import com.example.restate.config.WebMvcTestConfig;
+import com.example.restate.dto.PriceDistributionDTO;
+import com.example.restate.dto.PriceIndexPointDTO;
+import com.example.restate.dto.PriceStatsDTO;
+import com.example.restate.dto.PriceStatsResponse;
+import com.example.restate.entity.PriceStats;
+import com.example.restate.service.PriceDistributionService;
+import com.example.restate.service.PriceHistoryService;
+import com.example.restate.service.PriceStatsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(StatsController.class)
+@Import(WebMvcTestConfig.class)
+class StatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PriceStatsService priceStatsService;
+
+    @MockBean
+    private PriceDistributionService priceDistributionService;
+
+    @MockBean
+    private PriceHistoryService priceHistoryService;
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getPriceStats_ShouldDefaultToCityGrouping() throws Exception {
+        // Given
+        PriceStatsDTO warsaw = PriceStatsDTO.builder()
+                .voivodeship("mazowieckie")
+                .city("Warszawa")
+                .status(PriceStats.ALL_STATUSES)
+                .listingCount(120)
+                .price(PriceStatsDTO.Summary.builder().median(BigDecimal.valueOf(750000)).build())
+                .build();
+        when(priceStatsService.getStats(PriceStats.GroupType.CITY, null, null, null))
+                .thenReturn(PriceStatsResponse.builder()
+                        .groupBy("CITY")
+                        .status(PriceStats.ALL_STATUSES)
+                        .stats(List.of(warsaw))
+                        .build());
+
+        // When & Then
+        mockMvc.perform(get("/api/stats/prices"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.groupBy", is("CITY")))
+                .andExpect(jsonPath("$.stats", hasSize(1)))
+                .andExpect(jsonPath("$.stats[0].city", is("Warszawa")))
+                .andExpect(jsonPath("$.stats[0].listingCount", is(120)))
+                .andExpect(jsonPath("$.stats[0].price.median", is(750000)));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getPriceStats_ShouldParseGroupByCaseInsensitively() throws Exception {
+        // Given
+        when(priceStatsService.getStats(PriceStats.GroupType.DISTRICT, "AVAILABLE", null, "Kraków"))
+                .thenReturn(PriceStatsResponse.builder().groupBy("DISTRICT").stats(List.of()).build());
+
+        // When & Then
+        mockMvc.perform(get("/api/stats/prices")
+                        .param("groupBy", "District")
+                        .param("status", "AVAILABLE")
+                        .param("city", "Kraków"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.groupBy", is("DISTRICT")));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getPriceStats_WithInvalidGroupBy_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/stats/prices").param("groupBy", "street"))
+                .andExpect(status().isBadRequest());
+
+        verify(priceStatsService, never()).getStats(any(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void refreshPriceStats_ShouldTriggerFullRefresh() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/stats/prices/refresh").with(csrf()))
+                .andExpect(status().isNoContent());
+
+        verify(priceStatsService).refreshAll();
+    }
+
+    @Test
+    @WithMockUser
+    void getPriceDistribution_ShouldPassQuantilesAndPrice() throws Exception {
+        // Given
+        PriceDistributionDTO distribution = PriceDistributionDTO.builder()
+                .city("Warszawa")
+                .listingCount(250)
+                .rankErrorBound(0.016)
+                .price(PriceDistributionDTO.Distribution.builder()
+                        .quantiles(Map.of("p50", BigDecimal.valueOf(720000)))
+                        .build())
+                .priceRank(0.4)
+                .build();
+        when(priceDistributionService.getDistribution(null, "Warszawa", null, null, List.of(0.5),
+                BigDecimal.valueOf(650000))).thenReturn(distribution);
+
+        // When & Then
+        mockMvc.perform(get("/api/stats/distribution")
+                        .param("city", "Warszawa")
+                        .param("quantiles", "0.5")
+                        .param("price", "650000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.listingCount", is(250)))
+                .andExpect(jsonPath("$.rankErrorBound", is(0.016)))
+                .andExpect(jsonPath("$.price.quantiles.p50", is(720000)))
+                .andExpect(jsonPath("$.priceRank", is(0.4)));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getPriceIndex_ShouldParseMonths() throws Exception {
+        // Given
+        when(priceHistoryService.getInvestmentIndex("Osiedle Zielone", YearMonth.of(2024, 1), YearMonth.of(2024, 2)))
+                .thenReturn(List.of(
+                        PriceIndexPointDTO.builder().month(YearMonth.of(2024, 1)).index(BigDecimal.valueOf(100)).build(),
+                        PriceIndexPointDTO.builder().month(YearMonth.of(2024, 2)).index(new BigDecimal("101.5")).build()));
+
+        // When & Then
+        mockMvc.perform(get("/api/stats/price-index")
+                        .param("investment", "Osiedle Zielone")
+                        .param("from", "2024-01")
+                        .param("to", "2024-02"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].month", is("2024-02")))
+                .andExpect(jsonPath("$[1].index", is(101.5)));
+    }
+}
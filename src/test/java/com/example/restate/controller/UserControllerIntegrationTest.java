@@ -146,7 +146,7 @@ public class UserControllerIntegrationTest extends IntegrationTestConfig {
     @Test
     void testUpdateCurrentUser() {
         // Given
-        UpdateUserDTO updateDTO = UpdateUserDTO.builder()
+        UpdateProfileDTO updateDTO = UpdateProfileDTO.builder()
                 .firstName("Updated")
                 .lastName("Name")
                 .build();
@@ -154,7 +154,7 @@ public class UserControllerIntegrationTest extends IntegrationTestConfig {
         System.out.println("[DEBUG_LOG] UpdateDTO: " + updateDTO);
         System.out.println("[DEBUG_LOG] Headers: " + userHeaders);
 
-        HttpEntity<UpdateUserDTO> requestEntity = new HttpEntity<>(updateDTO, userHeaders);
+        HttpEntity<UpdateProfileDTO> requestEntity = new HttpEntity<>(updateDTO, userHeaders);
 
         // When
         System.out.println("[DEBUG_LOG] Making PUT request to " + BASE_URL + "/me");
@@ -583,11 +583,11 @@ public class UserControllerIntegrationTest extends IntegrationTestConfig {
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("UpdatedByUser", response.getBody().getFirstName());
         
-        assertEquals("ROLE_ADMIN", response.getBody().getRole());
+        assertEquals("ROLE_USER", response.getBody().getRole());
 
         User updatedUser = userRepository.findByUsername(USER_USERNAME).orElseThrow();
         assertEquals("UpdatedByUser", updatedUser.getFirstName());
-        assertEquals(Role.ADMIN, updatedUser.getRole()); // toEntity aktualizuje wszystkie pola
+        assertEquals(Role.USER, updatedUser.getRole()); // /me pomija rolę z żądania
     }
 
     @Test
@@ -1,19 +1,27 @@
 package com.example.restate.controller;
 
+import com.example.restate.dto.BulkUserResultDTO;
+import com.example.restate.dto.CursorPageResponse;
+import com.example.restate.dto.PageResponse;
 import com.example.restate.dto.RegisterRequest;
 import com.example.restate.dto.UpdateUserDTO;
 import com.example.restate.dto.UserProfileDTO;
+import com.example.restate.dto.UserSearchCriteria;
 import com.example.restate.entity.Role;
 import com.example.restate.entity.User;
 import com.example.restate.exception.ResourceNotFoundException;
+import com.example.restate.service.UserProvisioningService;
 import com.example.restate.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import com.example.restate.config.WebMvcTestConfig;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
@@ -25,6 +33,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
@@ -33,6 +43,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -53,6 +64,9 @@ class UserControllerTest {
     @MockBean
     private PasswordEncoder passwordEncoder;
 
+    @MockBean
+    private UserProvisioningService userProvisioningService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -86,21 +100,58 @@ class UserControllerTest {
 
     @Test
     @WithMockUser(roles = "ADMIN")
-    void getAllUsers_ShouldReturnAllUsers() throws Exception {
+    void getAllUsers_ShouldReturnFilteredPageOfProfiles() throws Exception {
+        // Given
+        PageResponse<UserProfileDTO> page = PageResponse.<UserProfileDTO>builder()
+                .content(userList.stream().map(UserProfileDTO::fromEntity).toList())
+                .pageNumber(0)
+                .pageSize(20)
+                .totalElements(2)
+                .totalPages(1)
+                .first(true)
+                .last(true)
+                .build();
+        when(userService.search(any(UserSearchCriteria.class), any(Pageable.class))).thenReturn(page);
 
-        when(userService.findAll()).thenReturn(userList);
+        // When & Then
+        mockMvc.perform(get("/api/users")
+                        .param("role", "ADMIN")
+                        .param("enabled", "true")
+                        .param("q", "adm")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", is(1)))
+                .andExpect(jsonPath("$.content[0].username", is("testuser")))
+                .andExpect(jsonPath("$.content[0].password").doesNotExist())
+                .andExpect(jsonPath("$.totalElements", is(2)));
+
+        verify(userService, times(1)).search(new UserSearchCriteria(Role.ADMIN, true, "adm"), PageRequest.of(0, 20));
+    }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void getUsersAfter_ShouldReturnKeysetPage() throws Exception {
+        // Given
+        CursorPageResponse<UserProfileDTO> page = CursorPageResponse.<UserProfileDTO>builder()
+                .content(List.of(UserProfileDTO.fromEntity(userList.get(1))))
+                .pageSize(1)
+                .nextCursor(2L)
+                .last(false)
+                .build();
+        when(userService.searchAfter(any(UserSearchCriteria.class), eq(1L), eq(1))).thenReturn(page);
 
+        // When & Then
         mockMvc.perform(get("/api/users")
+                        .param("after", "1")
+                        .param("size", "1")
                         .with(csrf()))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].username", is("testuser")))
-                .andExpect(jsonPath("$[1].id", is(2)))
-                .andExpect(jsonPath("$[1].username", is("admin")));
+                .andExpect(jsonPath("$.content[0].username", is("admin")))
+                .andExpect(jsonPath("$.nextCursor", is(2)))
+                .andExpect(jsonPath("$.last", is(false)));
 
-        verify(userService, times(1)).findAll();
+        verify(userService, never()).search(any(), any());
     }
 
     @Test
@@ -234,6 +285,62 @@ class UserControllerTest {
         verify(userService, times(1)).save(any(User.class));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void createUsers_ShouldReturnPerUserResults() throws Exception {
+        // Given
+        List<RegisterRequest> users = List.of(
+                new RegisterRequest("agent1", "password", "agent1@example.com", "Jan", "Kowalski"),
+                new RegisterRequest("testuser", "password", "test@example.com", "Test", "User"));
+        BulkUserResultDTO result = BulkUserResultDTO.builder()
+                .created(1)
+                .rejected(1)
+                .results(List.of(
+                        BulkUserResultDTO.Item.builder().index(0).username("agent1")
+                                .status(BulkUserResultDTO.Status.CREATED).build(),
+                        BulkUserResultDTO.Item.builder().index(1).username("testuser")
+                                .status(BulkUserResultDTO.Status.DUPLICATE).message("Username already exists").build()))
+                .build();
+        when(userProvisioningService.createUsers(any())).thenReturn(result);
+
+        // When & Then
+        mockMvc.perform(post("/api/users/bulk")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(users)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.results[1].status", is("DUPLICATE")));
+
+        verify(userProvisioningService, times(1)).createUsers(any());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = "USER")
+    void updateCurrentUser_ShouldIgnoreRoleAndEnabledFromRequest() throws Exception {
+        // Given - zablokowany użytkownik próbuje się odblokować i nadać sobie rolę administratora
+        user.setEnabled(false);
+        String payload = "{\"firstName\":\"Updated\",\"role\":\"ADMIN\",\"enabled\":true}";
+
+        when(userService.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(userService.update(eq(1L), any(User.class))).thenAnswer(invocation -> invocation.getArgument(1));
+
+        // When
+        mockMvc.perform(put("/api/users/me")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName", is("Updated")));
+
+        // Then
+        ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
+        verify(userService).update(eq(1L), captor.capture());
+        assertEquals(Role.USER, captor.getValue().getRole());
+        assertFalse(captor.getValue().isEnabled());
+    }
+
     @Test
     @WithMockUser(username = "testuser", roles = "USER")
     void getCurrentUser_WhenUserExists_ShouldReturnUserProfile() throws Exception {
@@ -3,6 +3,8 @@ package com.example.restate.exception;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -92,6 +94,34 @@ class GlobalExceptionHandlerTest {
         assertEquals("Database constraint violation: Duplicate entry", response.getBody().getMessage());
     }
 
+    @Test
+    void handleQueryTimeoutException_ShouldReturnServiceUnavailableStatus() {
+        // Given
+        QueryTimeoutException ex = new QueryTimeoutException("Search exceeded timeout of 5000 ms");
+
+        // When
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleQueryTimeoutException(ex);
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("Query Timeout", response.getBody().getError());
+        assertEquals("Search exceeded timeout of 5000 ms", response.getBody().getMessage());
+    }
+
+    @Test
+    void handleServiceOverloadedException_ShouldReturnServiceUnavailableWithRetryAfter() {
+        // Given
+        ServiceOverloadedException ex = new ServiceOverloadedException("Too many login attempts, try again later", 2);
+
+        // When
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleServiceOverloadedException(ex);
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("Service Overloaded", response.getBody().getError());
+    }
+
     @Test
     void handleIllegalArgumentException_ShouldReturnBadRequestStatus() {
         // Given
@@ -0,0 +1,71 @@
+package com.example.restate.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wyniki jednego endpointu w jednym kroku obciążenia. Histogramy (w mikrosekundach, 3 cyfry znaczące)
+ * zawierają także odpowiedzi błędne i przekroczenia limitu czasu - klient czekał na nie tak samo.
+ */
+final class EndpointStats {
+
+    // Od zaplanowanej chwili wysłania - z korektą coordinated omission
+    private final Histogram responseTime = new ConcurrentHistogram(3);
+    // Od faktycznego wysłania - sam czas obsługi przez serwer i sieć
+    private final Histogram serviceTime = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    void record(long responseTimeNanos, long serviceTimeNanos, boolean success) {
+        responseTime.recordValue(TimeUnit.NANOSECONDS.toMicros(responseTimeNanos));
+        serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(serviceTimeNanos));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Żądanie niewysłane, bo limit równoczesnych żądań był wyczerpany; liczy się jako błąd.
+     */
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    /**
+     * Dolicza wyniki innego endpointu (podsumowanie całego ruchu).
+     */
+    void add(EndpointStats other) {
+        responseTime.add(other.responseTime);
+        serviceTime.add(other.serviceTime);
+        errors.add(other.errors.sum());
+        dropped.add(other.dropped.sum());
+    }
+
+    long requests() {
+        return responseTime.getTotalCount() + dropped.sum();
+    }
+
+    long errors() {
+        return errors.sum() + dropped.sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    double errorRate() {
+        long requests = requests();
+        return requests == 0 ? 0.0 : (double) errors() / requests;
+    }
+
+    Histogram responseTime() {
+        return responseTime;
+    }
+
+    Histogram serviceTime() {
+        return serviceTime;
+    }
+}
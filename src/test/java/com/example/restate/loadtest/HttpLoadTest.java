@@ -0,0 +1,372 @@
+package com.example.restate.loadtest;
+
+import com.example.restate.dto.CreateMieszkanieDTO;
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.entity.Role;
+import com.example.restate.entity.User;
+import com.example.restate.repository.UserRepository;
+import com.example.restate.service.search.SearchBenchmarkData;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test obciążeniowy całej aplikacji przez HTTP na PostgreSQL (Testcontainers).
+ * <p>
+ * Po wygenerowaniu {@code load-test.listings} mieszkań ({@link SearchBenchmarkData}) loguje się przez
+ * {@code /api/auth/login} i dla każdego tempa z {@code load-test.rates-per-second} puszcza ważoną
+ * mieszankę listy, szczegółów, wyszukiwania, zmiany statusu i dodawania ogłoszeń w modelu otwartym
+ * ({@link OpenModelLoadGenerator}). Raport podaje przepustowość, p50/p95/p99/p99.9 i odsetek błędów
+ * na endpoint; histogramy HdrHistogram trafiają do {@code load-test.result-dir}.
+ * <p>
+ * Tag {@code load-test} jest pomijany w zwykłym {@code mvn test}; uruchomienie: {@code mvn -Pload-test test}
+ * (inne tempa: {@code -Dload-test.rates-per-second=100,200,400}).
+ */
+@Tag("load-test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@ActiveProfiles({"benchmark", "load-test"})
+class HttpLoadTest {
+
+    private static final String ADMIN = "loadtest-admin";
+    private static final String USER = "loadtest-user";
+    private static final String PASSWORD = "LoadTest123!";
+    private static final int PAGE_SIZE = 20;
+    // Histogramy są w mikrosekundach, raport w milisekundach
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("load-test")
+            .withUsername("loadtest")
+            .withPassword("loadtest")
+            .withCommand("postgres", "-c", "max_connections=200", "-c", "shared_buffers=256MB");
+
+    @DynamicPropertySource
+    static void postgresqlProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${load-test.listings}")
+    private long listings;
+
+    @Value("${load-test.rates-per-second}")
+    private List<Integer> rates;
+
+    @Value("${load-test.warmup-seconds}")
+    private long warmupSeconds;
+
+    @Value("${load-test.duration-seconds}")
+    private long durationSeconds;
+
+    @Value("${load-test.weight.list}")
+    private int listWeight;
+
+    @Value("${load-test.weight.detail}")
+    private int detailWeight;
+
+    @Value("${load-test.weight.search}")
+    private int searchWeight;
+
+    @Value("${load-test.weight.status}")
+    private int statusWeight;
+
+    @Value("${load-test.weight.create}")
+    private int createWeight;
+
+    @Value("${load-test.max-in-flight}")
+    private int maxInFlight;
+
+    @Value("${load-test.request-timeout-ms}")
+    private long requestTimeoutMs;
+
+    @Value("${load-test.seed}")
+    private long seed;
+
+    @Value("${load-test.result-dir}")
+    private Path resultDir;
+
+    @Value("${load-test.max-error-rate}")
+    private double maxErrorRate;
+
+    @Value("${load-test.max-p99-ms}")
+    private double maxP99Ms;
+
+    private final AtomicLong createdListings = new AtomicLong();
+
+    record EndpointSummary(int ratePerSecond, String endpoint, long requests, long errors, long dropped,
+                           double errorRate, double throughputPerSecond, double p50Ms, double p95Ms,
+                           double p99Ms, double p999Ms, double maxMs, double serviceP99Ms) {
+    }
+
+    @Test
+    void endpointLatencyAndErrors_UnderOpenModelLoad() throws IOException {
+        long loadStart = System.nanoTime();
+        SearchBenchmarkData.growTo(jdbcTemplate, 0, listings);
+        createUser(ADMIN, Role.ADMIN);
+        createUser(USER, Role.USER);
+        System.out.printf(Locale.ROOT, "Loaded %d listings in %.1f s%n", listings, (System.nanoTime() - loadStart) / 1e9);
+
+        List<EndpointSummary> summaries = new ArrayList<>();
+        try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder()
+                     .executor(clientExecutor)
+                     .connectTimeout(Duration.ofSeconds(5))
+                     .build()) {
+            for (int rate : rates) {
+                // Świeże tokeny na każdy krok - jwt.expiration jest krótszy niż cały przebieg
+                OpenModelLoadGenerator generator = new OpenModelLoadGenerator(httpClient,
+                        operations(login(httpClient, ADMIN), login(httpClient, USER)),
+                        maxInFlight, Duration.ofMillis(requestTimeoutMs));
+
+                generator.run(rate, Duration.ofSeconds(warmupSeconds), seed);
+                OpenModelLoadGenerator.Result result = generator.run(rate, Duration.ofSeconds(durationSeconds), seed + rate);
+
+                List<EndpointSummary> step = summarize(rate, result);
+                step.forEach(HttpLoadTest::print);
+                writeHistograms(rate, result);
+                summaries.addAll(step);
+            }
+        }
+        writeSummary(summaries);
+
+        for (EndpointSummary total : summaries.stream().filter(summary -> summary.endpoint().equals("all")).toList()) {
+            assertTrue(total.requests() > 0, "No requests were sent at " + total.ratePerSecond() + " req/s");
+            assertTrue(total.errorRate() <= maxErrorRate,
+                    "Error rate " + total.errorRate() + " at " + total.ratePerSecond() + " req/s exceeds " + maxErrorRate);
+            assertTrue(maxP99Ms <= 0 || total.p99Ms() <= maxP99Ms,
+                    "p99 " + total.p99Ms() + " ms at " + total.ratePerSecond() + " req/s exceeds " + maxP99Ms + " ms");
+        }
+    }
+
+    /**
+     * Mieszanka ruchu: odczyty jako zwykły użytkownik, zmiany jako administrator. Listy i wyszukiwania
+     * dotyczą pierwszych stron, jak u użytkowników przeglądających wyniki.
+     */
+    private List<LoadOperation> operations(String adminToken, String userToken) {
+        return List.of(
+                new LoadOperation("list", listWeight, random -> request(userToken,
+                        "/api/mieszkania?page=" + random.nextInt(10) + "&size=" + PAGE_SIZE).GET()),
+                new LoadOperation("detail", detailWeight, random -> request(userToken,
+                        "/api/mieszkania/" + randomId(random)).GET()),
+                new LoadOperation("search", searchWeight, random -> request(userToken,
+                        "/api/mieszkania/search?page=" + random.nextInt(3) + "&size=" + PAGE_SIZE)
+                        .POST(json(searchCriteria(random)))),
+                new LoadOperation("status", statusWeight, random -> request(adminToken,
+                        "/api/mieszkania/" + randomId(random) + "/status?status="
+                                + (random.nextBoolean() ? "AVAILABLE" : "RESERVED"))
+                        .method("PATCH", HttpRequest.BodyPublishers.noBody())),
+                new LoadOperation("create", createWeight, random -> request(adminToken, "/api/mieszkania")
+                        .POST(json(newListing(random)))));
+    }
+
+    /**
+     * Kształty kryteriów jak w benchmarku wyszukiwania: deweloper (selektywny), miasto, województwo
+     * z przedziałem cen i miasto z powierzchnią i statusem.
+     */
+    private static MieszkanieSearchCriteria searchCriteria(SplittableRandom random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> MieszkanieSearchCriteria.builder().developer("Deweloper " + random.nextInt(1000)).build();
+            case 1 -> MieszkanieSearchCriteria.builder().city("Warszawa").build();
+            case 2 -> MieszkanieSearchCriteria.builder()
+                    .voivodeship("pomorskie")
+                    .minPrice(new BigDecimal("300000"))
+                    .maxPrice(new BigDecimal("600000"))
+                    .build();
+            default -> MieszkanieSearchCriteria.builder()
+                    .city("Warszawa")
+                    .minArea(new BigDecimal("40"))
+                    .maxArea(new BigDecimal("70"))
+                    .status("AVAILABLE")
+                    .build();
+        };
+    }
+
+    private CreateMieszkanieDTO newListing(SplittableRandom random) {
+        return CreateMieszkanieDTO.builder()
+                .developer("Deweloper " + random.nextInt(1000))
+                .investment("Inwestycja obciążeniowa")
+                .number("LT-" + createdListings.incrementAndGet())
+                .area(BigDecimal.valueOf(25 + random.nextInt(90)))
+                .price(BigDecimal.valueOf(200_000 + random.nextInt(1_000_000)))
+                .voivodeship("mazowieckie")
+                .city("Warszawa")
+                .district("Dzielnica " + random.nextInt(30))
+                .floor(random.nextInt(15))
+                .build();
+    }
+
+    private int randomId(SplittableRandom random) {
+        return 1 + (int) random.nextLong(listings);
+    }
+
+    private HttpRequest.Builder request(String token, String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void createUser(String username, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@test.com");
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        user.setFirstName("Load");
+        user.setLastName("Test");
+        user.setRole(role);
+        user.setEnabled(true);
+        userRepository.save(user);
+    }
+
+    private String login(HttpClient httpClient, String username) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(json(Map.of("username", username, "password", PASSWORD)))
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode(), "Login failed for " + username + ": " + response.body());
+            return objectMapper.readTree(response.body()).get("token").asText();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Login interrupted", e);
+        }
+    }
+
+    private static List<EndpointSummary> summarize(int rate, OpenModelLoadGenerator.Result result) {
+        List<EndpointSummary> summaries = new ArrayList<>();
+        result.endpoints().forEach((endpoint, stats) -> summaries.add(summary(rate, endpoint, stats, result)));
+        summaries.add(summary(rate, "all", result.total(), result));
+        return summaries;
+    }
+
+    private static EndpointSummary summary(int rate, String endpoint, EndpointStats stats,
+                                           OpenModelLoadGenerator.Result result) {
+        Histogram responseTime = stats.responseTime();
+        return new EndpointSummary(rate, endpoint, stats.requests(), stats.errors(), stats.dropped(),
+                stats.errorRate(), result.throughput(stats),
+                millis(responseTime, 50.0), millis(responseTime, 95.0), millis(responseTime, 99.0),
+                millis(responseTime, 99.9), responseTime.getMaxValue() / MICROS_PER_MILLI,
+                millis(stats.serviceTime(), 99.0));
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    private static void print(EndpointSummary summary) {
+        System.out.printf(Locale.ROOT,
+                "%4d req/s %-7s requests=%-7d errors=%-5d (%.2f%%) throughput=%7.1f/s "
+                        + "p50=%7.2f p95=%7.2f p99=%7.2f p99.9=%7.2f max=%8.2f ms | service p99=%7.2f ms%n",
+                summary.ratePerSecond(), summary.endpoint(), summary.requests(), summary.errors(),
+                summary.errorRate() * 100, summary.throughputPerSecond(), summary.p50Ms(), summary.p95Ms(),
+                summary.p99Ms(), summary.p999Ms(), summary.maxMs(), summary.serviceP99Ms());
+    }
+
+    /**
+     * Dla każdego kroku: rozkład percentyli każdego endpointu ({@code .hgrm}, w milisekundach)
+     * oraz log histogramów ({@code response-times.hlog}, tag = endpoint) do łączenia między przebiegami.
+     */
+    private void writeHistograms(int rate, OpenModelLoadGenerator.Result result) throws IOException {
+        Path stepDir = resultDir.resolve("rate-" + rate);
+        Files.createDirectories(stepDir);
+        long endTimestamp = System.currentTimeMillis();
+        long startTimestamp = endTimestamp - result.elapsed().toMillis();
+
+        try (PrintStream log = new PrintStream(Files.newOutputStream(stepDir.resolve("response-times.hlog")))) {
+            HistogramLogWriter logWriter = new HistogramLogWriter(log);
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(startTimestamp);
+            logWriter.outputLegend();
+
+            Map<String, EndpointStats> endpoints = new LinkedHashMap<>(result.endpoints());
+            endpoints.put("all", result.total());
+            for (Map.Entry<String, EndpointStats> entry : endpoints.entrySet()) {
+                Histogram responseTime = entry.getValue().responseTime();
+                responseTime.setTag(entry.getKey());
+                responseTime.setStartTimeStamp(startTimestamp);
+                responseTime.setEndTimeStamp(endTimestamp);
+                logWriter.outputIntervalHistogram(responseTime);
+
+                try (PrintStream distribution = new PrintStream(
+                        Files.newOutputStream(stepDir.resolve(entry.getKey() + ".hgrm")))) {
+                    responseTime.outputPercentileDistribution(distribution, MICROS_PER_MILLI);
+                }
+            }
+        }
+    }
+
+    private void writeSummary(List<EndpointSummary> summaries) throws IOException {
+        Files.createDirectories(resultDir);
+        Path summaryFile = resultDir.resolve("summary.json");
+        objectMapper.copy()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(summaryFile.toFile(), summaries);
+        System.out.println("Load test results: " + summaryFile.toAbsolutePath());
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.restate.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * Rodzaj żądania w mieszance ruchu: nazwa endpointu w raporcie, waga i fabryka żądania
+ * (losowe parametry z generatora, więc przebieg z tym samym ziarnem jest powtarzalny).
+ */
+record LoadOperation(String endpoint, int weight, Function<SplittableRandom, HttpRequest.Builder> request) {
+
+    LoadOperation {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight of " + endpoint + " must not be negative");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.restate.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generator obciążenia w modelu otwartym: żądania napływają w zadanym tempie (odstępy wykładnicze,
+ * jak w procesie Poissona) niezależnie od tego, jak szybko odpowiada serwer.
+ * <p>
+ * Każde żądanie wysyła osobny wirtualny wątek blokującym {@link HttpClient#send}. Czas odpowiedzi
+ * liczony jest od zaplanowanej chwili wysłania, nie od faktycznej - gdy serwer albo sam generator
+ * nie nadąża, czas oczekiwania trafia do wyniku zamiast znikać z pomiaru (korekta coordinated omission).
+ * Czas od faktycznego wysłania zapisywany jest osobno jako czas obsługi. Żądania ponad
+ * {@code maxInFlight} równoczesnych są odrzucane i liczone jako błędy, żeby przeciążony serwer
+ * nie wyczerpał pamięci klienta.
+ */
+final class OpenModelLoadGenerator {
+
+    private final HttpClient httpClient;
+    private final List<LoadOperation> operations;
+    private final int[] cumulativeWeights;
+    private final int maxInFlight;
+    private final Duration requestTimeout;
+
+    OpenModelLoadGenerator(HttpClient httpClient, List<LoadOperation> operations, int maxInFlight,
+                           Duration requestTimeout) {
+        this.httpClient = httpClient;
+        this.operations = operations.stream().filter(operation -> operation.weight() > 0).toList();
+        if (this.operations.isEmpty()) {
+            throw new IllegalArgumentException("At least one operation must have a positive weight");
+        }
+        this.cumulativeWeights = new int[this.operations.size()];
+        int total = 0;
+        for (int i = 0; i < this.operations.size(); i++) {
+            total += this.operations.get(i).weight();
+            cumulativeWeights[i] = total;
+        }
+        this.maxInFlight = maxInFlight;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Wyniki kroku; {@code elapsed} obejmuje też dokończenie żądań wysłanych przed końcem kroku.
+     */
+    record Result(double ratePerSecond, Duration elapsed, Map<String, EndpointStats> endpoints) {
+
+        EndpointStats total() {
+            EndpointStats total = new EndpointStats();
+            endpoints.values().forEach(total::add);
+            return total;
+        }
+
+        double throughput(EndpointStats stats) {
+            return (stats.requests() - stats.errors()) / (elapsed.toNanos() / 1e9);
+        }
+    }
+
+    Result run(double ratePerSecond, Duration duration, long seed) {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        operations.forEach(operation -> stats.put(operation.endpoint(), new EndpointStats()));
+        SplittableRandom random = new SplittableRandom(seed);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        double meanIntervalNanos = 1e9 / ratePerSecond;
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long intendedStart = start;
+        // close() czeka na wszystkie wysłane żądania
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                intendedStart += (long) (-Math.log(1.0 - random.nextDouble()) * meanIntervalNanos);
+                if (intendedStart >= end) {
+                    break;
+                }
+                LoadOperation operation = pick(random);
+                HttpRequest request = operation.request().apply(random).timeout(requestTimeout).build();
+                EndpointStats endpointStats = stats.get(operation.endpoint());
+
+                waitUntil(intendedStart);
+                if (!inFlight.tryAcquire()) {
+                    endpointStats.recordDropped();
+                    continue;
+                }
+                long scheduledAt = intendedStart;
+                executor.execute(() -> {
+                    try {
+                        send(request, scheduledAt, endpointStats);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return new Result(ratePerSecond, Duration.ofNanos(System.nanoTime() - start), stats);
+    }
+
+    private LoadOperation pick(SplittableRandom random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations.get(i);
+            }
+        }
+        throw new IllegalStateException("Weight " + value + " outside of the mix");
+    }
+
+    private void send(HttpRequest request, long intendedStart, EndpointStats stats) {
+        long sendStart = System.nanoTime();
+        boolean success;
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            success = response.statusCode() < 400;
+        } catch (IOException e) {
+            // Także HttpTimeoutException po request-timeout
+            success = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long now = System.nanoTime();
+        stats.record(now - intendedStart, now - sendStart, success);
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.restate.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatementBudgetInterceptorTest {
+
+    private SqlStatementBudgetInterceptor interceptor;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new SqlStatementBudgetInterceptor(50, 10, false, true);
+        request = new MockHttpServletRequest("GET", "/api/mieszkania/1");
+        response = new MockHttpServletResponse();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlStatementCounter.close();
+    }
+
+    @Test
+    void preHandle_ShouldUseBudgetFromHandlerMethodAnnotation() throws Exception {
+        // When
+        interceptor.preHandle(request, response, handler("budgeted"));
+
+        // Then
+        assertEquals(1, SqlStatementCounter.current().getBudget());
+    }
+
+    @Test
+    void preHandle_WithoutMethodAnnotation_ShouldUseBudgetFromControllerClass() throws Exception {
+        // When
+        interceptor.preHandle(request, response, new HandlerMethod(new BudgetedController(), "plain"));
+
+        // Then
+        assertEquals(3, SqlStatementCounter.current().getBudget());
+    }
+
+    @Test
+    void preHandle_WithoutAnnotation_ShouldUseDefaultBudget() throws Exception {
+        // When
+        interceptor.preHandle(request, response, handler("plain"));
+
+        // Then
+        assertEquals(50, SqlStatementCounter.current().getBudget());
+    }
+
+    @Test
+    void preHandle_ForNonControllerHandler_ShouldNotOpenScope() {
+        // When
+        interceptor.preHandle(request, response, new Object());
+
+        // Then
+        assertNull(SqlStatementCounter.current());
+    }
+
+    @Test
+    void postHandle_ShouldSetStatementCountHeader() throws Exception {
+        // Given
+        interceptor.preHandle(request, response, handler("budgeted"));
+        new SqlStatementCounter().inspect("select * from mieszkania where id=?");
+
+        // When
+        interceptor.postHandle(request, response, handler("budgeted"), null);
+
+        // Then
+        assertEquals("1", response.getHeader(SqlStatementBudgetInterceptor.HEADER));
+    }
+
+    @Test
+    void postHandle_WhenHeaderDisabled_ShouldNotSetHeader() throws Exception {
+        // Given
+        SqlStatementBudgetInterceptor quietInterceptor = new SqlStatementBudgetInterceptor(50, 10, false, false);
+        quietInterceptor.preHandle(request, response, handler("plain"));
+
+        // When
+        quietInterceptor.postHandle(request, response, handler("plain"), null);
+
+        // Then
+        assertNull(response.getHeader(SqlStatementBudgetInterceptor.HEADER));
+    }
+
+    @Test
+    void afterCompletion_ShouldCloseScope() throws Exception {
+        // Given
+        interceptor.preHandle(request, response, handler("budgeted"));
+        SqlStatementCounter counter = new SqlStatementCounter();
+        counter.inspect("select 1");
+        counter.inspect("select 2");
+
+        // When
+        interceptor.afterCompletion(request, response, handler("budgeted"), null);
+
+        // Then
+        assertNull(SqlStatementCounter.current());
+    }
+
+    @Test
+    void afterConcurrentHandlingStarted_ShouldReleaseScopeFromThread() throws Exception {
+        // Given
+        interceptor.preHandle(request, response, handler("plain"));
+
+        // When
+        interceptor.afterConcurrentHandlingStarted(request, response, handler("plain"));
+
+        // Then
+        assertNull(SqlStatementCounter.current());
+    }
+
+    private static HandlerMethod handler(String method) throws NoSuchMethodException {
+        return new HandlerMethod(new TestController(), TestController.class.getMethod(method));
+    }
+
+    static class TestController {
+
+        @SqlStatementBudget(1)
+        public void budgeted() {
+        }
+
+        public void plain() {
+        }
+    }
+
+    @SqlStatementBudget(3)
+    static class BudgetedController {
+
+        public void plain() {
+        }
+    }
+}
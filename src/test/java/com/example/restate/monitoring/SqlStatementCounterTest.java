@@ -0,0 +1,121 @@
+package com.example.restate.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatementCounterTest {
+
+    private final SqlStatementCounter counter = new SqlStatementCounter();
+
+    @AfterEach
+    void tearDown() {
+        SqlStatementCounter.close();
+    }
+
+    @Test
+    void inspect_ShouldCountStatementsInOpenScope() {
+        // Given
+        SqlStatementCounter.Scope scope = SqlStatementCounter.open(5, false);
+
+        // When
+        String sql = counter.inspect("select * from users where id=?");
+        counter.inspect("select * from mieszkania where id=?");
+
+        // Then
+        assertEquals("select * from users where id=?", sql);
+        assertEquals(2, scope.getCount());
+        assertFalse(scope.isOverBudget());
+    }
+
+    @Test
+    void inspect_WithoutScope_ShouldNotCount() {
+        // When
+        counter.inspect("select 1");
+
+        // Then
+        assertNull(SqlStatementCounter.current());
+    }
+
+    @Test
+    void inspect_WhenOverBudgetAndNotEnforced_ShouldOnlyMarkScope() {
+        // Given
+        SqlStatementCounter.Scope scope = SqlStatementCounter.open(1, false);
+
+        // When
+        counter.inspect("select 1");
+        counter.inspect("select 2");
+
+        // Then
+        assertEquals(2, scope.getCount());
+        assertTrue(scope.isOverBudget());
+    }
+
+    @Test
+    void inspect_WhenOverBudgetAndEnforced_ShouldThrow() {
+        // Given
+        SqlStatementCounter.open(1, true);
+        counter.inspect("select 1");
+
+        // When & Then
+        SqlStatementBudgetExceededException ex = assertThrows(SqlStatementBudgetExceededException.class,
+                () -> counter.inspect("select 2"));
+        assertTrue(ex.getMessage().contains("select 2"));
+    }
+
+    @Test
+    void inspect_WithNegativeBudget_ShouldNeverBeOverBudget() {
+        // Given
+        SqlStatementCounter.Scope scope = SqlStatementCounter.open(-1, true);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            counter.inspect("select " + i);
+        }
+
+        // Then
+        assertEquals(100, scope.getCount());
+        assertFalse(scope.isOverBudget());
+    }
+
+    @Test
+    void mostRepeated_ShouldReturnStatementExecutedMostOften() {
+        // Given
+        SqlStatementCounter.Scope scope = SqlStatementCounter.open(-1, false);
+        counter.inspect("select * from mieszkania");
+        for (int i = 0; i < 3; i++) {
+            counter.inspect("select * from users where id=?");
+        }
+
+        // When
+        Map.Entry<String, Integer> repeated = scope.mostRepeated().orElseThrow();
+
+        // Then
+        assertEquals("select * from users where id=?", repeated.getKey());
+        assertEquals(3, repeated.getValue());
+    }
+
+    @Test
+    void bind_ShouldCountStatementsFromOtherThreadInSameScope() throws InterruptedException {
+        // Given
+        SqlStatementCounter.Scope scope = SqlStatementCounter.open(-1, false);
+
+        // When
+        Thread worker = Thread.ofVirtual().start(() -> {
+            SqlStatementCounter.bind(scope);
+            try {
+                counter.inspect("select count(*) from mieszkania");
+            } finally {
+                SqlStatementCounter.close();
+            }
+        });
+        worker.join();
+        counter.inspect("select * from mieszkania");
+
+        // Then
+        assertEquals(2, scope.getCount());
+    }
+}
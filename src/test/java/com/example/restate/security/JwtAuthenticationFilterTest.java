@@ -3,9 +3,13 @@ package com.example.restate.security;
 import com.example.restate.entity.Role;
 import com.example.restate.entity.User;
 import com.example.restate.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,18 +17,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.web.util.ContentCachingResponseWrapper;
 
 import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
-import static org.mockito.Mockito.lenient;
 
 @ExtendWith(MockitoExtension.class)
 class JwtAuthenticationFilterTest {
@@ -32,8 +39,13 @@ class JwtAuthenticationFilterTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    private static final Date ISSUED_AT = new Date(1_700_000_000_000L);
+
+    @Mock
+    private PrincipalCache principalCache;
+
     @Mock
-    private UserDetailsService userDetailsService;
+    private TokenRevocationList tokenRevocationList;
 
     @Mock
     private HttpServletRequest request;
@@ -45,11 +57,14 @@ class JwtAuthenticationFilterTest {
     private FilterChain filterChain;
 
     private JwtAuthenticationFilter jwtAuthenticationFilter;
+    private SimpleMeterRegistry meterRegistry;
     private User testUser;
 
     @BeforeEach
     void setUp() {
-        jwtAuthenticationFilter = new JwtAuthenticationFilter(jwtUtil, userDetailsService);
+        meterRegistry = new SimpleMeterRegistry();
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(jwtUtil, principalCache, tokenRevocationList,
+                meterRegistry);
         SecurityContextHolder.clearContext(); // Clear security context before each test
 
         testUser = new User();
@@ -65,30 +80,88 @@ class JwtAuthenticationFilterTest {
     void doFilterInternal_WithAuthEndpoints_ShouldSkipAuthentication() throws ServletException, IOException {
         // Given
         when(request.getRequestURI()).thenReturn("/api/auth/login");
-        lenient().when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
-        verify(filterChain).doFilter(any(HttpServletRequest.class), any(ContentCachingResponseWrapper.class));
-        verify(jwtUtil, never()).extractUsername(anyString());
+        verify(filterChain).doFilter(request, response);
+        verify(jwtUtil, never()).extractClaims(anyString());
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
 
+    @Test
+    void doFilterInternal_WithRegisterEndpointBehindContextPath_ShouldSkipAuthentication() throws ServletException, IOException {
+        // Given
+        when(request.getRequestURI()).thenReturn("/restate/api/auth/register");
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        verify(request, never()).getHeader("Authorization");
+    }
+
+    @Test
+    void doFilterInternal_WithPathOnlyContainingLoginPrefix_ShouldAuthenticate() throws ServletException, IOException {
+        // Given
+        when(request.getRequestURI()).thenReturn("/api/auth/login-history");
+        when(request.getHeader("Authorization")).thenReturn("Bearer error.token.here");
+        when(jwtUtil.extractClaims("error.token.here")).thenThrow(new IllegalArgumentException("Invalid JWT token"));
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(jwtUtil).extractClaims("error.token.here");
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_WithLargeStreamedResponse_ShouldNotBufferBody() throws ServletException, IOException {
+        // Given - 100 MB zapisywane porcjami po 64 KB
+        long total = 100L * 1024 * 1024;
+        byte[] chunk = new byte[64 * 1024];
+        CountingOutputStream out = new CountingOutputStream();
+        when(request.getRequestURI()).thenReturn("/api/mieszkania/export");
+        when(request.getHeader("Authorization")).thenReturn(null);
+        when(response.getOutputStream()).thenReturn(out);
+
+        long[] bytesVisibleAfterFirstChunk = new long[1];
+        doAnswer(invocation -> {
+            ServletOutputStream body = invocation.<HttpServletResponse>getArgument(1).getOutputStream();
+            for (long written = 0; written < total; written += chunk.length) {
+                body.write(chunk);
+                if (written == 0) {
+                    bytesVisibleAfterFirstChunk[0] = out.count;
+                }
+            }
+            return null;
+        }).when(filterChain).doFilter(any(), any());
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then - łańcuch dostaje oryginalną odpowiedź (bez opakowania buforującego), a pierwsza porcja
+        // dociera do klienta przed końcem odpowiedzi
+        verify(filterChain).doFilter(same(request), same(response));
+        assertEquals(chunk.length, bytesVisibleAfterFirstChunk[0]);
+        assertEquals(total, out.count);
+    }
+
     @Test
     void doFilterInternal_WithNoAuthHeader_ShouldContinueWithoutAuthentication() throws ServletException, IOException {
         // Given
         when(request.getRequestURI()).thenReturn("/api/mieszkania");
         when(request.getHeader("Authorization")).thenReturn(null);
-        lenient().when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
-        verify(filterChain).doFilter(any(HttpServletRequest.class), any(ContentCachingResponseWrapper.class));
-        verify(jwtUtil, never()).extractUsername(anyString());
+        verify(filterChain).doFilter(request, response);
+        verify(jwtUtil, never()).extractClaims(anyString());
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
 
@@ -97,58 +170,128 @@ class JwtAuthenticationFilterTest {
         // Given
         when(request.getRequestURI()).thenReturn("/api/mieszkania");
         when(request.getHeader("Authorization")).thenReturn("InvalidFormat");
-        lenient().when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
-        verify(filterChain).doFilter(any(HttpServletRequest.class), any(ContentCachingResponseWrapper.class));
-        verify(jwtUtil, never()).extractUsername(anyString());
+        verify(filterChain).doFilter(request, response);
+        verify(jwtUtil, never()).extractClaims(anyString());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void doFilterInternal_WithRolesInToken_ShouldAuthenticateFromClaimsWithoutUserLookup() throws ServletException, IOException {
+        // Given
+        when(request.getRequestURI()).thenReturn("/api/mieszkania");
+        when(request.getHeader("Authorization")).thenReturn("Bearer valid.token.here");
+
+        Claims claims = claims("testuser");
+        when(jwtUtil.extractClaims("valid.token.here")).thenReturn(claims);
+        when(jwtUtil.extractRoles(claims)).thenReturn(List.of("ROLE_ADMIN"));
+        when(principalCache.requiresCheck("testuser", ISSUED_AT.toInstant())).thenReturn(false);
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        verify(principalCache, never()).getAuthorities(anyString());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("testuser", authentication.getName());
+        assertEquals(List.of("ROLE_ADMIN"), authorities(authentication));
+        assertEquals(1, meterRegistry.get("restate.security.jwt").tag("outcome", "authenticated").timer().count());
+    }
+
+    @Test
+    void doFilterInternal_WithRevokedToken_ShouldNotAuthenticate() throws ServletException, IOException {
+        // Given
+        when(request.getRequestURI()).thenReturn("/api/mieszkania");
+        when(request.getHeader("Authorization")).thenReturn("Bearer revoked.token.here");
+
+        Claims claims = Jwts.claims().id("token-id").subject("testuser").issuedAt(ISSUED_AT).build();
+        when(jwtUtil.extractClaims("revoked.token.here")).thenReturn(claims);
+        when(tokenRevocationList.isRevoked("token-id", "testuser", ISSUED_AT.toInstant())).thenReturn(true);
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        verify(principalCache, never()).getAuthorities(anyString());
         assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, meterRegistry.get("restate.security.jwt").tag("outcome", "revoked").timer().count());
     }
 
     @Test
-    void doFilterInternal_WithValidToken_ShouldAuthenticateUser() throws ServletException, IOException {
+    void doFilterInternal_WithRefreshEndpoint_ShouldSkipAuthentication() throws ServletException, IOException {
+        // Given
+        when(request.getRequestURI()).thenReturn("/api/auth/refresh");
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        verify(jwtUtil, never()).extractClaims(anyString());
+    }
+
+    @Test
+    void doFilterInternal_WithTokenWithoutRoles_ShouldUseCachedPrincipal() throws ServletException, IOException {
         // Given
         when(request.getRequestURI()).thenReturn("/api/mieszkania");
         when(request.getHeader("Authorization")).thenReturn("Bearer valid.token.here");
-        lenient().when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
 
-        when(jwtUtil.extractUsername("valid.token.here")).thenReturn("testuser");
-        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(testUser);
-        when(jwtUtil.validateToken("valid.token.here", "testuser")).thenReturn(true);
+        Claims claims = claims("testuser");
+        when(jwtUtil.extractClaims("valid.token.here")).thenReturn(claims);
+        when(jwtUtil.extractRoles(claims)).thenReturn(null);
+        doReturn(Optional.of(testUser.getAuthorities())).when(principalCache).getAuthorities("testuser");
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
-        verify(filterChain).doFilter(any(HttpServletRequest.class), any(ContentCachingResponseWrapper.class));
-        verify(jwtUtil).extractUsername("valid.token.here");
-        verify(userDetailsService).loadUserByUsername("testuser");
-        verify(jwtUtil).validateToken("valid.token.here", "testuser");
-        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(principalCache).getAuthorities("testuser");
+        assertEquals(List.of("ROLE_USER"), authorities(SecurityContextHolder.getContext().getAuthentication()));
     }
 
     @Test
-    void doFilterInternal_WithInvalidToken_ShouldNotAuthenticateUser() throws ServletException, IOException {
+    void doFilterInternal_WhenUserChangedAfterTokenWasIssued_ShouldUseCurrentAuthorities() throws ServletException, IOException {
+        // Given - token z rolą ADMIN, rola odebrana po jego wydaniu
+        when(request.getRequestURI()).thenReturn("/api/mieszkania");
+        when(request.getHeader("Authorization")).thenReturn("Bearer valid.token.here");
+
+        Claims claims = claims("testuser");
+        when(jwtUtil.extractClaims("valid.token.here")).thenReturn(claims);
+        when(jwtUtil.extractRoles(claims)).thenReturn(List.of("ROLE_ADMIN"));
+        when(principalCache.requiresCheck("testuser", ISSUED_AT.toInstant())).thenReturn(true);
+        doReturn(Optional.of(testUser.getAuthorities())).when(principalCache).getAuthorities("testuser");
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        assertEquals(List.of("ROLE_USER"), authorities(SecurityContextHolder.getContext().getAuthentication()));
+    }
+
+    @Test
+    void doFilterInternal_WhenUserIsDisabledOrDeleted_ShouldNotAuthenticateUser() throws ServletException, IOException {
         // Given
         when(request.getRequestURI()).thenReturn("/api/mieszkania");
-        when(request.getHeader("Authorization")).thenReturn("Bearer invalid.token.here");
-        lenient().when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
+        when(request.getHeader("Authorization")).thenReturn("Bearer valid.token.here");
 
-        when(jwtUtil.extractUsername("invalid.token.here")).thenReturn("testuser");
-        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(testUser);
-        when(jwtUtil.validateToken("invalid.token.here", "testuser")).thenReturn(false);
+        Claims claims = claims("testuser");
+        when(jwtUtil.extractClaims("valid.token.here")).thenReturn(claims);
+        when(jwtUtil.extractRoles(claims)).thenReturn(List.of("ROLE_USER"));
+        when(principalCache.requiresCheck("testuser", ISSUED_AT.toInstant())).thenReturn(true);
+        when(principalCache.getAuthorities("testuser")).thenReturn(Optional.empty());
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
-        verify(filterChain).doFilter(any(HttpServletRequest.class), any(ContentCachingResponseWrapper.class));
-        verify(jwtUtil).extractUsername("invalid.token.here");
-        verify(userDetailsService).loadUserByUsername("testuser");
-        verify(jwtUtil).validateToken("invalid.token.here", "testuser");
+        verify(filterChain).doFilter(request, response);
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
 
@@ -157,16 +300,47 @@ class JwtAuthenticationFilterTest {
         // Given
         when(request.getRequestURI()).thenReturn("/api/mieszkania");
         when(request.getHeader("Authorization")).thenReturn("Bearer error.token.here");
-        lenient().when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
 
-        when(jwtUtil.extractUsername("error.token.here")).thenThrow(new RuntimeException("Token error"));
+        when(jwtUtil.extractClaims("error.token.here")).thenThrow(new RuntimeException("Token error"));
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
-        verify(filterChain).doFilter(any(HttpServletRequest.class), any(ContentCachingResponseWrapper.class));
-        verify(jwtUtil).extractUsername("error.token.here");
+        verify(filterChain).doFilter(request, response);
+        verify(jwtUtil).extractClaims("error.token.here");
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
+
+    private static Claims claims(String username) {
+        return Jwts.claims().subject(username).issuedAt(ISSUED_AT).build();
+    }
+
+    private static List<String> authorities(Authentication authentication) {
+        return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
 }
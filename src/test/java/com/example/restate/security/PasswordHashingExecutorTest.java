@@ -0,0 +1,114 @@
+package com.example.restate.security;
+
+import com.example.restate.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new PasswordHashingExecutor(1, 2, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void submit_ShouldRunTaskOnHashingThread() {
+        // When
+        String threadName = executor.submit(() -> Thread.currentThread().getName()).join();
+
+        // Then
+        assertTrue(threadName.startsWith("password-hashing-"));
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldRejectWithRetryAfter() throws InterruptedException {
+        // Given - jeden wątek zajęty, dwa zadania w kolejce
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = executor.submit(() -> {
+            started.countDown();
+            return await(release);
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        executor.submit(() -> true);
+        executor.submit(() -> true);
+
+        // When
+        ServiceOverloadedException ex = assertThrows(ServiceOverloadedException.class,
+                () -> executor.submit(() -> true));
+
+        // Then
+        assertEquals(3, ex.getRetryAfterSeconds());
+        assertEquals(2, executor.getQueueDepth());
+        release.countDown();
+        assertTrue(running.join());
+    }
+
+    @Test
+    void computeAll_ShouldReturnResultsInOrderWithoutFillingTheQueue() {
+        // Given
+        List<Integer> items = IntStream.range(0, 50).boxed().toList();
+        AtomicInteger maxQueueDepth = new AtomicInteger();
+
+        // When
+        List<Integer> results = executor.computeAll(items, item -> {
+            maxQueueDepth.accumulateAndGet(executor.getQueueDepth(), Math::max);
+            return item * 2;
+        });
+
+        // Then - najwyżej jedno zadanie naraz w puli jednowątkowej, kolejka zostaje dla logowań
+        assertEquals(items.stream().map(item -> item * 2).toList(), results);
+        assertEquals(0, maxQueueDepth.get());
+    }
+
+    @Test
+    void computeAll_WhenQueueIsFull_ShouldRunOnCallerThread() throws InterruptedException {
+        // Given - wątek puli zajęty, kolejka pełna
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> {
+            started.countDown();
+            return await(release);
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        executor.submit(() -> true);
+        executor.submit(() -> true);
+        String caller = Thread.currentThread().getName();
+
+        try {
+            // When
+            List<String> threads = executor.computeAll(List.of(1), item -> Thread.currentThread().getName());
+
+            // Then
+            assertEquals(List.of(caller), threads);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.restate.security;
+
+import com.example.restate.entity.Role;
+import com.example.restate.entity.User;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import com.example.restate.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrincipalCacheTest {
+
+    private static final Instant STARTED_AT = Instant.parse("2025-03-01T10:00:00Z");
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private MutableClock clock;
+    private PrincipalCache principalCache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(STARTED_AT);
+        principalCache = new PrincipalCache(userDetailsService, 100, Duration.ofMinutes(5), Duration.ofHours(10), clock);
+
+        user = new User();
+        user.setUsername("testuser");
+        user.setRole(Role.USER);
+        user.setEnabled(true);
+    }
+
+    @Test
+    void springContext_ShouldCreatePrincipalCacheThroughAutowiredConstructor() {
+        // Given - kontekst wybiera konstruktor sam, jak przy starcie aplikacji
+        JwtUtil jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.getExpirationMs()).thenReturn(900_000L);
+
+        // When & Then
+        new ApplicationContextRunner()
+                .withBean(UserDetailsService.class, () -> userDetailsService)
+                .withBean(JwtUtil.class, () -> jwtUtil)
+                .withBean(PrincipalCache.class)
+                .run(context -> {
+                    assertNull(context.getStartupFailure());
+                    assertNotNull(context.getBean(PrincipalCache.class));
+                });
+    }
+
+    @Test
+    void requiresCheck_ForTokenIssuedBeforeStartup_ShouldReturnTrue() {
+        // When & Then - znaczniki zmian sprzed startu nie są znane
+        assertTrue(principalCache.requiresCheck("testuser", STARTED_AT.minusSeconds(60)));
+        assertTrue(principalCache.requiresCheck("testuser", null));
+        assertFalse(principalCache.requiresCheck("testuser", STARTED_AT.plusSeconds(1)));
+    }
+
+    @Test
+    void requiresCheck_WhenUserChangedAfterTokenWasIssued_ShouldReturnTrue() {
+        // Given
+        Instant issuedAt = STARTED_AT.plusSeconds(10);
+        clock.instant = STARTED_AT.plusSeconds(20);
+
+        // When
+        principalCache.onInvalidation(CacheInvalidationMessage.forUser(1L, "testuser"));
+
+        // Then
+        assertTrue(principalCache.requiresCheck("testuser", issuedAt));
+        assertTrue(principalCache.requiresCheck("testuser", STARTED_AT.plusSeconds(20)));
+        assertFalse(principalCache.requiresCheck("testuser", STARTED_AT.plusSeconds(21)));
+        assertFalse(principalCache.requiresCheck("otheruser", issuedAt));
+    }
+
+    @Test
+    void getAuthorities_ShouldLoadUserOnceUntilInvalidated() {
+        // Given
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(user);
+
+        // When
+        List<String> first = authorities("testuser");
+        List<String> second = authorities("testuser");
+        user.setRole(Role.ADMIN);
+        principalCache.onInvalidation(CacheInvalidationMessage.forUser(1L, "testuser"));
+        List<String> afterChange = authorities("testuser");
+
+        // Then
+        assertEquals(List.of("ROLE_USER"), first);
+        assertEquals(first, second);
+        assertEquals(List.of("ROLE_ADMIN"), afterChange);
+        verify(userDetailsService, times(2)).loadUserByUsername("testuser");
+    }
+
+    @Test
+    void getAuthorities_WhenUserIsDisabledOrMissing_ShouldReturnEmpty() {
+        // Given
+        user.setEnabled(false);
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(user);
+        when(userDetailsService.loadUserByUsername("ghost")).thenThrow(new UsernameNotFoundException("ghost"));
+
+        // When & Then
+        assertTrue(principalCache.getAuthorities("testuser").isEmpty());
+        assertTrue(principalCache.getAuthorities("ghost").isEmpty());
+    }
+
+    @Test
+    void onInvalidation_ShouldIgnoreMieszkanieMessages() {
+        // Given
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(user);
+        principalCache.getAuthorities("testuser");
+
+        // When
+        principalCache.onInvalidation(CacheInvalidationMessage.builder()
+                .entity(CacheInvalidationMessage.MIESZKANIE)
+                .build());
+        principalCache.getAuthorities("testuser");
+
+        // Then
+        verify(userDetailsService, times(1)).loadUserByUsername("testuser");
+    }
+
+    @Test
+    void onFullFlush_ShouldRequireCheckOfAllEarlierTokens() {
+        // Given
+        Instant issuedAt = STARTED_AT.plusSeconds(10);
+        clock.instant = STARTED_AT.plusSeconds(20);
+
+        // When
+        principalCache.onFullFlush();
+
+        // Then
+        assertTrue(principalCache.requiresCheck("anyone", issuedAt));
+    }
+
+    private List<String> authorities(String username) {
+        return principalCache.getAuthorities(username).orElseThrow().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
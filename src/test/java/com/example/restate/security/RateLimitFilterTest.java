@@ -0,0 +1,224 @@
+package com.example.restate.security;
+
+import com.example.restate.config.RateLimitProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.apache.catalina.filters.RemoteIpFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        RateLimitProperties.Policy login = new RateLimitProperties.Policy();
+        login.setPath("/api/auth/login");
+        login.setCapacity(2);
+        login.setRefillPerSecond(0.1);
+        properties.getPolicies().put("login", login);
+        rateLimitFilter = new RateLimitFilter(properties, nanoTime::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_WithinLimit_ShouldPassThroughWithRateLimitHeaders() throws Exception {
+        // Given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+
+        // When
+        rateLimitFilter.doFilter(loginRequest("10.0.0.1"), response, filterChain);
+
+        // Then
+        assertNotNull(filterChain.getRequest());
+        assertEquals(200, response.getStatus());
+        assertEquals("2", response.getHeader(RateLimitFilter.LIMIT_HEADER));
+        assertEquals("1", response.getHeader(RateLimitFilter.REMAINING_HEADER));
+        assertEquals("10", response.getHeader(RateLimitFilter.RESET_HEADER));
+        assertEquals("2;w=20", response.getHeader(RateLimitFilter.POLICY_HEADER));
+    }
+
+    @Test
+    void doFilter_WhenLimitExceeded_ShouldReturnTooManyRequestsWithRetryAfter() throws Exception {
+        // Given
+        rateLimitFilter.doFilter(loginRequest("10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+        rateLimitFilter.doFilter(loginRequest("10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+
+        // When
+        rateLimitFilter.doFilter(loginRequest("10.0.0.1"), response, filterChain);
+
+        // Then
+        assertNull(filterChain.getRequest());
+        assertEquals(429, response.getStatus());
+        assertEquals("10", response.getHeader("Retry-After"));
+        assertEquals("0", response.getHeader(RateLimitFilter.REMAINING_HEADER));
+        assertTrue(response.getContentAsString().contains("Too Many Requests"));
+    }
+
+    @Test
+    void doFilter_AfterRefill_ShouldAllowAgain() throws Exception {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            rateLimitFilter.doFilter(loginRequest("10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+        }
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        rateLimitFilter.doFilter(loginRequest("10.0.0.1"), response, new MockFilterChain());
+
+        // Then
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void doFilter_ShouldKeepSeparateLimitsPerIpAndPerUser() throws Exception {
+        // Given - one address exhausts its limit
+        for (int i = 0; i < 3; i++) {
+            rateLimitFilter.doFilter(loginRequest("10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+        }
+        MockHttpServletResponse otherIp = new MockHttpServletResponse();
+        MockHttpServletResponse authenticatedUser = new MockHttpServletResponse();
+
+        // When
+        rateLimitFilter.doFilter(loginRequest("10.0.0.2"), otherIp, new MockFilterChain());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("testuser", null, List.of()));
+        rateLimitFilter.doFilter(loginRequest("10.0.0.1"), authenticatedUser, new MockFilterChain());
+
+        // Then
+        assertEquals(200, otherIp.getStatus());
+        assertEquals(200, authenticatedUser.getStatus());
+    }
+
+    @Test
+    void doFilter_BehindTrustedProxy_ShouldLimitEachForwardedClientSeparately() throws Exception {
+        // Given - all logins arrive from the load balancer; one client exhausts its limit
+        RemoteIpFilter remoteIp = remoteIpFilterFromApplicationProperties();
+        for (int i = 0; i < 3; i++) {
+            remoteIp.doFilter(proxiedLoginRequest("10.0.0.5", "203.0.113.7"), new MockHttpServletResponse(),
+                    this::rateLimit);
+        }
+        MockHttpServletResponse otherClient = new MockHttpServletResponse();
+        MockHttpServletResponse sameClient = new MockHttpServletResponse();
+
+        // When
+        remoteIp.doFilter(proxiedLoginRequest("10.0.0.5", "198.51.100.9"), otherClient, this::rateLimit);
+        remoteIp.doFilter(proxiedLoginRequest("10.0.0.5", "203.0.113.7"), sameClient, this::rateLimit);
+
+        // Then
+        assertEquals(200, otherClient.getStatus());
+        assertEquals(429, sameClient.getStatus());
+    }
+
+    @Test
+    void doFilter_WithForwardedHeaderFromUntrustedAddress_ShouldLimitByConnectionAddress() throws Exception {
+        // Given - a client connecting directly cannot pick a fresh key by spoofing X-Forwarded-For
+        RemoteIpFilter remoteIp = remoteIpFilterFromApplicationProperties();
+        for (int i = 0; i < 2; i++) {
+            remoteIp.doFilter(proxiedLoginRequest("203.0.113.50", "198.51.100." + i), new MockHttpServletResponse(),
+                    this::rateLimit);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        remoteIp.doFilter(proxiedLoginRequest("203.0.113.50", "198.51.100.99"), response, this::rateLimit);
+
+        // Then
+        assertEquals(429, response.getStatus());
+    }
+
+    @Test
+    void doFilter_ForUnlimitedEndpoint_ShouldSkipLimiting() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/auth/login");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain filterChain = new MockFilterChain();
+
+        // When
+        rateLimitFilter.doFilter(request, response, filterChain);
+
+        // Then
+        assertNull(response.getHeader(RateLimitFilter.LIMIT_HEADER));
+    }
+
+    @Test
+    void doFilter_WithContextPath_ShouldMatchPolicyPath() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/app/api/auth/login");
+        request.setContextPath("/app");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+
+        // Then
+        assertEquals("2", response.getHeader(RateLimitFilter.LIMIT_HEADER));
+    }
+
+    @Test
+    void constructor_WithIncompletePolicy_ShouldThrowIllegalArgumentException() {
+        // Given
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getPolicies().put("broken", new RateLimitProperties.Policy());
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitFilter(properties));
+    }
+
+    private void rateLimit(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+    }
+
+    /**
+     * Filtr Tomcata z tą samą logiką co RemoteIpValve, który Spring Boot włącza przy
+     * {@code server.forward-headers-strategy=native}, skonfigurowany jak w application.properties.
+     */
+    private static RemoteIpFilter remoteIpFilterFromApplicationProperties() throws Exception {
+        Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+        assertEquals("native", properties.getProperty("server.forward-headers-strategy"));
+        RemoteIpFilter filter = new RemoteIpFilter();
+        filter.setInternalProxies(properties.getProperty("server.tomcat.remoteip.internal-proxies"));
+        return filter;
+    }
+
+    private static MockHttpServletRequest proxiedLoginRequest(String proxyAddr, String forwardedFor) {
+        MockHttpServletRequest request = loginRequest(proxyAddr);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        return request;
+    }
+
+    private static MockHttpServletRequest loginRequest(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+}
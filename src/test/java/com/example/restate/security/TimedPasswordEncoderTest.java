@@ -0,0 +1,38 @@
+package com.example.restate.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TimedPasswordEncoder passwordEncoder =
+            new TimedPasswordEncoder(new BCryptPasswordEncoder(4), meterRegistry);
+
+    @Test
+    void encodeAndMatches_ShouldDelegateAndRecordTimers() {
+        // When
+        String hash = passwordEncoder.encode("password");
+        boolean matches = passwordEncoder.matches("password", hash);
+        boolean wrong = passwordEncoder.matches("other", hash);
+
+        // Then
+        assertTrue(matches);
+        assertFalse(wrong);
+        assertEquals(1, meterRegistry.get("restate.security.password").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("restate.security.password").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void upgradeEncoding_ShouldDelegate() {
+        // Given
+        String weakHash = new BCryptPasswordEncoder(4).encode("password");
+        TimedPasswordEncoder strongEncoder = new TimedPasswordEncoder(new BCryptPasswordEncoder(10), meterRegistry);
+
+        // When & Then
+        assertTrue(strongEncoder.upgradeEncoding(weakHash));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.restate.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryConsume_ShouldAllowBurstUpToCapacity() {
+        // Given
+        TokenBucket bucket = new TokenBucket(0);
+
+        // When
+        List<TokenBucket.Decision> decisions = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            decisions.add(bucket.tryConsume(0, SECOND, 3));
+        }
+
+        // Then
+        assertTrue(decisions.get(0).allowed());
+        assertEquals(2, decisions.get(0).remaining());
+        assertEquals(0, decisions.get(2).remaining());
+        assertEquals(3 * SECOND, decisions.get(2).resetNanos());
+        assertFalse(decisions.get(3).allowed());
+        assertEquals(SECOND, decisions.get(3).retryAfterNanos());
+    }
+
+    @Test
+    void tryConsume_ShouldRefillLazilyWithElapsedTime() {
+        // Given
+        TokenBucket bucket = new TokenBucket(0);
+        for (int i = 0; i < 3; i++) {
+            bucket.tryConsume(0, SECOND, 3);
+        }
+
+        // When
+        TokenBucket.Decision halfSecond = bucket.tryConsume(SECOND / 2, SECOND, 3);
+        TokenBucket.Decision afterOneToken = bucket.tryConsume(SECOND, SECOND, 3);
+        TokenBucket.Decision afterFullRefill = bucket.tryConsume(10 * SECOND, SECOND, 3);
+
+        // Then
+        assertFalse(halfSecond.allowed());
+        assertEquals(SECOND / 2, halfSecond.retryAfterNanos());
+        assertTrue(afterOneToken.allowed());
+        assertEquals(0, afterOneToken.remaining());
+        assertTrue(afterFullRefill.allowed());
+        assertEquals(2, afterFullRefill.remaining());
+    }
+
+    @Test
+    void tryConsume_WhenCalledConcurrently_ShouldNeverExceedCapacity() throws Exception {
+        // Given
+        TokenBucket bucket = new TokenBucket(0);
+        int threads = 8;
+        int attemptsPerThread = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            // When
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int allowed = 0;
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        if (bucket.tryConsume(0, SECOND, 100).allowed()) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            start.countDown();
+            int totalAllowed = 0;
+            for (Future<Integer> result : results) {
+                totalAllowed += result.get(10, TimeUnit.SECONDS);
+            }
+
+            // Then
+            assertEquals(100, totalAllowed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.restate.security;
+
+import com.example.restate.entity.RevokedToken;
+import com.example.restate.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T12:00:00Z");
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private MutableClock clock;
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        revocationList = new TokenRevocationList(revokedTokenRepository, 100, clock);
+    }
+
+    @Test
+    void load_ShouldRestoreRevocationsFromTable() {
+        // Given
+        when(revokedTokenRepository.findByExpiresAtAfter(utc(NOW)))
+                .thenReturn(List.of(revoked("token-1", NOW.minusSeconds(60), NOW.plusSeconds(600))));
+
+        // When
+        revocationList.load();
+
+        // Then
+        assertTrue(revocationList.isRevoked("token-1", "testuser", NOW.minusSeconds(120)));
+        assertFalse(revocationList.isRevoked("token-2", "testuser", NOW.minusSeconds(120)));
+    }
+
+    @Test
+    void isRevoked_ForUserEntry_ShouldRejectOnlyTokensIssuedUpToRevocation() {
+        // Given
+        revocationList.add(revoked(TokenRevocationList.USER_KEY + "testuser", NOW, NOW.plusSeconds(900)));
+
+        // When & Then
+        assertTrue(revocationList.isRevoked("token-1", "testuser", NOW.minusSeconds(60)));
+        assertTrue(revocationList.isRevoked("token-2", "testuser", NOW));
+        assertTrue(revocationList.isRevoked(null, "testuser", null));
+        assertFalse(revocationList.isRevoked("token-3", "testuser", NOW.plusSeconds(1)));
+        assertFalse(revocationList.isRevoked("token-1", "otheruser", NOW.minusSeconds(60)));
+    }
+
+    @Test
+    void poll_ShouldPickUpRevocationsFromOtherInstances() {
+        // Given
+        when(revokedTokenRepository.findByExpiresAtAfter(any())).thenReturn(List.of());
+        revocationList.load();
+        clock.advance(Duration.ofSeconds(2));
+        when(revokedTokenRepository.findByRevokedAtAfter(utc(NOW.minus(Duration.ofMinutes(1)))))
+                .thenReturn(List.of(revoked("remote-token", NOW.plusSeconds(1), NOW.plusSeconds(900))));
+
+        // When
+        revocationList.poll();
+
+        // Then
+        assertTrue(revocationList.isRevoked("remote-token", "testuser", NOW));
+    }
+
+    @Test
+    void poll_ShouldDropExpiredEntries() {
+        // Given
+        when(revokedTokenRepository.findByExpiresAtAfter(any())).thenReturn(List.of());
+        when(revokedTokenRepository.findByRevokedAtAfter(any())).thenReturn(List.of());
+        revocationList.load();
+        revocationList.add(revoked("short-lived", NOW, NOW.plusSeconds(60)));
+        revocationList.add(revoked("long-lived", NOW, NOW.plusSeconds(600)));
+        clock.advance(Duration.ofSeconds(120));
+
+        // When
+        revocationList.poll();
+
+        // Then
+        assertEquals(1, revocationList.size());
+        assertFalse(revocationList.isRevoked("short-lived", "testuser", NOW));
+        assertTrue(revocationList.isRevoked("long-lived", "testuser", NOW));
+    }
+
+    @Test
+    void add_BeyondExpectedEntries_ShouldKeepAllRevocations() {
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            revocationList.add(revoked("token-" + i, NOW, NOW.plusSeconds(600)));
+        }
+
+        // Then
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(revocationList.isRevoked("token-" + i, "testuser", NOW));
+        }
+        assertEquals(1_000, revocationList.size());
+    }
+
+    private static RevokedToken revoked(String key, Instant revokedAt, Instant expiresAt) {
+        return new RevokedToken(null, key, utc(revokedAt), utc(expiresAt));
+    }
+
+    private static LocalDateTime utc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.restate.service.alert;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.service.search.MieszkanieCriteriaMatcher;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SavedSearchIndexTest {
+
+    private static final String[] CITIES = {"Warsaw", "Krakow", "Gdansk", null};
+    private static final String[] DEVELOPERS = {"Dom Development", "Atal", "Robyg", null};
+    private static final String[] STATUSES = {"AVAILABLE", "sold", "RESERVED", "invalid", null};
+
+    @Test
+    void match_ShouldFindSearchAnchoredOnEqualityField() {
+        // Given
+        SavedSearchIndex index = SavedSearchIndex.build(List.of(
+                entry(1L, MieszkanieSearchCriteria.builder().city("Warsaw").maxPrice(BigDecimal.valueOf(600000)).build()),
+                entry(2L, MieszkanieSearchCriteria.builder().city("Krakow").build())));
+
+        // When
+        List<SavedSearchIndex.Entry> matches = index.match(listing("Warsaw", "Atal", 500000, 50));
+
+        // Then
+        assertEquals(List.of(1L), ids(matches));
+    }
+
+    @Test
+    void match_ShouldUseIntervalTreesForRangeOnlySearches() {
+        // Given
+        SavedSearchIndex index = SavedSearchIndex.build(List.of(
+                entry(1L, MieszkanieSearchCriteria.builder().minPrice(BigDecimal.valueOf(400000)).build()),
+                entry(2L, MieszkanieSearchCriteria.builder().maxPrice(BigDecimal.valueOf(450000)).build()),
+                entry(3L, MieszkanieSearchCriteria.builder().minArea(BigDecimal.valueOf(40))
+                        .maxArea(BigDecimal.valueOf(60)).build()),
+                entry(4L, MieszkanieSearchCriteria.builder().minArea(BigDecimal.valueOf(70)).build())));
+
+        // When
+        List<SavedSearchIndex.Entry> matches = index.match(listing("Warsaw", "Atal", 500000, 50));
+
+        // Then
+        assertEquals(Set.of(1L, 3L), Set.copyOf(ids(matches)));
+    }
+
+    @Test
+    void match_ShouldIncludeBoundariesOfRanges() {
+        // Given
+        SavedSearchIndex index = SavedSearchIndex.build(List.of(
+                entry(1L, MieszkanieSearchCriteria.builder().minPrice(BigDecimal.valueOf(500000))
+                        .maxPrice(BigDecimal.valueOf(500000)).build())));
+
+        // When
+        List<SavedSearchIndex.Entry> matches = index.match(listing("Warsaw", "Atal", 500000, 50));
+
+        // Then
+        assertEquals(List.of(1L), ids(matches));
+    }
+
+    @Test
+    void match_WithSearchWithoutCriteria_ShouldMatchEveryListing() {
+        // Given
+        SavedSearchIndex index = SavedSearchIndex.build(List.of(entry(1L, new MieszkanieSearchCriteria())));
+
+        // When
+        List<SavedSearchIndex.Entry> matches = index.match(listing(null, null, null, null));
+
+        // Then
+        assertEquals(List.of(1L), ids(matches));
+    }
+
+    @Test
+    void match_OnEmptyIndex_ShouldReturnNoMatches() {
+        // When
+        List<SavedSearchIndex.Entry> matches = SavedSearchIndex.empty().match(listing("Warsaw", "Atal", 500000, 50));
+
+        // Then
+        assertTrue(matches.isEmpty());
+    }
+
+    @Test
+    void anchorField_ShouldIgnoreInvalidStatus() {
+        // Given
+        MieszkanieSearchCriteria criteria = MieszkanieSearchCriteria.builder().status("invalid").build();
+
+        // When & Then
+        assertNull(SavedSearchIndex.anchorField(criteria));
+    }
+
+    @Test
+    void match_ShouldReturnSameResultsAsCheckingEverySearch() {
+        // Given
+        Random random = new Random(42);
+        List<SavedSearchIndex.Entry> entries = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            entries.add(entry(id, randomCriteria(random)));
+        }
+        SavedSearchIndex index = SavedSearchIndex.build(entries);
+
+        for (int i = 0; i < 500; i++) {
+            MieszkanieDTO mieszkanie = randomListing(random);
+
+            // When
+            Set<Long> indexed = Set.copyOf(ids(index.match(mieszkanie)));
+
+            // Then
+            Set<Long> expected = entries.stream()
+                    .filter(entry -> MieszkanieCriteriaMatcher.matches(entry.criteria(), mieszkanie))
+                    .map(SavedSearchIndex.Entry::savedSearchId)
+                    .collect(Collectors.toSet());
+            assertEquals(expected, indexed);
+            assertEquals(expected.size(), index.match(mieszkanie).size());
+        }
+    }
+
+    private static MieszkanieSearchCriteria randomCriteria(Random random) {
+        MieszkanieSearchCriteria criteria = new MieszkanieSearchCriteria();
+        criteria.setCity(pick(random, CITIES));
+        criteria.setDeveloper(random.nextInt(3) == 0 ? pick(random, DEVELOPERS) : null);
+        criteria.setStatus(random.nextInt(3) == 0 ? pick(random, STATUSES) : null);
+        criteria.setFloor(random.nextInt(5) == 0 ? random.nextInt(5) : null);
+        if (random.nextBoolean()) {
+            criteria.setMinPrice(BigDecimal.valueOf(random.nextInt(1000) * 1000L));
+        }
+        if (random.nextBoolean()) {
+            criteria.setMaxPrice(BigDecimal.valueOf(random.nextInt(1000) * 1000L));
+        }
+        if (random.nextBoolean()) {
+            criteria.setMinArea(BigDecimal.valueOf(random.nextInt(100)));
+        }
+        if (random.nextBoolean()) {
+            criteria.setMaxArea(BigDecimal.valueOf(random.nextInt(100)));
+        }
+        return criteria;
+    }
+
+    private static MieszkanieDTO randomListing(Random random) {
+        MieszkanieDTO mieszkanie = listing(pick(random, CITIES), pick(random, DEVELOPERS),
+                random.nextInt(10) == 0 ? null : random.nextInt(1000) * 1000,
+                random.nextInt(10) == 0 ? null : random.nextInt(100));
+        mieszkanie.setFloor(random.nextInt(5));
+        mieszkanie.setStatus(Mieszkanie.Status.values()[random.nextInt(Mieszkanie.Status.values().length)]);
+        return mieszkanie;
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static MieszkanieDTO listing(String city, String developer, Integer price, Integer area) {
+        return MieszkanieDTO.builder()
+                .id(1)
+                .city(city)
+                .developer(developer)
+                .price(price != null ? BigDecimal.valueOf(price) : null)
+                .area(area != null ? BigDecimal.valueOf(area) : null)
+                .status(Mieszkanie.Status.AVAILABLE)
+                .build();
+    }
+
+    private static SavedSearchIndex.Entry entry(Long id, MieszkanieSearchCriteria criteria) {
+        return new SavedSearchIndex.Entry(id, 100L, "search " + id, criteria);
+    }
+
+    private static List<Long> ids(List<SavedSearchIndex.Entry> entries) {
+        return entries.stream().map(SavedSearchIndex.Entry::savedSearchId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.restate.service.alert;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.entity.OutboxEvent;
+import com.example.restate.entity.SavedSearch;
+import com.example.restate.entity.User;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.repository.SavedSearchRepository;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import com.example.restate.service.outbox.MieszkanieChangePayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SavedSearchMatcherTest {
+
+    @Mock
+    private SavedSearchRepository savedSearchRepository;
+
+    @Mock
+    private SavedSearchNotificationQueue notificationQueue;
+
+    private ObjectMapper objectMapper;
+    private SavedSearchMatcher savedSearchMatcher;
+    private SavedSearch savedSearch;
+    private Mieszkanie mieszkanie;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        savedSearchMatcher = new SavedSearchMatcher(savedSearchRepository, notificationQueue, objectMapper);
+
+        User user = new User();
+        user.setId(7L);
+
+        savedSearch = new SavedSearch();
+        savedSearch.setId(1L);
+        savedSearch.setUser(user);
+        savedSearch.setName("Cheap in Warsaw");
+        savedSearch.setCity("Warsaw");
+        savedSearch.setMaxPrice(BigDecimal.valueOf(600000));
+
+        mieszkanie = new Mieszkanie();
+        mieszkanie.setId(10);
+        mieszkanie.setCity("Warsaw");
+        mieszkanie.setPrice(BigDecimal.valueOf(500000));
+        mieszkanie.setStatus(Mieszkanie.Status.AVAILABLE);
+    }
+
+    @Test
+    void loadSavedSearches_ShouldIndexAllSavedSearches() {
+        // Given
+        when(savedSearchRepository.findAllWithUser()).thenReturn(List.of(savedSearch));
+
+        // When
+        savedSearchMatcher.loadSavedSearches();
+
+        // Then
+        assertEquals(1, savedSearchMatcher.getIndexedCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onEvent_WhenCreatedListingMatches_ShouldEnqueueMatchWithEventId() throws Exception {
+        // Given
+        register(savedSearch);
+
+        // When
+        savedSearchMatcher.onEvent(outboxEvent(42L, MieszkanieChangedEvent.created(mieszkanie)));
+
+        // Then
+        ArgumentCaptor<List<SavedSearchMatch>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationQueue).enqueue(captor.capture(), eq(42L));
+        SavedSearchMatch match = captor.getValue().get(0);
+        assertEquals(1L, match.getSavedSearchId());
+        assertEquals(7L, match.getUserId());
+        assertEquals(10, match.getMieszkanie().getId());
+    }
+
+    @Test
+    void onEvent_WhenListingDoesNotMatch_ShouldEnqueueNothing() throws Exception {
+        // Given
+        register(savedSearch);
+        mieszkanie.setCity("Krakow");
+
+        // When
+        savedSearchMatcher.onEvent(outboxEvent(42L, MieszkanieChangedEvent.created(mieszkanie)));
+
+        // Then
+        verify(notificationQueue).enqueue(List.of(), 42L);
+    }
+
+    @Test
+    void onEvent_WhenUpdatedListingAlreadyMatched_ShouldEnqueueNothing() throws Exception {
+        // Given
+        register(savedSearch);
+        MieszkanieDTO previous = MieszkanieDTO.fromEntity(mieszkanie);
+        mieszkanie.setPrice(BigDecimal.valueOf(550000));
+
+        // When
+        savedSearchMatcher.onEvent(outboxEvent(42L, MieszkanieChangedEvent.updated(previous, mieszkanie)));
+
+        // Then
+        verify(notificationQueue).enqueue(List.of(), 42L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onEvent_WhenPriceDropsIntoRange_ShouldEnqueueMatch() throws Exception {
+        // Given
+        register(savedSearch);
+        mieszkanie.setPrice(BigDecimal.valueOf(700000));
+        MieszkanieDTO previous = MieszkanieDTO.fromEntity(mieszkanie);
+        mieszkanie.setPrice(BigDecimal.valueOf(590000));
+
+        // When
+        savedSearchMatcher.onEvent(outboxEvent(42L, MieszkanieChangedEvent.updated(previous, mieszkanie)));
+
+        // Then
+        ArgumentCaptor<List<SavedSearchMatch>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationQueue).enqueue(captor.capture(), eq(42L));
+        assertEquals(1, captor.getValue().size());
+    }
+
+    @Test
+    void onEvent_WhenDeleted_ShouldNotEnqueue() throws Exception {
+        // Given
+        register(savedSearch);
+
+        // When
+        savedSearchMatcher.onEvent(outboxEvent(42L,
+                MieszkanieChangedEvent.deleted(MieszkanieDTO.fromEntity(mieszkanie))));
+
+        // Then
+        verify(notificationQueue, never()).enqueue(any(), anyLong());
+    }
+
+    @Test
+    void onInvalidation_WhenSavedSearchWasDeletedOnAnotherNode_ShouldStopMatching() throws Exception {
+        // Given
+        register(savedSearch);
+        when(savedSearchRepository.findWithUserById(1L)).thenReturn(Optional.empty());
+
+        // When
+        savedSearchMatcher.onInvalidation(CacheInvalidationMessage.forSavedSearch(1L));
+
+        // Then
+        assertEquals(0, savedSearchMatcher.getIndexedCount());
+        savedSearchMatcher.onEvent(outboxEvent(42L, MieszkanieChangedEvent.created(mieszkanie)));
+        verify(notificationQueue).enqueue(List.of(), 42L);
+    }
+
+    @Test
+    void onInvalidation_WhenUserWasDeleted_ShouldDropSearchesRemovedByCascade() {
+        // Given
+        register(savedSearch);
+        when(savedSearchRepository.findAllWithUserByUserId(7L)).thenReturn(List.of());
+
+        // When
+        savedSearchMatcher.onInvalidation(CacheInvalidationMessage.forUser(7L, "testuser"));
+
+        // Then
+        assertEquals(0, savedSearchMatcher.getIndexedCount());
+    }
+
+    @Test
+    void onFullFlush_ShouldReloadAllSavedSearches() {
+        // Given
+        when(savedSearchRepository.findAllWithUser()).thenReturn(List.of(savedSearch));
+
+        // When
+        savedSearchMatcher.onFullFlush();
+
+        // Then
+        assertEquals(1, savedSearchMatcher.getIndexedCount());
+    }
+
+    private void register(SavedSearch search) {
+        when(savedSearchRepository.findWithUserById(search.getId())).thenReturn(Optional.of(search));
+        savedSearchMatcher.onInvalidation(CacheInvalidationMessage.forSavedSearch(search.getId()));
+    }
+
+    private OutboxEvent outboxEvent(Long id, MieszkanieChangedEvent change) throws Exception {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setAggregateType("Mieszkanie");
+        event.setAggregateId(String.valueOf(change.getMieszkanieId()));
+        event.setEventType(change.getType().name());
+        event.setPayload(objectMapper.writeValueAsString(MieszkanieChangePayload.of(change)));
+        return event;
+    }
+}
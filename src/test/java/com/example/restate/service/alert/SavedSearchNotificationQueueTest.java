@@ -0,0 +1,120 @@
+package com.example.restate.service.alert;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class SavedSearchNotificationQueueTest {
+
+    @Mock
+    private SavedSearchNotificationSender sender;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SavedSearchNotificationQueue notificationQueue;
+
+    @BeforeEach
+    void setUp() {
+        notificationQueue = new SavedSearchNotificationQueue(jdbcTemplate, new ObjectMapper().findAndRegisterModules(),
+                sender, transactionManager, 100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void send_ShouldSendOneBatchPerUserWithoutDuplicates() {
+        // Given
+        List<SavedSearchNotificationQueue.PendingMatch> pending = List.of(
+                pending(100L, match(1L, 7L, 10)),
+                pending(101L, match(1L, 7L, 10)),
+                pending(102L, match(2L, 8L, 10)));
+
+        // When
+        List<Long> delivered = notificationQueue.send(pending);
+
+        // Then
+        ArgumentCaptor<List<SavedSearchMatch>> captor = ArgumentCaptor.forClass(List.class);
+        verify(sender).send(eq(7L), captor.capture());
+        assertEquals(1, captor.getValue().size());
+        verify(sender).send(eq(8L), any());
+        // Powtórzenie też znika z kolejki
+        assertEquals(List.of(100L, 101L, 102L), delivered);
+    }
+
+    @Test
+    void send_WhenSenderFailsForOneUser_ShouldKeepItsMatchesAndDeliverToOthers() {
+        // Given
+        List<SavedSearchNotificationQueue.PendingMatch> pending = List.of(
+                pending(100L, match(1L, 7L, 10)),
+                pending(101L, match(2L, 8L, 11)));
+        doThrow(new IllegalStateException("mail server down")).when(sender).send(eq(7L), any());
+
+        // When
+        List<Long> delivered = notificationQueue.send(pending);
+
+        // Then
+        verify(sender).send(eq(8L), any());
+        assertEquals(List.of(101L), delivered);
+    }
+
+    @Test
+    void enqueue_ShouldInsertOneRowPerMatchKeyedByOutboxEvent() {
+        // Given
+        List<SavedSearchMatch> matches = List.of(match(1L, 7L, 10), match(2L, 8L, 10));
+
+        // When
+        notificationQueue.enqueue(matches, 42L);
+
+        // Then
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        SqlParameterSource[] rows = captor.getValue();
+        assertEquals(2, rows.length);
+        assertEquals(42L, rows[0].getValue("outboxEventId"));
+        assertEquals(1L, rows[0].getValue("savedSearchId"));
+        assertTrue(((String) rows[1].getValue("listing")).contains("\"id\":10"));
+    }
+
+    @Test
+    void enqueue_WithoutMatches_ShouldNotTouchDatabase() {
+        // When
+        notificationQueue.enqueue(List.of(), 42L);
+
+        // Then
+        verifyNoInteractions(jdbcTemplate);
+        verify(sender, never()).send(any(), any());
+    }
+
+    private static SavedSearchNotificationQueue.PendingMatch pending(long id, SavedSearchMatch match) {
+        return new SavedSearchNotificationQueue.PendingMatch(id, match);
+    }
+
+    private static SavedSearchMatch match(Long savedSearchId, Long userId, Integer mieszkanieId) {
+        return new SavedSearchMatch(savedSearchId, "search", userId,
+                MieszkanieDTO.builder().id(mieszkanieId).build(), Instant.now());
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.restate.service.cache;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.event.MieszkanieChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    @Mock
+    private CacheInvalidationListener listener;
+
+    @Mock
+    private ObjectProvider<PgNotifyInvalidationChannel> channelProvider;
+
+    @Mock
+    private PgNotifyInvalidationChannel channel;
+
+    private CacheInvalidationBus bus;
+    private Mieszkanie mieszkanie;
+
+    @BeforeEach
+    void setUp() {
+        bus = new CacheInvalidationBus(List.of(listener), channelProvider);
+
+        mieszkanie = new Mieszkanie();
+        mieszkanie.setId(1);
+        mieszkanie.setDeveloper("Atal");
+        mieszkanie.setInvestment("Osiedle Zielone");
+        mieszkanie.setCity("Warsaw");
+        mieszkanie.setStatus(Mieszkanie.Status.AVAILABLE);
+    }
+
+    @Test
+    void publish_ShouldSendToChannelAndApplyLocally() {
+        // Given
+        doAnswer(invocation -> {
+            invocation.<java.util.function.Consumer<PgNotifyInvalidationChannel>>getArgument(0).accept(channel);
+            return null;
+        }).when(channelProvider).ifAvailable(any());
+        CacheInvalidationMessage message = CacheInvalidationMessage.forUser(1L, "testuser");
+
+        // When
+        bus.publish(message);
+
+        // Then
+        assertEquals(bus.getNodeId(), message.getNodeId());
+        verify(channel).send(message);
+        verify(listener).onInvalidation(message);
+    }
+
+    @Test
+    void onRemoteMessage_FromOtherNode_ShouldApply() {
+        // Given
+        CacheInvalidationMessage message = CacheInvalidationMessage.forUser(1L, "testuser");
+        message.setNodeId("other-node");
+
+        // When
+        bus.onRemoteMessage(message);
+
+        // Then
+        verify(listener).onInvalidation(message);
+        assertTrue(message.isRemote());
+    }
+
+    @Test
+    void onRemoteMessage_FromSameNode_ShouldBeIgnored() {
+        // Given
+        CacheInvalidationMessage message = CacheInvalidationMessage.forUser(1L, "testuser");
+        message.setNodeId(bus.getNodeId());
+
+        // When
+        bus.onRemoteMessage(message);
+
+        // Then
+        verify(listener, never()).onInvalidation(any());
+    }
+
+    @Test
+    void flushAll_ShouldFlushEveryListenerEvenIfOneFails() {
+        // Given
+        CacheInvalidationListener failing = mock(CacheInvalidationListener.class);
+        doThrow(new IllegalStateException("boom")).when(failing).onFullFlush();
+        bus = new CacheInvalidationBus(List.of(failing, listener), channelProvider);
+
+        // When
+        bus.flushAll();
+
+        // Then
+        verify(listener).onFullFlush();
+    }
+
+    @Test
+    void onMieszkanieChanged_ShouldPublishKeysOfChangedDimensionsOnly() {
+        // Given
+        MieszkanieDTO previous = MieszkanieDTO.fromEntity(mieszkanie);
+        mieszkanie.setCity("Krakow");
+        mieszkanie.setStatus(Mieszkanie.Status.SOLD);
+
+        // When
+        bus.onMieszkanieChanged(MieszkanieChangedEvent.updated(previous, mieszkanie));
+
+        // Then
+        ArgumentCaptor<CacheInvalidationMessage> captor = ArgumentCaptor.forClass(CacheInvalidationMessage.class);
+        verify(listener).onInvalidation(captor.capture());
+        assertEquals(CacheInvalidationMessage.MIESZKANIE, captor.getValue().getEntity());
+        assertEquals("1", captor.getValue().getId());
+        assertEquals(List.of("city:Warsaw", "city:Krakow", "segment:|Warsaw||AVAILABLE", "segment:|Krakow||SOLD"),
+                captor.getValue().getKeys());
+        assertFalse(captor.getValue().isRemote());
+    }
+
+    @Test
+    void forMieszkanie_WhenCreated_ShouldContainAllDimensions() {
+        // When
+        CacheInvalidationMessage message = CacheInvalidationMessage.forMieszkanie(
+                MieszkanieChangedEvent.created(mieszkanie));
+
+        // Then
+        assertEquals(List.of("developer:Atal", "investment:Osiedle Zielone", "city:Warsaw",
+                "segment:|Warsaw||AVAILABLE"), message.getKeys());
+    }
+
+    @Test
+    void forMieszkanie_WhenOnlyPriceChanged_ShouldContainSegmentOnly() {
+        // Given
+        mieszkanie.setPrice(BigDecimal.valueOf(500000));
+        MieszkanieDTO previous = MieszkanieDTO.fromEntity(mieszkanie);
+        mieszkanie.setPrice(BigDecimal.valueOf(450000));
+
+        // When
+        CacheInvalidationMessage message = CacheInvalidationMessage.forMieszkanie(
+                MieszkanieChangedEvent.updated(previous, mieszkanie));
+
+        // Then
+        assertEquals(List.of("segment:|Warsaw||AVAILABLE"), message.getKeys());
+        assertFalse(message.hasKeyWithPrefix(CacheInvalidationMessage.DEVELOPER_KEY));
+    }
+
+    @Test
+    void forMieszkanie_WhenPreviousStateUnknown_ShouldContainWildcards() {
+        // When
+        CacheInvalidationMessage message = CacheInvalidationMessage.forMieszkanie(
+                MieszkanieChangedEvent.updated(null, mieszkanie));
+
+        // Then
+        assertTrue(message.getKeys().contains("developer:*"));
+        assertTrue(message.getKeys().contains("developer:Atal"));
+        assertTrue(message.hasKeyWithPrefix(CacheInvalidationMessage.VOIVODESHIP_KEY));
+        assertTrue(message.getKeys().contains("segment:*"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.restate.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PgNotifyInvalidationChannelTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CacheInvalidationBus bus;
+
+    private ObjectMapper objectMapper;
+    private PgNotifyInvalidationChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        channel = new PgNotifyInvalidationChannel(jdbcTemplate, objectMapper, bus, new DataSourceProperties(),
+                1000, 100, 1000);
+    }
+
+    @Test
+    void handleNotification_ShouldPassDecodedMessageToBus() throws Exception {
+        // Given
+        CacheInvalidationMessage message = CacheInvalidationMessage.forUser(1L, "testuser");
+        message.setNodeId("other-node");
+
+        // When
+        channel.handleNotification(objectMapper.writeValueAsString(message));
+
+        // Then
+        ArgumentCaptor<CacheInvalidationMessage> captor = ArgumentCaptor.forClass(CacheInvalidationMessage.class);
+        verify(bus).onRemoteMessage(captor.capture());
+        assertEquals(message, captor.getValue());
+    }
+
+    @Test
+    void handleNotification_WithMalformedPayload_ShouldBeIgnored() {
+        // When
+        channel.handleNotification("not json");
+
+        // Then
+        verify(bus, never()).onRemoteMessage(any());
+    }
+
+    @Test
+    void toPayload_WhenTooLong_ShouldDropKeys() throws Exception {
+        // Given
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add("investment:Osiedle " + i);
+        }
+        CacheInvalidationMessage message = CacheInvalidationMessage.builder()
+                .entity(CacheInvalidationMessage.MIESZKANIE)
+                .id("1")
+                .keys(keys)
+                .build();
+
+        // When
+        String payload = channel.toPayload(message);
+
+        // Then
+        assertTrue(payload.getBytes(StandardCharsets.UTF_8).length <= PgNotifyInvalidationChannel.MAX_PAYLOAD_BYTES);
+        CacheInvalidationMessage decoded = objectMapper.readValue(payload, CacheInvalidationMessage.class);
+        assertTrue(decoded.getKeys().isEmpty());
+        assertTrue(decoded.hasKeyWithPrefix(CacheInvalidationMessage.INVESTMENT_KEY));
+    }
+}
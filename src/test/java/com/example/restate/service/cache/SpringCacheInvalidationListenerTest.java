@@ -0,0 +1,66 @@
+package com.example.restate.service.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpringCacheInvalidationListenerTest {
+
+    private ConcurrentMapCacheManager cacheManager;
+    private SpringCacheInvalidationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(SpringCacheInvalidationListener.DEVELOPERS_CACHE, "other");
+        cacheManager.getCache(SpringCacheInvalidationListener.DEVELOPERS_CACHE).put("all", List.of("Atal"));
+        cacheManager.getCache("other").put("key", "value");
+        listener = new SpringCacheInvalidationListener(cacheManager);
+    }
+
+    @Test
+    void onInvalidation_WhenDeveloperChanged_ShouldClearDevelopersCache() {
+        // Given
+        CacheInvalidationMessage message = CacheInvalidationMessage.builder()
+                .entity(CacheInvalidationMessage.MIESZKANIE)
+                .id("1")
+                .keys(List.of("developer:Atal"))
+                .build();
+
+        // When
+        listener.onInvalidation(message);
+
+        // Then
+        assertNull(cacheManager.getCache(SpringCacheInvalidationListener.DEVELOPERS_CACHE).get("all"));
+        assertNotNull(cacheManager.getCache("other").get("key"));
+    }
+
+    @Test
+    void onInvalidation_WhenOnlyCityChanged_ShouldKeepDevelopersCache() {
+        // Given
+        CacheInvalidationMessage message = CacheInvalidationMessage.builder()
+                .entity(CacheInvalidationMessage.MIESZKANIE)
+                .id("1")
+                .keys(List.of("city:Warsaw"))
+                .build();
+
+        // When
+        listener.onInvalidation(message);
+
+        // Then
+        assertNotNull(cacheManager.getCache(SpringCacheInvalidationListener.DEVELOPERS_CACHE).get("all"));
+    }
+
+    @Test
+    void onFullFlush_ShouldClearAllCaches() {
+        // When
+        listener.onFullFlush();
+
+        // Then
+        assertNull(cacheManager.getCache(SpringCacheInvalidationListener.DEVELOPERS_CACHE).get("all"));
+        assertNull(cacheManager.getCache("other").get("key"));
+    }
+}
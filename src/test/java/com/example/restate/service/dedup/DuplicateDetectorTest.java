@@ -0,0 +1,184 @@
+package com.example.restate.service.dedup;
+
+import com.example.restate.dto.ListingIdentity;
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.entity.OutboxEvent;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.repository.MieszkanieRepository;
+import com.example.restate.service.outbox.MieszkanieChangePayload;
+import com.example.restate.service.outbox.OutboxWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DuplicateDetectorTest {
+
+    @Mock
+    private MieszkanieRepository mieszkanieRepository;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ObjectMapper objectMapper;
+    private DuplicateDetector duplicateDetector;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        duplicateDetector = new DuplicateDetector(mieszkanieRepository, jdbcTemplate, objectMapper,
+                transactionManager, 1000);
+    }
+
+    @Test
+    void onEvent_ForDeletedListing_ShouldDropItsFingerprints() throws Exception {
+        // Given
+        OutboxEvent event = outboxEvent(MieszkanieChangedEvent.deleted(listing("A1")));
+
+        // When
+        duplicateDetector.onEvent(event);
+
+        // Then
+        verify(jdbcTemplate).update(eq("DELETE FROM listing_fingerprints WHERE mieszkanie_id = :id"),
+                any(SqlParameterSource.class));
+    }
+
+    @Test
+    void onEvent_WhenIdentityDidNotChange_ShouldSkipDetection() throws Exception {
+        // Given
+        MieszkanieDTO previous = listing("A1");
+        MieszkanieDTO current = listing("A1");
+        current.setDescription("Nowy opis");
+        OutboxEvent event = outboxEvent(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.UPDATED, 1, previous, current));
+
+        // When
+        duplicateDetector.onEvent(event);
+
+        // Then
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void onEvent_WhenDatabaseFails_ShouldThrowSoThatRelayRetries() throws Exception {
+        // Given
+        OutboxEvent event = outboxEvent(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.CREATED, 1, null, listing("A1")));
+        when(jdbcTemplate.update(anyString(), any(SqlParameterSource.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+
+        // When & Then
+        assertThrows(DataAccessResourceFailureException.class, () -> duplicateDetector.onEvent(event));
+    }
+
+    @Test
+    void onEvent_ForOtherAggregate_ShouldIgnoreIt() {
+        // Given
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType("User");
+        event.setPayload("{}");
+
+        // When
+        duplicateDetector.onEvent(event);
+
+        // Then
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void dropStaleFingerprints_ShouldDropOnlyFingerprintsThatNoLongerMatchTheListing() throws Exception {
+        // Given - id 1 ma aktualny odcisk, id 2 po ponownym imporcie wskazuje inne mieszkanie, id 3 zniknęło
+        MieszkanieDTO reimported = listing("B7");
+        reimported.setId(2);
+        when(mieszkanieRepository.findIdentitiesByIdIn(any())).thenReturn(List.of(
+                ListingIdentity.of(listing("A1")), ListingIdentity.of(reimported)));
+        Map<Integer, long[]> stored = new LinkedHashMap<>();
+        stored.put(1, bandKeys(listing("A1")));
+        stored.put(2, bandKeys(listing("A2")));
+        stored.put(3, bandKeys(listing("A3")));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (Map.Entry<Integer, long[]> fingerprint : stored.entrySet()) {
+                for (int band = 0; band < fingerprint.getValue().length; band++) {
+                    ResultSet rs = mock(ResultSet.class);
+                    when(rs.getInt("mieszkanie_id")).thenReturn(fingerprint.getKey());
+                    when(rs.getInt("band")).thenReturn(band);
+                    when(rs.getLong("bucket")).thenReturn(fingerprint.getValue()[band]);
+                    handler.processRow(rs);
+                }
+            }
+            return null;
+        }).doNothing().when(jdbcTemplate).query(anyString(), any(SqlParameterSource.class),
+                any(RowCallbackHandler.class));
+
+        // When
+        int stale = duplicateDetector.dropStaleFingerprints();
+
+        // Then
+        assertEquals(2, stale);
+        ArgumentCaptor<SqlParameterSource> params = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate).update(eq("DELETE FROM listing_fingerprints WHERE mieszkanie_id IN (:ids)"),
+                params.capture());
+        assertEquals(List.of(2, 3), params.getValue().getValue("ids"));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM listing_duplicates WHERE status = 'PENDING'"),
+                any(SqlParameterSource.class));
+    }
+
+    private static long[] bandKeys(MieszkanieDTO listing) {
+        return ListingSignature.bandKeys(ListingSignature.minHash(
+                ListingSignature.features(ListingIdentity.of(listing))));
+    }
+
+    private OutboxEvent outboxEvent(MieszkanieChangedEvent change) throws Exception {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(1L);
+        event.setAggregateType(OutboxWriter.MIESZKANIE_AGGREGATE);
+        event.setAggregateId(String.valueOf(change.getMieszkanieId()));
+        event.setEventType(change.getType().name());
+        event.setPayload(objectMapper.writeValueAsString(MieszkanieChangePayload.of(change)));
+        return event;
+    }
+
+    private static MieszkanieDTO listing(String number) {
+        return MieszkanieDTO.builder()
+                .id(1)
+                .developer("Dom Development")
+                .investment("Zielony Zakątek")
+                .number(number)
+                .city("Warszawa")
+                .area(new BigDecimal("54.30"))
+                .price(BigDecimal.valueOf(650000))
+                .floor(3)
+                .build();
+    }
+}
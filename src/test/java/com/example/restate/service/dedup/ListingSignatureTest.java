@@ -0,0 +1,107 @@
+package com.example.restate.service.dedup;
+
+import com.example.restate.dto.ListingIdentity;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListingSignatureTest {
+
+    @Test
+    void normalize_ShouldStripDiacriticsPunctuationAndLegalForms() {
+        // When & Then
+        assertEquals("dom development", ListingSignature.normalize("Dom Development S.A."));
+        assertEquals("zlota 44", ListingSignature.normalize("Złota 44 Sp. z o.o."));
+        assertEquals("osiedle zielony zakatek", ListingSignature.normalize("  Osiedle ZIELONY-Zakątek "));
+        assertEquals("", ListingSignature.normalize(null));
+        assertEquals("a12", ListingSignature.normalizeNumber("A/12"));
+    }
+
+    @Test
+    void similarity_ShouldDetectSameUnitWithDifferentSpelling() {
+        // Given
+        ListingIdentity original = listing(1, "Dom Development S.A.", "Osiedle Zielony Zakątek", "A/12", "54.30", "650000", 3);
+        ListingIdentity reimported = listing(2, "DOM DEVELOPMENT", "Os. Zielony Zakatek", "A12", "54.3", "655000", 3);
+
+        // When
+        double similarity = ListingSignature.similarity(original, reimported);
+
+        // Then
+        assertTrue(similarity >= ListingSignature.SIMILARITY_THRESHOLD, "similarity was " + similarity);
+        assertTrue(sharesBand(original, reimported));
+    }
+
+    @Test
+    void similarity_ShouldRejectDifferentUnitsOfSameInvestment() {
+        // Given
+        ListingIdentity a = listing(1, "Atal", "Nowe Miasto", "B/3", "48.00", "520000", 1);
+        ListingIdentity b = listing(2, "Atal", "Nowe Miasto", "B/4", "48.00", "520000", 1);
+        ListingIdentity c = listing(3, "Atal", "Nowe Miasto", "B/3", "61.00", "520000", 1);
+
+        // When & Then
+        assertEquals(-1, ListingSignature.similarity(a, b));
+        assertEquals(-1, ListingSignature.similarity(a, c));
+    }
+
+    @Test
+    void similarity_ShouldRejectDifferentInvestments() {
+        // Given
+        ListingIdentity a = listing(1, "Robyg", "Słoneczne Tarasy", "12", "40.00", "400000", 2);
+        ListingIdentity b = listing(2, "Murapol", "Parkowa Aleja", "12", "40.00", "400000", 2);
+
+        // When & Then
+        assertEquals(-1, ListingSignature.similarity(a, b));
+    }
+
+    @Test
+    void bandKeys_ShouldBeDeterministicAndRarelyCollideForUnrelatedListings() {
+        // Given
+        ListingIdentity a = listing(1, "Robyg", "Słoneczne Tarasy", "12", "40.00", "400000", 2);
+        ListingIdentity b = listing(2, "Murapol", "Parkowa Aleja", "7", "72.00", "900000", 5);
+
+        // When
+        long[] first = keys(a);
+        long[] second = keys(a);
+
+        // Then
+        assertArrayEquals(first, second);
+        assertEquals(ListingSignature.BANDS, first.length);
+        assertFalse(sharesBand(a, b));
+    }
+
+    @Test
+    void jaccard_ShouldReturnSetSimilarity() {
+        // When & Then
+        assertEquals(0.5, ListingSignature.jaccard(Set.of("a", "b", "c"), Set.of("b", "c", "d")), 1e-9);
+        assertEquals(0, ListingSignature.jaccard(Set.of(), Set.of()));
+    }
+
+    private static boolean sharesBand(ListingIdentity a, ListingIdentity b) {
+        long[] keysA = keys(a);
+        long[] keysB = keys(b);
+        Set<Long> bandsA = new HashSet<>();
+        for (int band = 0; band < keysA.length; band++) {
+            bandsA.add(keysA[band] * 31 + band);
+        }
+        for (int band = 0; band < keysB.length; band++) {
+            if (bandsA.contains(keysB[band] * 31 + band)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long[] keys(ListingIdentity listing) {
+        return ListingSignature.bandKeys(ListingSignature.minHash(ListingSignature.features(listing)));
+    }
+
+    private static ListingIdentity listing(int id, String developer, String investment, String number,
+                                           String area, String price, Integer floor) {
+        return new ListingIdentity(id, developer, investment, number, "Warszawa",
+                new BigDecimal(area), new BigDecimal(price), floor);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.restate.service.history;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Historia cen przez import CSV na schemacie z migracji Flyway: wyzwalacz TRUNCATE z V12 zapisuje mieszkania
+ * sprzed importu, a {@link PriceHistoryImportRecorder} przepina ich historię. Import jest symulowany tymi samymi
+ * poleceniami co {@code R__import_csv.sql}, bez pliku CSV.
+ */
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        // R__import_csv czyta /data/mieszkania.csv, który istnieje tylko w docker-compose
+        "spring.flyway.repeatable-sql-migration-prefix=SKIP__"
+})
+class PriceHistoryImportIntegrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16");
+
+    @DynamicPropertySource
+    static void postgresqlProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PriceHistoryImportRecorder recorder;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE mieszkania RESTART IDENTITY CASCADE");
+        jdbcTemplate.execute("DELETE FROM price_history");
+        jdbcTemplate.execute("DELETE FROM price_history_import_snapshot");
+        jdbcTemplate.execute("DELETE FROM price_history_import_pending");
+    }
+
+    @Test
+    void recordImport_ShouldMoveHistoryToTheNewIdAndCloseDroppedListings() {
+        // Given - przed importem: A (id 1), B (id 2) i C (id 3) z historią
+        insertListing(1, "A1", 500000);
+        insertListing(2, "B1", 600000);
+        insertListing(3, "C1", 700000);
+        jdbcTemplate.update("INSERT INTO price_history (mieszkanie_id, investment, price, area, source, changed_at) " +
+                "SELECT id, investment, price, area, 'CREATE', now() - interval '1 day' FROM mieszkania");
+
+        // When - nowy plik ma tylko A, pod id 2 i z nową ceną
+        jdbcTemplate.execute("TRUNCATE TABLE mieszkania RESTART IDENTITY CASCADE");
+        insertListing(2, "A1", 480000);
+        int recorded = recorder.recordImport();
+
+        // Then
+        assertEquals(1, recorded);
+        // Historia A idzie za nią na id 2, historia B nie trafia do A
+        assertEquals(List.of("CREATE:500000.00", "IMPORT:480000.00"), history(2));
+        assertEquals(List.of(), history(1));
+        // C zniknęło z pliku, a jego id nie jest zajęte
+        assertEquals(List.of("CREATE:700000.00", "DELETE:null"), history(3));
+        assertEquals(0, recorder.recordImport());
+    }
+
+    private void insertListing(int id, String number, int price) {
+        jdbcTemplate.update("INSERT INTO mieszkania (id, developer, investment, number, area, price, voivodeship, city) " +
+                "VALUES (?, 'Dev', 'Park', ?, 50, ?, 'mazowieckie', 'Warszawa')", id, number, price);
+    }
+
+    private List<String> history(int mieszkanieId) {
+        return jdbcTemplate.queryForList("SELECT source || ':' || coalesce(price::text, 'null') FROM price_history " +
+                "WHERE mieszkanie_id = ? ORDER BY changed_at, id", String.class, mieszkanieId);
+    }
+}
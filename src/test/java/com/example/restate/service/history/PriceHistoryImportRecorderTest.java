@@ -0,0 +1,110 @@
+package com.example.restate.service.history;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceHistoryImportRecorderTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JdbcTemplate plainJdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PriceHistoryImportRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.getJdbcTemplate()).thenReturn(plainJdbcTemplate);
+        recorder = new PriceHistoryImportRecorder(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void recordImport_WhenImportIsPending_ShouldRekeyHistoryBeforeAppendingImportEntries() {
+        // Given
+        Timestamp truncatedAt = Timestamp.valueOf(LocalDateTime.now().minusMinutes(1));
+        when(plainJdbcTemplate.queryForObject(contains("pg_try_advisory_xact_lock"), eq(Boolean.class)))
+                .thenReturn(true);
+        when(plainJdbcTemplate.queryForObject(contains("price_history_import_pending"), eq(Timestamp.class)))
+                .thenReturn(truncatedAt);
+        when(jdbcTemplate.update(anyString(), any(MapSqlParameterSource.class)))
+                .thenAnswer(invocation -> invocation.<String>getArgument(0).contains("'IMPORT'") ? 3 : 0);
+
+        // When
+        int recorded = recorder.recordImport();
+
+        // Then
+        assertEquals(3, recorded);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate, times(4)).update(sql.capture(), params.capture());
+        List<String> statements = sql.getAllValues();
+        assertTrue(statements.get(0).startsWith("DELETE FROM price_history h"));
+        assertTrue(statements.get(1).contains("'DELETE'"));
+        assertTrue(statements.get(2).startsWith("UPDATE price_history h"));
+        assertTrue(statements.get(3).contains("'IMPORT'"));
+        // Wpisy zapisane przez aplikację po imporcie mają już nowe id
+        assertTrue(statements.get(2).contains("h.changed_at < :truncatedAt"));
+        assertEquals(truncatedAt, params.getValue().getValue("truncatedAt"));
+
+        InOrder inOrder = inOrder(plainJdbcTemplate);
+        inOrder.verify(plainJdbcTemplate).execute(contains("CREATE TEMP TABLE price_history_id_map"));
+        inOrder.verify(plainJdbcTemplate).update("DELETE FROM price_history_import_snapshot");
+        inOrder.verify(plainJdbcTemplate).update("DELETE FROM price_history_import_pending");
+    }
+
+    @Test
+    void recordImport_WithoutPendingImport_ShouldNotTouchHistory() {
+        // Given
+        when(plainJdbcTemplate.queryForObject(contains("pg_try_advisory_xact_lock"), eq(Boolean.class)))
+                .thenReturn(true);
+        when(plainJdbcTemplate.queryForObject(contains("price_history_import_pending"), eq(Timestamp.class)))
+                .thenReturn(null);
+
+        // When
+        int recorded = recorder.recordImport();
+
+        // Then
+        assertEquals(0, recorded);
+        verify(jdbcTemplate, never()).update(anyString(), any(MapSqlParameterSource.class));
+        verify(plainJdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void recordImport_WhenAnotherInstanceHoldsTheLock_ShouldSkip() {
+        // Given
+        when(plainJdbcTemplate.queryForObject(contains("pg_try_advisory_xact_lock"), eq(Boolean.class)))
+                .thenReturn(false);
+
+        // When
+        int recorded = recorder.recordImport();
+
+        // Then
+        assertEquals(0, recorded);
+        verify(plainJdbcTemplate, never()).queryForObject(contains("price_history_import_pending"), eq(Timestamp.class));
+        verify(jdbcTemplate, never()).update(anyString(), any(MapSqlParameterSource.class));
+    }
+}
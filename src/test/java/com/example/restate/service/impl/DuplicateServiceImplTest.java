@@ -0,0 +1,157 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.dto.DuplicateDTO;
+import com.example.restate.dto.PageResponse;
+import com.example.restate.dto.UpdateMieszkanieDTO;
+import com.example.restate.entity.ListingDuplicate;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.exception.ResourceNotFoundException;
+import com.example.restate.repository.ListingDuplicateRepository;
+import com.example.restate.repository.MieszkanieRepository;
+import com.example.restate.service.MieszkanieService;
+import com.example.restate.service.dedup.DuplicateDetector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DuplicateServiceImplTest {
+
+    @Mock
+    private ListingDuplicateRepository listingDuplicateRepository;
+
+    @Mock
+    private MieszkanieRepository mieszkanieRepository;
+
+    @Mock
+    private MieszkanieService mieszkanieService;
+
+    @Mock
+    private DuplicateDetector duplicateDetector;
+
+    @InjectMocks
+    private DuplicateServiceImpl duplicateService;
+
+    @Test
+    void getDuplicates_ShouldSortBySimilarityAndAttachBothListings() {
+        // Given
+        ListingDuplicate duplicate = duplicate(ListingDuplicate.Status.PENDING);
+        when(listingDuplicateRepository.findByStatus(eq(ListingDuplicate.Status.PENDING), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(duplicate), PageRequest.of(0, 20), 1));
+        when(mieszkanieRepository.findAllById(any())).thenReturn(List.of(listing(2, null), listing(1, "Mokotów")));
+
+        // When
+        PageResponse<DuplicateDTO> response = duplicateService.getDuplicates(
+                ListingDuplicate.Status.PENDING, PageRequest.of(0, 20));
+
+        // Then
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+        verify(listingDuplicateRepository).findByStatus(eq(ListingDuplicate.Status.PENDING), captor.capture());
+        assertEquals(Sort.Direction.DESC, captor.getValue().getSort().getOrderFor("similarity").getDirection());
+        assertEquals(1, response.getTotalElements());
+        DuplicateDTO dto = response.getContent().get(0);
+        assertEquals(2, dto.getListing().getId());
+        assertEquals(1, dto.getDuplicateOf().getId());
+        assertEquals(new BigDecimal("0.875"), dto.getSimilarity());
+    }
+
+    @Test
+    void merge_ShouldFillEmptyFieldsOfOlderListingAndDeleteNewerOne() {
+        // Given
+        ListingDuplicate duplicate = duplicate(ListingDuplicate.Status.PENDING);
+        Mieszkanie newer = listing(2, "Mokotów");
+        Mieszkanie older = listing(1, null);
+        when(listingDuplicateRepository.findById(10L)).thenReturn(Optional.of(duplicate));
+        when(mieszkanieRepository.findById(2)).thenReturn(Optional.of(newer));
+        when(mieszkanieRepository.findById(1)).thenReturn(Optional.of(older));
+        when(mieszkanieService.updateFromDTO(eq(1), any(UpdateMieszkanieDTO.class))).thenReturn(older);
+
+        // When
+        Mieszkanie result = duplicateService.merge(10L);
+
+        // Then
+        assertSame(older, result);
+        ArgumentCaptor<UpdateMieszkanieDTO> captor = ArgumentCaptor.forClass(UpdateMieszkanieDTO.class);
+        InOrder inOrder = inOrder(mieszkanieService, listingDuplicateRepository);
+        inOrder.verify(mieszkanieService).updateFromDTO(eq(1), captor.capture());
+        inOrder.verify(listingDuplicateRepository).save(duplicate);
+        inOrder.verify(mieszkanieService).deleteById(2);
+        assertEquals("Mokotów", captor.getValue().getDistrict());
+        assertNull(captor.getValue().getFloor());
+        assertEquals(ListingDuplicate.Status.MERGED, duplicate.getStatus());
+        assertNotNull(duplicate.getResolvedAt());
+    }
+
+    @Test
+    void merge_WhenAlreadyResolved_ShouldThrowIllegalArgumentException() {
+        // Given
+        when(listingDuplicateRepository.findById(10L))
+                .thenReturn(Optional.of(duplicate(ListingDuplicate.Status.DISMISSED)));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> duplicateService.merge(10L));
+        verify(mieszkanieService, never()).deleteById(anyInt());
+    }
+
+    @Test
+    void dismiss_ShouldMarkPairAsDismissed() {
+        // Given
+        ListingDuplicate duplicate = duplicate(ListingDuplicate.Status.PENDING);
+        when(listingDuplicateRepository.findById(10L)).thenReturn(Optional.of(duplicate));
+
+        // When
+        duplicateService.dismiss(10L);
+
+        // Then
+        assertEquals(ListingDuplicate.Status.DISMISSED, duplicate.getStatus());
+        verify(listingDuplicateRepository).save(duplicate);
+        verifyNoInteractions(mieszkanieService);
+    }
+
+    @Test
+    void dismiss_WhenNotFound_ShouldThrowResourceNotFoundException() {
+        // Given
+        when(listingDuplicateRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> duplicateService.dismiss(99L));
+    }
+
+    private static ListingDuplicate duplicate(ListingDuplicate.Status status) {
+        return new ListingDuplicate(10L, 2, 1, new BigDecimal("0.875"), status, LocalDateTime.now(), null);
+    }
+
+    private static Mieszkanie listing(int id, String district) {
+        Mieszkanie mieszkanie = new Mieszkanie();
+        mieszkanie.setId(id);
+        mieszkanie.setDeveloper("Dom Development");
+        mieszkanie.setInvestment("Zielony Zakątek");
+        mieszkanie.setNumber("A12");
+        mieszkanie.setArea(new BigDecimal("54.3"));
+        mieszkanie.setPrice(new BigDecimal("650000"));
+        mieszkanie.setCity("Warszawa");
+        mieszkanie.setDistrict(district);
+        mieszkanie.setFloor(3);
+        mieszkanie.setStatus(Mieszkanie.Status.AVAILABLE);
+        return mieszkanie;
+    }
+}
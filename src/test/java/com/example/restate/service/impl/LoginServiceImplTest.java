@@ -0,0 +1,133 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.config.BlockingIoExecutor;
+import com.example.restate.entity.Role;
+import com.example.restate.entity.User;
+import com.example.restate.repository.UserRepository;
+import com.example.restate.security.PasswordHashingExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoginServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private PasswordHashingExecutor passwordHashingExecutor;
+    private BlockingIoExecutor blockingIoExecutor;
+    private BCryptPasswordEncoder passwordEncoder;
+    private LoginServiceImpl loginService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // Niski koszt, żeby test był szybki
+        passwordEncoder = new BCryptPasswordEncoder(5);
+        passwordHashingExecutor = new PasswordHashingExecutor(2, 10, 1);
+        blockingIoExecutor = new BlockingIoExecutor();
+        loginService = new LoginServiceImpl(userRepository, passwordEncoder, passwordHashingExecutor,
+                blockingIoExecutor);
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+        user.setPassword(passwordEncoder.encode("password"));
+        user.setRole(Role.USER);
+        user.setEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingExecutor.destroy();
+        blockingIoExecutor.destroy();
+    }
+
+    @Test
+    void login_WithValidCredentials_ShouldReturnUserAfterSingleLookup() {
+        // Given
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        // When
+        User result = loginService.login("testuser", "password").join();
+
+        // Then
+        assertSame(user, result);
+        verify(userRepository, times(1)).findByUsername("testuser");
+        verify(userRepository, never()).updatePassword(anyLong(), anyString());
+    }
+
+    @Test
+    void login_WithWrongPassword_ShouldFailWithBadCredentials() {
+        // Given
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        // When
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> loginService.login("testuser", "wrong").join());
+
+        // Then
+        assertInstanceOf(BadCredentialsException.class, ex.getCause());
+    }
+
+    @Test
+    void login_WithUnknownUser_ShouldFailWithoutHashing() {
+        // Given
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        // When & Then
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> loginService.login("ghost", "password").join());
+        assertInstanceOf(BadCredentialsException.class, ex.getCause());
+    }
+
+    @Test
+    void login_WithDisabledUser_ShouldFail() {
+        // Given
+        user.setEnabled(false);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        // When & Then
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> loginService.login("testuser", "password").join());
+        assertInstanceOf(DisabledException.class, ex.getCause());
+    }
+
+    @Test
+    void login_WhenWorkFactorIncreased_ShouldRehashPasswordAndSaveItOutsideHashingPool() {
+        // Given - skrót zapisany z kosztem 4, bieżący koszt to 5
+        user.setPassword(new BCryptPasswordEncoder(4).encode("password"));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        AtomicReference<String> updatingThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            updatingThread.set(Thread.currentThread().getName());
+            return 1;
+        }).when(userRepository).updatePassword(eq(1L), anyString());
+
+        // When
+        User result = loginService.login("testuser", "password").join();
+
+        // Then
+        verify(userRepository).updatePassword(eq(1L), anyString());
+        assertFalse(updatingThread.get().startsWith("password-hashing-"));
+        assertTrue(result.getPassword().startsWith("$2a$05$"));
+        assertTrue(passwordEncoder.matches("password", result.getPassword()));
+    }
+}
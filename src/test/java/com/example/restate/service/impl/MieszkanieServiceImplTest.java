@@ -4,16 +4,20 @@ import com.example.restate.dto.MieszkanieSearchCriteria;
 import com.example.restate.dto.PageResponse;
 import com.example.restate.dto.UpdateMieszkanieDTO;
 import com.example.restate.entity.Mieszkanie;
+import com.example.restate.event.MieszkanieChangedEvent;
 import com.example.restate.exception.ResourceNotFoundException;
 import com.example.restate.repository.MieszkanieRepository;
+import com.example.restate.service.similar.SimilarListingIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -74,6 +78,12 @@ class MieszkanieServiceImplTest {
     @Mock
     private Path<Object> path;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SimilarListingIndex similarListingIndex;
+
     @InjectMocks
     private MieszkanieServiceImpl mieszkanieService;
 
@@ -191,6 +201,27 @@ class MieszkanieServiceImplTest {
         verify(mieszkanieRepository, times(1)).save(mieszkanie1);
     }
 
+    @Test
+    void save_NewMieszkanie_ShouldPublishCreatedEvent() {
+        // Given
+        Mieszkanie newMieszkanie = new Mieszkanie();
+        newMieszkanie.setCity("Test City");
+        when(mieszkanieRepository.save(newMieszkanie)).thenAnswer(invocation -> {
+            newMieszkanie.setId(10);
+            return newMieszkanie;
+        });
+
+        // When
+        mieszkanieService.save(newMieszkanie);
+
+        // Then
+        MieszkanieChangedEvent event = captureEvent();
+        assertEquals(MieszkanieChangedEvent.ChangeType.CREATED, event.getType());
+        assertEquals(10, event.getMieszkanieId());
+        assertNull(event.getPrevious());
+        assertEquals("Test City", event.getCurrent().getCity());
+    }
+
     @Test
     void update_WhenMieszkanieExists_ShouldUpdateAndReturnMieszkanie() {
         // Given
@@ -226,26 +257,33 @@ class MieszkanieServiceImplTest {
     @Test
     void deleteById_WhenMieszkanieExists_ShouldDeleteMieszkanie() {
         // Given
-        when(mieszkanieRepository.existsById(1)).thenReturn(true);
-        doNothing().when(mieszkanieRepository).deleteById(1);
+        when(mieszkanieRepository.findById(1)).thenReturn(Optional.of(mieszkanie1));
+        doNothing().when(mieszkanieRepository).delete(mieszkanie1);
 
         // When
         mieszkanieService.deleteById(1);
 
         // Then
-        verify(mieszkanieRepository, times(1)).existsById(1);
-        verify(mieszkanieRepository, times(1)).deleteById(1);
+        verify(mieszkanieRepository, times(1)).findById(1);
+        verify(mieszkanieRepository, times(1)).delete(mieszkanie1);
+
+        MieszkanieChangedEvent event = captureEvent();
+        assertEquals(MieszkanieChangedEvent.ChangeType.DELETED, event.getType());
+        assertEquals(1, event.getMieszkanieId());
+        assertEquals("Test City", event.getPrevious().getCity());
+        assertNull(event.getCurrent());
     }
 
     @Test
     void deleteById_WhenMieszkanieDoesNotExist_ShouldThrowException() {
         // Given
-        when(mieszkanieRepository.existsById(999)).thenReturn(false);
+        when(mieszkanieRepository.findById(999)).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(ResourceNotFoundException.class, () -> mieszkanieService.deleteById(999));
-        verify(mieszkanieRepository, times(1)).existsById(999);
-        verify(mieszkanieRepository, never()).deleteById(anyInt());
+        verify(mieszkanieRepository, times(1)).findById(999);
+        verify(mieszkanieRepository, never()).delete(any(Mieszkanie.class));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -352,6 +390,11 @@ class MieszkanieServiceImplTest {
         assertEquals(Mieszkanie.Status.SOLD, result.getStatus());
         verify(mieszkanieRepository, times(1)).findById(1);
         verify(mieszkanieRepository, times(1)).save(any(Mieszkanie.class));
+
+        MieszkanieChangedEvent event = captureEvent();
+        assertEquals(MieszkanieChangedEvent.ChangeType.STATUS_CHANGED, event.getType());
+        assertEquals(Mieszkanie.Status.AVAILABLE, event.getPrevious().getStatus());
+        assertEquals(Mieszkanie.Status.SOLD, event.getCurrent().getStatus());
     }
 
     @Test
@@ -383,6 +426,11 @@ class MieszkanieServiceImplTest {
         assertEquals(BigDecimal.valueOf(600000), result.getPrice());
         verify(mieszkanieRepository, times(1)).findById(1);
         verify(mieszkanieRepository, times(1)).save(any(Mieszkanie.class));
+
+        MieszkanieChangedEvent event = captureEvent();
+        assertEquals(MieszkanieChangedEvent.ChangeType.UPDATED, event.getType());
+        assertEquals(BigDecimal.valueOf(500000), event.getPrevious().getPrice());
+        assertEquals(BigDecimal.valueOf(600000), event.getCurrent().getPrice());
     }
 
     @Test
@@ -394,7 +442,7 @@ class MieszkanieServiceImplTest {
         dto.setNumber("Updated Number");
         dto.setArea(BigDecimal.valueOf(80.0));
         dto.setPrice(BigDecimal.valueOf(600000));
-        dto.setVoivodeship("Updated Voivodeship");
+        dto.setVoivodeship(" Wielkopolskie ");
         dto.setCity("Updated City");
         dto.setDistrict("Updated District");
         dto.setFloor(3);
@@ -412,7 +460,7 @@ class MieszkanieServiceImplTest {
         assertEquals("Updated Number", result.getNumber());
         assertEquals(BigDecimal.valueOf(80.0), result.getArea());
         assertEquals(BigDecimal.valueOf(600000), result.getPrice());
-        assertEquals("Updated Voivodeship", result.getVoivodeship());
+        assertEquals("wielkopolskie", result.getVoivodeship());
         assertEquals("Updated City", result.getCity());
         assertEquals("Updated District", result.getDistrict());
         assertEquals(3, result.getFloor());
@@ -582,9 +630,10 @@ class MieszkanieServiceImplTest {
 
         // Verify that the correct paths were accessed
         verify(root).get("developer");
+        verify(countRoot).get("developer");
 
-        // Verify that the correct predicates were created
-        verify(criteriaBuilder).equal(any(), eq("Developer1"));
+        // Verify that the correct predicates were created for both the page and the COUNT query
+        verify(criteriaBuilder, times(2)).equal(any(), eq("Developer1"));
     }
 
     @Test
@@ -647,13 +696,15 @@ class MieszkanieServiceImplTest {
 
         // Verify that the correct paths were accessed
         verify(root, times(2)).get("price"); // Once for minPrice and once for maxPrice
+        verify(countRoot, times(2)).get("price"); // Once for minPrice and once for maxPrice
         verify(root, times(2)).get("area"); // Once for minArea and once for maxArea
+        verify(countRoot, times(2)).get("area"); // Once for minArea and once for maxArea
 
-        // Verify that the correct predicates were created
-        verify(criteriaBuilder).greaterThanOrEqualTo(any(), eq(new BigDecimal("200000")));
-        verify(criteriaBuilder).lessThanOrEqualTo(any(), eq(new BigDecimal("500000")));
-        verify(criteriaBuilder).greaterThanOrEqualTo(any(), eq(new BigDecimal("50.0")));
-        verify(criteriaBuilder).lessThanOrEqualTo(any(), eq(new BigDecimal("100.0")));
+        // Verify that the correct predicates were created for both the page and the COUNT query
+        verify(criteriaBuilder, times(2)).greaterThanOrEqualTo(any(), eq(new BigDecimal("200000")));
+        verify(criteriaBuilder, times(2)).lessThanOrEqualTo(any(), eq(new BigDecimal("500000")));
+        verify(criteriaBuilder, times(2)).greaterThanOrEqualTo(any(), eq(new BigDecimal("50.0")));
+        verify(criteriaBuilder, times(2)).lessThanOrEqualTo(any(), eq(new BigDecimal("100.0")));
     }
 
     @Test
@@ -712,11 +763,13 @@ class MieszkanieServiceImplTest {
 
         // Verify that the correct paths were accessed
         verify(root).get("developer");
+        verify(countRoot).get("developer");
         verify(root).get("investment");
+        verify(countRoot).get("investment");
 
-        // Verify that the correct predicates were created
-        verify(criteriaBuilder).equal(any(), eq("Developer2"));
-        verify(criteriaBuilder).equal(any(), eq("Investment2"));
+        // Verify that the correct predicates were created for both the page and the COUNT query
+        verify(criteriaBuilder, times(2)).equal(any(), eq("Developer2"));
+        verify(criteriaBuilder, times(2)).equal(any(), eq("Investment2"));
     }
 
     @Test
@@ -864,4 +917,33 @@ class MieszkanieServiceImplTest {
         verify(root, never()).get("investment");
         verify(criteriaBuilder, never()).equal(any(), eq(""));
     }
+
+    private MieszkanieChangedEvent captureEvent() {
+        ArgumentCaptor<MieszkanieChangedEvent> captor = ArgumentCaptor.forClass(MieszkanieChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    void findSimilar_ShouldReturnListingsInIndexOrder() {
+        // Given
+        when(similarListingIndex.findSimilar(3, 2, Mieszkanie.Status.AVAILABLE)).thenReturn(List.of(2, 1));
+        when(mieszkanieRepository.findAllById(List.of(2, 1))).thenReturn(List.of(mieszkanie1, mieszkanie2));
+
+        // When
+        List<Mieszkanie> result = mieszkanieService.findSimilar(3, 2, Mieszkanie.Status.AVAILABLE);
+
+        // Then
+        assertEquals(List.of(mieszkanie2, mieszkanie1), result);
+    }
+
+    @Test
+    void findSimilar_WhenMieszkanieDoesNotExist_ShouldThrowResourceNotFoundException() {
+        // Given
+        when(similarListingIndex.findSimilar(999, 10, null)).thenReturn(List.of());
+        when(mieszkanieRepository.existsById(999)).thenReturn(false);
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> mieszkanieService.findSimilar(999, 10, null));
+    }
 }
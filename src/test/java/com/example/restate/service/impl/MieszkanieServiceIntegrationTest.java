@@ -459,7 +459,7 @@ void updateFromDTO_WithAllFields_ShouldUpdateAllFields() {
     assertEquals("U001", result.getNumber());
     assertEquals(BigDecimal.valueOf(95.5), result.getArea());
     assertEquals(BigDecimal.valueOf(850000), result.getPrice());
-    assertEquals("Małopolskie", result.getVoivodeship());
+    assertEquals("małopolskie", result.getVoivodeship());
     assertEquals("Kraków", result.getCity());
     assertEquals("Stare Miasto", result.getDistrict());
     assertEquals(15, result.getFloor());
@@ -0,0 +1,291 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.config.StartupWork;
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.PriceDistributionDTO;
+import com.example.restate.dto.PriceSample;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.repository.MieszkanieRepository;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceDistributionServiceImplTest {
+
+    @Mock
+    private MieszkanieRepository mieszkanieRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PriceDistributionServiceImpl priceDistributionService;
+
+    @BeforeEach
+    void setUp() {
+        priceDistributionService = new PriceDistributionServiceImpl(mieszkanieRepository, transactionManager,
+                new StartupWork(), 200);
+    }
+
+    @Test
+    void loadAll_ShouldBuildSketchPerSegment() {
+        // Given
+        stubTransaction();
+        when(mieszkanieRepository.streamPriceSamples()).thenReturn(Stream.of(
+                sample("Mokotów", Mieszkanie.Status.AVAILABLE, 500000, 50),
+                sample("Mokotów", Mieszkanie.Status.SOLD, 600000, 50),
+                sample("Wola", Mieszkanie.Status.AVAILABLE, 700000, 50)));
+
+        // When
+        priceDistributionService.loadAll();
+
+        // Then
+        assertEquals(3, priceDistributionService.getSegmentCount());
+        assertTrue(priceDistributionService.getLevelCount() > 0);
+        PriceDistributionDTO city = priceDistributionService.getDistribution(null, "Warszawa", null, null, null, null);
+        assertEquals(3, city.getListingCount());
+        assertEquals(new BigDecimal("500000.00"), city.getPrice().getMin());
+        assertEquals(new BigDecimal("600000.00"), city.getPrice().getQuantiles().get("p50"));
+        assertEquals(new BigDecimal("12000.00"), city.getPricePerM2().getQuantiles().get("p50"));
+    }
+
+    @Test
+    void getDistribution_ShouldMergeOnlyMatchingSegments() {
+        // Given
+        created(1, "Mokotów", Mieszkanie.Status.AVAILABLE, 500000);
+        created(2, "Mokotów", Mieszkanie.Status.RESERVED, 550000);
+        created(3, "Wola", Mieszkanie.Status.AVAILABLE, 900000);
+
+        // When
+        PriceDistributionDTO district = priceDistributionService.getDistribution(
+                null, "warszawa", "Mokotów", null, List.of(0.5, 0.999), BigDecimal.valueOf(520000));
+        PriceDistributionDTO available = priceDistributionService.getDistribution(
+                null, null, null, "available", null, null);
+
+        // Then
+        assertEquals(2, district.getListingCount());
+        assertEquals(List.of("p50", "p99.9"), List.copyOf(district.getPrice().getQuantiles().keySet()));
+        assertEquals(0.5, district.getPriceRank());
+        assertEquals("AVAILABLE", available.getStatus());
+        assertEquals(2, available.getListingCount());
+        assertTrue(available.getRankErrorBound() > 0 && available.getRankErrorBound() < 0.02);
+    }
+
+    @Test
+    void getDistribution_ShouldSeparateCitiesWithTheSameNameInOtherVoivodeships() {
+        // Given
+        MieszkanieDTO mazowieckie = listing(1, null, Mieszkanie.Status.AVAILABLE, 400000);
+        mazowieckie.setCity("Nowa Wieś");
+        MieszkanieDTO malopolskie = listing(2, null, Mieszkanie.Status.AVAILABLE, 300000);
+        malopolskie.setVoivodeship("małopolskie");
+        malopolskie.setCity("Nowa Wieś");
+        priceDistributionService.onMieszkanieChanged(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.CREATED, 1, null, mazowieckie));
+        priceDistributionService.onMieszkanieChanged(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.CREATED, 2, null, malopolskie));
+
+        // When
+        PriceDistributionDTO result = priceDistributionService.getDistribution(
+                "Małopolskie", "Nowa Wieś", null, null, null, null);
+
+        // Then
+        assertEquals(2, priceDistributionService.getSegmentCount());
+        assertEquals("Małopolskie", result.getVoivodeship());
+        assertEquals(1, result.getListingCount());
+        assertEquals(new BigDecimal("300000.00"), result.getPrice().getMax());
+    }
+
+    @Test
+    void getDistribution_ForEmptySegment_ShouldReturnZeroCount() {
+        // When
+        PriceDistributionDTO result = priceDistributionService.getDistribution(null, "Gdańsk", null, null, null, null);
+
+        // Then
+        assertEquals(0, result.getListingCount());
+        assertNull(result.getPrice());
+        assertNull(result.getPriceRank());
+    }
+
+    @Test
+    void getDistribution_WithInvalidInput_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () ->
+                priceDistributionService.getDistribution(null, null, null, "UNKNOWN_STATUS", null, null));
+        assertThrows(IllegalArgumentException.class, () ->
+                priceDistributionService.getDistribution(null, null, null, null, List.of(1.5), null));
+    }
+
+    @Test
+    void onMieszkanieChanged_WhenOnlyDescriptionChanges_ShouldNotMarkSegmentStale() {
+        // Given
+        MieszkanieDTO previous = listing(1, "Mokotów", Mieszkanie.Status.AVAILABLE, 500000);
+        MieszkanieDTO current = listing(1, "Mokotów", Mieszkanie.Status.AVAILABLE, 500000);
+        current.setDescription("Nowy opis");
+
+        // When
+        priceDistributionService.onMieszkanieChanged(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.UPDATED, 1, previous, current));
+
+        // Then
+        assertEquals(0, priceDistributionService.getStaleSegmentCount());
+    }
+
+    @Test
+    void onMieszkanieChanged_WhenPriceChanges_ShouldKeepOldPriceUntilRebuildWithoutCountingTwice() {
+        // Given
+        created(1, "Mokotów", Mieszkanie.Status.AVAILABLE, 500000);
+
+        // When
+        priceDistributionService.onMieszkanieChanged(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.UPDATED, 1,
+                listing(1, "Mokotów", Mieszkanie.Status.AVAILABLE, 500000),
+                listing(1, "Wola", Mieszkanie.Status.AVAILABLE, 650000)));
+
+        // Then
+        PriceDistributionDTO city = priceDistributionService.getDistribution(null, "Warszawa", null, null, null, null);
+        assertEquals(1, city.getListingCount());
+        assertEquals(new BigDecimal("500000.00"), city.getPrice().getMax());
+        assertEquals(2, priceDistributionService.getStaleSegmentCount());
+    }
+
+    @Test
+    void onInvalidation_FromAnotherNode_ShouldMarkSegmentsStale() {
+        // Given
+        CacheInvalidationMessage message = CacheInvalidationMessage.forMieszkanie(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.CREATED, 1, null,
+                listing(1, "Mokotów", Mieszkanie.Status.AVAILABLE, 500000)));
+        message.setRemote(true);
+        stubTransaction();
+        when(mieszkanieRepository.findPriceSamples("mazowieckie", "Warszawa", "Mokotów", Mieszkanie.Status.AVAILABLE))
+                .thenReturn(List.of(sample("Mokotów", Mieszkanie.Status.AVAILABLE, 500000, 50)));
+
+        // When
+        priceDistributionService.onInvalidation(message);
+        priceDistributionService.rebuildStaleSegments();
+
+        // Then
+        PriceDistributionDTO voivodeship = priceDistributionService.getDistribution(
+                "Mazowieckie", null, null, "AVAILABLE", null, null);
+        assertEquals(1, voivodeship.getListingCount());
+    }
+
+    @Test
+    void onInvalidation_FromThisNode_ShouldBeIgnored() {
+        // When
+        priceDistributionService.onInvalidation(CacheInvalidationMessage.forMieszkanie(
+                MieszkanieChangedEvent.deleted(listing(1, "Wola", Mieszkanie.Status.SOLD, 500000))));
+
+        // Then
+        assertEquals(0, priceDistributionService.getStaleSegmentCount());
+    }
+
+    @Test
+    void onFullFlush_ShouldReloadAllSegmentsOnNextRebuild() {
+        // Given
+        stubTransaction();
+        when(mieszkanieRepository.streamPriceSamples()).thenReturn(Stream.of(
+                sample("Wola", Mieszkanie.Status.AVAILABLE, 700000, 50)));
+
+        // When
+        priceDistributionService.onFullFlush();
+        priceDistributionService.rebuildStaleSegments();
+
+        // Then
+        assertEquals(1, priceDistributionService.getSegmentCount());
+        assertEquals(1, priceDistributionService.getDistribution(null, null, "Wola", null, null, null)
+                .getListingCount());
+    }
+
+    @Test
+    void rebuildStaleSegments_AfterDelete_ShouldReloadSegmentFromDatabase() {
+        // Given
+        created(1, "Mokotów", Mieszkanie.Status.AVAILABLE, 500000);
+        created(2, "Mokotów", Mieszkanie.Status.AVAILABLE, 900000);
+        priceDistributionService.onMieszkanieChanged(MieszkanieChangedEvent.deleted(
+                listing(2, "Mokotów", Mieszkanie.Status.AVAILABLE, 900000)));
+        stubTransaction();
+        when(mieszkanieRepository.findPriceSamples("mazowieckie", "Warszawa", "Mokotów", Mieszkanie.Status.AVAILABLE))
+                .thenReturn(List.of(sample("Mokotów", Mieszkanie.Status.AVAILABLE, 500000, 50)));
+
+        // When
+        int rebuilt = priceDistributionService.rebuildStaleSegments();
+
+        // Then
+        assertEquals(1, rebuilt);
+        assertEquals(0, priceDistributionService.getStaleSegmentCount());
+        PriceDistributionDTO result = priceDistributionService.getDistribution(
+                null, "Warszawa", "Mokotów", null, null, null);
+        assertEquals(1, result.getListingCount());
+        assertEquals(new BigDecimal("500000.00"), result.getPrice().getMax());
+    }
+
+    @Test
+    void rebuildStaleSegments_WhenSegmentBecameEmpty_ShouldDropIt() {
+        // Given
+        created(1, "Wola", Mieszkanie.Status.SOLD, 500000);
+        priceDistributionService.onMieszkanieChanged(MieszkanieChangedEvent.deleted(
+                listing(1, "Wola", Mieszkanie.Status.SOLD, 500000)));
+        stubTransaction();
+        when(mieszkanieRepository.findPriceSamples("mazowieckie", "Warszawa", "Wola", Mieszkanie.Status.SOLD))
+                .thenReturn(List.of());
+
+        // When
+        priceDistributionService.rebuildStaleSegments();
+
+        // Then
+        assertEquals(0, priceDistributionService.getSegmentCount());
+    }
+
+    @Test
+    void rebuildStaleSegments_WhenQueryFails_ShouldKeepSegmentStale() {
+        // Given
+        priceDistributionService.onMieszkanieChanged(MieszkanieChangedEvent.deleted(
+                listing(1, "Wola", Mieszkanie.Status.SOLD, 500000)));
+        stubTransaction();
+        when(mieszkanieRepository.findPriceSamples(any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("db down"));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> priceDistributionService.rebuildStaleSegments());
+        assertEquals(1, priceDistributionService.getStaleSegmentCount());
+    }
+
+    private void created(int id, String district, Mieszkanie.Status status, int price) {
+        priceDistributionService.onMieszkanieChanged(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.CREATED, id, null, listing(id, district, status, price)));
+    }
+
+    private void stubTransaction() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    private static MieszkanieDTO listing(int id, String district, Mieszkanie.Status status, int price) {
+        return MieszkanieDTO.builder()
+                .id(id)
+                .voivodeship("mazowieckie")
+                .city("Warszawa")
+                .district(district)
+                .status(status)
+                .price(BigDecimal.valueOf(price))
+                .area(BigDecimal.valueOf(50))
+                .build();
+    }
+
+    private static PriceSample sample(String district, Mieszkanie.Status status, int price, int area) {
+        return new PriceSample("mazowieckie", "Warszawa", district, status,
+                BigDecimal.valueOf(price), BigDecimal.valueOf(area));
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.PriceHistoryDTO;
+import com.example.restate.dto.PriceIndexPointDTO;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.entity.PriceHistoryEntry;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.exception.ResourceNotFoundException;
+import com.example.restate.repository.MieszkanieRepository;
+import com.example.restate.repository.PriceHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceHistoryServiceImplTest {
+
+    @Mock
+    private PriceHistoryRepository priceHistoryRepository;
+
+    @Mock
+    private MieszkanieRepository mieszkanieRepository;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private PriceHistoryServiceImpl priceHistoryService;
+
+    @Test
+    void onMieszkanieChanged_WhenPriceChanges_ShouldAppendUpdateEntry() {
+        // Given
+        MieszkanieChangedEvent event = new MieszkanieChangedEvent(MieszkanieChangedEvent.ChangeType.UPDATED, 1,
+                listing(500000), listing(480000));
+
+        // When
+        priceHistoryService.onMieszkanieChanged(event);
+
+        // Then
+        ArgumentCaptor<PriceHistoryEntry> captor = ArgumentCaptor.forClass(PriceHistoryEntry.class);
+        verify(priceHistoryRepository).save(captor.capture());
+        PriceHistoryEntry entry = captor.getValue();
+        assertEquals(1, entry.getMieszkanieId());
+        assertEquals(BigDecimal.valueOf(480000), entry.getPrice());
+        assertEquals("Osiedle Zielone", entry.getInvestment());
+        assertEquals(PriceHistoryEntry.Source.UPDATE, entry.getSource());
+        assertNotNull(entry.getChangedAt());
+    }
+
+    @Test
+    void onMieszkanieChanged_WhenPriceIsUnchanged_ShouldNotWrite() {
+        // Given - ta sama cena w innej skali
+        MieszkanieDTO current = listing(500000);
+        current.setPrice(new BigDecimal("500000.00"));
+        current.setStatus(Mieszkanie.Status.SOLD);
+
+        // When
+        priceHistoryService.onMieszkanieChanged(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.STATUS_CHANGED, 1, listing(500000), current));
+
+        // Then
+        verifyNoInteractions(priceHistoryRepository);
+    }
+
+    @Test
+    void onMieszkanieChanged_OnCreateAndDelete_ShouldRecordBothEnds() {
+        // When
+        priceHistoryService.onMieszkanieChanged(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.CREATED, 1, null, listing(500000)));
+        priceHistoryService.onMieszkanieChanged(MieszkanieChangedEvent.deleted(listing(500000)));
+
+        // Then
+        ArgumentCaptor<PriceHistoryEntry> captor = ArgumentCaptor.forClass(PriceHistoryEntry.class);
+        verify(priceHistoryRepository, times(2)).save(captor.capture());
+        assertEquals(PriceHistoryEntry.Source.CREATE, captor.getAllValues().get(0).getSource());
+        assertEquals(PriceHistoryEntry.Source.DELETE, captor.getAllValues().get(1).getSource());
+        assertNull(captor.getAllValues().get(1).getPrice());
+    }
+
+    @Test
+    void getHistory_ShouldComputeChangesBetweenEntries() {
+        // Given
+        when(priceHistoryRepository.findByMieszkanieIdOrderByChangedAtAscIdAsc(1)).thenReturn(List.of(
+                entry(500000, PriceHistoryEntry.Source.IMPORT),
+                entry(450000, PriceHistoryEntry.Source.UPDATE)));
+
+        // When
+        List<PriceHistoryDTO> history = priceHistoryService.getHistory(1);
+
+        // Then
+        assertEquals(2, history.size());
+        assertNull(history.get(0).getChange());
+        assertEquals(new BigDecimal("10000.00"), history.get(0).getPricePerM2());
+        assertEquals(BigDecimal.valueOf(-50000), history.get(1).getChange());
+        assertEquals(new BigDecimal("-10.00"), history.get(1).getChangePercent());
+        verifyNoInteractions(mieszkanieRepository);
+    }
+
+    @Test
+    void getHistory_WhenMieszkanieDoesNotExist_ShouldThrowResourceNotFoundException() {
+        // Given
+        when(priceHistoryRepository.findByMieszkanieIdOrderByChangedAtAscIdAsc(999)).thenReturn(List.of());
+        when(mieszkanieRepository.existsById(999)).thenReturn(false);
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> priceHistoryService.getHistory(999));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getInvestmentIndex_ShouldUseFirstMonthWithListingsAsBase() {
+        // Given
+        List<PriceIndexPointDTO> points = new ArrayList<>(List.of(
+                point(YearMonth.of(2024, 1), null),
+                point(YearMonth.of(2024, 2), new BigDecimal("10000.00")),
+                point(YearMonth.of(2024, 3), new BigDecimal("10500.00"))));
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(points);
+
+        // When
+        List<PriceIndexPointDTO> result = priceHistoryService.getInvestmentIndex(
+                "Osiedle Zielone", YearMonth.of(2024, 1), YearMonth.of(2024, 3));
+
+        // Then
+        assertNull(result.get(0).getIndex());
+        assertEquals(new BigDecimal("100.00"), result.get(1).getIndex());
+        assertEquals(new BigDecimal("105.00"), result.get(2).getIndex());
+    }
+
+    @Test
+    void getInvestmentIndex_WithInvalidRange_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> priceHistoryService.getInvestmentIndex(
+                "Osiedle Zielone", YearMonth.of(2024, 5), YearMonth.of(2024, 1)));
+        assertThrows(IllegalArgumentException.class, () -> priceHistoryService.getInvestmentIndex(
+                "Osiedle Zielone", YearMonth.of(2000, 1), YearMonth.of(2024, 1)));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static MieszkanieDTO listing(int price) {
+        return MieszkanieDTO.builder()
+                .id(1)
+                .investment("Osiedle Zielone")
+                .price(BigDecimal.valueOf(price))
+                .area(BigDecimal.valueOf(50))
+                .status(Mieszkanie.Status.AVAILABLE)
+                .build();
+    }
+
+    private static PriceHistoryEntry entry(int price, PriceHistoryEntry.Source source) {
+        PriceHistoryEntry entry = new PriceHistoryEntry();
+        entry.setMieszkanieId(1);
+        entry.setPrice(BigDecimal.valueOf(price));
+        entry.setArea(BigDecimal.valueOf(50));
+        entry.setSource(source);
+        entry.setChangedAt(LocalDateTime.now());
+        return entry;
+    }
+
+    private static PriceIndexPointDTO point(YearMonth month, BigDecimal avgPricePerM2) {
+        return PriceIndexPointDTO.builder().month(month).avgPricePerM2(avgPricePerM2).build();
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.PriceStatsResponse;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.entity.PriceStats;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.repository.PriceStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceStatsServiceImplTest {
+
+    @Mock
+    private PriceStatsRepository priceStatsRepository;
+
+    @Mock
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PriceStatsServiceImpl priceStatsService;
+
+    @BeforeEach
+    void setUp() {
+        priceStatsService = new PriceStatsServiceImpl(priceStatsRepository, namedJdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void getStats_WithoutStatus_ShouldReturnAllStatusesAggregate() {
+        // Given
+        PriceStats older = stats("Warszawa", LocalDateTime.of(2024, 1, 1, 3, 30));
+        PriceStats newer = stats("Kraków", LocalDateTime.of(2024, 1, 2, 3, 30));
+        when(priceStatsRepository.findStats(PriceStats.GroupType.CITY, PriceStats.ALL_STATUSES, null, null))
+                .thenReturn(List.of(older, newer));
+
+        // When
+        PriceStatsResponse response = priceStatsService.getStats(PriceStats.GroupType.CITY, null, null, null);
+
+        // Then
+        assertEquals("CITY", response.getGroupBy());
+        assertEquals(PriceStats.ALL_STATUSES, response.getStatus());
+        assertEquals(2, response.getStats().size());
+        assertEquals(newer.getRefreshedAt(), response.getLastRefreshedAt());
+        assertEquals(BigDecimal.valueOf(700000), response.getStats().get(0).getPrice().getMedian());
+    }
+
+    @Test
+    void getStats_ShouldNormalizeStatus() {
+        // Given
+        when(priceStatsRepository.findStats(PriceStats.GroupType.DISTRICT, "AVAILABLE", null, "Warszawa"))
+                .thenReturn(List.of());
+
+        // When
+        PriceStatsResponse response = priceStatsService.getStats(PriceStats.GroupType.DISTRICT, "available", null, "Warszawa");
+
+        // Then
+        assertEquals("AVAILABLE", response.getStatus());
+        assertTrue(response.getStats().isEmpty());
+        assertNull(response.getLastRefreshedAt());
+    }
+
+    @Test
+    void getStats_WithInvalidStatus_ShouldThrowIllegalArgumentException() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () ->
+                priceStatsService.getStats(PriceStats.GroupType.CITY, "UNKNOWN_STATUS", null, null));
+        verifyNoInteractions(priceStatsRepository);
+    }
+
+    @Test
+    void refreshDirtyGroups_WithoutChanges_ShouldNotTouchDatabase() {
+        // When
+        int refreshed = priceStatsService.refreshDirtyGroups();
+
+        // Then
+        assertEquals(0, refreshed);
+        verifyNoInteractions(namedJdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void refreshDirtyGroups_ShouldRecalculateOnlyGroupsOfChangedListing() {
+        // Given
+        stubTransaction();
+        MieszkanieDTO previous = listing("Mokotów");
+        MieszkanieDTO current = listing("Wola");
+        priceStatsService.onMieszkanieChanged(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.UPDATED, 1, previous, current));
+
+        // When
+        int refreshed = priceStatsService.refreshDirtyGroups();
+
+        // Then - województwo, miasto i inwestycja się nie zmieniły, dzielnice są dwie
+        assertEquals(5, refreshed);
+        assertEquals(0, priceStatsService.getDirtyGroupCount());
+        verify(jdbcTemplate).execute(startsWith("SELECT pg_advisory_xact_lock"));
+
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(namedJdbcTemplate, times(4)).update(startsWith("DELETE FROM price_stats"), params.capture());
+        verify(namedJdbcTemplate, times(4)).update(startsWith("INSERT INTO price_stats"), any(MapSqlParameterSource.class));
+
+        MapSqlParameterSource districtParams = params.getAllValues().stream()
+                .filter(p -> "DISTRICT".equals(p.getValue("groupType")))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(List.of("mazowieckie|Warszawa|Mokotów", "mazowieckie|Warszawa|Wola").stream().sorted().toList(),
+                ((List<?>) districtParams.getValue("keys")).stream().map(String::valueOf).sorted().toList());
+    }
+
+    @Test
+    void refreshDirtyGroups_WhenRefreshFails_ShouldKeepGroupsDirty() {
+        // Given
+        stubTransaction();
+        when(namedJdbcTemplate.update(anyString(), any(MapSqlParameterSource.class)))
+                .thenThrow(new IllegalStateException("db down"));
+        priceStatsService.onMieszkanieChanged(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.CREATED, 1, null, listing("Mokotów")));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> priceStatsService.refreshDirtyGroups());
+        assertEquals(4, priceStatsService.getDirtyGroupCount());
+    }
+
+    @Test
+    void refreshAll_ShouldRebuildEveryGroupTypeUnderLock() {
+        // Given
+        stubTransaction();
+
+        // When
+        priceStatsService.refreshAll();
+
+        // Then
+        verify(jdbcTemplate).execute(startsWith("SELECT pg_advisory_xact_lock"));
+        verify(jdbcTemplate).update("DELETE FROM price_stats");
+        verify(namedJdbcTemplate, times(PriceStats.GroupType.values().length))
+                .update(startsWith("INSERT INTO price_stats"), any(MapSqlParameterSource.class));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void insertSql_ShouldAggregatePerStatusAndAcrossStatuses() {
+        // When
+        String sql = PriceStatsServiceImpl.insertSql(PriceStats.GroupType.DISTRICT, null);
+
+        // Then
+        assertTrue(sql.contains("GROUP BY GROUPING SETS ((voivodeship, city, district, status), (voivodeship, city, district))"));
+        assertTrue(sql.contains("percentile_cont(0.9)"));
+        assertTrue(sql.contains("NULLIF(area, 0)"));
+        assertFalse(sql.contains("WHERE"));
+    }
+
+    @Test
+    void leadingFilter_ShouldUseLeadingColumnAndHandleMissingValues() {
+        // When
+        String filter = PriceStatsServiceImpl.leadingFilter(PriceStats.GroupType.INVESTMENT, true, true);
+
+        // Then
+        assertTrue(filter.startsWith("(investment IN (:leadingValues) OR investment IS NULL)"));
+        assertTrue(filter.endsWith("IN (:keys)"));
+    }
+
+    @Test
+    void groupKey_ShouldTreatMissingDimensionAsEmpty() {
+        // Given
+        MieszkanieDTO mieszkanie = listing(null);
+
+        // When
+        String key = PriceStatsServiceImpl.groupKey(List.of("voivodeship", "city", "district"), mieszkanie);
+
+        // Then
+        assertEquals("mazowieckie|Warszawa|", key);
+    }
+
+    private void stubTransaction() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(namedJdbcTemplate.getJdbcTemplate()).thenReturn(jdbcTemplate);
+    }
+
+    private static MieszkanieDTO listing(String district) {
+        return MieszkanieDTO.builder()
+                .id(1)
+                .voivodeship("mazowieckie")
+                .city("Warszawa")
+                .district(district)
+                .investment("Osiedle Zielone")
+                .price(BigDecimal.valueOf(700000))
+                .area(BigDecimal.valueOf(50))
+                .status(Mieszkanie.Status.AVAILABLE)
+                .build();
+    }
+
+    private static PriceStats stats(String city, LocalDateTime refreshedAt) {
+        PriceStats stats = new PriceStats();
+        stats.setGroupType(PriceStats.GroupType.CITY);
+        stats.setCity(city);
+        stats.setStatus(PriceStats.ALL_STATUSES);
+        stats.setListingCount(10);
+        stats.setMedianPrice(BigDecimal.valueOf(700000));
+        stats.setRefreshedAt(refreshedAt);
+        return stats;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.entity.SavedSearch;
+import com.example.restate.entity.User;
+import com.example.restate.exception.ResourceNotFoundException;
+import com.example.restate.repository.SavedSearchRepository;
+import com.example.restate.repository.UserRepository;
+import com.example.restate.service.cache.CacheInvalidationBus;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SavedSearchServiceImplTest {
+
+    @Mock
+    private SavedSearchRepository savedSearchRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    private SavedSearchServiceImpl savedSearchService;
+    private User user;
+    private MieszkanieSearchCriteria criteria;
+
+    @BeforeEach
+    void setUp() {
+        savedSearchService = new SavedSearchServiceImpl(savedSearchRepository, userRepository, cacheInvalidationBus, 2);
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+
+        criteria = MieszkanieSearchCriteria.builder()
+                .city("Warsaw")
+                .maxPrice(BigDecimal.valueOf(600000))
+                .status("AVAILABLE")
+                .build();
+    }
+
+    @Test
+    void findByUsername_ShouldReturnSavedSearchesOfUser() {
+        // Given
+        SavedSearch savedSearch = new SavedSearch();
+        when(savedSearchRepository.findByUserUsernameOrderByCreatedAtDesc("testuser")).thenReturn(List.of(savedSearch));
+
+        // When
+        List<SavedSearch> result = savedSearchService.findByUsername("testuser");
+
+        // Then
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    void create_ShouldSaveSearchAndPublishItToMatchers() {
+        // Given
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(savedSearchRepository.countByUserUsername("testuser")).thenReturn(0L);
+        when(savedSearchRepository.save(any(SavedSearch.class))).thenAnswer(invocation -> {
+            SavedSearch saved = invocation.getArgument(0);
+            saved.setId(5L);
+            return saved;
+        });
+
+        // When
+        SavedSearch result = savedSearchService.create("testuser", "Warsaw", criteria);
+
+        // Then
+        assertEquals(5L, result.getId());
+        assertEquals(user, result.getUser());
+        assertEquals("Warsaw", result.getCity());
+        assertEquals(criteria, result.toCriteria());
+        verify(cacheInvalidationBus).publish(argThat(message ->
+                CacheInvalidationMessage.SAVED_SEARCH.equals(message.getEntity()) && "5".equals(message.getId())));
+    }
+
+    @Test
+    void create_WhenUserNotFound_ShouldThrowException() {
+        // Given
+        when(userRepository.findByUsername("unknown")).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> savedSearchService.create("unknown", "Warsaw", criteria));
+        verify(savedSearchRepository, never()).save(any());
+    }
+
+    @Test
+    void create_WithInvalidStatus_ShouldThrowException() {
+        // Given
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        criteria.setStatus("UNKNOWN");
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> savedSearchService.create("testuser", "Warsaw", criteria));
+        verify(savedSearchRepository, never()).save(any());
+    }
+
+    @Test
+    void create_WhenLimitReached_ShouldThrowException() {
+        // Given
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(savedSearchRepository.countByUserUsername("testuser")).thenReturn(2L);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> savedSearchService.create("testuser", "Warsaw", criteria));
+        verify(savedSearchRepository, never()).save(any());
+    }
+
+    @Test
+    void delete_WhenOwnedByUser_ShouldDeleteAndPublishRemoval() {
+        // Given
+        SavedSearch savedSearch = new SavedSearch();
+        savedSearch.setId(5L);
+        when(savedSearchRepository.findByIdAndUserUsername(5L, "testuser")).thenReturn(Optional.of(savedSearch));
+
+        // When
+        savedSearchService.delete("testuser", 5L);
+
+        // Then
+        verify(savedSearchRepository).delete(savedSearch);
+        verify(cacheInvalidationBus).publish(argThat(message ->
+                CacheInvalidationMessage.SAVED_SEARCH.equals(message.getEntity()) && "5".equals(message.getId())));
+    }
+
+    @Test
+    void delete_WhenNotOwnedByUser_ShouldThrowException() {
+        // Given
+        when(savedSearchRepository.findByIdAndUserUsername(5L, "other")).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> savedSearchService.delete("other", 5L));
+        verify(savedSearchRepository, never()).delete(any());
+        verify(cacheInvalidationBus, never()).publish(any());
+    }
+}
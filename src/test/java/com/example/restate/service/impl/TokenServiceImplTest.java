@@ -0,0 +1,213 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.dto.AuthResponse;
+import com.example.restate.entity.RefreshToken;
+import com.example.restate.entity.RevokedToken;
+import com.example.restate.entity.Role;
+import com.example.restate.entity.User;
+import com.example.restate.exception.AuthenticationException;
+import com.example.restate.repository.RefreshTokenRepository;
+import com.example.restate.repository.RevokedTokenRepository;
+import com.example.restate.repository.UserRepository;
+import com.example.restate.security.TokenRevocationList;
+import com.example.restate.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenServiceImplTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T12:00:00Z");
+    private static final LocalDateTime NOW_UTC = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    private TokenServiceImpl tokenService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokenService = new TokenServiceImpl(jwtUtil, userRepository, refreshTokenRepository, revokedTokenRepository,
+                tokenRevocationList, Duration.ofDays(14), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+        user.setRole(Role.USER);
+        user.setEnabled(true);
+    }
+
+    @Test
+    void issueTokens_ShouldStoreOnlyHashOfRefreshToken() {
+        // Given
+        when(jwtUtil.generateToken(user)).thenReturn("access.jwt.token");
+
+        // When
+        AuthResponse response = tokenService.issueTokens(user);
+
+        // Then
+        assertEquals("testuser", response.getUsername());
+        assertEquals("access.jwt.token", response.getToken());
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        RefreshToken stored = captor.getValue();
+        assertEquals(JwtUtil.sha256(response.getRefreshToken()), stored.getTokenHash());
+        assertNotEquals(response.getRefreshToken(), stored.getTokenHash());
+        assertEquals("testuser", stored.getUsername());
+        assertEquals(NOW_UTC.plusDays(14), stored.getExpiresAt());
+    }
+
+    @Test
+    void refresh_WithValidToken_ShouldRotateWithinFamily() {
+        // Given
+        RefreshToken stored = refreshToken("family-1", NOW_UTC.plusDays(1));
+        when(refreshTokenRepository.findByTokenHashForUpdate(JwtUtil.sha256("old-refresh"))).thenReturn(Optional.of(stored));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(jwtUtil.generateToken(user)).thenReturn("new.jwt.token");
+
+        // When
+        AuthResponse response = tokenService.refresh("old-refresh");
+
+        // Then
+        assertEquals("new.jwt.token", response.getToken());
+        assertNotEquals("old-refresh", response.getRefreshToken());
+        assertEquals(NOW_UTC, stored.getRotatedAt());
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        assertEquals("family-1", captor.getValue().getFamilyId());
+    }
+
+    @Test
+    void refresh_WithRotatedToken_ShouldRevokeWholeFamily() {
+        // Given - wymieniony token użyty drugi raz
+        RefreshToken stored = refreshToken("family-1", NOW_UTC.plusDays(1));
+        stored.setRotatedAt(NOW_UTC.minusMinutes(5));
+        when(refreshTokenRepository.findByTokenHashForUpdate(anyString())).thenReturn(Optional.of(stored));
+
+        // When & Then
+        assertThrows(AuthenticationException.class, () -> tokenService.refresh("old-refresh"));
+        verify(refreshTokenRepository).revokeFamily("family-1", NOW_UTC);
+        verify(jwtUtil, never()).generateToken(any(User.class));
+    }
+
+    @Test
+    void refresh_WithExpiredOrUnknownToken_ShouldThrowAuthenticationException() {
+        // Given
+        RefreshToken expired = refreshToken("family-1", NOW_UTC.minusSeconds(1));
+        when(refreshTokenRepository.findByTokenHashForUpdate(JwtUtil.sha256("expired"))).thenReturn(Optional.of(expired));
+        when(refreshTokenRepository.findByTokenHashForUpdate(JwtUtil.sha256("unknown"))).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(AuthenticationException.class, () -> tokenService.refresh("expired"));
+        assertThrows(AuthenticationException.class, () -> tokenService.refresh("unknown"));
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void refresh_WhenUserIsDisabled_ShouldRevokeFamily() {
+        // Given
+        user.setEnabled(false);
+        RefreshToken stored = refreshToken("family-1", NOW_UTC.plusDays(1));
+        when(refreshTokenRepository.findByTokenHashForUpdate(anyString())).thenReturn(Optional.of(stored));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+
+        // When & Then
+        assertThrows(AuthenticationException.class, () -> tokenService.refresh("old-refresh"));
+        verify(refreshTokenRepository).revokeFamily("family-1", NOW_UTC);
+    }
+
+    @Test
+    void logout_ShouldRevokeAccessTokenUntilItExpiresAndRefreshTokenFamily() {
+        // Given
+        Date expiration = Date.from(NOW.plusSeconds(900));
+        when(jwtUtil.extractClaims("access.jwt.token"))
+                .thenReturn(Jwts.claims().id("token-id").subject("testuser").expiration(expiration).build());
+        when(revokedTokenRepository.save(any(RevokedToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(refreshTokenRepository.findByTokenHash(JwtUtil.sha256("refresh")))
+                .thenReturn(Optional.of(refreshToken("family-1", NOW_UTC.plusDays(1))));
+
+        // When
+        tokenService.logout("access.jwt.token", "refresh");
+
+        // Then
+        ArgumentCaptor<RevokedToken> captor = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(captor.capture());
+        assertEquals("token-id", captor.getValue().getTokenKey());
+        assertEquals(NOW_UTC.plusSeconds(900), captor.getValue().getExpiresAt());
+        verify(tokenRevocationList).add(captor.getValue());
+        verify(refreshTokenRepository).revokeFamily("family-1", NOW_UTC);
+    }
+
+    @Test
+    void logout_WithInvalidAccessToken_ShouldNotRevokeAnything() {
+        // Given
+        when(jwtUtil.extractClaims("garbage")).thenThrow(new IllegalArgumentException("Invalid JWT token"));
+
+        // When
+        tokenService.logout("garbage", null);
+
+        // Then
+        verify(revokedTokenRepository, never()).save(any());
+        verifyNoInteractions(tokenRevocationList);
+    }
+
+    @Test
+    void revokeAllTokens_ShouldRevokeUserAccessTokensAndRefreshTokens() {
+        // Given
+        when(jwtUtil.getExpirationMs()).thenReturn(900_000L);
+        when(revokedTokenRepository.save(any(RevokedToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        tokenService.revokeAllTokens("testuser");
+
+        // Then
+        ArgumentCaptor<RevokedToken> captor = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(captor.capture());
+        assertEquals(TokenRevocationList.USER_KEY + "testuser", captor.getValue().getTokenKey());
+        assertEquals(NOW_UTC, captor.getValue().getRevokedAt());
+        assertEquals(NOW_UTC.plusMinutes(15), captor.getValue().getExpiresAt());
+        verify(tokenRevocationList).add(captor.getValue());
+        verify(refreshTokenRepository).revokeAllForUser("testuser", NOW_UTC);
+    }
+
+    private static RefreshToken refreshToken(String familyId, LocalDateTime expiresAt) {
+        RefreshToken token = new RefreshToken();
+        token.setId(10L);
+        token.setFamilyId(familyId);
+        token.setUsername("testuser");
+        token.setCreatedAt(NOW_UTC.minusDays(1));
+        token.setExpiresAt(expiresAt);
+        return token;
+    }
+}
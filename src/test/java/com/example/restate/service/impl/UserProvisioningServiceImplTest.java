@@ -0,0 +1,185 @@
+package com.example.restate.service.impl;
+
+import com.example.restate.dto.BulkUserResultDTO;
+import com.example.restate.dto.RegisterRequest;
+import com.example.restate.security.PasswordHashingExecutor;
+import com.example.restate.service.cache.CacheInvalidationBus;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class UserProvisioningServiceImplTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private ValidatorFactory validatorFactory;
+    private PasswordHashingExecutor passwordHashingExecutor;
+    private UserProvisioningServiceImpl provisioningService;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        Validator validator = validatorFactory.getValidator();
+        passwordHashingExecutor = new PasswordHashingExecutor(2, 4, 1);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        provisioningService = new UserProvisioningServiceImpl(jdbcTemplate, transactionManager, passwordEncoder,
+                passwordHashingExecutor, validator, cacheInvalidationBus, 100, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingExecutor.destroy();
+        validatorFactory.close();
+    }
+
+    @Test
+    void createUsers_ShouldInsertValidUsersInBatchesWithHashedPasswords() {
+        // Given
+        List<RegisterRequest> users = List.of(user("agent1"), user("agent2"), user("agent3"));
+        givenExistingUsers();
+        List<SqlParameterSource[]> batches = givenInsertCounts();
+
+        // When
+        BulkUserResultDTO result = provisioningService.createUsers(users);
+
+        // Then
+        assertEquals(3, result.getCreated());
+        assertEquals(0, result.getRejected());
+        assertTrue(result.getResults().stream().allMatch(item -> item.getStatus() == BulkUserResultDTO.Status.CREATED));
+        assertEquals(List.of(2, 1), batches.stream().map(batch -> batch.length).toList());
+        String hash = (String) batches.get(0)[0].getValue("password");
+        assertTrue(passwordEncoder.matches("password1", hash));
+        verify(jdbcTemplate, times(1)).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+        ArgumentCaptor<CacheInvalidationMessage> captor = ArgumentCaptor.forClass(CacheInvalidationMessage.class);
+        verify(cacheInvalidationBus).publish(captor.capture());
+        assertEquals(List.of("username:agent1", "username:agent2", "username:agent3"), captor.getValue().getKeys());
+    }
+
+    @Test
+    void createUsers_ShouldReportInvalidAndDuplicateUsersPerEntry() {
+        // Given
+        RegisterRequest invalid = user("agent2");
+        invalid.setEmail("not-an-email");
+        RegisterRequest sameEmail = user("agent5");
+        sameEmail.setEmail("agent4@example.com");
+        List<RegisterRequest> users = List.of(user("agent1"), invalid, user("taken"), user("agent4"), sameEmail,
+                user("agent1"));
+        givenExistingUsers("taken", "taken@example.com");
+        List<SqlParameterSource[]> batches = givenInsertCounts();
+
+        // When
+        BulkUserResultDTO result = provisioningService.createUsers(users);
+
+        // Then
+        assertEquals(2, result.getCreated());
+        assertEquals(4, result.getRejected());
+        assertEquals(List.of(
+                        BulkUserResultDTO.Status.CREATED,
+                        BulkUserResultDTO.Status.INVALID,
+                        BulkUserResultDTO.Status.DUPLICATE,
+                        BulkUserResultDTO.Status.CREATED,
+                        BulkUserResultDTO.Status.DUPLICATE,
+                        BulkUserResultDTO.Status.DUPLICATE),
+                result.getResults().stream().map(BulkUserResultDTO.Item::getStatus).toList());
+        assertEquals("email: Email should be valid", result.getResults().get(1).getMessage());
+        assertEquals("Email already exists", result.getResults().get(4).getMessage());
+        assertEquals(2, batches.stream().mapToInt(batch -> batch.length).sum());
+    }
+
+    @Test
+    void createUsers_WhenRowConflictsOnInsert_ShouldReportDuplicate() {
+        // Given - konto założone równolegle między sprawdzeniem a wstawieniem
+        givenExistingUsers();
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenReturn(new int[]{1, 0});
+
+        // When
+        BulkUserResultDTO result = provisioningService.createUsers(List.of(user("agent1"), user("agent2")));
+
+        // Then
+        assertEquals(1, result.getCreated());
+        assertEquals(BulkUserResultDTO.Status.DUPLICATE, result.getResults().get(1).getStatus());
+    }
+
+    @Test
+    void createUsers_WithTooManyOrNoUsers_ShouldThrowIllegalArgumentException() {
+        // Given
+        List<RegisterRequest> tooMany = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            tooMany.add(user("agent" + i));
+        }
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> provisioningService.createUsers(tooMany));
+        assertThrows(IllegalArgumentException.class, () -> provisioningService.createUsers(List.of()));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private void givenExistingUsers(String... usernameAndEmail) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (int i = 0; i < usernameAndEmail.length; i += 2) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString("username")).thenReturn(usernameAndEmail[i]);
+                when(rs.getString("email")).thenReturn(usernameAndEmail[i + 1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+    }
+
+    private List<SqlParameterSource[]> givenInsertCounts() {
+        List<SqlParameterSource[]> batches = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenAnswer(invocation -> {
+            SqlParameterSource[] rows = invocation.getArgument(1);
+            batches.add(rows);
+            int[] counts = new int[rows.length];
+            Arrays.fill(counts, 1);
+            return counts;
+        });
+        return batches;
+    }
+
+    private static RegisterRequest user(String username) {
+        String suffix = username.replaceAll("\\D", "");
+        return new RegisterRequest(username, "password" + suffix, username + "@example.com", "Jan", "Kowalski");
+    }
+}
@@ -3,6 +3,8 @@ package com.example.restate.service.impl;
 import com.example.restate.entity.Role;
 import com.example.restate.entity.User;
 import com.example.restate.repository.UserRepository;
+import com.example.restate.service.TokenService;
+import com.example.restate.service.cache.CacheInvalidationBus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -27,6 +29,12 @@ class UserServiceImplCoverageTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Mock
+    private TokenService tokenService;
+
     @InjectMocks
     private UserServiceImpl userService;
 
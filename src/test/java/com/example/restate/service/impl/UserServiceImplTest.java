@@ -1,26 +1,46 @@
 package com.example.restate.service.impl;
 
+import com.example.restate.dto.CursorPageResponse;
+import com.example.restate.dto.PageResponse;
+import com.example.restate.dto.UserProfileDTO;
+import com.example.restate.dto.UserSearchCriteria;
 import com.example.restate.entity.Role;
 import com.example.restate.entity.User;
 import com.example.restate.repository.UserRepository;
+import com.example.restate.service.TokenService;
+import com.example.restate.service.cache.CacheInvalidationBus;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import com.example.restate.service.search.PageQueryExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -33,6 +53,21 @@ class UserServiceImplTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Mock
+    private TokenService tokenService;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JdbcTemplate plainJdbcTemplate;
+
+    @Mock
+    private PageQueryExecutor pageQueryExecutor;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -235,6 +270,42 @@ class UserServiceImplTest {
         verify(userRepository, times(1)).findById(1L);
         verify(passwordEncoder, times(1)).encode("newpassword");
         verify(userRepository, times(1)).save(any(User.class));
+        verify(tokenService).revokeAllTokens("testuser");
+    }
+
+    @Test
+    void update_WithoutPassword_ShouldNotReencodeOrRevokeTokens() {
+        // Given - UpdateUserDTO.toEntity ustawia hasło tylko przy zmianie
+        User sameUser = new User();
+        sameUser.setFirstName("Renamed");
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        User result = userService.update(1L, sameUser);
+
+        // Then
+        assertEquals("password", result.getPassword());
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(tokenService, never()).revokeAllTokens(anyString());
+    }
+
+    @Test
+    void update_WhenUserIsDisabled_ShouldRevokeAllTokens() {
+        // Given
+        User disabled = new User();
+        disabled.setEnabled(false);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        User result = userService.update(1L, disabled);
+
+        // Then
+        assertFalse(result.isEnabled());
+        verify(tokenService).revokeAllTokens("testuser");
     }
 
     @Test
@@ -321,13 +392,19 @@ class UserServiceImplTest {
     @Test
     void deleteById_ShouldDeleteUser() {
         // Given
-        doNothing().when(userRepository).deleteById(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
 
         // When
         userService.deleteById(1L);
 
         // Then
-        verify(userRepository, times(1)).deleteById(1L);
+        verify(userRepository, times(1)).delete(user);
+        verify(userRepository, never()).deleteById(anyLong());
+        verify(tokenService).revokeAllTokens("testuser");
+        ArgumentCaptor<CacheInvalidationMessage> captor = ArgumentCaptor.forClass(CacheInvalidationMessage.class);
+        verify(cacheInvalidationBus).publish(captor.capture());
+        assertEquals(CacheInvalidationMessage.USER, captor.getValue().getEntity());
+        assertEquals(List.of("username:testuser"), captor.getValue().getKeys());
     }
 
     @Test
@@ -385,52 +462,140 @@ class UserServiceImplTest {
     @Test
     void existsByUsername_WhenUserExists_ShouldReturnTrue() {
         // Given
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(userRepository.existsByUsername("testuser")).thenReturn(true);
 
         // When
         boolean result = userService.existsByUsername("testuser");
 
         // Then
         assertTrue(result);
-        verify(userRepository, times(1)).findByUsername("testuser");
+        verify(userRepository, never()).findByUsername(anyString());
     }
 
     @Test
     void existsByUsername_WhenUserDoesNotExist_ShouldReturnFalse() {
         // Given
-        when(userRepository.findByUsername("nonexistent")).thenReturn(Optional.empty());
+        when(userRepository.existsByUsername("nonexistent")).thenReturn(false);
 
         // When
         boolean result = userService.existsByUsername("nonexistent");
 
         // Then
         assertFalse(result);
-        verify(userRepository, times(1)).findByUsername("nonexistent");
+        verify(userRepository, times(1)).existsByUsername("nonexistent");
     }
 
     @Test
     void existsByEmail_WhenUserExists_ShouldReturnTrue() {
         // Given
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(userRepository.existsByEmail("test@example.com")).thenReturn(true);
 
         // When
         boolean result = userService.existsByEmail("test@example.com");
 
         // Then
         assertTrue(result);
-        verify(userRepository, times(1)).findByEmail("test@example.com");
+        verify(userRepository, never()).findByEmail(anyString());
     }
 
     @Test
     void existsByEmail_WhenUserDoesNotExist_ShouldReturnFalse() {
         // Given
-        when(userRepository.findByEmail("nonexistent@example.com")).thenReturn(Optional.empty());
+        when(userRepository.existsByEmail("nonexistent@example.com")).thenReturn(false);
 
         // When
         boolean result = userService.existsByEmail("nonexistent@example.com");
 
         // Then
         assertFalse(result);
-        verify(userRepository, times(1)).findByEmail("nonexistent@example.com");
+        verify(userRepository, times(1)).existsByEmail("nonexistent@example.com");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void search_ShouldQueryProfileColumnsWithFiltersAndCount() {
+        // Given
+        when(pageQueryExecutor.execute(any(), any(), any())).thenAnswer(invocation -> {
+            Supplier<List<UserProfileDTO>> content = invocation.getArgument(0);
+            LongSupplier count = invocation.getArgument(1);
+            return new PageImpl<>(content.get(), invocation.getArgument(2), count.getAsLong());
+        });
+        when(pageQueryExecutor.getRemainingMs()).thenReturn(4000L);
+        when(jdbcTemplate.getJdbcTemplate()).thenReturn(plainJdbcTemplate);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of(UserProfileDTO.fromEntity(admin)));
+        when(jdbcTemplate.queryForObject(anyString(), any(SqlParameterSource.class), eq(Long.class))).thenReturn(41L);
+        UserSearchCriteria criteria = new UserSearchCriteria(Role.ADMIN, true, " Adm_1% ");
+
+        // When
+        PageResponse<UserProfileDTO> result = userService.search(criteria, PageRequest.of(1, 20));
+
+        // Then
+        assertEquals(1, result.getContent().size());
+        assertEquals(41L, result.getTotalElements());
+        assertEquals(3, result.getTotalPages());
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<SqlParameterSource> params = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate).query(sql.capture(), params.capture(), any(RowMapper.class));
+        assertFalse(sql.getValue().contains("password"));
+        assertTrue(sql.getValue().contains(
+                "WHERE role = :role AND is_enabled = :enabled AND (lower(username) LIKE :prefix OR lower(email) LIKE :prefix)"));
+        assertTrue(sql.getValue().endsWith("ORDER BY id LIMIT :limit OFFSET :offset"));
+        assertEquals("ADMIN", params.getValue().getValue("role"));
+        assertEquals("adm\\_1\\%%", params.getValue().getValue("prefix"));
+        assertEquals(20L, params.getValue().getValue("offset"));
+        verify(jdbcTemplate).queryForObject(startsWith("SELECT count(*) FROM users WHERE role = :role"),
+                any(SqlParameterSource.class), eq(Long.class));
+        // Oba zapytania z limitem po stronie bazy równym pozostałemu budżetowi
+        verify(plainJdbcTemplate, times(2)).execute("SET LOCAL statement_timeout = 4000");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchAfter_ShouldReturnNextCursorWhenMoreRowsExist() {
+        // Given - jeden wiersz ponad rozmiar strony
+        UserProfileDTO first = UserProfileDTO.fromEntity(user);
+        UserProfileDTO second = UserProfileDTO.fromEntity(admin);
+        when(pageQueryExecutor.getTimeoutMs()).thenReturn(5000L);
+        when(jdbcTemplate.getJdbcTemplate()).thenReturn(plainJdbcTemplate);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(new ArrayList<>(List.of(first, second)));
+
+        // When
+        CursorPageResponse<UserProfileDTO> result = userService.searchAfter(new UserSearchCriteria(), 0L, 1);
+
+        // Then
+        assertEquals(List.of(first), result.getContent());
+        assertEquals(1L, result.getNextCursor());
+        assertFalse(result.isLast());
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<SqlParameterSource> params = ArgumentCaptor.forClass(SqlParameterSource.class);
+        verify(jdbcTemplate).query(sql.capture(), params.capture(), any(RowMapper.class));
+        assertTrue(sql.getValue().endsWith("FROM users WHERE id > :after ORDER BY id LIMIT :limit"));
+        assertEquals(2, params.getValue().getValue("limit"));
+        verify(plainJdbcTemplate).execute("SET LOCAL statement_timeout = 5000");
+        verify(pageQueryExecutor, never()).execute(any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchAfter_OnLastPage_ShouldReturnNoCursorAndCapPageSize() {
+        // Given
+        when(jdbcTemplate.getJdbcTemplate()).thenReturn(plainJdbcTemplate);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of(UserProfileDTO.fromEntity(admin)));
+
+        // When
+        CursorPageResponse<UserProfileDTO> result = userService.searchAfter(
+                UserSearchCriteria.builder().role(Role.ADMIN).build(), 1L, 10_000);
+
+        // Then
+        assertTrue(result.isLast());
+        assertNull(result.getNextCursor());
+        assertEquals(UserServiceImpl.MAX_PAGE_SIZE, result.getPageSize());
+        verify(jdbcTemplate).query(contains("WHERE role = :role AND id > :after"), any(SqlParameterSource.class),
+                any(RowMapper.class));
     }
 }
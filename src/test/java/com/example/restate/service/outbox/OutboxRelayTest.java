@@ -0,0 +1,216 @@
+package com.example.restate.service.outbox;
+
+import com.example.restate.entity.OutboxEvent;
+import com.example.restate.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxListener listener;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, List.of(listener), transactionManager,
+                2, 3, 3, 1000, 24, 60000);
+    }
+
+    @Test
+    void processBatch_ShouldDispatchEventsAndMarkThemProcessed() {
+        // Given
+        OutboxEvent first = event(1L);
+        OutboxEvent second = event(2L);
+        when(outboxEventRepository.lockNextBatch(any(LocalDateTime.class), eq(2))).thenReturn(List.of(first, second));
+
+        // When
+        int processed = outboxRelay.processBatch();
+
+        // Then
+        assertEquals(2, processed);
+        verify(listener).onEvent(first);
+        verify(listener).onEvent(second);
+        verify(outboxEventRepository).markProcessed(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+    }
+
+    @Test
+    void processBatch_WhenListenerFails_ShouldScheduleRetry() {
+        // Given
+        OutboxEvent failing = event(1L);
+        OutboxEvent ok = event(2L);
+        when(outboxEventRepository.lockNextBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(failing, ok));
+        doThrow(new IllegalStateException("index unavailable")).when(listener).onEvent(failing);
+
+        // When
+        outboxRelay.processBatch();
+
+        // Then
+        assertEquals(1, failing.getAttempts());
+        assertEquals(OutboxEvent.Status.PENDING, failing.getStatus());
+        assertTrue(failing.getLastError().contains("index unavailable"));
+        assertTrue(failing.getAvailableAt().isAfter(LocalDateTime.now()));
+        verify(outboxEventRepository).markProcessed(eq(List.of(2L)), any(LocalDateTime.class));
+        verify(outboxEventRepository).saveAll(List.of(failing));
+    }
+
+    @Test
+    void processBatch_ShouldLeaseBatchInShortTransactionBeforeDelivering() {
+        // Given
+        SimpleTransactionStatus claimTransaction = new SimpleTransactionStatus();
+        SimpleTransactionStatus eventTransaction = new SimpleTransactionStatus();
+        SimpleTransactionStatus markTransaction = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(claimTransaction, eventTransaction, markTransaction);
+        when(outboxEventRepository.lockNextBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(event(1L)));
+
+        // When
+        outboxRelay.processBatch();
+
+        // Then - dostarczenie nie odbywa się w transakcji, która trzyma blokady paczki
+        var inOrder = inOrder(outboxEventRepository, transactionManager, listener);
+        inOrder.verify(outboxEventRepository).lockNextBatch(any(LocalDateTime.class), anyInt());
+        inOrder.verify(outboxEventRepository).lease(eq(List.of(1L)),
+                argThat(until -> until.isAfter(LocalDateTime.now().plusSeconds(50))));
+        inOrder.verify(transactionManager).commit(claimTransaction);
+        inOrder.verify(listener).onEvent(any());
+        inOrder.verify(transactionManager).commit(eventTransaction);
+        inOrder.verify(outboxEventRepository).markProcessed(eq(List.of(1L)), any(LocalDateTime.class));
+        inOrder.verify(transactionManager).commit(markTransaction);
+    }
+
+    @Test
+    void processBatch_ShouldDeliverEventToAllListenersInOneTransaction() {
+        // Given
+        OutboxListener second = mock(OutboxListener.class);
+        OutboxRelay relay = new OutboxRelay(outboxEventRepository, List.of(listener, second), transactionManager,
+                2, 3, 3, 1000, 24, 60000);
+        when(outboxEventRepository.lockNextBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(event(1L)));
+
+        // When
+        relay.processBatch();
+
+        // Then - paczka, zdarzenie i oznaczenie dostarczonych
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(listener).onEvent(any());
+        verify(second).onEvent(any());
+    }
+
+    @Test
+    void processBatch_WhenListenerFails_ShouldRollBackOnlyItsTransaction() {
+        // Given
+        OutboxEvent failing = event(1L);
+        OutboxEvent ok = event(2L);
+        SimpleTransactionStatus failingTransaction = new SimpleTransactionStatus();
+        SimpleTransactionStatus okTransaction = new SimpleTransactionStatus();
+        when(outboxEventRepository.lockNextBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(failing, ok));
+        when(transactionManager.getTransaction(any()))
+                .thenReturn(new SimpleTransactionStatus(), failingTransaction, okTransaction, new SimpleTransactionStatus());
+        doThrow(new IllegalStateException("constraint violated")).when(listener).onEvent(failing);
+
+        // When
+        outboxRelay.processBatch();
+
+        // Then
+        verify(transactionManager).rollback(failingTransaction);
+        verify(transactionManager).commit(okTransaction);
+        assertEquals(1, failing.getAttempts());
+        verify(outboxEventRepository).markProcessed(eq(List.of(2L)), any(LocalDateTime.class));
+    }
+
+    @Test
+    void processBatch_WhenMaxAttemptsReached_ShouldMarkEventFailed() {
+        // Given
+        OutboxEvent failing = event(1L);
+        failing.setAttempts(2);
+        when(outboxEventRepository.lockNextBatch(any(LocalDateTime.class), anyInt())).thenReturn(List.of(failing));
+        doThrow(new IllegalStateException("index unavailable")).when(listener).onEvent(failing);
+
+        // When
+        outboxRelay.processBatch();
+
+        // Then
+        assertEquals(3, failing.getAttempts());
+        assertEquals(OutboxEvent.Status.FAILED, failing.getStatus());
+        assertNotNull(failing.getProcessedAt());
+        verify(outboxEventRepository, never()).markProcessed(any(), any());
+        verify(outboxEventRepository).saveAll(List.of(failing));
+    }
+
+    @Test
+    void relay_ShouldKeepPollingWhileBatchesAreFull() {
+        // Given
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(outboxEventRepository.lockNextBatch(any(LocalDateTime.class), anyInt()))
+                .thenReturn(List.of(event(1L), event(2L)))
+                .thenReturn(List.of(event(3L)));
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        verify(outboxEventRepository, times(2)).lockNextBatch(any(LocalDateTime.class), anyInt());
+        verify(listener, times(3)).onEvent(any());
+    }
+
+    @Test
+    void relay_ShouldStopAfterMaxBatchesPerRun() {
+        // Given
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(outboxEventRepository.lockNextBatch(any(LocalDateTime.class), anyInt()))
+                .thenAnswer(invocation -> List.of(event(1L), event(2L)));
+
+        // When
+        outboxRelay.relay();
+
+        // Then
+        verify(outboxEventRepository, times(3)).lockNextBatch(any(LocalDateTime.class), anyInt());
+    }
+
+    @Test
+    void relay_WithoutListeners_ShouldLeaveEventsPending() {
+        // Given
+        OutboxRelay withoutListeners = new OutboxRelay(outboxEventRepository, List.of(), transactionManager,
+                2, 3, 3, 1000, 24, 60000);
+
+        // When
+        withoutListeners.relay();
+
+        // Then
+        verifyNoInteractions(outboxEventRepository, transactionManager);
+    }
+
+    private static OutboxEvent event(Long id) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setAggregateType("Mieszkanie");
+        event.setAggregateId(String.valueOf(id));
+        event.setEventType("CREATED");
+        event.setPayload("{}");
+        event.setCreatedAt(LocalDateTime.now());
+        event.setAvailableAt(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.restate.service.outbox;
+
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.entity.OutboxEvent;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxWriterTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    private OutboxWriter outboxWriter;
+    private ObjectMapper objectMapper;
+    private Mieszkanie mieszkanie;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        outboxWriter = new OutboxWriter(outboxEventRepository, objectMapper);
+
+        mieszkanie = new Mieszkanie();
+        mieszkanie.setId(1);
+        mieszkanie.setCity("Warsaw");
+        mieszkanie.setPrice(BigDecimal.valueOf(500000));
+        mieszkanie.setStatus(Mieszkanie.Status.AVAILABLE);
+    }
+
+    @Test
+    void onMieszkanieChanged_ShouldSavePendingOutboxEvent() throws Exception {
+        // When
+        outboxWriter.onMieszkanieChanged(MieszkanieChangedEvent.created(mieszkanie));
+
+        // Then
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(captor.capture());
+        OutboxEvent saved = captor.getValue();
+        assertEquals(OutboxWriter.MIESZKANIE_AGGREGATE, saved.getAggregateType());
+        assertEquals("1", saved.getAggregateId());
+        assertEquals("CREATED", saved.getEventType());
+        assertEquals(OutboxEvent.Status.PENDING, saved.getStatus());
+        assertNotNull(saved.getCreatedAt());
+        assertEquals(saved.getCreatedAt(), saved.getAvailableAt());
+
+        JsonNode payload = objectMapper.readTree(saved.getPayload());
+        assertEquals("CREATED", payload.get("type").asText());
+        assertEquals("Warsaw", payload.get("current").get("city").asText());
+        assertTrue(payload.get("previous").isNull());
+    }
+
+    @Test
+    void onMieszkanieChanged_PayloadShouldBeReadableByListeners() {
+        // Given
+        MieszkanieChangedEvent event = MieszkanieChangedEvent.created(mieszkanie);
+
+        // When
+        outboxWriter.onMieszkanieChanged(event);
+
+        // Then
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(captor.capture());
+        MieszkanieChangePayload payload = MieszkanieChangePayload.read(objectMapper, captor.getValue());
+        assertEquals(MieszkanieChangedEvent.ChangeType.CREATED, payload.type());
+        assertEquals(1, payload.mieszkanieId());
+        assertNull(payload.previous());
+        assertEquals(event.getCurrent(), payload.current());
+        assertEquals(event.getOccurredAt(), payload.occurredAt());
+    }
+}
@@ -8,7 +8,6 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -66,7 +65,6 @@ class AdvancedSearchStrategyTest {
     @Captor
     private ArgumentCaptor<Predicate[]> predicatesCaptor;
 
-    @InjectMocks
     private AdvancedSearchStrategy advancedSearchStrategy;
 
     private Pageable pageable;
@@ -74,6 +72,8 @@ class AdvancedSearchStrategyTest {
 
     @BeforeEach
     void setUp() {
+        advancedSearchStrategy = new AdvancedSearchStrategy(entityManager, new PageQueryExecutor(5000));
+
         // Setup test data
         Mieszkanie mieszkanie1 = new Mieszkanie();
         mieszkanie1.setId(1);
@@ -250,7 +250,7 @@ class AdvancedSearchStrategyTest {
         verify(root, atLeastOnce()).get("voivodeship");
         verify(root, atLeastOnce()).get("city");
         verify(root, atLeastOnce()).get("district");
-        verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Mazowieckie"));
+        verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("mazowieckie"));
         verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Warsaw"));
         verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Mokotow"));
 
@@ -439,7 +439,7 @@ class AdvancedSearchStrategyTest {
         verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Test Developer"));
         verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Test Investment"));
         verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Warsaw"));
-        verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Mazowieckie"));
+        verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("mazowieckie"));
         verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Mokotow"));
         verify(criteriaBuilder, atLeastOnce()).greaterThanOrEqualTo(any(), eq(BigDecimal.valueOf(400000)));
         verify(criteriaBuilder, atLeastOnce()).lessThanOrEqualTo(any(), eq(BigDecimal.valueOf(800000)));
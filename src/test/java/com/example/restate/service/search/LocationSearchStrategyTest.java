@@ -8,7 +8,6 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -65,7 +64,6 @@ class LocationSearchStrategyTest {
     @Captor
     private ArgumentCaptor<Predicate[]> predicatesCaptor;
 
-    @InjectMocks
     private LocationSearchStrategy locationSearchStrategy;
 
     private Pageable pageable;
@@ -73,6 +71,8 @@ class LocationSearchStrategyTest {
 
     @BeforeEach
     void setUp() {
+        locationSearchStrategy = new LocationSearchStrategy(entityManager, new PageQueryExecutor(5000));
+
         // Setup test data
         Mieszkanie mieszkanie1 = new Mieszkanie();
         mieszkanie1.setId(1);
@@ -125,7 +125,7 @@ class LocationSearchStrategyTest {
         assertEquals(1, predicates.length);
 
         verify(root, atLeastOnce()).get("voivodeship");
-        verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Mazowieckie"));
+        verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("mazowieckie"));
 
         assertEquals(2, result.getTotalElements());
         assertEquals(2, result.getContent().size());
@@ -195,7 +195,7 @@ class LocationSearchStrategyTest {
         verify(root, atLeastOnce()).get("voivodeship");
         verify(root, atLeastOnce()).get("city");
         verify(root, atLeastOnce()).get("district");
-        verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Mazowieckie"));
+        verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("mazowieckie"));
         verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Warsaw"));
         verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Mokotow"));
 
@@ -286,7 +286,7 @@ class LocationSearchStrategyTest {
         verify(root, never()).get("price");
 
         verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Warsaw"));
-        verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("Mazowieckie"));
+        verify(criteriaBuilder, atLeastOnce()).equal(any(), eq("mazowieckie"));
 
         assertEquals(2, result.getTotalElements());
         assertEquals(2, result.getContent().size());
@@ -0,0 +1,86 @@
+package com.example.restate.service.search;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.entity.Mieszkanie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MieszkanieCriteriaMatcherTest {
+
+    private MieszkanieDTO mieszkanie;
+
+    @BeforeEach
+    void setUp() {
+        mieszkanie = MieszkanieDTO.builder()
+                .id(1)
+                .developer("Test Developer")
+                .investment("Test Investment")
+                .voivodeship("Mazowieckie")
+                .city("Warsaw")
+                .district("Mokotow")
+                .floor(2)
+                .area(BigDecimal.valueOf(75.5))
+                .price(BigDecimal.valueOf(500000))
+                .status(Mieszkanie.Status.AVAILABLE)
+                .build();
+    }
+
+    @Test
+    void matches_WithEmptyCriteria_ShouldReturnTrue() {
+        assertTrue(MieszkanieCriteriaMatcher.matches(MieszkanieSearchCriteria.builder().build(), mieszkanie));
+        assertTrue(MieszkanieCriteriaMatcher.matches(null, mieszkanie));
+    }
+
+    @Test
+    void matches_WithNullMieszkanie_ShouldReturnFalse() {
+        assertFalse(MieszkanieCriteriaMatcher.matches(MieszkanieSearchCriteria.builder().build(), null));
+    }
+
+    @Test
+    void matches_WithEqualityCriteria_ShouldCompareExactly() {
+        MieszkanieSearchCriteria matching = MieszkanieSearchCriteria.builder()
+                .city("Warsaw").district("Mokotow").developer("Test Developer").floor(2)
+                .build();
+        MieszkanieSearchCriteria otherCity = MieszkanieSearchCriteria.builder().city("Krakow").build();
+
+        assertTrue(MieszkanieCriteriaMatcher.matches(matching, mieszkanie));
+        assertFalse(MieszkanieCriteriaMatcher.matches(otherCity, mieszkanie));
+    }
+
+    @Test
+    void matches_WithPriceAndAreaRanges_ShouldUseInclusiveBounds() {
+        MieszkanieSearchCriteria inclusive = MieszkanieSearchCriteria.builder()
+                .minPrice(new BigDecimal("500000.00")).maxPrice(BigDecimal.valueOf(500000))
+                .minArea(BigDecimal.valueOf(75.5)).maxArea(BigDecimal.valueOf(80))
+                .build();
+        MieszkanieSearchCriteria tooExpensive = MieszkanieSearchCriteria.builder()
+                .maxPrice(BigDecimal.valueOf(499999))
+                .build();
+
+        assertTrue(MieszkanieCriteriaMatcher.matches(inclusive, mieszkanie));
+        assertFalse(MieszkanieCriteriaMatcher.matches(tooExpensive, mieszkanie));
+    }
+
+    @Test
+    void matches_WithRangeAndMissingValue_ShouldReturnFalse() {
+        mieszkanie.setPrice(null);
+        MieszkanieSearchCriteria criteria = MieszkanieSearchCriteria.builder().minPrice(BigDecimal.ONE).build();
+
+        assertFalse(MieszkanieCriteriaMatcher.matches(criteria, mieszkanie));
+    }
+
+    @Test
+    void matches_WithStatus_ShouldBeCaseInsensitiveAndIgnoreInvalidValues() {
+        assertTrue(MieszkanieCriteriaMatcher.matches(
+                MieszkanieSearchCriteria.builder().status("available").build(), mieszkanie));
+        assertFalse(MieszkanieCriteriaMatcher.matches(
+                MieszkanieSearchCriteria.builder().status("SOLD").build(), mieszkanie));
+        assertTrue(MieszkanieCriteriaMatcher.matches(
+                MieszkanieSearchCriteria.builder().status("NOT_A_STATUS").build(), mieszkanie));
+    }
+}
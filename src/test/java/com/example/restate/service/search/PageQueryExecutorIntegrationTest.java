@@ -0,0 +1,87 @@
+package com.example.restate.service.search;
+
+import com.example.restate.config.IntegrationTestConfig;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Anulowanie drugiego zapytania na prawdziwym Postgresie: gdy COUNT się nie powiedzie, trwające
+ * zapytanie strony ma zniknąć z {@code pg_stat_activity}, zamiast trzymać połączenie do końca limitu.
+ */
+class PageQueryExecutorIntegrationTest extends IntegrationTestConfig {
+
+    private static final String SLEEP_SQL = "SELECT 1 FROM pg_sleep(30)";
+    private static final String ACTIVE_SLEEPS_SQL = "SELECT count(*) FROM pg_stat_activity " +
+            "WHERE state = 'active' AND query = '" + SLEEP_SQL + "'";
+
+    @Autowired
+    private PageQueryExecutor pageQueryExecutor;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void execute_WhenCountFails_ShouldCancelRunningContentQueryInDatabase() throws InterruptedException {
+        // Given - zapytanie strony śpi dłużej niż limit, COUNT zawodzi dopiero, gdy to zapytanie już działa
+        long start = System.nanoTime();
+
+        // When
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () ->
+                pageQueryExecutor.execute(this::sleepingContentQuery, this::failOnceContentQueryRuns,
+                        PageRequest.of(0, 10)));
+
+        // Then
+        assertEquals("count failed", failure.getMessage());
+        assertTrue(waitFor(() -> activeSleeps() == 0, 1000),
+                "page query should be cancelled in the database as soon as COUNT fails");
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMs < pageQueryExecutor.getTimeoutMs(),
+                "cancellation should not wait for the query timeout, took " + elapsedMs + " ms");
+    }
+
+    private List<Object> sleepingContentQuery() {
+        Query query = entityManager.createNativeQuery(SLEEP_SQL);
+        pageQueryExecutor.applyTimeout(query);
+        @SuppressWarnings("unchecked")
+        List<Object> rows = query.getResultList();
+        return rows;
+    }
+
+    private long failOnceContentQueryRuns() {
+        try {
+            assertTrue(waitFor(() -> activeSleeps() == 1, 3000), "page query did not start");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new IllegalStateException("count failed");
+    }
+
+    private long activeSleeps() {
+        Long count = jdbcTemplate.queryForObject(ACTIVE_SLEEPS_SQL, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private static boolean waitFor(BooleanSupplier condition, long timeoutMs)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return condition.getAsBoolean();
+    }
+}
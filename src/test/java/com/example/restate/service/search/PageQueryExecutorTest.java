@@ -0,0 +1,265 @@
+package com.example.restate.service.search;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PageQueryExecutorTest {
+
+    private PageQueryExecutor pageQueryExecutor;
+    private Pageable pageable;
+
+    @BeforeEach
+    void setUp() {
+        pageQueryExecutor = new PageQueryExecutor(2000);
+        pageable = PageRequest.of(0, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pageQueryExecutor.destroy();
+    }
+
+    @Test
+    void execute_ShouldReturnPageWithContentAndTotal() {
+        // When
+        Page<String> page = pageQueryExecutor.execute(() -> List.of("a", "b"), () -> 42L, pageable);
+
+        // Then
+        assertEquals(List.of("a", "b"), page.getContent());
+        assertEquals(42L, page.getTotalElements());
+        assertEquals(5, page.getTotalPages());
+    }
+
+    @Test
+    void execute_ShouldRunContentAndCountConcurrently() {
+        // Given - each query waits for the other one to start
+        CyclicBarrier barrier = new CyclicBarrier(2);
+
+        // When
+        Page<String> page = pageQueryExecutor.execute(() -> {
+            await(barrier);
+            return List.of("a");
+        }, () -> {
+            await(barrier);
+            return 1L;
+        }, pageable);
+
+        // Then
+        assertEquals(1, page.getContent().size());
+        assertEquals(1L, page.getTotalElements());
+    }
+
+    @Test
+    void execute_WhenCountFails_ShouldFailFastAndInterruptContentQuery() throws InterruptedException {
+        // Given
+        CountDownLatch contentStarted = new CountDownLatch(1);
+        CountDownLatch contentInterrupted = new CountDownLatch(1);
+
+        // When & Then
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () ->
+                pageQueryExecutor.execute(() -> {
+                    contentStarted.countDown();
+                    try {
+                        Thread.sleep(5000);
+                    } catch (InterruptedException e) {
+                        contentInterrupted.countDown();
+                    }
+                    return List.of("a");
+                }, () -> {
+                    awaitLatch(contentStarted);
+                    throw new IllegalStateException("count failed");
+                }, pageable));
+
+        assertEquals("count failed", ex.getMessage());
+        assertTrue(contentInterrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_WhenCountFails_ShouldCancelRunningContentStatement() {
+        // Given
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        EntityManager entityManager = mock(EntityManager.class);
+        SessionImplementor session = mock(SessionImplementor.class);
+        when(entityManager.unwrap(SessionImplementor.class)).thenReturn(session);
+        PageQueryExecutor transactionalExecutor = new PageQueryExecutor(2000, transactionManager, entityManager,
+                new SimpleMeterRegistry());
+        CountDownLatch contentStarted = new CountDownLatch(1);
+
+        try {
+            // When
+            assertThrows(IllegalStateException.class, () ->
+                    transactionalExecutor.execute(() -> {
+                        contentStarted.countDown();
+                        sleep(5000);
+                        return List.of("a");
+                    }, () -> {
+                        awaitLatch(contentStarted);
+                        throw new IllegalStateException("count failed");
+                    }, pageable));
+
+            // Then
+            verify(session, atLeastOnce()).cancelQuery();
+        } finally {
+            transactionalExecutor.destroy();
+        }
+    }
+
+    @Test
+    void execute_WhenQueriesExceedTimeout_ShouldThrowQueryTimeoutException() {
+        // Given
+        PageQueryExecutor shortTimeoutExecutor = new PageQueryExecutor(50);
+
+        try {
+            // When & Then
+            assertThrows(QueryTimeoutException.class, () ->
+                    shortTimeoutExecutor.execute(() -> {
+                        sleep(1000);
+                        return List.of("a");
+                    }, () -> 1L, pageable));
+        } finally {
+            shortTimeoutExecutor.destroy();
+        }
+    }
+
+    @Test
+    void applyTimeout_ShouldSetJpaQueryTimeoutHint() {
+        // Given
+        Query query = mock(Query.class);
+
+        // When
+        pageQueryExecutor.applyTimeout(query);
+
+        // Then
+        verify(query).setHint(PageQueryExecutor.QUERY_TIMEOUT_HINT, 2000);
+    }
+
+    @Test
+    void applyTimeout_InsideQuery_ShouldPassRemainingBudget() {
+        // Given
+        Query query = mock(Query.class);
+
+        // When
+        pageQueryExecutor.execute(() -> {
+            sleep(300);
+            pageQueryExecutor.applyTimeout(query);
+            return List.of("a");
+        }, () -> 1L, pageable);
+
+        // Then
+        ArgumentCaptor<Object> timeout = ArgumentCaptor.forClass(Object.class);
+        verify(query).setHint(eq(PageQueryExecutor.QUERY_TIMEOUT_HINT), timeout.capture());
+        int remainingMs = (Integer) timeout.getValue();
+        assertTrue(remainingMs > 0 && remainingMs <= 1700, "Remaining budget was " + remainingMs + " ms");
+    }
+
+    @Test
+    void execute_ShouldRunQueriesInReadOnlyTransactionsWithCallerSecurityContext() {
+        // Given
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        PageQueryExecutor transactionalExecutor = new PageQueryExecutor(2000, transactionManager,
+                mock(EntityManager.class), new SimpleMeterRegistry());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("testuser", null, List.of()));
+
+        try {
+            // When
+            Page<String> page = transactionalExecutor.execute(
+                    () -> List.of(SecurityContextHolder.getContext().getAuthentication().getName()),
+                    () -> 1L, pageable);
+
+            // Then
+            assertEquals(List.of("testuser"), page.getContent());
+            ArgumentCaptor<TransactionDefinition> captor = ArgumentCaptor.forClass(TransactionDefinition.class);
+            verify(transactionManager, times(2)).getTransaction(captor.capture());
+            assertTrue(captor.getAllValues().stream().allMatch(TransactionDefinition::isReadOnly));
+            // Limit transakcji to pozostały budżet, zaokrąglony w górę do sekund
+            assertTrue(captor.getAllValues().stream().allMatch(definition -> definition.getTimeout() == 2));
+        } finally {
+            SecurityContextHolder.clearContext();
+            transactionalExecutor.destroy();
+        }
+    }
+
+    @Test
+    void execute_ShouldTimeContentAndCountQueriesSeparately() {
+        // Given
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PageQueryExecutor timedExecutor = new PageQueryExecutor(2000, transactionManager,
+                mock(EntityManager.class), meterRegistry);
+
+        try {
+            // When
+            timedExecutor.execute(() -> {
+                sleep(20);
+                return List.of("a");
+            }, () -> 1L, pageable);
+
+            // Then
+            Timer content = meterRegistry.get("restate.search.query").tag("query", "content").timer();
+            Timer count = meterRegistry.get("restate.search.query").tag("query", "count").timer();
+            assertEquals(1, content.count());
+            assertEquals(1, count.count());
+            assertTrue(content.totalTime(TimeUnit.MILLISECONDS) >= 20);
+        } finally {
+            timedExecutor.destroy();
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(1, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Queries were not executed concurrently", e);
+        }
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
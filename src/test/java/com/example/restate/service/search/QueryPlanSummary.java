@@ -0,0 +1,61 @@
+package com.example.restate.service.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Najważniejsze dane z planu {@code EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON)}.
+ *
+ * @param query         content albo count
+ * @param plan          węzeł główny i rodzaje skanów tabel, np. {@code Limit: Index Scan x1}
+ * @param partitions    liczba przeczytanych tabel (partycji mieszkania)
+ * @param rowsScanned   wiersze przeczytane przez skany, łącznie z odrzuconymi przez filtr
+ * @param sharedBuffers strony z bufora i z dysku ({@code Shared Hit/Read Blocks})
+ * @param executionMs   czas wykonania zmierzony przez bazę
+ */
+record QueryPlanSummary(String query, String plan, int partitions, long rowsScanned, long sharedBuffers,
+                        double executionMs) {
+
+    static QueryPlanSummary parse(String query, String explainJson, ObjectMapper objectMapper) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(explainJson).get(0);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable EXPLAIN output", e);
+        }
+        JsonNode plan = root.get("Plan");
+        Map<String, Integer> scans = new TreeMap<>();
+        long[] rowsScanned = new long[1];
+        collectScans(plan, scans, rowsScanned);
+
+        String scanTypes = scans.entrySet().stream()
+                .map(entry -> entry.getKey() + " x" + entry.getValue())
+                .collect(Collectors.joining(", "));
+        long buffers = plan.path("Shared Hit Blocks").asLong() + plan.path("Shared Read Blocks").asLong();
+        return new QueryPlanSummary(query, plan.get("Node Type").asText() + ": " + scanTypes,
+                scans.values().stream().mapToInt(Integer::intValue).sum(), rowsScanned[0], buffers,
+                root.path("Execution Time").asDouble());
+    }
+
+    private static void collectScans(JsonNode node, Map<String, Integer> scans, long[] rowsScanned) {
+        // Bitmap Index Scan nie czyta tabeli - wiersze liczy nadrzędny Bitmap Heap Scan;
+        // skany z zerową liczbą pętli nie zostały wykonane (np. niepotrzebne po LIMIT)
+        long loops = node.path("Actual Loops").asLong();
+        if (node.has("Relation Name") && loops > 0) {
+            scans.merge(node.get("Node Type").asText(), 1, Integer::sum);
+            // Liczby wierszy w planie są średnimi na pętlę
+            long perLoop = node.path("Actual Rows").asLong()
+                    + node.path("Rows Removed by Filter").asLong()
+                    + node.path("Rows Removed by Index Recheck").asLong();
+            rowsScanned[0] += perLoop * loops;
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectScans(child, scans, rowsScanned);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.restate.service.search;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Syntetyczne mieszkania dla benchmarku wyszukiwania, generowane w bazie ({@code generate_series}).
+ * Wartości kolumn wynikają ze skrótu id, więc selektywność przypadków nie zmienia się między
+ * uruchomieniami ani rozmiarami tabeli:
+ * <ul>
+ *     <li>developer - 1000 wartości (0,1% wierszy każda), investment - 10 000 (0,01%)</li>
+ *     <li>voivodeship - mazowieckie 25%, małopolskie 15%, dolnośląskie 12%, pomorskie 10%,
+ *     wielkopolskie 8%, pozostałe po ok. 2,7%</li>
+ *     <li>city - 20 miast na województwo, "Warszawa" to połowa mazowieckiego (12,5%);
+ *     district - 30 wartości</li>
+ *     <li>area 25-115 m², cena za metr 8-20 tys., floor 0-14, status AVAILABLE/RESERVED/SOLD 70/20/10%</li>
+ * </ul>
+ */
+public final class SearchBenchmarkData {
+
+    private static final int BATCH_SIZE = 500_000;
+
+    // h(seed, n) = abs(hashint8extended(i, seed) % n) - niezależne rozkłady dla każdej kolumny
+    private static final String INSERT_SQL = """
+            INSERT INTO mieszkania (id, developer, investment, number, area, price, voivodeship, city, district,
+                                    floor, status, description)
+            SELECT i,
+                   'Deweloper ' || abs(hashint8extended(i, 1) % 1000),
+                   'Inwestycja ' || abs(hashint8extended(i, 2) % 10000),
+                   'M' || i,
+                   area,
+                   round(area * (8000 + abs(hashint8extended(i, 3) % 12000)), 2),
+                   voivodeship,
+                   CASE WHEN voivodeship = 'mazowieckie' AND city_no < 10 THEN 'Warszawa'
+                        ELSE voivodeship || ' ' || city_no END,
+                   'Dzielnica ' || abs(hashint8extended(i, 4) % 30),
+                   abs(hashint8extended(i, 5) % 15),
+                   CASE WHEN status_no < 7 THEN 'AVAILABLE' WHEN status_no < 9 THEN 'RESERVED' ELSE 'SOLD' END,
+                   'Mieszkanie ' || (i % 4 + 1) || '-pokojowe'
+            FROM (
+                SELECT i,
+                       round(25 + abs(hashint8extended(i, 6) % 9000) / 100.0, 2) AS area,
+                       CASE WHEN v < 25 THEN 'mazowieckie'
+                            WHEN v < 40 THEN 'małopolskie'
+                            WHEN v < 52 THEN 'dolnośląskie'
+                            WHEN v < 62 THEN 'pomorskie'
+                            WHEN v < 70 THEN 'wielkopolskie'
+                            ELSE (ARRAY['kujawsko-pomorskie', 'lubelskie', 'lubuskie', 'łódzkie', 'opolskie',
+                                        'podkarpackie', 'podlaskie', 'śląskie', 'świętokrzyskie',
+                                        'warmińsko-mazurskie', 'zachodniopomorskie'])[1 + v % 11]
+                       END AS voivodeship,
+                       abs(hashint8extended(i, 8) % 20) AS city_no,
+                       abs(hashint8extended(i, 9) % 10) AS status_no
+                FROM (
+                    SELECT i, abs(hashint8extended(i, 7) % 100) AS v
+                    FROM generate_series(?::bigint, ?::bigint) AS i
+                ) ids
+            ) generated
+            """;
+
+    private SearchBenchmarkData() {
+    }
+
+    /**
+     * Dopisuje wiersze o id {@code currentSize + 1 .. targetSize} i odświeża statystyki planisty
+     * oraz mapę widoczności (skany tylko po indeksie). Sekwencja id przesuwa się za wygenerowane
+     * wiersze, więc mieszkania dodane później przez API nie kolidują z nimi.
+     */
+    public static void growTo(JdbcTemplate jdbcTemplate, long currentSize, long targetSize) {
+        for (long from = currentSize + 1; from <= targetSize; from += BATCH_SIZE) {
+            long to = Math.min(from + BATCH_SIZE - 1, targetSize);
+            jdbcTemplate.update(INSERT_SQL, from, to);
+        }
+        jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence('mieszkania', 'id'), ?)",
+                Long.class, targetSize);
+        jdbcTemplate.execute("VACUUM ANALYZE mieszkania");
+    }
+}
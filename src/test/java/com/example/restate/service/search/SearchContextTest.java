@@ -3,6 +3,9 @@ package com.example.restate.service.search;
 import com.example.restate.dto.MieszkanieSearchCriteria;
 import com.example.restate.dto.PageResponse;
 import com.example.restate.entity.Mieszkanie;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -35,6 +38,7 @@ class SearchContextTest {
     private LocationSearchStrategy locationSearchStrategy;
 
     private SearchContext searchContext;
+    private SimpleMeterRegistry meterRegistry;
 
     private MieszkanieSearchCriteria criteria;
     private Pageable pageable;
@@ -93,7 +97,27 @@ class SearchContextTest {
             advancedSearchStrategy, 
             locationSearchStrategy
         );
-        searchContext = new SearchContext(strategies);
+        meterRegistry = new SimpleMeterRegistry();
+        searchContext = new SearchContext(strategies, meterRegistry);
+    }
+
+    @Test
+    void executeAutoSearch_ShouldRecordTimerAndRowsPerTypeAndStrategy() {
+        // Given
+        when(simpleSearchStrategy.search(any(MieszkanieSearchCriteria.class), any(Pageable.class)))
+                .thenReturn(expectedResponse);
+
+        // When
+        searchContext.executeAutoSearch(criteria, pageable);
+
+        // Then
+        Timer timer = meterRegistry.get("restate.search")
+                .tag("type", "SIMPLE")
+                .tag("strategy", "SimpleSearchStrategy")
+                .timer();
+        assertEquals(1, timer.count());
+        DistributionSummary rows = meterRegistry.get("restate.search.rows").tag("type", "SIMPLE").summary();
+        assertEquals(expectedResponse.getContent().size(), rows.totalAmount());
     }
 
     @Test
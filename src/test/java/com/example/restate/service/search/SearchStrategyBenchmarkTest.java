@@ -0,0 +1,328 @@
+package com.example.restate.service.search;
+
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.dto.PageResponse;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.service.MieszkanieService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark wyszukiwania na PostgreSQL (Testcontainers) przy rosnącej tabeli mieszkań.
+ * <p>
+ * Dla każdego rozmiaru z {@code search-benchmark.sizes} uruchamia macierz kształtów kryteriów
+ * i sortowań przez strategie wyszukiwania i {@link MieszkanieService#searchByCriteria}, mierzy p50/p99
+ * całego wyszukiwania (strona i COUNT), a jego zapytania powtarza z {@code EXPLAIN (ANALYZE, BUFFERS)}
+ * - plan, przeczytane wiersze i bufory. Wyniki trafiają do {@code search-benchmark.result-file}
+ * i są porównywane z linią bazową. Schemat pochodzi z migracji Flyway, dane - {@link SearchBenchmarkData}.
+ * <p>
+ * Tag {@code benchmark} jest pomijany w zwykłym {@code mvn test}; uruchomienie:
+ * {@code mvn -Psearch-benchmark test} (mniejsza macierz: {@code -Dsearch-benchmark.sizes=10000,100000}).
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@ActiveProfiles("benchmark")
+@Import(SearchStrategyBenchmarkTest.StatementCaptureConfig.class)
+class SearchStrategyBenchmarkTest {
+
+    private static final List<Sort> SORTS = List.of(
+            Sort.unsorted(),
+            Sort.by("id"),
+            Sort.by(Sort.Direction.DESC, "price"));
+
+    // Przeczytanych wierszy przy tych samych danych i planie nie powinno przybyć
+    private static final double ROWS_SCANNED_TOLERANCE = 0.10;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16")
+            .withDatabaseName("search-benchmark")
+            .withUsername("benchmark")
+            .withPassword("benchmark")
+            // fsync=off jak domyślnie w kontenerze; większy bufor i WAL przyspieszają ładowanie milionów wierszy
+            .withCommand("postgres", "-c", "fsync=off", "-c", "shared_buffers=512MB", "-c", "max_wal_size=4GB");
+
+    @DynamicPropertySource
+    static void postgresqlProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @TestConfiguration
+    static class StatementCaptureConfig {
+
+        @Bean
+        static StatementCapture statementCapture() {
+            return new StatementCapture();
+        }
+    }
+
+    @Autowired
+    private SimpleSearchStrategy simpleSearchStrategy;
+
+    @Autowired
+    private LocationSearchStrategy locationSearchStrategy;
+
+    @Autowired
+    private AdvancedSearchStrategy advancedSearchStrategy;
+
+    @Autowired
+    private MieszkanieService mieszkanieService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatementCapture statementCapture;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${search-benchmark.sizes}")
+    private List<Long> sizes;
+
+    @Value("${search-benchmark.warmup-iterations}")
+    private int warmupIterations;
+
+    @Value("${search-benchmark.iterations}")
+    private int iterations;
+
+    @Value("${search-benchmark.page-size}")
+    private int pageSize;
+
+    @Value("${search-benchmark.result-file}")
+    private Path resultFile;
+
+    @Value("${search-benchmark.baseline-file}")
+    private Path baselineFile;
+
+    @Value("${search-benchmark.update-baseline}")
+    private boolean updateBaseline;
+
+    @Value("${search-benchmark.latency-tolerance}")
+    private double latencyTolerance;
+
+    @Value("${search-benchmark.fail-on-regression}")
+    private boolean failOnRegression;
+
+    record SearchCase(String name, String strategy, Function<Pageable, PageResponse<Mieszkanie>> search) {
+    }
+
+    record CaseResult(long tableRows, String searchCase, String strategy, String sort, long totalElements,
+                      double p50Ms, double p99Ms, double meanMs, long rowsScanned, List<QueryPlanSummary> plans) {
+
+        String key() {
+            return tableRows + " " + searchCase + " " + sort;
+        }
+
+        String planTypes() {
+            return plans.stream()
+                    .map(plan -> plan.query() + "=" + plan.plan())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+    }
+
+    @Test
+    void searchLatencyAndPlans_AcrossTableSizes() throws IOException {
+        List<CaseResult> results = new ArrayList<>();
+        long loadedRows = 0;
+
+        for (long size : sizes) {
+            long loadStart = System.nanoTime();
+            SearchBenchmarkData.growTo(jdbcTemplate, loadedRows, size);
+            loadedRows = size;
+            System.out.printf(Locale.ROOT, "Loaded %d rows in %.1f s%n", size, (System.nanoTime() - loadStart) / 1e9);
+
+            for (SearchCase searchCase : cases()) {
+                for (Sort sort : SORTS) {
+                    CaseResult result = measure(size, searchCase, sort);
+                    results.add(result);
+                    print(result);
+                }
+            }
+        }
+
+        writeResults(resultFile, results);
+        List<String> regressions = compareWithBaseline(results);
+        regressions.forEach(regression -> System.out.println("REGRESSION " + regression));
+        if (updateBaseline) {
+            writeResults(baselineFile, results);
+            System.out.println("Baseline updated: " + baselineFile);
+        }
+
+        assertTrue(results.stream().allMatch(result -> !result.plans().isEmpty()),
+                "Every search should execute at least one captured query");
+        assertFalse(failOnRegression && !regressions.isEmpty(), "Regressions against baseline: " + regressions);
+    }
+
+    /**
+     * Kształty kryteriów od bardzo selektywnych (inwestycja, 0,01%) po szerokie (województwo, 25%)
+     * i warunki bez indeksu (powierzchnia, piętro).
+     */
+    private List<SearchCase> cases() {
+        return List.of(
+                simple("simple-developer", MieszkanieSearchCriteria.builder().developer("Deweloper 17").build()),
+                simple("simple-investment", MieszkanieSearchCriteria.builder().investment("Inwestycja 1234").build()),
+                location("location-voivodeship", MieszkanieSearchCriteria.builder().voivodeship("mazowieckie").build()),
+                location("location-city", MieszkanieSearchCriteria.builder().city("Warszawa").build()),
+                location("location-district", MieszkanieSearchCriteria.builder()
+                        .voivodeship("małopolskie").city("małopolskie 3").district("Dzielnica 7").build()),
+                advanced("advanced-city-price", MieszkanieSearchCriteria.builder()
+                        .city("Warszawa").minPrice(new BigDecimal("600000")).maxPrice(new BigDecimal("800000")).build()),
+                advanced("advanced-status-area-floor", MieszkanieSearchCriteria.builder()
+                        .status("AVAILABLE").minArea(new BigDecimal("50")).maxArea(new BigDecimal("60")).floor(3).build()),
+                advanced("advanced-price-wide", MieszkanieSearchCriteria.builder()
+                        .minPrice(new BigDecimal("300000")).maxPrice(new BigDecimal("1200000")).build()),
+                criteria("criteria-developer-price", MieszkanieSearchCriteria.builder()
+                        .developer("Deweloper 17").minPrice(new BigDecimal("500000")).build()),
+                criteria("criteria-area", MieszkanieSearchCriteria.builder()
+                        .minArea(new BigDecimal("40")).maxArea(new BigDecimal("45")).build()));
+    }
+
+    private SearchCase simple(String name, MieszkanieSearchCriteria criteria) {
+        return new SearchCase(name, "SimpleSearchStrategy", pageable -> simpleSearchStrategy.search(criteria, pageable));
+    }
+
+    private SearchCase location(String name, MieszkanieSearchCriteria criteria) {
+        return new SearchCase(name, "LocationSearchStrategy",
+                pageable -> locationSearchStrategy.search(criteria, pageable));
+    }
+
+    private SearchCase advanced(String name, MieszkanieSearchCriteria criteria) {
+        return new SearchCase(name, "AdvancedSearchStrategy",
+                pageable -> advancedSearchStrategy.search(criteria, pageable));
+    }
+
+    private SearchCase criteria(String name, MieszkanieSearchCriteria criteria) {
+        return new SearchCase(name, "MieszkanieService.searchByCriteria",
+                pageable -> mieszkanieService.searchByCriteria(criteria, pageable));
+    }
+
+    private CaseResult measure(long tableRows, SearchCase searchCase, Sort sort) {
+        Pageable pageable = PageRequest.of(0, pageSize, sort);
+        for (int i = 0; i < warmupIterations; i++) {
+            searchCase.search().apply(pageable);
+        }
+
+        long[] samples = new long[iterations];
+        PageResponse<Mieszkanie> page = null;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            page = searchCase.search().apply(pageable);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+
+        // Zadania w tle (np. odpytywanie unieważnionych tokenów) też mogą trafić do bazy w tym czasie
+        List<QueryPlanSummary> plans = statementCapture.capture(() -> searchCase.search().apply(pageable)).stream()
+                .filter(statement -> statement.sql().contains("mieszkania"))
+                .map(this::explain)
+                .toList();
+
+        return new CaseResult(tableRows, searchCase.name(), searchCase.strategy(), label(sort),
+                page != null ? page.getTotalElements() : 0,
+                percentileMs(samples, 0.50), percentileMs(samples, 0.99),
+                Arrays.stream(samples).average().orElse(0) / 1e6,
+                plans.stream().mapToLong(QueryPlanSummary::rowsScanned).sum(),
+                plans);
+    }
+
+    private QueryPlanSummary explain(StatementCapture.CapturedStatement statement) {
+        String json = jdbcTemplate.query("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + statement.sql(), ps -> {
+            for (Map.Entry<Integer, Object> parameter : statement.parameters().entrySet()) {
+                ps.setObject(parameter.getKey(), parameter.getValue());
+            }
+        }, rs -> rs.next() ? rs.getString(1) : null);
+        return QueryPlanSummary.parse(StatementCapture.isCount(statement) ? "count" : "content", json, objectMapper);
+    }
+
+    private List<String> compareWithBaseline(List<CaseResult> results) throws IOException {
+        if (!Files.exists(baselineFile)) {
+            System.out.println("No baseline at " + baselineFile + ", comparison skipped");
+            return List.of();
+        }
+        Map<String, CaseResult> baseline = objectMapper.readValue(baselineFile.toFile(),
+                        new TypeReference<List<CaseResult>>() { })
+                .stream()
+                .collect(Collectors.toMap(CaseResult::key, Function.identity(), (first, second) -> second));
+
+        List<String> regressions = new ArrayList<>();
+        for (CaseResult current : results) {
+            CaseResult previous = baseline.get(current.key());
+            if (previous == null) {
+                continue;
+            }
+            if (current.p50Ms() > previous.p50Ms() * (1 + latencyTolerance)) {
+                regressions.add(String.format(Locale.ROOT, "%s: p50 %.2f ms -> %.2f ms",
+                        current.key(), previous.p50Ms(), current.p50Ms()));
+            }
+            if (current.rowsScanned() > previous.rowsScanned() * (1 + ROWS_SCANNED_TOLERANCE)) {
+                regressions.add(String.format(Locale.ROOT, "%s: rows scanned %d -> %d",
+                        current.key(), previous.rowsScanned(), current.rowsScanned()));
+            }
+            if (!current.planTypes().equals(previous.planTypes())) {
+                regressions.add(current.key() + ": plan " + previous.planTypes() + " -> " + current.planTypes());
+            }
+        }
+        return regressions;
+    }
+
+    private void writeResults(Path file, List<CaseResult> results) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), results);
+    }
+
+    private static void print(CaseResult result) {
+        System.out.printf(Locale.ROOT, "%9d %-28s %-12s p50=%9.2f ms p99=%9.2f ms total=%9d scanned=%9d %s%n",
+                result.tableRows(), result.searchCase(), result.sort(), result.p50Ms(), result.p99Ms(),
+                result.totalElements(), result.rowsScanned(), result.planTypes());
+    }
+
+    private static double percentileMs(long[] sortedSamples, double percentile) {
+        int rank = (int) Math.ceil(percentile * sortedSamples.length);
+        return sortedSamples[Math.max(rank - 1, 0)] / 1e6;
+    }
+
+    private static String label(Sort sort) {
+        return sort.isUnsorted() ? "unsorted" : sort.toString().replace(": ", ",");
+    }
+}
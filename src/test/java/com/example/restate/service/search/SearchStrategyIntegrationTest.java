@@ -321,7 +321,7 @@ public class SearchStrategyIntegrationTest extends IntegrationTestConfig {
 
         // Then
         assertEquals(2, result.getTotalElements());
-        assertTrue(result.getContent().stream().allMatch(m -> "Mazowieckie".equals(m.getVoivodeship())));
+        assertTrue(result.getContent().stream().allMatch(m -> "mazowieckie".equals(m.getVoivodeship())));
     }
 
     @Test
@@ -374,7 +374,7 @@ public class SearchStrategyIntegrationTest extends IntegrationTestConfig {
         // Then
         assertEquals(1, result.getTotalElements());
         assertEquals("StandardDev", result.getContent().get(0).getDeveloper());
-        assertEquals("Mazowieckie", result.getContent().get(0).getVoivodeship());
+        assertEquals("mazowieckie", result.getContent().get(0).getVoivodeship());
         assertEquals("Warszawa", result.getContent().get(0).getCity());
         assertEquals("Mokotów", result.getContent().get(0).getDistrict());
     }
@@ -397,7 +397,7 @@ public class SearchStrategyIntegrationTest extends IntegrationTestConfig {
         assertEquals(2, result.getTotalElements());
         // Should return all apartments in Warszawa, Mazowieckie, regardless of developer or price
         assertTrue(result.getContent().stream().allMatch(m -> "Warszawa".equals(m.getCity())));
-        assertTrue(result.getContent().stream().allMatch(m -> "Mazowieckie".equals(m.getVoivodeship())));
+        assertTrue(result.getContent().stream().allMatch(m -> "mazowieckie".equals(m.getVoivodeship())));
     }
 
     @Test
@@ -0,0 +1,122 @@
+package com.example.restate.service.search;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Zapamiętuje instrukcje SQL wykonane przez aplikację razem z wartościami parametrów, żeby benchmark
+ * mógł je powtórzyć z {@code EXPLAIN ANALYZE}. Opakowuje źródło danych aplikacji; zapis jest włączony
+ * tylko na czas {@link #capture(Supplier)}, więc pomiary czasu nie są nim obciążone.
+ */
+class StatementCapture implements BeanPostProcessor {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate");
+
+    private final AtomicBoolean enabled = new AtomicBoolean();
+    private final List<CapturedStatement> captured = new CopyOnWriteArrayList<>();
+
+    record CapturedStatement(String sql, Map<Integer, Object> parameters) {
+    }
+
+    /**
+     * Wykonuje zadanie i zwraca instrukcje, które w tym czasie trafiły do bazy (także z innych wątków,
+     * np. równoległe zapytanie COUNT).
+     */
+    List<CapturedStatement> capture(Supplier<?> task) {
+        captured.clear();
+        enabled.set(true);
+        try {
+            task.get();
+        } finally {
+            enabled.set(false);
+        }
+        return List.copyOf(captured);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof CapturingDataSource)) {
+            return new CapturingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    private class CapturingDataSource extends DelegatingDataSource {
+
+        CapturingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return wrap(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return wrap(super.getConnection(username, password));
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                        return wrap(statement, (String) args[0]);
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement wrap(PreparedStatement statement, String sql) {
+        Map<Integer, Object> parameters = Collections.synchronizedMap(new TreeMap<>());
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("setNull") && args.length >= 2) {
+                        parameters.put((Integer) args[0], null);
+                    } else if (name.startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer index) {
+                        parameters.put(index, args[1]);
+                    } else if (name.equals("clearParameters")) {
+                        parameters.clear();
+                    } else if (EXECUTE_METHODS.contains(name) && (args == null || args.length == 0)
+                            && enabled.get()) {
+                        captured.add(new CapturedStatement(sql, new TreeMap<>(parameters)));
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Zapytanie COUNT strony w odróżnieniu od zapytania o jej zawartość.
+     */
+    static boolean isCount(CapturedStatement statement) {
+        return statement.sql().toLowerCase().contains("count(");
+    }
+}
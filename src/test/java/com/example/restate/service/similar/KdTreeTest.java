@@ -0,0 +1,69 @@
+package com.example.restate.service.similar;
+
+import com.example.restate.entity.Mieszkanie;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KdTreeTest {
+
+    private static final String[] DISTRICTS = {"Mokotów", "Wola", "Ursynów"};
+    private static final String[] DEVELOPERS = {"Dom", "Atal", "Robyg", "Murapol"};
+
+    @Test
+    void search_ShouldMatchBruteForceNearestNeighbours() {
+        // Given
+        Random random = new Random(7);
+        List<ListingPoint> points = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            points.add(randomPoint(i, random));
+        }
+        KdTree tree = KdTree.build(points);
+
+        for (int query = 0; query < 200; query++) {
+            ListingPoint reference = randomPoint(-1, random);
+
+            // When
+            KdTree.Neighbours neighbours = new KdTree.Neighbours(10);
+            tree.search(reference, point -> point.status() == Mieszkanie.Status.AVAILABLE, neighbours);
+
+            // Then
+            List<Double> expected = points.stream()
+                    .filter(point -> point.status() == Mieszkanie.Status.AVAILABLE)
+                    .map(reference::distanceSquared)
+                    .sorted(Comparator.naturalOrder())
+                    .limit(10)
+                    .toList();
+            List<Double> actual = neighbours.sorted().stream()
+                    .map(KdTree.Candidate::distanceSquared)
+                    .toList();
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void search_OnEmptyTree_ShouldFindNothing() {
+        // Given
+        KdTree tree = KdTree.build(List.of());
+        KdTree.Neighbours neighbours = new KdTree.Neighbours(5);
+
+        // When
+        tree.search(randomPoint(1, new Random(1)), point -> true, neighbours);
+
+        // Then
+        assertEquals(0, tree.size());
+        assertTrue(neighbours.sorted().isEmpty());
+    }
+
+    private static ListingPoint randomPoint(int id, Random random) {
+        double[] coords = {random.nextGaussian() * 3, random.nextGaussian() * 3, random.nextInt(10) * 0.2};
+        Mieszkanie.Status status = random.nextInt(4) == 0 ? Mieszkanie.Status.SOLD : Mieszkanie.Status.AVAILABLE;
+        return new ListingPoint(id, coords, "Warszawa", DISTRICTS[random.nextInt(DISTRICTS.length)],
+                DEVELOPERS[random.nextInt(DEVELOPERS.length)], status);
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.restate.service.similar;
+
+import com.example.restate.config.StartupWork;
+import com.example.restate.dto.ListingFeatures;
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.event.MieszkanieChangedEvent;
+import com.example.restate.repository.MieszkanieRepository;
+import com.example.restate.service.cache.CacheInvalidationMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SimilarListingIndexTest {
+
+    @Mock
+    private MieszkanieRepository mieszkanieRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimilarListingIndex similarListingIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(mieszkanieRepository.streamListingFeatures()).thenReturn(Stream.of(
+                features(1, "Warszawa", "Mokotów", 600000, 50, Mieszkanie.Status.AVAILABLE),
+                features(2, "Warszawa", "Mokotów", 610000, 51, Mieszkanie.Status.AVAILABLE),
+                features(3, "Warszawa", "Mokotów", 605000, 50, Mieszkanie.Status.SOLD),
+                features(4, "Warszawa", "Wola", 1200000, 95, Mieszkanie.Status.AVAILABLE),
+                features(5, "Kraków", "Mokotów", 600000, 50, Mieszkanie.Status.AVAILABLE),
+                features(6, "Warszawa", "Mokotów", null, 50, Mieszkanie.Status.AVAILABLE)));
+        similarListingIndex = new SimilarListingIndex(mieszkanieRepository, transactionManager, new StartupWork());
+        similarListingIndex.loadAll();
+    }
+
+    @Test
+    void loadAll_ShouldSkipListingsWithoutPriceOrArea() {
+        assertEquals(5, similarListingIndex.size());
+        assertTrue(similarListingIndex.findSimilar(6, 10, null).isEmpty());
+    }
+
+    @Test
+    void findSimilar_ShouldRankByDistanceWithinCityAndStatus() {
+        // When
+        List<Integer> available = similarListingIndex.findSimilar(1, 10, Mieszkanie.Status.AVAILABLE);
+        List<Integer> any = similarListingIndex.findSimilar(1, 10, null);
+
+        // Then - mieszkanie 5 jest w innym mieście
+        assertEquals(List.of(2, 4), available);
+        assertEquals(List.of(3, 2, 4), any);
+    }
+
+    @Test
+    void onMieszkanieChanged_ShouldBeVisibleBeforeAndAfterRebuild() {
+        // Given
+        MieszkanieDTO created = dto(7, "Warszawa", "Mokotów", 600000, 50, Mieszkanie.Status.AVAILABLE);
+        similarListingIndex.onMieszkanieChanged(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.CREATED, 7, null, created));
+        similarListingIndex.onMieszkanieChanged(MieszkanieChangedEvent.deleted(
+                dto(2, "Warszawa", "Mokotów", 610000, 51, Mieszkanie.Status.AVAILABLE)));
+
+        // When
+        List<Integer> beforeRebuild = similarListingIndex.findSimilar(1, 2, Mieszkanie.Status.AVAILABLE);
+        int rebuiltCities = similarListingIndex.rebuildDirtyCities();
+        List<Integer> afterRebuild = similarListingIndex.findSimilar(1, 2, Mieszkanie.Status.AVAILABLE);
+
+        // Then
+        assertEquals(List.of(7, 4), beforeRebuild);
+        assertEquals(1, rebuiltCities);
+        assertEquals(0, similarListingIndex.getPendingCount());
+        assertEquals(beforeRebuild, afterRebuild);
+    }
+
+    @Test
+    void onMieszkanieChanged_WhenListingMovesCity_ShouldLeaveOldCity() {
+        // Given
+        similarListingIndex.onMieszkanieChanged(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.UPDATED, 2,
+                dto(2, "Warszawa", "Mokotów", 610000, 51, Mieszkanie.Status.AVAILABLE),
+                dto(2, "Kraków", "Mokotów", 610000, 51, Mieszkanie.Status.AVAILABLE)));
+
+        // When
+        similarListingIndex.rebuildDirtyCities();
+
+        // Then
+        assertEquals(List.of(4), similarListingIndex.findSimilar(1, 10, Mieszkanie.Status.AVAILABLE));
+        assertEquals(List.of(2), similarListingIndex.findSimilar(5, 10, Mieszkanie.Status.AVAILABLE));
+    }
+
+    @Test
+    void onInvalidation_FromAnotherNode_ShouldReadListingAndMoveItToItsCity() {
+        // Given
+        when(mieszkanieRepository.findListingFeaturesById(2)).thenReturn(Optional.of(
+                features(2, "Kraków", "Mokotów", 610000, 51, Mieszkanie.Status.AVAILABLE)));
+        CacheInvalidationMessage message = CacheInvalidationMessage.forMieszkanie(new MieszkanieChangedEvent(
+                MieszkanieChangedEvent.ChangeType.UPDATED, 2,
+                dto(2, "Warszawa", "Mokotów", 610000, 51, Mieszkanie.Status.AVAILABLE),
+                dto(2, "Kraków", "Mokotów", 610000, 51, Mieszkanie.Status.AVAILABLE)));
+        message.setRemote(true);
+
+        // When
+        similarListingIndex.onInvalidation(message);
+
+        // Then
+        assertEquals(List.of(4), similarListingIndex.findSimilar(1, 10, Mieszkanie.Status.AVAILABLE));
+        assertEquals(List.of(2), similarListingIndex.findSimilar(5, 10, Mieszkanie.Status.AVAILABLE));
+    }
+
+    @Test
+    void onInvalidation_WhenListingWasDeletedOnAnotherNode_ShouldDropIt() {
+        // Given
+        when(mieszkanieRepository.findListingFeaturesById(2)).thenReturn(Optional.empty());
+        CacheInvalidationMessage message = CacheInvalidationMessage.forMieszkanie(MieszkanieChangedEvent.deleted(
+                dto(2, "Warszawa", "Mokotów", 610000, 51, Mieszkanie.Status.AVAILABLE)));
+        message.setRemote(true);
+
+        // When
+        similarListingIndex.onInvalidation(message);
+
+        // Then
+        assertEquals(4, similarListingIndex.size());
+    }
+
+    @Test
+    void onInvalidation_FromThisNode_ShouldBeIgnored() {
+        // When
+        similarListingIndex.onInvalidation(CacheInvalidationMessage.forMieszkanie(MieszkanieChangedEvent.deleted(
+                dto(2, "Warszawa", "Mokotów", 610000, 51, Mieszkanie.Status.AVAILABLE))));
+
+        // Then
+        verify(mieszkanieRepository, never()).findListingFeaturesById(any());
+        assertEquals(5, similarListingIndex.size());
+    }
+
+    @Test
+    void onFullFlush_ShouldReloadOnNextRebuild() {
+        // Given
+        when(mieszkanieRepository.streamListingFeatures()).thenReturn(Stream.of(
+                features(1, "Warszawa", "Mokotów", 600000, 50, Mieszkanie.Status.AVAILABLE)));
+
+        // When
+        similarListingIndex.onFullFlush();
+        similarListingIndex.rebuildDirtyCities();
+
+        // Then
+        assertEquals(1, similarListingIndex.size());
+    }
+
+    private static ListingFeatures features(int id, String city, String district, Integer price, int area,
+                                            Mieszkanie.Status status) {
+        return new ListingFeatures(id, price != null ? BigDecimal.valueOf(price) : null, BigDecimal.valueOf(area),
+                3, city, district, "Dom Development", status);
+    }
+
+    private static MieszkanieDTO dto(int id, String city, String district, int price, int area,
+                                     Mieszkanie.Status status) {
+        return MieszkanieDTO.builder()
+                .id(id)
+                .city(city)
+                .district(district)
+                .developer("Dom Development")
+                .price(BigDecimal.valueOf(price))
+                .area(BigDecimal.valueOf(area))
+                .floor(3)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.restate.service.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KllSketchTest {
+
+    @Test
+    void emptySketch_ShouldReturnNaN() {
+        // Given
+        KllSketch sketch = new KllSketch(200, 1);
+
+        // Then
+        assertEquals(0, sketch.getCount());
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        assertTrue(Double.isNaN(sketch.getRank(100)));
+    }
+
+    @Test
+    void smallInput_ShouldBeExact() {
+        // Given
+        KllSketch sketch = new KllSketch(200, 1);
+        for (int i = 1; i <= 100; i++) {
+            sketch.update(i);
+        }
+
+        // Then
+        assertEquals(1, sketch.getMin());
+        assertEquals(100, sketch.getMax());
+        assertEquals(50, sketch.getQuantile(0.5));
+        assertEquals(90, sketch.getQuantile(0.9));
+        assertEquals(0.25, sketch.getRank(25));
+    }
+
+    @Test
+    void largeInput_ShouldStayWithinRankErrorAndBoundedMemory() {
+        // Given
+        KllSketch sketch = new KllSketch(200, 42);
+        Random random = new Random(42);
+        double[] values = new double[200_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 300_000 + random.nextGaussian() * 80_000;
+            sketch.update(values[i]);
+        }
+        Arrays.sort(values);
+
+        // Then
+        double bound = KllSketch.normalizedRankError(200);
+        for (double q : new double[]{0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99}) {
+            double estimate = sketch.getQuantile(q);
+            double trueRank = (double) upperBound(values, estimate) / values.length;
+            assertEquals(q, trueRank, bound, "quantile " + q);
+        }
+        assertEquals(values.length, sketch.getCount());
+        assertTrue(sketch.getRetained() < 1000, "retained " + sketch.getRetained());
+    }
+
+    @Test
+    void merge_ShouldMatchSketchOfUnion() {
+        // Given
+        KllSketch low = new KllSketch(200, 1);
+        KllSketch high = new KllSketch(200, 2);
+        for (int i = 0; i < 50_000; i++) {
+            low.update(i);
+            high.update(50_000 + i);
+        }
+
+        // When
+        KllSketch merged = low.copy();
+        merged.merge(high);
+
+        // Then
+        double bound = KllSketch.normalizedRankError(200);
+        assertEquals(100_000, merged.getCount());
+        assertEquals(0, merged.getMin());
+        assertEquals(99_999, merged.getMax());
+        assertEquals(0.5, merged.getQuantile(0.5) / 100_000, bound);
+        assertEquals(0.25, merged.getRank(25_000), bound);
+        assertEquals(50_000, low.getCount());
+    }
+
+    @Test
+    void getQuantile_OutsideRange_ShouldThrowIllegalArgumentException() {
+        // Given
+        KllSketch sketch = new KllSketch(200, 1);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> sketch.getQuantile(1.5));
+    }
+
+    private static int upperBound(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index < sorted.length && sorted[index] == value) {
+            index++;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.restate.service.stream;
+
+import com.example.restate.dto.MieszkanieDTO;
+import com.example.restate.dto.MieszkanieSearchCriteria;
+import com.example.restate.entity.Mieszkanie;
+import com.example.restate.event.MieszkanieChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListingStreamServiceTest {
+
+    private ListingStreamService listingStreamService;
+    private Mieszkanie mieszkanie;
+
+    @BeforeEach
+    void setUp() {
+        listingStreamService = new ListingStreamService(4, 60000);
+
+        mieszkanie = new Mieszkanie();
+        mieszkanie.setId(1);
+        mieszkanie.setCity("Warsaw");
+        mieszkanie.setPrice(BigDecimal.valueOf(500000));
+        mieszkanie.setStatus(Mieszkanie.Status.AVAILABLE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listingStreamService.destroy();
+    }
+
+    @Test
+    void subscribe_ShouldRegisterSubscriber() {
+        // When
+        SseEmitter emitter = listingStreamService.subscribe(MieszkanieSearchCriteria.builder().city("Warsaw").build());
+
+        // Then
+        assertNotNull(emitter);
+        assertEquals(1, listingStreamService.getSubscriberCount());
+    }
+
+    @Test
+    void onMieszkanieChanged_WithManyEventsForSlowSubscriber_ShouldNotBlockPublisher() {
+        // Given - emitter is not attached to a response, so every send is buffered in memory
+        listingStreamService.subscribe(MieszkanieSearchCriteria.builder().city("Warsaw").build());
+
+        // When & Then
+        assertDoesNotThrow(() -> {
+            for (int i = 0; i < 1000; i++) {
+                listingStreamService.onMieszkanieChanged(MieszkanieChangedEvent.created(mieszkanie));
+            }
+        });
+        assertEquals(1, listingStreamService.getSubscriberCount());
+    }
+
+    @Test
+    void matches_WhenCurrentStateMatches_ShouldReturnTrue() {
+        // Given
+        MieszkanieSearchCriteria criteria = MieszkanieSearchCriteria.builder().status("SOLD").build();
+        MieszkanieDTO previous = MieszkanieDTO.fromEntity(mieszkanie);
+        mieszkanie.setStatus(Mieszkanie.Status.SOLD);
+
+        // When
+        boolean result = ListingStreamService.matches(criteria,
+                MieszkanieChangedEvent.statusChanged(previous, mieszkanie));
+
+        // Then
+        assertTrue(result);
+    }
+
+    @Test
+    void matches_WhenListingLeavesCriteria_ShouldReturnTrue() {
+        // Given
+        MieszkanieSearchCriteria criteria = MieszkanieSearchCriteria.builder().status("AVAILABLE").build();
+        MieszkanieDTO previous = MieszkanieDTO.fromEntity(mieszkanie);
+        mieszkanie.setStatus(Mieszkanie.Status.RESERVED);
+
+        // When
+        boolean result = ListingStreamService.matches(criteria,
+                MieszkanieChangedEvent.statusChanged(previous, mieszkanie));
+
+        // Then
+        assertTrue(result);
+    }
+
+    @Test
+    void matches_WhenNeitherStateMatches_ShouldReturnFalse() {
+        // Given
+        MieszkanieSearchCriteria criteria = MieszkanieSearchCriteria.builder().city("Krakow").build();
+
+        // When
+        boolean created = ListingStreamService.matches(criteria, MieszkanieChangedEvent.created(mieszkanie));
+        boolean deleted = ListingStreamService.matches(criteria,
+                MieszkanieChangedEvent.deleted(MieszkanieDTO.fromEntity(mieszkanie)));
+
+        // Then
+        assertFalse(created);
+        assertFalse(deleted);
+    }
+}
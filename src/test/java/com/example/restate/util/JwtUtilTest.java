@@ -1,5 +1,8 @@
 package com.example.restate.util;
 
+import com.example.restate.entity.Role;
+import com.example.restate.entity.User;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +11,8 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -91,4 +96,93 @@ class JwtUtilTest {
         // Then
         assertFalse(isValid);
     }
-}
\ No newline at end of file
+
+    @Test
+    void generateToken_WithUserDetails_ShouldEmbedRoles() {
+        // Given
+        User user = new User();
+        user.setUsername(TEST_USERNAME);
+        user.setRole(Role.ADMIN);
+
+        // When
+        Claims claims = jwtUtil.extractClaims(jwtUtil.generateToken(user));
+
+        // Then
+        assertEquals(TEST_USERNAME, claims.getSubject());
+        assertEquals(List.of("ROLE_ADMIN"), jwtUtil.extractRoles(claims));
+        assertNotNull(claims.getIssuedAt());
+    }
+
+    @Test
+    void extractRoles_WithTokenWithoutRoles_ShouldReturnNull() {
+        // Given
+        Claims claims = jwtUtil.extractClaims(jwtUtil.generateToken(TEST_USERNAME));
+
+        // When & Then
+        assertNull(jwtUtil.extractRoles(claims));
+    }
+
+    @Test
+    void extractClaims_ShouldReuseVerifiedClaimsForSameToken() {
+        // Given
+        String token = jwtUtil.generateToken(TEST_USERNAME);
+
+        // When
+        Claims first = jwtUtil.extractClaims(token);
+        Claims second = jwtUtil.extractClaims(token);
+
+        // Then
+        assertSame(first, second);
+    }
+
+    @Test
+    void extractClaims_WithTamperedCopyOfVerifiedToken_ShouldThrowException() {
+        // Given
+        String token = jwtUtil.generateToken(TEST_USERNAME);
+        jwtUtil.extractClaims(token);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> jwtUtil.extractClaims(tampered));
+    }
+
+    @Test
+    void extractClaims_WithExpiredToken_ShouldThrowException() {
+        // Given
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        String expired = Jwts.builder()
+                .subject(TEST_USERNAME)
+                .issuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .expiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(key, Jwts.SIG.HS256)
+                .compact();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> jwtUtil.extractClaims(expired));
+    }
+
+    @Test
+    void generateToken_ShouldAssignUniqueTokenId() {
+        // When
+        Claims first = jwtUtil.extractClaims(jwtUtil.generateToken(TEST_USERNAME));
+        Claims second = jwtUtil.extractClaims(jwtUtil.generateToken(TEST_USERNAME));
+
+        // Then
+        assertNotNull(first.getId());
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    @Test
+    void generateToken_ShouldUseConfiguredExpiration() {
+        // Given
+        JwtUtil shortLived = new JwtUtil(60_000);
+        shortLived.init();
+
+        // When
+        Claims claims = shortLived.extractClaims(shortLived.generateToken(TEST_USERNAME));
+
+        // Then
+        long lifetimeMs = claims.getExpiration().getTime() - claims.getIssuedAt().getTime();
+        assertTrue(lifetimeMs <= 60_000 && lifetimeMs > 55_000);
+    }
+}